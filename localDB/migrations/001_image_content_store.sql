@@ -0,0 +1,8 @@
+-- Image contents move from image.pic_byte to the content-addressed image store.
+-- Required before starting with spring.jpa.hibernate.ddl-auto=validate.
+-- LegacyImageContentMigrator copies existing pic_byte values to the store at startup and clears them.
+
+ALTER TABLE `image`
+  ADD COLUMN `hash` varchar(64) DEFAULT NULL,
+  ADD COLUMN `size` bigint DEFAULT NULL,
+  ADD INDEX `idx_image_hash` (`hash`);
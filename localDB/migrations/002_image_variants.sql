@@ -0,0 +1,17 @@
+-- Resized variants (DETAIL, CARD, THUMBNAIL) generated in the background for each uploaded image.
+-- Required before starting with spring.jpa.hibernate.ddl-auto=validate.
+-- Variant contents live in the image store; hash references are counted together with image.hash.
+
+CREATE TABLE `image_variant` (
+  `id` bigint NOT NULL AUTO_INCREMENT,
+  `image_id` bigint NOT NULL,
+  `variant` varchar(16) NOT NULL,
+  `hash` varchar(64) NOT NULL,
+  `type` varchar(255) DEFAULT NULL,
+  `width` int DEFAULT NULL,
+  `height` int DEFAULT NULL,
+  `size` bigint DEFAULT NULL,
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_image_variant` (`image_id`, `variant`),
+  KEY `idx_image_variant_hash` (`hash`)
+);
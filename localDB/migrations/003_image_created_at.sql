@@ -0,0 +1,5 @@
+-- Upload time of each image, used by the orphan image cleanup to spare images not yet linked to a product.
+-- Required before starting with spring.jpa.hibernate.ddl-auto=validate.
+-- Existing rows keep a NULL value and are treated as old enough to be collected when unreferenced.
+
+ALTER TABLE `image` ADD COLUMN `created_at` datetime(6) DEFAULT NULL;
@@ -0,0 +1,12 @@
+-- Resumable chunked uploads of large images.
+-- Required before starting with spring.jpa.hibernate.ddl-auto=validate.
+-- The bytes received are kept in <storage-dir>/.uploads/<id>.part until the session is committed or expires.
+
+CREATE TABLE `image_upload_session` (
+  `id` varchar(36) NOT NULL,
+  `file_name` varchar(255) DEFAULT NULL,
+  `size` bigint DEFAULT NULL,
+  `created_at` datetime(6) DEFAULT NULL,
+  PRIMARY KEY (`id`),
+  KEY `idx_image_upload_session_created_at` (`created_at`)
+);
@@ -0,0 +1,6 @@
+-- Perceptual hash (dHash) of each image, used to detect near-duplicate uploads.
+-- Required before starting with spring.jpa.hibernate.ddl-auto=validate.
+-- Existing rows are filled in the background when the application starts.
+
+ALTER TABLE `image`
+  ADD COLUMN `perceptual_hash` bigint DEFAULT NULL;
@@ -0,0 +1,6 @@
+-- BlurHash placeholder of each image, returned in product listings.
+-- Required before starting with spring.jpa.hibernate.ddl-auto=validate.
+-- Existing rows are filled in the background, in throttled batches, when the application starts.
+
+ALTER TABLE `image`
+  ADD COLUMN `placeholder` varchar(64) DEFAULT NULL;
@@ -0,0 +1,11 @@
+-- Indexes for the cursor (keyset) pagination of products and orders, sorted by name and ID.
+-- Required before starting with spring.jpa.hibernate.ddl-auto=validate.
+-- Each page seeks on (name, id) > (last name, last id), so it reads the index from the cursor onwards
+-- instead of skipping the previous rows with OFFSET.
+
+ALTER TABLE `product`
+  ADD INDEX `idx_product_name` (`product_name`, `product_id`);
+
+ALTER TABLE `order-detail`
+  ADD INDEX `idx_order_detail_full_name` (`order_full_name`, `order_id`),
+  ADD INDEX `idx_order_detail_user_full_name` (`user_user_name`, `order_full_name`, `order_id`);
@@ -0,0 +1,120 @@
+package spring.ecommerce.configuration;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Enables {@code @Async} methods and declares the executors they run on.
+ */
+@Configuration
+@EnableAsync
+@Slf4j
+public class AsyncConfiguration {
+
+	public static final String IMAGE_TASK_EXECUTOR = "imageTaskExecutor";
+	public static final String IMAGE_UPLOAD_EXECUTOR = "imageUploadExecutor";
+	public static final String IMAGE_MAINTENANCE_EXECUTOR = "imageMaintenanceExecutor";
+
+	/**
+	 * Default application executor, also used by Spring MVC for streaming responses.
+	 * <p>
+	 * Spring Boot only creates it when no other executor is declared, so it is declared here explicitly with
+	 * the {@code spring.task.execution.*} settings.
+	 * </p>
+	 *
+	 * @param builder the builder configured by Spring Boot
+	 * @return the application task executor
+	 */
+	@Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+	public ThreadPoolTaskExecutor applicationTaskExecutor(ThreadPoolTaskExecutorBuilder builder) {
+		return builder.build();
+	}
+
+	/**
+	 * Bounded executor for image processing.
+	 * <p>
+	 * Image decoding is CPU and memory intensive, so only a few images are processed at a time and a limited
+	 * number of tasks wait in the queue. Tasks rejected when the queue is full are logged and dropped: clients
+	 * keep using the original image until its variants are generated again.
+	 * </p>
+	 *
+	 * @param poolSize      the number of worker threads
+	 * @param queueCapacity the maximum number of waiting tasks
+	 * @return the image task executor
+	 */
+	@Bean(name = IMAGE_TASK_EXECUTOR)
+	public ThreadPoolTaskExecutor imageTaskExecutor(
+			@Value("${ecommerce.images.variants.pool-size:2}") int poolSize,
+			@Value("${ecommerce.images.variants.queue-capacity:100}") int queueCapacity) {
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(poolSize);
+		executor.setMaxPoolSize(poolSize);
+		executor.setQueueCapacity(queueCapacity);
+		executor.setThreadNamePrefix("image-variants-");
+		executor.setRejectedExecutionHandler((task, pool) ->
+				log.warn("Image task queue full ({} tasks), dropping task", pool.getQueue().size()));
+		executor.setWaitForTasksToCompleteOnShutdown(true);
+		executor.setAwaitTerminationSeconds(30);
+		return executor;
+	}
+
+	/**
+	 * Executor storing the files of a multi-image upload in parallel.
+	 * <p>
+	 * It has no queue: when every thread is busy, the request thread stores the file itself, which throttles
+	 * large bulk uploads instead of piling them up in memory.
+	 * </p>
+	 *
+	 * @param poolSize the number of worker threads
+	 * @return the image upload executor
+	 */
+	@Bean(name = IMAGE_UPLOAD_EXECUTOR)
+	public ThreadPoolTaskExecutor imageUploadExecutor(@Value("${ecommerce.images.upload.pool-size:4}") int poolSize) {
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(poolSize);
+		executor.setMaxPoolSize(poolSize);
+		executor.setQueueCapacity(0);
+		executor.setThreadNamePrefix("image-upload-");
+		executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+		return executor;
+	}
+
+	/**
+	 * Single-thread executor for long-running image maintenance, such as cleanup runs requested by an admin and
+	 * the backfills of existing images after startup.
+	 * <p>
+	 * Those jobs run one after the other on their own thread, so they never hold a request thread or the
+	 * threads generating the variants of new uploads. They are interrupted on shutdown instead of delaying it.
+	 * </p>
+	 * <p>
+	 * Only one job may wait while another runs, so repeated triggers do not pile up behind a long run: further
+	 * jobs are logged and rejected, and the caller reports that maintenance is busy.
+	 * </p>
+	 *
+	 * @return the image maintenance executor
+	 */
+	@Bean(name = IMAGE_MAINTENANCE_EXECUTOR)
+	public ThreadPoolTaskExecutor imageMaintenanceExecutor() {
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(1);
+		executor.setMaxPoolSize(1);
+		executor.setQueueCapacity(1);
+		executor.setThreadNamePrefix("image-maintenance-");
+		executor.setRejectedExecutionHandler((task, pool) -> {
+			log.warn("Image maintenance busy ({} running, {} waiting), rejecting task", pool.getActiveCount(),
+					pool.getQueue().size());
+			throw new RejectedExecutionException("Image maintenance executor is busy");
+		});
+		return executor;
+	}
+}
@@ -0,0 +1,13 @@
+package spring.ecommerce.configuration;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables {@code @Scheduled} maintenance jobs, such as the orphan image cleanup.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfiguration {
+
+}
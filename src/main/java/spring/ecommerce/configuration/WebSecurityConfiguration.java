@@ -56,8 +56,10 @@ public class WebSecurityConfiguration implements WebMvcConfigurer{
                     .requestMatchers("/images/**").permitAll()
                     .requestMatchers("/api/v1/user/register").permitAll()
                     .requestMatchers("/api/v1/authenticate").permitAll()
+                    .requestMatchers(HttpMethod.GET, "/api/v1/images/image/*/content").permitAll()
                     .requestMatchers("/api/v1/images/**").hasRole(ADMIN_ROLE)
                     
+                    .requestMatchers(HttpMethod.GET, "/api/v1/products/cache/**").hasRole(ADMIN_ROLE)
                     .requestMatchers(HttpMethod.GET, "/api/v1/products/**").permitAll()
                     .requestMatchers(HttpMethod.GET, "/api/v1/product/**").permitAll()
                     .requestMatchers("/api/v1/products/**").hasRole(ADMIN_ROLE) 
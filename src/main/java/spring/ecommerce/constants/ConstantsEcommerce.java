@@ -12,5 +12,10 @@ public class ConstantsEcommerce {
 	// FILE NAMES / PRODUCTS
 	public static final String FILE_NAME = "Product_list";
 	
+	// IMAGES
+	public static final String IMAGE_CONTENT_URL = "/api/v1/images/image/%d/content";
+	public static final String IMAGE_FILES_PATH = "/images/";
+	public static final long MAX_IMAGE_SIZE = 5 * 1024 * 1024; // 5MB
+	
 	public static final String CANCELED_ORDER = "Canceled";
 }
@@ -14,6 +14,7 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -24,6 +25,7 @@ import lombok.extern.slf4j.Slf4j;
 import spring.ecommerce.dto.PageResponseDto;
 import spring.ecommerce.entity.CartEntity;
 import spring.ecommerce.entity.UserEntity;
+import spring.ecommerce.exception.InvalidCursorException;
 import spring.ecommerce.service.CartService;
 import spring.ecommerce.service.CommonService;
 
@@ -150,12 +152,20 @@ public class CartController {
 	 * @param size      The number of items per page (default is 10).
 	 * @param searchKey The search keyword for filtering cart items by product name
 	 *                  (default is empty).
+	 * @param cursor    The nextCursor of the previous page (optional). When present,
+	 *                  the page is read after it instead of by number.
+	 * @param withTotal Whether to count the items when paging with a cursor
+	 *                  (default is false).
 	 * @return ResponseEntity containing a paginated list of cart items or an error
 	 *         response.
 	 */
 	@Operation(
         summary = "Get paginated cart details",
         description = "Retrieves a paginated list of cart items for the authenticated user, optionally filtered by a search keyword.",
+        parameters = {
+            @Parameter(name = "cursor", description = "Cursor returned as nextCursor by the previous page; replaces page for keyset pagination"),
+            @Parameter(name = "withTotal", description = "Count the total with a cursor (default: false)", example = "false")
+        },
         responses = {
             @ApiResponse(
                 responseCode = "200",
@@ -171,13 +181,17 @@ public class CartController {
     )
 	@GetMapping("/cartDetails/paginated")
 	public ResponseEntity<?> getCartDetailsOrderedByNameWithPagination(@RequestParam(defaultValue = "0") int page,
-			@RequestParam(defaultValue = "10") int size, @RequestParam(defaultValue = "") String searchKey) {
+			@RequestParam(defaultValue = "10") int size, @RequestParam(defaultValue = "") String searchKey,
+			@RequestParam(required = false) String cursor, @RequestParam(defaultValue = "false") boolean withTotal) {
 		try {
 			// Usamos el servicio para obtener los productos filtrados o no según el
 			// searchKey
-			PageResponseDto<CartEntity> pagedResponse = this.cartService.getCartDetailsOrderedByNameWithPagination(page,
-					size, searchKey);
+			PageResponseDto<CartEntity> pagedResponse = cursor == null
+					? this.cartService.getCartDetailsOrderedByNameWithPagination(page, size, searchKey)
+					: this.cartService.getCartDetailsOrderedByNameWithCursor(cursor, size, searchKey, withTotal);
 			return ResponseEntity.ok(pagedResponse);
+		} catch (InvalidCursorException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
 		} catch (Exception e) {
 			log.error("Error occurred while retrieving paginated product list", e.getMessage(), e);
 			return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
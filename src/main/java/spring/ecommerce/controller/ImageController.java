@@ -1,10 +1,17 @@
 package spring.ecommerce.controller;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Base64;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -15,6 +22,11 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -24,8 +36,15 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import spring.ecommerce.dto.CacheStatsDto;
+import spring.ecommerce.dto.CursorPageResponseDto;
+import spring.ecommerce.dto.ImageCleanupReportDto;
+import spring.ecommerce.dto.ImageMetadataDto;
+import spring.ecommerce.dto.NearDuplicateClusterDto;
 import spring.ecommerce.entity.ImageEntity;
+import spring.ecommerce.service.ImageCleanupService;
 import spring.ecommerce.service.ImageService;
+import spring.ecommerce.service.NearDuplicateService;
 
 /**
  * Controller for managing image operations.
@@ -41,7 +60,12 @@ import spring.ecommerce.service.ImageService;
 
 public class ImageController {
 
+    private static final long IMAGE_CACHE_DAYS = 365;
+
     private final ImageService imageService;
+    private final ImageCleanupService imageCleanupService;
+    private final NearDuplicateService nearDuplicateService;
+    private final ObjectMapper objectMapper;
 
     /**
      * Uploads an image file and saves it.
@@ -51,7 +75,7 @@ public class ImageController {
      */
     @Operation(
         summary = "Upload an image",
-        description = "Uploads an image file and saves it to the database.",
+        description = "Uploads an image file, stores its content and saves its metadata to the database.",
         responses = {
             @ApiResponse(responseCode = "201", description = "Image successfully uploaded", content = @Content(schema = @Schema(implementation = ImageEntity.class))),
             @ApiResponse(responseCode = "400", description = "Invalid image file", content = @Content)
@@ -86,12 +110,55 @@ public class ImageController {
     public ResponseEntity<String> getImageAsBase64(@PathVariable Long id) {
         Optional<ImageEntity> image = this.imageService.getImageById(id);
         if (image.isPresent()) {
-            String base64Image = Base64.getEncoder().encodeToString(image.get().getPicByte());
+            String base64Image = Base64.getEncoder().encodeToString(this.imageService.readContent(image.get()));
             return ResponseEntity.ok(base64Image);
         }
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
     }
 
+    /**
+     * Retrieves the raw bytes of an image by its ID.
+     * <p>
+     * The image is returned as a binary body using its stored content type, together with a strong
+     * ETag derived from its content and a long-lived immutable {@code Cache-Control} header. Requests
+     * carrying a matching {@code If-None-Match} header receive a 304 response without a body, and
+     * {@code Range} requests are answered with partial content.
+     * </p>
+     *
+     * @param id the ID of the image to retrieve
+     * @return a ResponseEntity containing the image bytes if found, or a NOT_FOUND response if the image does not exist
+     */
+    @Operation(
+        summary = "Retrieve an image by ID (binary)",
+        description = "Streams the image bytes with their content type. Supports ETag revalidation and HTTP Range requests.",
+        responses = {
+            @ApiResponse(responseCode = "200", description = "Image found", content = @Content(mediaType = "image/*", schema = @Schema(type = "string", format = "binary"))),
+            @ApiResponse(responseCode = "206", description = "Partial image content", content = @Content),
+            @ApiResponse(responseCode = "304", description = "Image not modified", content = @Content),
+            @ApiResponse(responseCode = "404", description = "Image not found", content = @Content)
+        }
+    )
+    @GetMapping("/image/{id}/content")
+    public ResponseEntity<Resource> getImageContent(@PathVariable Long id) {
+        Optional<ImageEntity> image = this.imageService.getImageById(id);
+        if (image.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+
+        ImageEntity imageEntity = image.get();
+        Optional<Resource> content = this.imageService.loadContent(imageEntity);
+        if (content.isEmpty()) {
+            log.warn("Content {} of image {} is missing from the image store", imageEntity.getHash(), id);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+
+        return ResponseEntity.ok()
+                .contentType(resolveMediaType(imageEntity.getType()))
+                .eTag(this.imageService.computeETag(imageEntity))
+                .cacheControl(CacheControl.maxAge(IMAGE_CACHE_DAYS, TimeUnit.DAYS).cachePublic().immutable())
+                .body(content.get());
+    }
+
     /**
      * Retrieves an image by its name.
      * 
@@ -134,20 +201,164 @@ public class ImageController {
     }
 
     /**
-     * Retrieves a list of all images.
+     * Retrieves a page of image metadata.
+     * <p>
+     * Images are listed by ID with a keyset cursor: the first page is requested without cursor and the
+     * following ones with the {@code nextCursor} of the previous response. Only metadata and the IDs of the
+     * products using each image are returned, never the image contents.
+     * </p>
      * 
-     * @return a ResponseEntity with the list of images or an error response
+     * @param cursor the cursor of the page to retrieve (optional)
+     * @param size   the number of images per page
+     * @return a ResponseEntity with the page of images, or BAD_REQUEST if the cursor is not valid
      */
     @Operation(
-        summary = "Retrieve all images",
-        description = "Returns a list of all images stored in the database.",
+        summary = "Retrieve image metadata (paginated)",
+        description = "Returns a keyset-paginated list of image metadata with the IDs of the products using each image.",
         responses = {
-            @ApiResponse(responseCode = "200", description = "List of images retrieved", content = @Content(schema = @Schema(implementation = ImageEntity.class)))
+            @ApiResponse(responseCode = "200", description = "Page of images retrieved", content = @Content(schema = @Schema(implementation = CursorPageResponseDto.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor", content = @Content)
         }
     )
     @GetMapping
-    public ResponseEntity<List<ImageEntity>> getAllImages() {
-        List<ImageEntity> images = this.imageService.getAllImages();
-        return ResponseEntity.ok(images);
+    public ResponseEntity<CursorPageResponseDto<ImageMetadataDto>> getAllImages(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "50") int size) {
+        try {
+            return ResponseEntity.ok(this.imageService.getImageMetadataPage(cursor, size));
+        } catch (NumberFormatException e) {
+            log.warn("Invalid image cursor: {}", cursor);
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Streams the metadata of every image as newline-delimited JSON.
+     * <p>
+     * Each line is one {@link ImageMetadataDto}. Images are read from the database in batches and written
+     * as they are read, so the full listing can be exported without holding it in memory.
+     * </p>
+     * 
+     * @return a ResponseEntity streaming the image metadata
+     */
+    @Operation(
+        summary = "Export all image metadata",
+        description = "Streams the metadata of every image as newline-delimited JSON (application/x-ndjson).",
+        responses = {
+            @ApiResponse(responseCode = "200", description = "Image metadata streamed")
+        }
+    )
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportImages() {
+        StreamingResponseBody body = outputStream -> {
+            ObjectWriter writer = this.objectMapper.writerFor(ImageMetadataDto.class)
+                    .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            this.imageService.forEachImageMetadata(image -> {
+                try {
+                    writer.writeValue(outputStream, image);
+                    outputStream.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            outputStream.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * Retrieves the hit, miss and eviction counters of the image caches.
+     * 
+     * @return a ResponseEntity with the statistics of each image cache
+     */
+    @Operation(
+        summary = "Retrieve image cache statistics",
+        description = "Returns the hit, miss and eviction counters and the current size of the image metadata and content caches.",
+        responses = {
+            @ApiResponse(responseCode = "200", description = "Cache statistics retrieved", content = @Content(schema = @Schema(implementation = CacheStatsDto.class)))
+        }
+    )
+    @GetMapping("/cache/stats")
+    public ResponseEntity<List<CacheStatsDto>> getCacheStats() {
+        return ResponseEntity.ok(this.imageService.getCacheStats());
+    }
+
+    /**
+     * Retrieves the report of the last orphan image cleanup.
+     * 
+     * @return a ResponseEntity with the last report, or NO_CONTENT if the cleanup has not run yet
+     */
+    @Operation(
+        summary = "Retrieve the last image cleanup report",
+        description = "Returns the number of orphan images, variants and contents deleted by the last cleanup run.",
+        responses = {
+            @ApiResponse(responseCode = "200", description = "Cleanup report retrieved", content = @Content(schema = @Schema(implementation = ImageCleanupReportDto.class))),
+            @ApiResponse(responseCode = "204", description = "The cleanup has not run yet", content = @Content)
+        }
+    )
+    @GetMapping("/gc/report")
+    public ResponseEntity<ImageCleanupReportDto> getCleanupReport() {
+        return this.imageCleanupService.getLastReport()
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.noContent().build());
+    }
+
+    /**
+     * Starts the orphan image cleanup in the background.
+     * 
+     * @return a ResponseEntity with ACCEPTED once the run is started, or CONFLICT if a cleanup is already running
+     */
+    @Operation(
+        summary = "Run the image cleanup",
+        description = "Starts deleting images not linked to any product, variants of deleted images and unreferenced contents, older than the grace period. The report is available from /gc/report when the run finishes.",
+        responses = {
+            @ApiResponse(responseCode = "202", description = "Cleanup started", content = @Content),
+            @ApiResponse(responseCode = "409", description = "A cleanup or another image maintenance job is already running", content = @Content)
+        }
+    )
+    @PostMapping("/gc")
+    public ResponseEntity<Void> runCleanup() {
+        if (!this.imageCleanupService.startGarbageCollection()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return ResponseEntity.accepted().build();
+    }
+
+    /**
+     * Lists the groups of stored images that look the same.
+     * 
+     * @param maxDistance the maximum Hamming distance between perceptual hashes, the configured one if absent
+     * @return a ResponseEntity with the clusters of near-duplicate images, the largest first
+     */
+    @Operation(
+        summary = "List near-duplicate images",
+        description = "Groups the stored images whose perceptual hashes differ in at most maxDistance bits (0-64).",
+        responses = {
+            @ApiResponse(responseCode = "200", description = "Near-duplicate clusters", content = @Content(schema = @Schema(implementation = NearDuplicateClusterDto.class)))
+        }
+    )
+    @GetMapping("/near-duplicates")
+    public ResponseEntity<List<NearDuplicateClusterDto>> getNearDuplicates(
+            @RequestParam(required = false) Integer maxDistance) {
+        return ResponseEntity.ok(this.nearDuplicateService.findClusters(maxDistance));
+    }
+
+    /**
+     * Parses the stored content type of an image, falling back to {@code application/octet-stream}
+     * when it is missing or invalid.
+     *
+     * @param type the stored content type
+     * @return the media type to send to the client
+     */
+    private MediaType resolveMediaType(String type) {
+        if (type == null || type.isBlank()) {
+            return MediaType.APPLICATION_OCTET_STREAM;
+        }
+        try {
+            return MediaType.parseMediaType(type);
+        } catch (InvalidMediaTypeException e) {
+            log.warn("Invalid content type stored for image: {}", type);
+            return MediaType.APPLICATION_OCTET_STREAM;
+        }
     }
 }
@@ -0,0 +1,176 @@
+package spring.ecommerce.controller;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import spring.ecommerce.storage.ContentHash;
+import spring.ecommerce.storage.FileSystemImageStore;
+import spring.ecommerce.storage.ImageFormats;
+import spring.ecommerce.storage.ImagePackStore;
+
+/**
+ * Serves stored image contents as static files under {@code /images/**}.
+ * <p>
+ * Files are named after their content hash, so they never change: the hash is used as a precomputed ETag and
+ * responses are cached as immutable. The content type is detected from the stored bytes, never from the
+ * requested extension, and only image extensions are served. Bodies are written with the servlet container's
+ * sendfile support when available, or with {@link FileChannel#transferTo} otherwise, so images are never loaded
+ * into the heap. Contents packed in the {@link ImagePackStore} are always sent from the mapped segment: the
+ * container would open the segment file after the handler returns, when compaction may already have removed it.
+ * </p>
+ */
+@RestController
+@Slf4j
+@AllArgsConstructor
+@RequestMapping("/images")
+@CrossOrigin(origins = "http://localhost:4200")
+@Tag(name = "Image files", description = "Static serving of stored image contents")
+public class ImageFileController {
+
+	private static final long IMAGE_CACHE_DAYS = 365;
+	private static final Set<String> IMAGE_EXTENSIONS = Set.of("jpg", "jpeg", "png", "gif", "webp");
+
+	// Atributos de Tomcat para delegar el envío del fichero en sendfile
+	private static final String SENDFILE_SUPPORT_ATTRIBUTE = "org.apache.tomcat.sendfile.support";
+	private static final String SENDFILE_FILENAME_ATTRIBUTE = "org.apache.tomcat.sendfile.filename";
+	private static final String SENDFILE_START_ATTRIBUTE = "org.apache.tomcat.sendfile.start";
+	private static final String SENDFILE_END_ATTRIBUTE = "org.apache.tomcat.sendfile.end";
+
+	private final FileSystemImageStore imageStore;
+	private final ImagePackStore imagePackStore;
+
+	/**
+	 * Serves a stored image content.
+	 * <p>
+	 * The file name is the content hash, optionally followed by an image extension. The extension does not
+	 * select the content type: it is taken from the magic bytes of the stored content. Requests with a matching
+	 * {@code If-None-Match} or {@code If-Modified-Since} header receive a 304 response.
+	 * </p>
+	 *
+	 * @param fileName the requested file name, {@code <hash>} or {@code <hash>.<extension>}
+	 * @param request  the current request
+	 * @param response the current response
+	 * @throws IOException if the file cannot be sent
+	 */
+	@Operation(
+		summary = "Download an image file",
+		description = "Serves the image content with the given hash. Responses are immutable and support ETag and Last-Modified revalidation.",
+		responses = {
+			@ApiResponse(responseCode = "200", description = "Image file sent"),
+			@ApiResponse(responseCode = "304", description = "Image not modified"),
+			@ApiResponse(responseCode = "404", description = "Image not found")
+		}
+	)
+	@RequestMapping(value = "/{fileName:.+}", method = { RequestMethod.GET, RequestMethod.HEAD })
+	public void getImageFile(@PathVariable String fileName, HttpServletRequest request, HttpServletResponse response)
+			throws IOException {
+		// El navegador no debe reinterpretar el contenido (p. ej. un GIF que también es HTML válido)
+		response.setHeader("X-Content-Type-Options", "nosniff");
+		int extensionIndex = fileName.indexOf('.');
+		String hash = extensionIndex < 0 ? fileName : fileName.substring(0, extensionIndex);
+		String extension = extensionIndex < 0 ? null : fileName.substring(extensionIndex + 1).toLowerCase(Locale.ROOT);
+		if (!ContentHash.isValid(hash) || (extension != null && !IMAGE_EXTENSIONS.contains(extension))) {
+			response.sendError(HttpServletResponse.SC_NOT_FOUND);
+			return;
+		}
+
+		Path path = this.imageStore.resolve(hash);
+		Optional<ImagePackStore.Region> packed = Optional.empty();
+		if (!Files.isRegularFile(path)) {
+			packed = this.imagePackStore.locate(hash);
+			if (packed.isEmpty()) {
+				log.debug("Image file {} not found", fileName);
+				response.sendError(HttpServletResponse.SC_NOT_FOUND);
+				return;
+			}
+		}
+
+		long lastModified = packed.isPresent() ? packed.get().storedAt().toEpochMilli()
+				: Files.getLastModifiedTime(path).toMillis();
+		response.setHeader(HttpHeaders.CACHE_CONTROL,
+				CacheControl.maxAge(IMAGE_CACHE_DAYS, TimeUnit.DAYS).cachePublic().immutable().getHeaderValue());
+		if (new ServletWebRequest(request, response).checkNotModified("\"" + hash + "\"", lastModified)) {
+			return;
+		}
+
+		long length = packed.isPresent() ? packed.get().length() : Files.size(path);
+		response.setContentType(sniffContentType(path, packed));
+		response.setContentLengthLong(length);
+		if (RequestMethod.HEAD.name().equals(request.getMethod())) {
+			return;
+		}
+
+		if (packed.isEmpty() && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTRIBUTE))) {
+			// El contenedor envía el fichero directamente desde el kernel al socket
+			request.setAttribute(SENDFILE_FILENAME_ATTRIBUTE, path.toRealPath().toString());
+			request.setAttribute(SENDFILE_START_ATTRIBUTE, 0L);
+			request.setAttribute(SENDFILE_END_ATTRIBUTE, length);
+			return;
+		}
+
+		if (packed.isPresent()) {
+			// El segmento puede compactarse en cualquier momento: se envía desde su mapeo, que sigue siendo válido
+			// aunque el fichero se borre
+			WritableByteChannel outputChannel = Channels.newChannel(response.getOutputStream());
+			ByteBuffer content = packed.get().content();
+			while (content.hasRemaining()) {
+				outputChannel.write(content);
+			}
+			return;
+		}
+
+		try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+			WritableByteChannel outputChannel = Channels.newChannel(response.getOutputStream());
+			long position = 0;
+			while (position < length) {
+				position += fileChannel.transferTo(position, length - position, outputChannel);
+			}
+		}
+	}
+
+	/**
+	 * Detects the content type of a stored content from its first bytes. Contents that are not a supported image
+	 * are sent as {@code application/octet-stream}.
+	 */
+	private static String sniffContentType(Path path, Optional<ImagePackStore.Region> packed) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(ImageFormats.SNIFF_LENGTH);
+		if (packed.isPresent()) {
+			ByteBuffer content = packed.get().content();
+			header.put(content.limit(Math.min(content.limit(), ImageFormats.SNIFF_LENGTH)));
+		} else {
+			try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+				while (header.hasRemaining() && fileChannel.read(header) >= 0) {
+					// Se lee hasta llenar la cabecera o llegar al final del fichero
+				}
+			}
+		}
+		return ImageFormats.sniff(header.array(), header.position()).orElse(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+	}
+}
@@ -0,0 +1,153 @@
+package spring.ecommerce.controller;
+
+import java.io.IOException;
+import java.net.URI;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.AllArgsConstructor;
+import spring.ecommerce.dto.UploadSessionDto;
+import spring.ecommerce.entity.ImageEntity;
+import spring.ecommerce.service.ImageUploadSessionService;
+
+/**
+ * Controller for resumable, chunked image uploads.
+ * <p>
+ * Large originals are uploaded in several requests instead of a single multipart request: create a session,
+ * {@code PUT} the chunks at their offsets and commit. Chunk bodies are raw bytes, streamed to disk as they arrive.
+ * </p>
+ */
+@RestController
+@AllArgsConstructor
+@RequestMapping("/api/v1/images/uploads")
+@CrossOrigin(origins = "http://localhost:4200")
+@Tag(name = "Image uploads", description = "API for resumable chunked image uploads")
+@SecurityRequirement(name = "bearerAuth")
+public class ImageUploadSessionController {
+
+    private final ImageUploadSessionService imageUploadSessionService;
+
+    /**
+     * Creates an upload session.
+     *
+     * @param fileName the original file name
+     * @param size     the total size of the file, in bytes
+     * @return a ResponseEntity with the new session and its location
+     */
+    @Operation(
+        summary = "Create an upload session",
+        description = "Starts a resumable upload of an image of the given size.",
+        responses = {
+            @ApiResponse(responseCode = "201", description = "Upload session created", content = @Content(schema = @Schema(implementation = UploadSessionDto.class))),
+            @ApiResponse(responseCode = "400", description = "Missing file name or invalid size", content = @Content)
+        }
+    )
+    @PostMapping
+    public ResponseEntity<UploadSessionDto> createSession(@RequestParam String fileName, @RequestParam long size) {
+        UploadSessionDto session = this.imageUploadSessionService.createSession(fileName, size);
+        return ResponseEntity.created(URI.create("/api/v1/images/uploads/" + session.getId())).body(session);
+    }
+
+    /**
+     * Retrieves an upload session, with the offset where the next chunk must start.
+     *
+     * @param id the session ID
+     * @return a ResponseEntity with the session
+     */
+    @Operation(
+        summary = "Retrieve an upload session",
+        description = "Returns the number of bytes received so far, where an interrupted upload must resume.",
+        responses = {
+            @ApiResponse(responseCode = "200", description = "Upload session found", content = @Content(schema = @Schema(implementation = UploadSessionDto.class))),
+            @ApiResponse(responseCode = "404", description = "Upload session not found", content = @Content)
+        }
+    )
+    @GetMapping("/{id}")
+    public ResponseEntity<UploadSessionDto> getSession(@PathVariable String id) {
+        return ResponseEntity.ok(this.imageUploadSessionService.getSession(id));
+    }
+
+    /**
+     * Uploads a chunk of the file.
+     *
+     * @param id      the session ID
+     * @param offset  the position of the chunk in the file
+     * @param request the current request, whose body holds the chunk bytes
+     * @return a ResponseEntity with the session and its new offset
+     * @throws IOException if the request body cannot be read
+     */
+    @Operation(
+        summary = "Upload a chunk",
+        description = "Writes the raw request body at the given offset, which must be the number of bytes received so far.",
+        responses = {
+            @ApiResponse(responseCode = "200", description = "Chunk written", content = @Content(schema = @Schema(implementation = UploadSessionDto.class))),
+            @ApiResponse(responseCode = "400", description = "Chunk exceeds the announced size", content = @Content),
+            @ApiResponse(responseCode = "404", description = "Upload session not found", content = @Content),
+            @ApiResponse(responseCode = "409", description = "Wrong offset or chunk already in progress", content = @Content)
+        }
+    )
+    @PutMapping(value = "/{id}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<UploadSessionDto> writeChunk(@PathVariable String id, @RequestParam long offset,
+            HttpServletRequest request) throws IOException {
+        return ResponseEntity.ok(this.imageUploadSessionService.writeChunk(id, offset, request.getInputStream()));
+    }
+
+    /**
+     * Completes an upload and saves the image.
+     *
+     * @param id     the session ID
+     * @param sha256 the hexadecimal SHA-256 hash of the whole file
+     * @return a ResponseEntity with the created image
+     */
+    @Operation(
+        summary = "Commit an upload",
+        description = "Checks the uploaded file against its SHA-256 hash and saves it as an image.",
+        responses = {
+            @ApiResponse(responseCode = "201", description = "Image saved", content = @Content(schema = @Schema(implementation = ImageEntity.class))),
+            @ApiResponse(responseCode = "400", description = "Incomplete upload, invalid image or hash mismatch", content = @Content),
+            @ApiResponse(responseCode = "404", description = "Upload session not found", content = @Content)
+        }
+    )
+    @PostMapping("/{id}/commit")
+    public ResponseEntity<ImageEntity> commit(@PathVariable String id, @RequestParam String sha256) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(this.imageUploadSessionService.commit(id, sha256));
+    }
+
+    /**
+     * Cancels an upload session.
+     *
+     * @param id the session ID
+     * @return a ResponseEntity with NO_CONTENT status
+     */
+    @Operation(
+        summary = "Cancel an upload",
+        description = "Deletes the upload session and the bytes received.",
+        responses = {
+            @ApiResponse(responseCode = "204", description = "Upload cancelled", content = @Content),
+            @ApiResponse(responseCode = "404", description = "Upload session not found", content = @Content)
+        }
+    )
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> cancel(@PathVariable String id) {
+        this.imageUploadSessionService.cancel(id);
+        return ResponseEntity.noContent().build();
+    }
+}
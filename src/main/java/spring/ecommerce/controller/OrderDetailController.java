@@ -27,6 +27,7 @@ import lombok.extern.slf4j.Slf4j;
 import spring.ecommerce.dto.OrderInputDto;
 import spring.ecommerce.dto.PageResponseDto;
 import spring.ecommerce.entity.OrderDetailEntity;
+import spring.ecommerce.exception.InvalidCursorException;
 import spring.ecommerce.service.OrderDetailService;
 
 /**
@@ -93,6 +94,8 @@ public class OrderDetailController {
      * @param page      The page number (0-based index).
      * @param size      The number of records per page.
      * @param searchKey The search keyword to filter orders by full name.
+     * @param cursor    The nextCursor of the previous page (optional). When present, the page is read after it.
+     * @param withTotal Whether to count the orders when paging with a cursor (default is false).
      * @return ResponseEntity containing a paginated response with order details or an error message.
      */
     @Operation(
@@ -102,7 +105,9 @@ public class OrderDetailController {
 	    parameters = {
 	        @Parameter(name = "page", description = "Page number (default: 0)", example = "0"),
 	        @Parameter(name = "size", description = "Number of items per page (default: 10)", example = "10"),
-	        @Parameter(name = "searchKey", description = "Search keyword to filter results", example = "laptop")
+	        @Parameter(name = "searchKey", description = "Search keyword to filter results", example = "laptop"),
+	        @Parameter(name = "cursor", description = "Cursor returned as nextCursor by the previous page; replaces page for keyset pagination"),
+	        @Parameter(name = "withTotal", description = "Count the total with a cursor (default: false)", example = "false")
 	    },
 	    responses = {
 	        @ApiResponse(
@@ -113,6 +118,10 @@ public class OrderDetailController {
 	                schema = @Schema(implementation = PageResponseDto.class)
 	            )
 	        ),
+	        @ApiResponse(
+	            responseCode = "400",
+	            description = "Invalid cursor"
+	        ),
 	        @ApiResponse(
 	            responseCode = "500",
 	            description = "Internal server error"
@@ -123,18 +132,23 @@ public class OrderDetailController {
     public ResponseEntity<?> getMyOrderDetailsOrderedByNameWithPagination(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
-            @RequestParam(defaultValue = "") String searchKey) {
+            @RequestParam(defaultValue = "") String searchKey,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean withTotal) {
         
         log.info("Received request for paginated order details. Page: {}, Size: {}, SearchKey: '{}'", page, size, searchKey);
 
         try {
-            PageResponseDto<OrderDetailEntity> pagedResponse = orderDetailService
-                    .getMyOrderDetailsBySearchKeyWithPagination(page, size, searchKey);
+            PageResponseDto<OrderDetailEntity> pagedResponse = cursor == null
+                    ? orderDetailService.getMyOrderDetailsBySearchKeyWithPagination(page, size, searchKey)
+                    : orderDetailService.getMyOrderDetailsBySearchKeyWithCursor(cursor, size, searchKey, withTotal);
             
             log.info("Successfully retrieved {} orders across {} pages.", 
                      pagedResponse.getTotalElements(), pagedResponse.getTotalPages());
 
             return ResponseEntity.ok(pagedResponse);
+        } catch (InvalidCursorException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (Exception e) {
             log.error("Error occurred while retrieving paginated order details: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -149,6 +163,8 @@ public class OrderDetailController {
      * @param size      The number of records per page (default is 10).
      * @param searchKey The search keyword to filter orders by full name (default is empty, meaning no filtering).
      * @param status    The status of the orders to filter. If "all", no status filtering is applied.
+     * @param cursor    The nextCursor of the previous page (optional). When present, the page is read after it.
+     * @param withTotal Whether to count the orders when paging with a cursor (default is false).
      * @return A {@link ResponseEntity} containing a {@link PageResponseDto} with the paginated list of 
      *         {@link OrderDetailEntity}, or an error message in case of failure.
      */
@@ -160,7 +176,9 @@ public class OrderDetailController {
 	        @Parameter(name = "status", description = "Order status to filter by", example = "PENDING"),
 	        @Parameter(name = "page", description = "Page number (default: 0)", example = "0"),
 	        @Parameter(name = "size", description = "Number of items per page (default: 10)", example = "10"),
-	        @Parameter(name = "searchKey", description = "Search keyword to filter results", example = "laptop")
+	        @Parameter(name = "searchKey", description = "Search keyword to filter results", example = "laptop"),
+	        @Parameter(name = "cursor", description = "Cursor returned as nextCursor by the previous page; replaces page for keyset pagination"),
+	        @Parameter(name = "withTotal", description = "Count the total with a cursor (default: false)", example = "false")
 	    },
 	    responses = {
 	        @ApiResponse(
@@ -171,6 +189,10 @@ public class OrderDetailController {
 	                schema = @Schema(implementation = PageResponseDto.class)
 	            )
 	        ),
+	        @ApiResponse(
+	            responseCode = "400",
+	            description = "Invalid cursor"
+	        ),
 	        @ApiResponse(
 	            responseCode = "500",
 	            description = "Internal server error"
@@ -182,20 +204,24 @@ public class OrderDetailController {
     		@PathVariable String status,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
-            @RequestParam(defaultValue = "") String searchKey
-            
+            @RequestParam(defaultValue = "") String searchKey,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean withTotal
     ) {
         
         log.info("Received request for paginated order details. Page: {}, Size: {}, SearchKey: '{}'", page, size, searchKey);
 
         try {
-            PageResponseDto<OrderDetailEntity> pagedResponse = orderDetailService
-                    .getOrderDetailsBySearchKeyWithPagination(page, size, searchKey, status);
+            PageResponseDto<OrderDetailEntity> pagedResponse = cursor == null
+                    ? orderDetailService.getOrderDetailsBySearchKeyWithPagination(page, size, searchKey, status)
+                    : orderDetailService.getOrderDetailsBySearchKeyWithCursor(cursor, size, searchKey, status, withTotal);
             
             log.info("Successfully retrieved {} orders across {} pages.", 
                      pagedResponse.getTotalElements(), pagedResponse.getTotalPages());
 
             return ResponseEntity.ok(pagedResponse);
+        } catch (InvalidCursorException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (Exception e) {
             log.error("Error occurred while retrieving paginated order details: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -1,13 +1,14 @@
 package spring.ecommerce.controller;
 
 import java.io.IOException;
-import java.util.Arrays;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.stream.Collectors;
 
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -18,11 +19,17 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -36,12 +43,20 @@ import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import spring.ecommerce.constants.ConstantsEcommerce;
+import spring.ecommerce.dto.CacheStatsDto;
 import spring.ecommerce.dto.PageResponseDto;
-import spring.ecommerce.entity.ImageEntity;
+import spring.ecommerce.dto.ProductFacetsDto;
+import spring.ecommerce.dto.ProductImportSummaryDto;
+import spring.ecommerce.dto.ProductListingDto;
+import spring.ecommerce.dto.ProductSuggestionDto;
 import spring.ecommerce.entity.ProductEntity;
+import spring.ecommerce.exception.InvalidCursorException;
+import spring.ecommerce.exception.InvalidImageException;
 import spring.ecommerce.files.CsvService;
 import spring.ecommerce.files.ExcelService;
 import spring.ecommerce.files.PdfService;
+import spring.ecommerce.search.ProductFilter;
+import spring.ecommerce.service.ProductImportService;
 import spring.ecommerce.service.ProductService;
 
 /**
@@ -60,21 +75,22 @@ public class ProductController {
 	private final ProductService productService;
 	private final CsvService csvService;
 	private final ExcelService excelService;
-
-	private static final long MAX_IMAGE_SIZE = 5 * 1024 * 1024; // 5MB
+	private final ProductImportService productImportService;
+	private final ObjectMapper objectMapper;
 
 	/**
 	 * Creates a new product and optionally associates images with it.
 	 * <p>
 	 * This method receives a {@link ProductEntity} object and a list of image
-	 * files, validates them, and associates the images with the product. It then
+	 * files, which are streamed into the image store in a single pass. It then
 	 * calls the
 	 * {@link productService#addNewProduct(ProductEntity, MultipartFile[])} method
 	 * to save the product in the database. If the product and images are
 	 * successfully created, it returns a {@link ResponseEntity} with the created
 	 * product and a {@link HttpStatus#CREATED} status. If an error occurs during
 	 * the process, an error message is logged, and a {@link ResponseEntity} with an
-	 * {@link HttpStatus#INTERNAL_SERVER_ERROR} status is returned.
+	 * {@link HttpStatus#INTERNAL_SERVER_ERROR} status is returned. Files larger than
+	 * 5MB or that are not images abort the creation with a {@link HttpStatus#BAD_REQUEST}.
 	 * </p>
 	 *
 	 * @param product the {@link ProductEntity} object to be created, including
@@ -110,12 +126,12 @@ public class ProductController {
 			@RequestPart(value = "imageFile", required = false) MultipartFile[] files) {
 		log.info("Attempting to create a new product: {}", product.getProductName());
 		try {
-			Set<ImageEntity> images = this.uploadImage(files);
-			product.setProductImages(images);
-
 			ProductEntity createdProduct = this.productService.addNewProduct(product, files);
 			log.info("Product created successfully, ID: {}", createdProduct.getProductId());
 			return new ResponseEntity<>(createdProduct, HttpStatus.CREATED);
+		} catch (InvalidImageException e) {
+			log.warn("Rejected product images: {}", e.getMessage());
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
 		} catch (Exception e) {
 			log.error("Error occurred while creating product: {}", e.getMessage(), e);
 			return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
@@ -204,7 +220,7 @@ public class ProductController {
 	    security = @SecurityRequirement(name = "bearerAuth"),
 	    responses = {
 	        @ApiResponse(responseCode = "200", description = "Successfully retrieved the product list",
-	            content = @Content(array = @ArraySchema(schema = @Schema(implementation = ProductEntity.class)))),
+	            content = @Content(array = @ArraySchema(schema = @Schema(implementation = ProductListingDto.class)))),
 	        @ApiResponse(responseCode = "500", description = "Internal server error")
 	    }
 	)
@@ -219,6 +235,44 @@ public class ProductController {
 		}
 	}
 
+	/**
+	 * Streams all products as newline-delimited JSON.
+	 * <p>
+	 * Selected with {@code Accept: application/x-ndjson} on the same path as
+	 * {@link #getAllProducts()}. Each line is one {@link ProductListingDto}.
+	 * Products are read from the database in batches and written as they are
+	 * read, so memory use does not grow with the size of the catalog.
+	 * </p>
+	 *
+	 * @return a {@link ResponseEntity} streaming the products
+	 */
+	@Operation(
+	    summary = "Stream all products",
+	    description = "Streams every product as newline-delimited JSON (application/x-ndjson).",
+	    security = @SecurityRequirement(name = "bearerAuth"),
+	    responses = {
+	        @ApiResponse(responseCode = "200", description = "Products streamed")
+	    }
+	)
+	@GetMapping(value = "/all", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public ResponseEntity<StreamingResponseBody> streamAllProducts() {
+		log.info("Attempting to stream product list");
+		StreamingResponseBody body = outputStream -> {
+			ObjectWriter writer = this.objectMapper.writerFor(ProductListingDto.class)
+					.without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+			this.productService.forEachProductListing(product -> {
+				try {
+					writer.writeValue(outputStream, product);
+					outputStream.write('\n');
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+			outputStream.flush();
+		};
+		return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+	}
+
 	/**
 	 * Retrieves a paginated list of products ordered by their name.
 	 * 
@@ -230,8 +284,15 @@ public class ProductController {
 	 * @param page The page number to retrieve. Defaults to 0 if not provided.
 	 * @param size The number of products per page. Defaults to 10 if not provided.
 	 * @param the  search key.
-	 * @return A ResponseEntity containing a paginated list of products, or an
-	 *         internal server error if an exception occurs during the retrieval.
+	 * @param fuzzy whether the search tolerates typos. Defaults to false.
+	 * @param minPrice the minimum effective price, optional.
+	 * @param maxPrice the maximum effective price, optional.
+	 * @param onDiscount whether to list only discounted products, or only products without discount, optional.
+	 * @param cursor the nextCursor of the previous page, optional. When present, the page is read after it
+	 *        instead of by number.
+	 * @param withTotal whether to count the products when paging with a cursor. Defaults to false.
+	 * @return A ResponseEntity containing a paginated list of products, a bad request if the
+	 *         cursor is not valid, or an internal server error if an exception occurs during the retrieval.
 	 */
 	@Operation(
 	    summary = "Retrieve paginated and filtered product list",
@@ -240,27 +301,112 @@ public class ProductController {
 	    parameters = {
 	        @Parameter(name = "page", description = "Page number (default: 0)", example = "0"),
 	        @Parameter(name = "size", description = "Number of items per page (default: 10)", example = "10"),
-	        @Parameter(name = "searchKey", description = "Search keyword to filter products", example = "laptop")
+	        @Parameter(name = "searchKey", description = "Search keyword to filter products", example = "laptop"),
+	        @Parameter(name = "fuzzy", description = "Also match words with one or two typos (default: false)", example = "true"),
+	        @Parameter(name = "minPrice", description = "Minimum effective price, inclusive", example = "10"),
+	        @Parameter(name = "maxPrice", description = "Maximum effective price, inclusive", example = "100"),
+	        @Parameter(name = "onDiscount", description = "true for discounted products only, false for products without discount", example = "true"),
+	        @Parameter(name = "cursor", description = "Cursor returned as nextCursor by the previous page; replaces page for keyset pagination"),
+	        @Parameter(name = "withTotal", description = "Count the total with a cursor (default: false)", example = "false")
 	    },
 	    responses = {
 	        @ApiResponse(responseCode = "200", description = "Successfully retrieved paginated product list",
 	            content = @Content(schema = @Schema(implementation = PageResponseDto.class))),
+	        @ApiResponse(responseCode = "400", description = "Invalid cursor"),
 	        @ApiResponse(responseCode = "500", description = "Internal server error")
 	    }
 	)
 	@GetMapping()
 	public ResponseEntity<?> getAllProductsOrderedByNameWithPagination(@RequestParam(defaultValue = "0") int page,
-			@RequestParam(defaultValue = "10") int size, @RequestParam(defaultValue = "") String searchKey) {
+			@RequestParam(defaultValue = "10") int size, @RequestParam(defaultValue = "") String searchKey,
+			@RequestParam(defaultValue = "false") boolean fuzzy, @RequestParam(required = false) Double minPrice,
+			@RequestParam(required = false) Double maxPrice, @RequestParam(required = false) Boolean onDiscount,
+			@RequestParam(required = false) String cursor, @RequestParam(defaultValue = "false") boolean withTotal) {
 		try {
-			PageResponseDto<ProductEntity> pagedResponse = this.productService
-					.getProductsBySearchKeyWithPagination(page, size, searchKey);
+			ProductFilter filter = new ProductFilter(minPrice, maxPrice, onDiscount);
+			PageResponseDto<ProductListingDto> pagedResponse = cursor == null
+					? this.productService.getProductsBySearchKeyWithPagination(page, size, searchKey, fuzzy, filter)
+					: this.productService.getProductsBySearchKeyWithCursor(cursor, size, searchKey, fuzzy, filter, withTotal);
 			return ResponseEntity.ok(pagedResponse);
+		} catch (InvalidCursorException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
 		} catch (Exception e) {
 			log.error("Error occurred while retrieving paginated product list", e.getMessage(), e);
 			return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
 		}
 	}
 
+	/**
+	 * Retrieves the facet counts of a product listing.
+	 * <p>
+	 * Takes the same search and filter parameters as the paginated listing and
+	 * returns the number of products in each price bucket and on discount, each
+	 * counted without its own filter. Counts are computed from in-memory bit sets,
+	 * with no query to the database.
+	 * </p>
+	 *
+	 * @param searchKey  the search key.
+	 * @param fuzzy      whether the search tolerates typos.
+	 * @param minPrice   the minimum effective price, optional.
+	 * @param maxPrice   the maximum effective price, optional.
+	 * @param onDiscount the discount status, optional.
+	 * @return a ResponseEntity with the facet counts
+	 */
+	@Operation(
+	    summary = "Retrieve product facet counts",
+	    description = "Returns the number of products per price bucket and on discount for the given search and filters.",
+	    parameters = {
+	        @Parameter(name = "searchKey", description = "Search keyword to filter products", example = "laptop"),
+	        @Parameter(name = "fuzzy", description = "Also match words with one or two typos (default: false)", example = "false"),
+	        @Parameter(name = "minPrice", description = "Minimum effective price, inclusive", example = "10"),
+	        @Parameter(name = "maxPrice", description = "Maximum effective price, inclusive", example = "100"),
+	        @Parameter(name = "onDiscount", description = "true for discounted products only, false for products without discount", example = "true")
+	    },
+	    responses = {
+	        @ApiResponse(responseCode = "200", description = "Facet counts retrieved",
+	            content = @Content(schema = @Schema(implementation = ProductFacetsDto.class)))
+	    }
+	)
+	@GetMapping("/facets")
+	public ResponseEntity<ProductFacetsDto> getProductFacets(@RequestParam(defaultValue = "") String searchKey,
+			@RequestParam(defaultValue = "false") boolean fuzzy, @RequestParam(required = false) Double minPrice,
+			@RequestParam(required = false) Double maxPrice, @RequestParam(required = false) Boolean onDiscount) {
+		return ResponseEntity.ok(this.productService.getProductFacets(searchKey, fuzzy,
+				new ProductFilter(minPrice, maxPrice, onDiscount)));
+	}
+
+	/**
+	 * Suggests products while the user types in the search box.
+	 * <p>
+	 * Suggestions are answered from an in-memory prefix trie, so this endpoint can be
+	 * called on every keystroke instead of the paginated search. The response only
+	 * holds the ID and name of each product and may be cached briefly by the browser.
+	 * </p>
+	 *
+	 * @param prefix the typed text
+	 * @param limit  the maximum number of suggestions
+	 * @return a ResponseEntity with the suggested products, most ordered first
+	 */
+	@Operation(
+	    summary = "Suggest products",
+	    description = "Returns the most ordered products whose name, or a word of it, starts with the typed text.",
+	    parameters = {
+	        @Parameter(name = "prefix", description = "Text typed in the search box", example = "lap"),
+	        @Parameter(name = "limit", description = "Maximum number of suggestions (default: 8)", example = "8")
+	    },
+	    responses = {
+	        @ApiResponse(responseCode = "200", description = "Suggestions retrieved",
+	            content = @Content(array = @ArraySchema(schema = @Schema(implementation = ProductSuggestionDto.class))))
+	    }
+	)
+	@GetMapping("/suggest")
+	public ResponseEntity<List<ProductSuggestionDto>> suggestProducts(@RequestParam(defaultValue = "") String prefix,
+			@RequestParam(defaultValue = "8") int limit) {
+		return ResponseEntity.ok()
+				.cacheControl(CacheControl.maxAge(Duration.ofMinutes(1)))
+				.body(this.productService.suggestProducts(prefix, limit));
+	}
+
 	/**
 	 * Retrieves the details of a product based on the provided product ID and
 	 * checkout type.
@@ -381,20 +527,18 @@ public class ProductController {
 
 	/**
 	 * Generates a PDF document containing a list of all products ordered by name.
+	 * <p>
+	 * The file is streamed: products are read from the database in batches and
+	 * each completed page is written to the response, with chunked transfer
+	 * encoding, so memory use does not depend on the size of the catalog.
+	 * </p>
 	 * 
-	 * This method retrieves all products from the database, orders them by name,
-	 * and generates a PDF file that includes the list of products. The PDF is
-	 * generated without pagination. The file is then returned as a downloadable
-	 * response with the appropriate headers for a PDF file.
-	 * 
-	 * @return ResponseEntity<byte[]> A response entity containing the PDF file in
-	 *         byte array format along with the necessary headers for download. If
-	 *         an error occurs during the PDF generation, an internal server error
-	 *         response is returned.
+	 * @return A {@link ResponseEntity} streaming the PDF file along with the
+	 *         necessary headers for download.
 	 */
 	@Operation(
 	    summary = "Generate a product list PDF",
-	    description = "Generates a PDF file containing a list of all products ordered by name.",
+	    description = "Streams a PDF file containing a list of all products ordered by name.",
 	    security = @SecurityRequirement(name = "bearerAuth"),
 	    responses = {
 	        @ApiResponse(
@@ -404,40 +548,43 @@ public class ProductController {
 	                mediaType = "application/pdf",
 	                schema = @Schema(type = "string", format = "binary")
 	            )
-	        ),
-	        @ApiResponse(responseCode = "500", description = "Internal server error while generating PDF")
+	        )
 	    }
 	)
 	@GetMapping("/pdf")
-	public ResponseEntity<byte[]> generateProductListPdf() {
-		try {
-			// Obtener todos los productos ordenados por nombre
-			List<ProductEntity> products = this.productService.getAllProductsOrderedByName();
-
-			// Llamar al servicio para generar el PDF sin paginación
-			byte[] pdfBytes = this.pdfService.generateProductListPdf(products);
+	public ResponseEntity<StreamingResponseBody> generateProductListPdf() {
+		StreamingResponseBody body = outputStream -> {
+			try {
+				this.pdfService.writeProductListPdf(outputStream, this.productService::forEachProductListingOrderedByName);
+			} catch (IOException | RuntimeException e) {
+				// La respuesta ya ha empezado: solo queda cortarla
+				log.error("Error occurred while streaming the PDF file.", e);
+				throw e;
+			}
+		};
 
-			// Configurar encabezados para la descarga del archivo PDF
-			HttpHeaders headers = new HttpHeaders();
-			headers.add("Content-Disposition", "attachment; filename=" + ConstantsEcommerce.FILE_NAME + ".pdf");
-			headers.add("Content-Type", "application/pdf");
+		// Configurar encabezados para la descarga del archivo PDF
+		HttpHeaders headers = new HttpHeaders();
+		headers.add("Content-Disposition", "attachment; filename=" + ConstantsEcommerce.FILE_NAME + ".pdf");
+		headers.setContentType(MediaType.APPLICATION_PDF);
 
-			// Devolver el PDF como respuesta
-			return new ResponseEntity<>(pdfBytes, headers, HttpStatus.OK);
-		} catch (IOException e) {
-			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-		}
+		return new ResponseEntity<>(body, headers, HttpStatus.OK);
 	}
 
 	/**
-	 * Endpoint to generate and download a CSV file containing all products.
+	 * Endpoint to download a CSV file containing all products.
+	 * <p>
+	 * The file is streamed: products are read from the database in batches and
+	 * written to the response as they are read, with chunked transfer encoding,
+	 * so memory use does not depend on the size of the catalog.
+	 * </p>
 	 *
-	 * @return A {@link ResponseEntity} containing the CSV file as a byte array. The
-	 *         response will include appropriate headers for file download.
+	 * @return A {@link ResponseEntity} streaming the CSV file. The response
+	 *         includes appropriate headers for file download.
 	 */
 	@Operation(
 	    summary = "Download product list as CSV",
-	    description = "Generates a CSV file containing a list of all products ordered by name.",
+	    description = "Streams a CSV file containing a list of all products ordered by name.",
 	    security = @SecurityRequirement(name = "bearerAuth"),
 	    responses = {
 	        @ApiResponse(
@@ -447,48 +594,42 @@ public class ProductController {
 	                mediaType = "text/csv",
 	                schema = @Schema(type = "string", format = "binary")
 	            )
-	        ),
-	        @ApiResponse(responseCode = "500", description = "Internal server error while generating CSV")
+	        )
 	    }
 	)
 	@GetMapping("/csv")
-	public ResponseEntity<byte[]> downloadProductListCsv() {
+	public ResponseEntity<StreamingResponseBody> downloadProductListCsv() {
 		log.info("Request received to download product list as CSV.");
 
-		try {
-			List<ProductEntity> products = this.productService.getAllProductsOrderedByName();
-			log.debug("Fetched {} products from the database.", products.size());
-
-			byte[] csvData = this.csvService.generateProductListCsv(products);
-
-			if (csvData == null || csvData.length == 0) {
-				log.warn("CSV generation failed or returned empty data.");
-				return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+		StreamingResponseBody body = outputStream -> {
+			try {
+				this.csvService.writeProductListCsv(outputStream, this.productService::forEachProductListingOrderedByName);
+			} catch (IOException | RuntimeException e) {
+				// La respuesta ya ha empezado: solo queda cortarla
+				log.error("Error occurred while streaming the CSV file.", e);
+				throw e;
 			}
+		};
 
-			// Set HTTP headers for file download
-			HttpHeaders headers = new HttpHeaders();
-			headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-			headers.setContentDispositionFormData("attachment",  ConstantsEcommerce.FILE_NAME + ".csv");
-
-			log.info("CSV file generated successfully. Sending response to client.");
-
-			return new ResponseEntity<>(csvData, headers, HttpStatus.OK);
+		// Set HTTP headers for file download
+		HttpHeaders headers = new HttpHeaders();
+		headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+		headers.setContentDispositionFormData("attachment",  ConstantsEcommerce.FILE_NAME + ".csv");
 
-		} catch (Exception e) {
-			log.error("Error occurred while generating the CSV file.", e);
-			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-		}
+		return new ResponseEntity<>(body, headers, HttpStatus.OK);
 	}
 
 	/**
 	 * Handles the request to download the product list as an Excel file. This
-	 * method generates an Excel file containing product details and sends it as a
-	 * downloadable response to the client.
+	 * method streams an Excel file containing product details as a downloadable
+	 * response to the client.
+	 * <p>
+	 * Products are read from the database in batches and added to a streaming
+	 * workbook that keeps a bounded window of rows in memory, so the export
+	 * works for catalogs of any size.
+	 * </p>
 	 * 
-	 * @return A {@link ResponseEntity} containing the generated Excel file as a
-	 *         byte array, or an HTTP 500 Internal Server Error if there was an
-	 *         issue during file generation.
+	 * @return A {@link ResponseEntity} streaming the generated Excel file.
 	 */
 	@Operation(
 	    summary = "Download product list as Excel",
@@ -502,103 +643,108 @@ public class ProductController {
 	                mediaType = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet",
 	                schema = @Schema(type = "string", format = "binary")
 	            )
-	        ),
-	        @ApiResponse(responseCode = "500", description = "Internal server error while generating Excel file")
+	        )
 	    }
 	)
 	@GetMapping("/excel")
-	public ResponseEntity<byte[]> downloadProductListExcel() {
+	public ResponseEntity<StreamingResponseBody> downloadProductListExcel() {
 		log.info("Request received to download product list as Excel.");
 
-		try {
-			List<ProductEntity> products = this.productService.getAllProductsOrderedByName();
-			log.debug("Fetched {} products from the database.", products.size());
-
-			byte[] excelData = this.excelService.generateProductListExcel(products);
-
-			if (excelData == null || excelData.length == 0) {
-				log.warn("Excel generation failed or returned empty data.");
-				return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+		StreamingResponseBody body = outputStream -> {
+			try {
+				this.excelService.writeProductListExcel(outputStream, this.productService::forEachProductListingOrderedByName);
+			} catch (IOException | RuntimeException e) {
+				// La respuesta ya ha empezado: solo queda cortarla
+				log.error("Error occurred while streaming the Excel file.", e);
+				throw e;
 			}
+		};
 
-			// Set HTTP headers for file download
-			HttpHeaders headers = new HttpHeaders();
-			headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-			headers.setContentDispositionFormData("attachment", ConstantsEcommerce.FILE_NAME + ".xlsx");
-
-			log.info("Excel file generated successfully. Sending response to client.");
-
-			return new ResponseEntity<>(excelData, headers, HttpStatus.OK);
+		// Set HTTP headers for file download
+		HttpHeaders headers = new HttpHeaders();
+		headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+		headers.setContentDispositionFormData("attachment", ConstantsEcommerce.FILE_NAME + ".xlsx");
 
-		} catch (Exception e) {
-			log.error("Error occurred while generating the Excel file.", e);
-			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-		}
+		return new ResponseEntity<>(body, headers, HttpStatus.OK);
 	}
 
 	/**
-	 * Processes and converts uploaded image files into a set of {@link Image}
-	 * objects.
+	 * Retrieves the hit, miss and eviction counters of the product catalog caches.
 	 *
-	 * @param multipartFiles The array of uploaded image files.
-	 * @return A {@link Set} containing {@link Image} objects created from the
-	 *         files.
+	 * @return a ResponseEntity with the statistics of each catalog cache
 	 */
-
-	/**
-	 * Uploads and processes multiple image files, returning a set of
-	 * {@link ImageEntity} objects.
-	 * <p>
-	 * This method receives an array of {@link MultipartFile} objects representing
-	 * image files to be uploaded. It checks each file for size and processes it to
-	 * create {@link ImageEntity} objects. If any file exceeds the maximum allowed
-	 * size, it logs a warning and skips that file. If there is an error while
-	 * processing a file, it logs an error and skips the file. The method returns a
-	 * {@link Set} containing all successfully processed {@link ImageEntity}
-	 * objects.
-	 * </p>
-	 *
-	 * @param multipartFiles an array of {@link MultipartFile} objects representing
-	 *                       the image files to be uploaded.
-	 * @return a {@link Set} containing the successfully uploaded and processed
-	 *         {@link ImageEntity} objects. If no files are uploaded or processed,
-	 *         an empty set is returned.
-	 */
-	public Set<ImageEntity> uploadImage(MultipartFile[] multipartFiles) {
-		if (multipartFiles == null || multipartFiles.length == 0) {
-			return Set.of();
-		}
-
-		return Arrays.stream(multipartFiles).map(file -> {
-			try {
-				if (file.getSize() > MAX_IMAGE_SIZE) {
-					log.warn("File {} exceeds the maximum allowed size", file.getOriginalFilename());
-					return null;
-				}
-				return new ImageEntity(file.getOriginalFilename(), file.getOriginalFilename(), file.getContentType(),
-						file.getBytes());
-			} catch (IOException e) {
-				log.error("Error processing file: {}", file.getOriginalFilename(), e);
-				return null;
-			}
-		}).filter(image -> image != null).collect(Collectors.toSet());
+	@Operation(
+	    summary = "Retrieve catalog cache statistics",
+	    description = "Returns the hit, miss and eviction counters and the current size of the product and page caches.",
+	    security = @SecurityRequirement(name = "bearerAuth"),
+	    responses = {
+	        @ApiResponse(responseCode = "200", description = "Cache statistics retrieved",
+	            content = @Content(array = @ArraySchema(schema = @Schema(implementation = CacheStatsDto.class))))
+	    }
+	)
+	@GetMapping("/cache/stats")
+	public ResponseEntity<List<CacheStatsDto>> getCacheStats() {
+		return ResponseEntity.ok(this.productService.getCacheStats());
 	}
-	
+
 	/**
 	 * Imports products from an Excel file and saves them in the database.
-	 * This method processes the uploaded file, extracts product information, 
-	 * and returns the list of imported products.
+	 * This method streams the uploaded file row by row, validates the products
+	 * and inserts or updates them in batches, and returns a summary of the import.
 	 *
 	 * @param file The {@link MultipartFile} representing the uploaded Excel file.
-	 * @return A {@link ResponseEntity} containing a list of {@link ProductEntity} objects 
+	 * @return A {@link ResponseEntity} containing the {@link ProductImportSummaryDto}
 	 *         if the import is successful, or a 500 Internal Server Error status if an exception occurs.
 	 */
+	@Operation(
+	    summary = "Import products from Excel",
+	    description = "Inserts or updates the products of an Excel (.xlsx) file with the columns of the export. "
+	    		+ "Rows with an existing product ID update it; invalid rows are rejected and reported.",
+	    security = @SecurityRequirement(name = "bearerAuth"),
+	    responses = {
+	        @ApiResponse(responseCode = "200", description = "Products imported",
+	            content = @Content(schema = @Schema(implementation = ProductImportSummaryDto.class))),
+	        @ApiResponse(responseCode = "500", description = "The file could not be read or saved")
+	    }
+	)
 	@PostMapping("/import-products")
-	public ResponseEntity<List<ProductEntity>> importProducts(@RequestParam("file") MultipartFile file) {
+	public ResponseEntity<ProductImportSummaryDto> importProducts(@RequestParam("file") MultipartFile file) {
+	    try (InputStream inputStream = file.getInputStream()) {
+	        return ResponseEntity.ok(this.productImportService.importProductsFromExcel(inputStream));
+	    } catch (IOException | RuntimeException e) {
+	        log.error("Error occurred while importing products from {}", file.getOriginalFilename(), e);
+	        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+	    }
+	}
+
+	/**
+	 * Inserts or updates a list of products in bulk.
+	 * This method validates the products and writes them in batches, like the rows of an Excel import,
+	 * and returns a summary of the changes. Images are not modified.
+	 *
+	 * @param products The products to save; those with the ID of an existing product update it, those
+	 *                 without an ID are created and those with an unknown ID are rejected.
+	 * @return A {@link ResponseEntity} containing the {@link ProductImportSummaryDto}
+	 *         if the products are saved, or a 500 Internal Server Error status if an exception occurs.
+	 */
+	@Operation(
+	    summary = "Bulk edit products",
+	    description = "Inserts or updates a list of products in batches. Products with an existing product ID "
+	    		+ "update it and products without an ID are created; invalid products and products with an unknown "
+	    		+ "ID are rejected and reported by their position in the list, starting at 1.",
+	    security = @SecurityRequirement(name = "bearerAuth"),
+	    responses = {
+	        @ApiResponse(responseCode = "200", description = "Products saved",
+	            content = @Content(schema = @Schema(implementation = ProductImportSummaryDto.class))),
+	        @ApiResponse(responseCode = "500", description = "The products could not be saved")
+	    }
+	)
+	@PutMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<ProductImportSummaryDto> bulkEditProducts(@RequestBody List<ProductEntity> products) {
 	    try {
-	        List<ProductEntity> products = excelService.importProductsFromExcel(file);
-	        return ResponseEntity.ok(products);
-	    } catch (IOException e) {
+	        return ResponseEntity.ok(this.productImportService.importProducts(products));
+	    } catch (RuntimeException e) {
+	        log.error("Error occurred while saving {} products in bulk", products.size(), e);
 	        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
 	    }
 	}
@@ -2,9 +2,12 @@ package spring.ecommerce.dao;
 
 import java.util.List;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import spring.ecommerce.entity.CartEntity;
@@ -20,4 +23,20 @@ public interface CartDao extends CrudRepository<CartEntity, Integer>{
 	Page<CartEntity> findByUserEntityAndProductEntityProductNameContainingIgnoreCase(UserEntity user, String searchKey,
 			Pageable pageable);
 
+	String CART_FILTER = "c.userEntity = :user "
+			+ "AND (:searchKey IS NULL OR LOWER(p.productName) LIKE LOWER(CONCAT('%', :searchKey, '%')))";
+
+	@Query("SELECT c FROM CartEntity c JOIN FETCH c.productEntity p WHERE " + CART_FILTER
+			+ " ORDER BY p.productName, c.cartId")
+	List<CartEntity> findFirstPage(@Param("user") UserEntity user, @Param("searchKey") String searchKey, Limit limit);
+
+	@Query("SELECT c FROM CartEntity c JOIN FETCH c.productEntity p WHERE " + CART_FILTER
+			+ " AND p.productName >= :afterName AND (p.productName > :afterName OR c.cartId > :afterId)"
+			+ " ORDER BY p.productName, c.cartId")
+	List<CartEntity> findPageAfter(@Param("user") UserEntity user, @Param("searchKey") String searchKey,
+			@Param("afterName") String afterName, @Param("afterId") Integer afterId, Limit limit);
+
+	@Query("SELECT COUNT(c) FROM CartEntity c JOIN c.productEntity p WHERE " + CART_FILTER)
+	long countFiltered(@Param("user") UserEntity user, @Param("searchKey") String searchKey);
+
 }
@@ -1,21 +1,74 @@
 package spring.ecommerce.dao;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 
 import jakarta.transaction.Transactional;
+import spring.ecommerce.dto.ImageMetadataDto;
 import spring.ecommerce.entity.ImageEntity;
 
 public interface ImageDao extends CrudRepository<ImageEntity, Long> {
 
 	Optional<ImageEntity> findByName(String name);
 
+	@Query("SELECT new spring.ecommerce.dto.ImageMetadataDto(i.id, i.name, i.shortName, i.type, i.size, i.hash) "
+			+ "FROM ImageEntity i WHERE i.id > :afterId ORDER BY i.id")
+	List<ImageMetadataDto> findMetadataAfter(@Param("afterId") Long afterId, Limit limit);
+
+	@Query("SELECT i.id, p.productId FROM ProductEntity p JOIN p.productImages i WHERE i.id IN :imageIds")
+	List<Object[]> findProductIdsByImageIds(@Param("imageIds") Collection<Long> imageIds);
+
+	@Query("SELECT new spring.ecommerce.dto.ImageMetadataDto(i.id, i.name, i.shortName, i.type, i.size, i.hash) "
+			+ "FROM ImageEntity i WHERE i.id IN :ids ORDER BY i.id")
+	List<ImageMetadataDto> findMetadataByIdIn(@Param("ids") Collection<Long> ids);
+
+	@Query("SELECT i.id, i.perceptualHash FROM ImageEntity i WHERE i.perceptualHash IS NOT NULL")
+	List<Object[]> findPerceptualHashes();
+
+	@Query("SELECT i FROM ImageEntity i WHERE i.id > :afterId AND i.perceptualHash IS NULL AND i.hash IS NOT NULL ORDER BY i.id")
+	List<ImageEntity> findWithoutPerceptualHash(@Param("afterId") Long afterId, Limit limit);
+
+	@Query("SELECT i FROM ImageEntity i WHERE i.id > :afterId AND i.placeholder IS NULL AND i.hash IS NOT NULL ORDER BY i.id")
+	List<ImageEntity> findWithoutPlaceholder(@Param("afterId") Long afterId, Limit limit);
+
+	@Query(value = "SELECT COUNT(*) FROM product_images WHERE image_id = ?1", nativeQuery = true)
+	long countProductLinks(Long imageId);
+
+	@Query("SELECT i.hash FROM ImageEntity i WHERE i.hash IN :hashes")
+	List<String> findReferencedHashes(@Param("hashes") Collection<String> hashes);
+
+	@Query("SELECT i FROM ImageEntity i WHERE i.id > :afterId AND (i.createdAt IS NULL OR i.createdAt < :createdBefore) "
+			+ "AND NOT EXISTS (SELECT 1 FROM ProductEntity p JOIN p.productImages pi WHERE pi.id = i.id) ORDER BY i.id")
+	List<ImageEntity> findOrphans(@Param("createdBefore") LocalDateTime createdBefore, @Param("afterId") Long afterId,
+			Limit limit);
+
 	@Modifying
 	@Transactional
 	@Query(value = "DELETE FROM product_images WHERE image_id = ?1", nativeQuery = true)
 	void deleteFromProductImagesByImageID(Long imageId);
 
+	@Modifying
+	@Transactional
+	@Query("UPDATE ImageEntity i SET i.perceptualHash = :perceptualHash WHERE i.id = :id")
+	int updatePerceptualHash(@Param("id") Long id, @Param("perceptualHash") Long perceptualHash);
+
+	@Modifying
+	@Transactional
+	@Query("UPDATE ImageEntity i SET i.placeholder = :placeholder WHERE i.id = :id")
+	int updatePlaceholder(@Param("id") Long id, @Param("placeholder") String placeholder);
+
+	@Modifying
+	@Transactional
+	@Query(value = "DELETE FROM image WHERE id IN (:ids) "
+			+ "AND NOT EXISTS (SELECT 1 FROM product_images pi WHERE pi.image_id = image.id)", nativeQuery = true)
+	int deleteOrphansByIdIn(@Param("ids") Collection<Long> ids);
+
 }
@@ -0,0 +1,15 @@
+package spring.ecommerce.dao;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.repository.CrudRepository;
+
+import spring.ecommerce.entity.ImageUploadSessionEntity;
+
+public interface ImageUploadSessionDao extends CrudRepository<ImageUploadSessionEntity, String> {
+
+	List<ImageUploadSessionEntity> findByCreatedAtBeforeOrderByCreatedAt(LocalDateTime createdBefore, Limit limit);
+
+}
@@ -0,0 +1,42 @@
+package spring.ecommerce.dao;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import jakarta.transaction.Transactional;
+import spring.ecommerce.entity.ImageVariantEntity;
+
+public interface ImageVariantDao extends CrudRepository<ImageVariantEntity, Long> {
+
+	List<ImageVariantEntity> findByImageId(Long imageId);
+
+	@Query("SELECT v.hash FROM ImageVariantEntity v WHERE v.hash IN :hashes")
+	List<String> findReferencedHashes(@Param("hashes") Collection<String> hashes);
+
+	@Query("SELECT v.id FROM ImageVariantEntity v WHERE NOT EXISTS (SELECT 1 FROM ImageEntity i WHERE i.id = v.imageId) "
+			+ "ORDER BY v.id")
+	List<Long> findOrphanIds(Limit limit);
+
+	@Modifying
+	@Transactional
+	@Query("DELETE FROM ImageVariantEntity v WHERE v.imageId = ?1")
+	void deleteByImageId(Long imageId);
+
+	@Modifying
+	@Transactional
+	@Query("DELETE FROM ImageVariantEntity v WHERE v.imageId IN :imageIds "
+			+ "AND NOT EXISTS (SELECT 1 FROM ImageEntity i WHERE i.id = v.imageId)")
+	int deleteOrphansByImageIdIn(@Param("imageIds") Collection<Long> imageIds);
+
+	@Modifying
+	@Transactional
+	@Query("DELETE FROM ImageVariantEntity v WHERE v.id IN :ids")
+	int deleteAllByIdIn(@Param("ids") Collection<Long> ids);
+
+}
@@ -3,6 +3,7 @@ package spring.ecommerce.dao;
 import java.time.LocalDateTime;
 import java.util.List;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Query;
@@ -48,4 +49,38 @@ public interface OrderDetailDao extends CrudRepository<OrderDetailEntity, Intege
 	       "ORDER BY totalSales DESC")
 	List<Object[]> findTopSellingProducts(@Param("startDate") LocalDateTime startDate, Pageable pageable);
 
+	String ORDER_FILTER = "(:searchKey IS NULL OR LOWER(o.orderFullName) LIKE LOWER(CONCAT('%', :searchKey, '%'))) "
+			+ "AND (:status IS NULL OR o.orderStatus = :status)";
+	// Rango sobre el índice (orderFullName, orderId) que empieza en el cursor, sin recorrer las páginas anteriores
+	String ORDER_SEEK = "o.orderFullName >= :afterName AND (o.orderFullName > :afterName OR o.orderId > :afterId)";
+	String ORDER_SORT = " ORDER BY o.orderFullName, o.orderId";
+
+	@Query("SELECT o FROM OrderDetailEntity o WHERE " + ORDER_FILTER + ORDER_SORT)
+	List<OrderDetailEntity> findFirstPage(@Param("searchKey") String searchKey, @Param("status") String status,
+			Limit limit);
+
+	@Query("SELECT o FROM OrderDetailEntity o WHERE " + ORDER_FILTER + " AND " + ORDER_SEEK + ORDER_SORT)
+	List<OrderDetailEntity> findPageAfter(@Param("searchKey") String searchKey, @Param("status") String status,
+			@Param("afterName") String afterName, @Param("afterId") Integer afterId, Limit limit);
+
+	@Query("SELECT COUNT(o) FROM OrderDetailEntity o WHERE " + ORDER_FILTER)
+	long countFiltered(@Param("searchKey") String searchKey, @Param("status") String status);
+
+	@Query("SELECT o FROM OrderDetailEntity o WHERE o.user = :user AND " + ORDER_FILTER + ORDER_SORT)
+	List<OrderDetailEntity> findFirstPageOfUser(@Param("user") UserEntity user, @Param("searchKey") String searchKey,
+			@Param("status") String status, Limit limit);
+
+	@Query("SELECT o FROM OrderDetailEntity o WHERE o.user = :user AND " + ORDER_FILTER + " AND " + ORDER_SEEK
+			+ ORDER_SORT)
+	List<OrderDetailEntity> findPageOfUserAfter(@Param("user") UserEntity user, @Param("searchKey") String searchKey,
+			@Param("status") String status, @Param("afterName") String afterName, @Param("afterId") Integer afterId,
+			Limit limit);
+
+	@Query("SELECT COUNT(o) FROM OrderDetailEntity o WHERE o.user = :user AND " + ORDER_FILTER)
+	long countFilteredOfUser(@Param("user") UserEntity user, @Param("searchKey") String searchKey,
+			@Param("status") String status);
+
+	@Query("SELECT o.product.productId, COUNT(o) FROM OrderDetailEntity o GROUP BY o.product.productId")
+	List<Object[]> countOrdersByProduct();
+
 }
@@ -1,16 +1,73 @@
 package spring.ecommerce.dao;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import spring.ecommerce.dto.ProductListingDto;
 import spring.ecommerce.entity.ProductEntity;
+import spring.ecommerce.storage.ImageVariant;
 
 @Repository
 public interface ProductDao extends JpaRepository<ProductEntity, Integer> {
 
-	Page<ProductEntity> findByProductNameContainingIgnoreCase(String searchKey, Pageable pageable);
+	String LISTING_SELECT = "SELECT new spring.ecommerce.dto.ProductListingDto(p.productId, p.productName, "
+			+ "p.productDescription, p.productDiscountedPrice, p.productActualPrice) FROM ProductEntity p";
+
+	@Override
+	@EntityGraph(attributePaths = "productImages")
+	Optional<ProductEntity> findById(Integer productId);
+
+	@Query(value = LISTING_SELECT, countQuery = "SELECT COUNT(p) FROM ProductEntity p")
+	Page<ProductListingDto> findAllListings(Pageable pageable);
+
+	@Query(LISTING_SELECT + " WHERE p.productId IN :productIds")
+	List<ProductListingDto> findListingsByProductIdIn(@Param("productIds") Collection<Integer> productIds);
+
+	String SEARCH_FIELDS_SELECT = "SELECT p.productId, p.productName, p.productDescription, p.productDiscountedPrice, "
+			+ "p.productActualPrice FROM ProductEntity p";
+
+	@Query(SEARCH_FIELDS_SELECT)
+	List<Object[]> findSearchFields();
+
+	@Query(SEARCH_FIELDS_SELECT + " WHERE p.productId IN :productIds")
+	List<Object[]> findSearchFieldsByProductIdIn(@Param("productIds") Collection<Integer> productIds);
+
+	@Query("SELECT p.productId, p.productName FROM ProductEntity p")
+	List<Object[]> findNames();
+
+	@Query(LISTING_SELECT)
+	List<ProductListingDto> findAllListings(Sort sort);
+
+	@Query(LISTING_SELECT + " ORDER BY p.productName, p.productId")
+	List<ProductListingDto> findFirstListings(Limit limit);
+
+	// Rango sobre idx_product_name que empieza en el cursor: el primer término acota el rango del índice
+	@Query(LISTING_SELECT + " WHERE p.productName >= :afterName "
+			+ "AND (p.productName > :afterName OR p.productId > :afterId) ORDER BY p.productName, p.productId")
+	List<ProductListingDto> findListingsAfter(@Param("afterName") String afterName, @Param("afterId") Integer afterId,
+			Limit limit);
+
+	@Query(LISTING_SELECT + " WHERE p.productId > :afterId ORDER BY p.productId")
+	List<ProductListingDto> findListingsAfterId(@Param("afterId") Integer afterId, Limit limit);
+
+	@Query("SELECT p.productId FROM ProductEntity p WHERE p.productId IN :productIds")
+	List<Integer> findExistingProductIds(@Param("productIds") Collection<Integer> productIds);
 
+	@Query("SELECT p.productId, i.id, i.hash, i.type, v.hash, v.type, i.placeholder FROM ProductEntity p JOIN p.productImages i "
+			+ "LEFT JOIN ImageVariantEntity v ON v.imageId = i.id AND v.variant = :variant "
+			+ "WHERE p.productId IN :productIds ORDER BY i.id")
+	List<Object[]> findImageReferencesByProductIds(@Param("productIds") Collection<Integer> productIds,
+			@Param("variant") ImageVariant variant);
 
-}
\ No newline at end of file
+}
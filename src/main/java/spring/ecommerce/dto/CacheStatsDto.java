@@ -0,0 +1,48 @@
+package spring.ecommerce.dto;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Policy.Eviction;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Counters of an in-memory cache, used to size it from real traffic.
+ * <p>
+ * {@code size} is the number of entries. {@code weight} and {@code maximum} are in bytes for byte-budgeted
+ * caches and in entries otherwise.
+ * </p>
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CacheStatsDto {
+
+	private String name;
+	private long hitCount;
+	private long missCount;
+	private double hitRate;
+	private long evictionCount;
+	private long size;
+	private long weight;
+	private long maximum;
+
+	/**
+	 * Builds the counters of a Caffeine cache created with {@code recordStats()}.
+	 *
+	 * @param name  the name of the cache
+	 * @param cache the cache
+	 * @return the current counters of the cache
+	 */
+	public static CacheStatsDto of(String name, Cache<?, ?> cache) {
+		CacheStats stats = cache.stats();
+		long size = cache.estimatedSize();
+		Eviction<?, ?> eviction = cache.policy().eviction().orElse(null);
+		long weight = eviction != null && eviction.isWeighted() ? eviction.weightedSize().orElse(size) : size;
+		long maximum = eviction != null ? eviction.getMaximum() : Long.MAX_VALUE;
+		return new CacheStatsDto(name, stats.hitCount(), stats.missCount(), stats.hitRate(), stats.evictionCount(),
+				size, weight, maximum);
+	}
+}
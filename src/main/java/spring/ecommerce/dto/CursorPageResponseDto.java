@@ -0,0 +1,23 @@
+package spring.ecommerce.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Page of a keyset (cursor-based) listing.
+ * <p>
+ * The next page is requested with {@code nextCursor}, which is {@code null} on the last page. Unlike
+ * {@link PageResponseDto}, no total count is computed and deep pages cost the same as the first one.
+ * </p>
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CursorPageResponseDto<T> {
+	private List<T> content;
+	private int pageSize;
+	private String nextCursor;
+}
@@ -0,0 +1,27 @@
+package spring.ecommerce.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Summary of a run of the orphan image cleanup.
+ * <p>
+ * {@code completed} is {@code false} when the run stopped after its batch budget, leaving work for the next run.
+ * </p>
+ */
+@Data
+@NoArgsConstructor
+public class ImageCleanupReportDto {
+
+	private LocalDateTime startedAt;
+	private LocalDateTime finishedAt;
+	private long deletedImages;
+	private long deletedVariants;
+	private long deletedContents;
+	private long reclaimedBytes;
+	private int batches;
+	private boolean completed;
+
+}
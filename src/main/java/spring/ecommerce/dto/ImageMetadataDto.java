@@ -0,0 +1,36 @@
+package spring.ecommerce.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Metadata of a stored image, as listed to administrators.
+ * <p>
+ * It never carries the image bytes; {@code productIds} holds the products that use the image.
+ * </p>
+ */
+@Data
+@NoArgsConstructor
+public class ImageMetadataDto {
+
+	private Long id;
+	private String name;
+	private String shortName;
+	private String type;
+	private Long size;
+	private String hash;
+	private List<Integer> productIds = new ArrayList<>();
+
+	public ImageMetadataDto(Long id, String name, String shortName, String type, Long size, String hash) {
+		this.id = id;
+		this.name = name;
+		this.shortName = shortName;
+		this.type = type;
+		this.size = size;
+		this.hash = hash;
+	}
+
+}
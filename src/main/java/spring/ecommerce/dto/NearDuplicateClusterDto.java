@@ -0,0 +1,24 @@
+package spring.ecommerce.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Group of images whose perceptual hashes are within the near-duplicate distance of each other.
+ * <p>
+ * {@code maxDistance} is the largest Hamming distance between two hashes of the group, from 0 (same picture)
+ * to 64; {@code totalSize} is the size in bytes of all their originals.
+ * </p>
+ */
+@Data
+@NoArgsConstructor
+public class NearDuplicateClusterDto {
+
+	private List<ImageMetadataDto> images = new ArrayList<>();
+	private int maxDistance;
+	private long totalSize;
+
+}
@@ -5,6 +5,14 @@ import java.util.List;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+/**
+ * Page of a listing.
+ * <p>
+ * Offset-paginated listings fill every field but {@code nextCursor}. Listings requested with a cursor fill
+ * {@code nextCursor} instead of {@code currentPage}, which is {@code -1}, and may skip the total count, leaving
+ * {@code totalPages} and {@code totalElements} at {@code -1}.
+ * </p>
+ */
 @Data
 @NoArgsConstructor
 public class PageResponseDto<T> {
@@ -13,6 +21,7 @@ public class PageResponseDto<T> {
     private long totalElements;
     private int pageSize;
     private int currentPage;
+    private String nextCursor;
 
     public PageResponseDto(List<T> content, int totalPages, long totalElements, int pageSize, int currentPage) {
         this.content = content;
@@ -0,0 +1,23 @@
+package spring.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Price range of the price facet and its number of products.
+ * <p>
+ * {@code minPrice} is inclusive and {@code maxPrice} exclusive; {@code maxPrice} is {@code null} for the last,
+ * open-ended bucket.
+ * </p>
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceBucketDto {
+
+	private Double minPrice;
+	private Double maxPrice;
+	private long count;
+
+}
@@ -0,0 +1,25 @@
+package spring.ecommerce.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Facet counts shown next to a product listing.
+ * <p>
+ * Each facet is counted with the other filters applied but not its own, so the user sees how many products each
+ * choice would give: {@code priceBuckets} ignore the price range and {@code onDiscountCount} ignores the discount
+ * filter. {@code totalCount} applies every filter.
+ * </p>
+ */
+@Data
+@NoArgsConstructor
+public class ProductFacetsDto {
+
+	private long totalCount;
+	private long onDiscountCount;
+	private List<PriceBucketDto> priceBuckets = new ArrayList<>();
+
+}
@@ -0,0 +1,18 @@
+package spring.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Row of an imported sheet that was not saved, with the reason.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductImportRejectionDto {
+
+	private int rowNumber;
+	private String reason;
+
+}
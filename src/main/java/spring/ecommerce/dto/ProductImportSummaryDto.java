@@ -0,0 +1,30 @@
+package spring.ecommerce.dto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Summary of a product import.
+ * <p>
+ * {@code rejections} lists why rows were rejected, only for the first rejected rows; {@code rejected} counts them
+ * all.
+ * </p>
+ */
+@Data
+@NoArgsConstructor
+public class ProductImportSummaryDto {
+
+	private LocalDateTime startedAt;
+	private LocalDateTime finishedAt;
+	private long rows;
+	private long inserted;
+	private long updated;
+	private long rejected;
+	private int batches;
+	private List<ProductImportRejectionDto> rejections = new ArrayList<>();
+
+}
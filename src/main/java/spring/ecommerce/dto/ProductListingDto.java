@@ -0,0 +1,41 @@
+package spring.ecommerce.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Lightweight view of a product used by listing endpoints.
+ * <p>
+ * It carries the product fields plus the IDs and URLs of its images, never the image bytes.
+ * {@code cardImageUrls} holds, in the same order, the URLs of the card-sized variants used by the catalog grid,
+ * or of the originals while their variants are not generated yet. {@code imagePlaceholders} holds their BlurHash
+ * placeholders, {@code null} until computed, so the grid renders before any image is downloaded.
+ * </p>
+ */
+@Data
+@NoArgsConstructor
+public class ProductListingDto {
+
+	private Integer productId;
+	private String productName;
+	private String productDescription;
+	private double productDiscountedPrice;
+	private double productActualPrice;
+	private List<Long> imageIds = new ArrayList<>();
+	private List<String> imageUrls = new ArrayList<>();
+	private List<String> cardImageUrls = new ArrayList<>();
+	private List<String> imagePlaceholders = new ArrayList<>();
+
+	public ProductListingDto(Integer productId, String productName, String productDescription,
+			double productDiscountedPrice, double productActualPrice) {
+		this.productId = productId;
+		this.productName = productName;
+		this.productDescription = productDescription;
+		this.productDiscountedPrice = productDiscountedPrice;
+		this.productActualPrice = productActualPrice;
+	}
+
+}
@@ -0,0 +1,18 @@
+package spring.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Typeahead suggestion: just the ID and name of a product, to keep the response small.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSuggestionDto {
+
+	private Integer productId;
+	private String productName;
+
+}
@@ -0,0 +1,23 @@
+package spring.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * State of a resumable image upload.
+ * <p>
+ * {@code offset} is the number of bytes received so far: the next chunk must start there.
+ * </p>
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadSessionDto {
+
+	private String id;
+	private String fileName;
+	private long size;
+	private long offset;
+
+}
@@ -1,11 +1,15 @@
 package spring.ecommerce.entity;
 
+import java.time.LocalDateTime;
+
+import org.hibernate.annotations.CreationTimestamp;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
-import jakarta.persistence.Lob;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -13,7 +17,7 @@ import lombok.NoArgsConstructor;
 @Entity
 @Data
 @NoArgsConstructor
-@Table(name = "image")
+@Table(name = "image", indexes = @Index(name = "idx_image_hash", columnList = "hash"))
 public class ImageEntity {
 
 	@Id
@@ -22,16 +26,27 @@ public class ImageEntity {
 	private String name;
 	private String shortName;
 	private String type;
-	@Lob
-	@Column(length = 50000000)
-	private byte [] picByte;
+	// SHA-256 del contenido, guardado en el ImageStore
+	@Column(length = 64)
+	private String hash;
+	private Long size;
+	// Hash perceptual (dHash) para detectar imágenes casi idénticas
+	private Long perceptualHash;
+	// BlurHash que los clientes muestran mientras se descarga la imagen
+	@Column(length = 64)
+	private String placeholder;
+	// Las imágenes sin producto solo se borran pasado un periodo de gracia
+	@CreationTimestamp
+	@Column(updatable = false)
+	private LocalDateTime createdAt;
 	
-	public ImageEntity(String name, String shortName, String type, byte[] picByte) {
+	public ImageEntity(String name, String shortName, String type, String hash, Long size) {
 		super();
 		this.shortName = shortName;
 		this.name = name;
 		this.type = type;
-		this.picByte = picByte;
+		this.hash = hash;
+		this.size = size;
 	}
 	
 	
@@ -0,0 +1,38 @@
+package spring.ecommerce.entity;
+
+import java.time.LocalDateTime;
+
+import org.hibernate.annotations.CreationTimestamp;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Data
+@NoArgsConstructor
+@Table(name = "image_upload_session", indexes = @Index(name = "idx_image_upload_session_created_at", columnList = "createdAt"))
+public class ImageUploadSessionEntity {
+
+	@Id
+	@Column(length = 36)
+	private String id;
+	private String fileName;
+	// Tamaño total anunciado por el cliente; los bytes recibidos son los del fichero parcial
+	private Long size;
+	@CreationTimestamp
+	@Column(updatable = false)
+	private LocalDateTime createdAt;
+
+	public ImageUploadSessionEntity(String id, String fileName, Long size) {
+		super();
+		this.id = id;
+		this.fileName = fileName;
+		this.size = size;
+	}
+
+}
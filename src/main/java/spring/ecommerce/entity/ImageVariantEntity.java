@@ -0,0 +1,53 @@
+package spring.ecommerce.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import spring.ecommerce.storage.ImageVariant;
+
+@Entity
+@Data
+@NoArgsConstructor
+@Table(name = "image_variant",
+	uniqueConstraints = @UniqueConstraint(name = "uk_image_variant", columnNames = { "image_id", "variant" }),
+	indexes = @Index(name = "idx_image_variant_hash", columnList = "hash"))
+public class ImageVariantEntity {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+	@Column(name = "image_id", nullable = false)
+	private Long imageId;
+	@Enumerated(EnumType.STRING)
+	@Column(length = 16, nullable = false)
+	private ImageVariant variant;
+	// SHA-256 del contenido redimensionado, guardado en el ImageStore
+	@Column(length = 64, nullable = false)
+	private String hash;
+	private String type;
+	private Integer width;
+	private Integer height;
+	private Long size;
+
+	public ImageVariantEntity(Long imageId, ImageVariant variant, String hash, String type, Integer width,
+			Integer height, Long size) {
+		super();
+		this.imageId = imageId;
+		this.variant = variant;
+		this.hash = hash;
+		this.type = type;
+		this.width = width;
+		this.height = height;
+		this.size = size;
+	}
+
+}
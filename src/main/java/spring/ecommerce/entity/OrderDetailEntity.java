@@ -10,13 +10,16 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "order-detail")
+@Table(name = "order-detail", indexes = {
+	@Index(name = "idx_order_detail_full_name", columnList = "orderFullName, orderId"),
+	@Index(name = "idx_order_detail_user_full_name", columnList = "user_user_name, orderFullName, orderId") })
 @Data
 @NoArgsConstructor
 public class OrderDetailEntity {
@@ -8,6 +8,7 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
@@ -22,7 +23,7 @@ import spring.ecommerce.validation.ValidDiscountPrice;
 @Entity
 @Data
 @ValidDiscountPrice
-@Table(name = "product")
+@Table(name = "product", indexes = @Index(name = "idx_product_name", columnList = "productName, productId"))
 public class ProductEntity {
 
 	@Id
@@ -43,7 +44,8 @@ public class ProductEntity {
     @Positive(message = "Discounted price must be greater than zero")
 	private double productActualPrice;
     
-    @ManyToMany (fetch = FetchType.EAGER, cascade = CascadeType.ALL)
+    // Sin REMOVE: una imagen puede compartirse entre productos; las huérfanas las borra la limpieza programada
+    @ManyToMany (fetch = FetchType.LAZY, cascade = {CascadeType.PERSIST, CascadeType.MERGE})
     @JoinTable(
 		name = "product_images",
 		joinColumns = {
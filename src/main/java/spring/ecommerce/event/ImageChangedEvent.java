@@ -0,0 +1,17 @@
+package spring.ecommerce.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import spring.ecommerce.entity.ImageEntity;
+
+/**
+ * Published when an image is deleted, so its cached metadata is dropped once the transaction that deleted it
+ * commits.
+ */
+@Getter
+@AllArgsConstructor
+public class ImageChangedEvent {
+
+	private final ImageEntity image;
+
+}
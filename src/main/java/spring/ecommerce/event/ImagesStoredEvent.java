@@ -0,0 +1,17 @@
+package spring.ecommerce.event;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published when new images have been persisted, so their variants can be generated in the background.
+ */
+@Getter
+@AllArgsConstructor
+public class ImagesStoredEvent {
+
+	private final List<Long> imageIds;
+
+}
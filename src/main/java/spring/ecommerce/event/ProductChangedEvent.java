@@ -0,0 +1,20 @@
+package spring.ecommerce.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published when a product, or the images shown in product listings, change, so cached catalog reads are dropped
+ * and the product is re-indexed for search.
+ * <p>
+ * {@code productId} is {@code null} when the change may affect any product, e.g. new image variants. Such changes
+ * never touch product names or descriptions.
+ * </p>
+ */
+@Getter
+@AllArgsConstructor
+public class ProductChangedEvent {
+
+	private final Integer productId;
+
+}
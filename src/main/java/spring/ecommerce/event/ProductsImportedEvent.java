@@ -0,0 +1,16 @@
+package spring.ecommerce.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published after a bulk import or edit inserted or updated products, so cached catalog reads are dropped and the search
+ * index is rebuilt from the database on next use, instead of re-indexing each product.
+ */
+@Getter
+@AllArgsConstructor
+public class ProductsImportedEvent {
+
+	private final long changedProducts;
+
+}
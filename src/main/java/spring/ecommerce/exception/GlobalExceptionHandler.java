@@ -14,6 +14,7 @@ import org.springframework.validation.ObjectError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 
 import io.jsonwebtoken.ExpiredJwtException;
 
@@ -22,6 +23,8 @@ import io.jsonwebtoken.ExpiredJwtException;
  */
 @RestControllerAdvice
 public class GlobalExceptionHandler {
+
+    private static final String UPLOAD_OFFSET_HEADER = "Upload-Offset";
 	
     /**
      * Handles any unexpected errors that occur in the application.
@@ -140,6 +143,56 @@ public class GlobalExceptionHandler {
     public ResponseEntity<String> handleProductNotFoundException(ImageUploadException ex) {
         return new ResponseEntity<>(ex.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
     }
+
+    /**
+     * Handles InvalidImageException when an uploaded file is too large or is not a supported image.
+     * This method returns a response with the exception message and HTTP status 400 (Bad Request).
+     * 
+     * @param ex The {@link InvalidImageException} thrown when an uploaded file is rejected.
+     * @return A {@link ResponseEntity} with the exception message and HTTP status 400 (Bad Request).
+     */
+    @ExceptionHandler(InvalidImageException.class)
+    public ResponseEntity<String> handleInvalidImageException(InvalidImageException ex) {
+        return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Handles MaxUploadSizeExceededException when a multipart request exceeds the configured size limits.
+     * The request is rejected by the container while it is being read, before any file reaches the services.
+     * 
+     * @param ex The {@link MaxUploadSizeExceededException} thrown when the upload is too large.
+     * @return A {@link ResponseEntity} with an error message and HTTP status 413 (Payload Too Large).
+     */
+    @ExceptionHandler(MaxUploadSizeExceededException.class)
+    public ResponseEntity<String> handleMaxUploadSizeExceededException(MaxUploadSizeExceededException ex) {
+        return new ResponseEntity<>("Uploaded file is too large.", HttpStatus.PAYLOAD_TOO_LARGE);
+    }
+
+    /**
+     * Handles UploadSessionNotFoundException when a resumable upload session does not exist or has expired.
+     * This method returns a response with the exception message and HTTP status 404 (Not Found).
+     * 
+     * @param ex The {@link UploadSessionNotFoundException} thrown when the upload session is not found.
+     * @return A {@link ResponseEntity} with the exception message and HTTP status 404 (Not Found).
+     */
+    @ExceptionHandler(UploadSessionNotFoundException.class)
+    public ResponseEntity<String> handleUploadSessionNotFoundException(UploadSessionNotFoundException ex) {
+        return new ResponseEntity<>(ex.getMessage(), HttpStatus.NOT_FOUND);
+    }
+
+    /**
+     * Handles UploadOffsetConflictException when a chunk does not start where the upload session expects it.
+     * The current offset is returned in the {@code Upload-Offset} header, so the client can resume from there.
+     * 
+     * @param ex The {@link UploadOffsetConflictException} thrown when the chunk offset is rejected.
+     * @return A {@link ResponseEntity} with the exception message and HTTP status 409 (Conflict).
+     */
+    @ExceptionHandler(UploadOffsetConflictException.class)
+    public ResponseEntity<String> handleUploadOffsetConflictException(UploadOffsetConflictException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .header(UPLOAD_OFFSET_HEADER, String.valueOf(ex.getOffset()))
+                .body(ex.getMessage());
+    }
     
 	// AUTH EXCEPTIONS
 
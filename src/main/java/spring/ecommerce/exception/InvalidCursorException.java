@@ -0,0 +1,13 @@
+package spring.ecommerce.exception;
+
+/**
+ * Thrown when a pagination cursor was not issued by the application or has been altered.
+ */
+public class InvalidCursorException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,20 @@
+package spring.ecommerce.exception;
+
+import lombok.Getter;
+
+/**
+ * Thrown when a chunk does not start at the current offset of its upload session, or when another chunk
+ * of the same session is being written.
+ */
+@Getter
+public class UploadOffsetConflictException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long offset;
+
+    public UploadOffsetConflictException(String message, long offset) {
+        super(message);
+        this.offset = offset;
+    }
+}
@@ -0,0 +1,10 @@
+package spring.ecommerce.exception;
+
+public class UploadSessionNotFoundException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public UploadSessionNotFoundException(String message) {
+        super(message);
+    }
+}
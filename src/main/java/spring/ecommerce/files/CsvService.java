@@ -1,76 +1,89 @@
 package spring.ecommerce.files;
 
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
-import java.io.Writer;
-import java.util.List;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
 
 import org.springframework.stereotype.Service;
 
 import com.opencsv.CSVWriter;
 
 import lombok.extern.slf4j.Slf4j;
-import spring.ecommerce.entity.ProductEntity;
+import spring.ecommerce.dto.ProductListingDto;
 
 @Service
 @Slf4j
 public class CsvService {
 
+    // Tamaño del búfer de escritura: cada bloque lleno se envía al cliente como un chunk
+    private static final int BUFFER_SIZE = 16 * 1024;
+
     /**
-     * Generates a CSV file containing a list of products. The CSV includes headers
+     * Writes a CSV file containing a list of products to an output stream. The CSV includes headers
      * and product details.
+     * <p>
+     * The header is flushed as soon as it is written, and rows are written through a buffer as the
+     * products are passed, so the file is never held in memory and the client receives the first
+     * bytes before the last products are read.
+     * </p>
      *
-     * @param products A list of {@link ProductEntity} objects to include in the CSV.
-     * @return A byte array representing the generated CSV file.
+     * @param outputStream The stream the CSV is written to, which is not closed.
+     * @param products     The source of the products, passing each one to the given consumer.
+     * @throws IOException If the CSV cannot be written.
      */
-	public byte[] generateProductListCsv(List<ProductEntity> products) {
-	    log.info("Starting CSV generation for {} products.", products.size());
+	public void writeProductListCsv(OutputStream outputStream, Consumer<Consumer<ProductListingDto>> products)
+			throws IOException {
+	    log.info("Starting CSV generation.");
 
-	    try (
-	            ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-	            Writer writer = new OutputStreamWriter(byteArrayOutputStream, "UTF-8");
-	            // Configurar CSVWriter para manejar comas y saltos de línea en las celdas, asegurando que estén entre comillas
-	            CSVWriter csvWriter = new CSVWriter(writer, CSVWriter.DEFAULT_SEPARATOR, 
-	                CSVWriter.DEFAULT_QUOTE_CHARACTER, CSVWriter.DEFAULT_ESCAPE_CHARACTER, 
-	                CSVWriter.DEFAULT_LINE_END)) 
-	    {	
-	        // Agregar BOM (Byte Order Mark) para UTF-8
-	        byteArrayOutputStream.write(0xEF);
-	        byteArrayOutputStream.write(0xBB);
-	        byteArrayOutputStream.write(0xBF);
-	        
-	        String[] header = { "Product ID", "Product Name", "Description", "Original Price", "Discounted Price" };
-	        csvWriter.writeNext(header);
-	        log.debug("CSV headers written successfully.");
+	    // Agregar BOM (Byte Order Mark) para UTF-8
+	    outputStream.write(new byte[] { (byte) 0xEF, (byte) 0xBB, (byte) 0xBF });
 
-	        // Add product data
-	        loadProductsInCsv(products, csvWriter);
+	    // Configurar CSVWriter para manejar comas y saltos de línea en las celdas, asegurando que estén entre comillas
+	    // El CSVWriter no se cierra para no cerrar la respuesta
+	    CSVWriter csvWriter = new CSVWriter(
+	            new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), BUFFER_SIZE),
+	            CSVWriter.DEFAULT_SEPARATOR, CSVWriter.DEFAULT_QUOTE_CHARACTER, CSVWriter.DEFAULT_ESCAPE_CHARACTER,
+	            CSVWriter.DEFAULT_LINE_END);
 
-	        csvWriter.flush();
-	        log.info("CSV generation completed successfully.");
-	        return byteArrayOutputStream.toByteArray();
+	    String[] header = { "Product ID", "Product Name", "Description", "Original Price", "Discounted Price" };
+	    csvWriter.writeNext(header);
+	    csvWriter.flush();
+	    log.debug("CSV headers written successfully.");
 
-	    } catch (Exception e) {
-	        log.error("An error occurred while generating the CSV file.", e);
-	        return null;
+	    // Add product data
+	    int[] count = { 0 };
+	    try {
+	        products.accept(product -> {
+	            csvWriter.writeNext(toRow(product));
+	            // CSVWriter guarda los errores en lugar de lanzarlos: se corta en cuanto el cliente se desconecta
+	            if (csvWriter.getException() != null) {
+	                throw new UncheckedIOException(csvWriter.getException());
+	            }
+	            count[0]++;
+	        });
+	    } catch (UncheckedIOException e) {
+	        throw e.getCause();
+	    }
+	    csvWriter.flush();
+	    if (csvWriter.checkError()) {
+	        throw new IOException("The CSV could not be written to the response.");
 	    }
+	    log.info("CSV generation completed successfully: {} products written.", count[0]);
 	}
 
-	private void loadProductsInCsv(List<ProductEntity> products, CSVWriter csvWriter) {
-	    int count = 0;
-	    for (ProductEntity product : products) {
-	        String[] data = { 
-	                String.valueOf(product.getProductId()), 
-	                product.getProductName(),
-	                // Las descripciones con comas o saltos de línea se manejarán correctamente por CSVWriter
-	                product.getProductDescription(),
-	                String.valueOf(product.getProductActualPrice()) + " €",
-	                String.valueOf(product.getProductDiscountedPrice()) + " €",
-	        };
-	        csvWriter.writeNext(data);
-	        count++;
-	    }
-	    log.debug("{} products have been written into the CSV.", count);
+	private static String[] toRow(ProductListingDto product) {
+	    return new String[] {
+	            String.valueOf(product.getProductId()),
+	            product.getProductName(),
+	            // Las descripciones con comas o saltos de línea se manejarán correctamente por CSVWriter
+	            product.getProductDescription(),
+	            product.getProductActualPrice() + " €",
+	            product.getProductDiscountedPrice() + " €",
+	    };
 	}
 
 }
@@ -1,51 +1,110 @@
 package spring.ecommerce.files;
 
+import org.apache.poi.UnsupportedFileFormatException;
+import org.apache.poi.ooxml.POIXMLException;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFComment;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
 import lombok.extern.slf4j.Slf4j;
+import spring.ecommerce.dto.ProductListingDto;
 import spring.ecommerce.entity.ProductEntity;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.ArrayList;
-import java.util.List;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.function.Consumer;
+
+import javax.xml.parsers.ParserConfigurationException;
 
 @Service
 @Slf4j
 public class ExcelService {
 
+    // Filas que el SXSSFWorkbook mantiene en memoria; las anteriores se vuelcan a un fichero temporal
+    static final int ROW_WINDOW = 100;
+
     /**
-     * Generates an Excel file containing a list of products.
+     * Writes an Excel file containing a list of products to an output stream.
+     * <p>
+     * The workbook is an {@link SXSSFWorkbook}: only the last {@value #ROW_WINDOW} rows are kept in
+     * memory and older ones are flushed to a compressed temporary file, strings are written inline
+     * instead of into a shared strings table, and the two cell styles are created once. Heap use
+     * therefore does not grow with the number of products. The temporary file is deleted once the
+     * workbook has been written, whether or not it succeeded.
+     * </p>
      *
-     * @param products A list of {@link ProductEntity} objects to include in the Excel file.
-     * @return A byte array representing the generated Excel file.
+     * @param outputStream The stream the workbook is written to, which is not closed.
+     * @param products     The source of the products, passing each one to the given consumer.
+     * @throws IOException If the workbook cannot be written.
      */
-    public byte[] generateProductListExcel(List<ProductEntity> products) {
-        log.info("Starting Excel generation for {} products.", products.size());
+    public void writeProductListExcel(OutputStream outputStream, Consumer<Consumer<ProductListingDto>> products)
+            throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(null, ROW_WINDOW, true, false);
+        try {
+            writeProductListExcel(workbook, outputStream, products);
+        } finally {
+            // Borra el fichero temporal de las filas volcadas
+            workbook.dispose();
+            workbook.close();
+        }
+    }
 
-        try (ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream()) {
-            XSSFWorkbook workbook = new XSSFWorkbook();
-            Sheet sheet = workbook.createSheet("Product List");
+    /**
+     * Fills a workbook with a list of products and writes it to an output stream.
+     *
+     * @param workbook     The empty workbook to fill.
+     * @param outputStream The stream the workbook is written to, which is not closed.
+     * @param products     The source of the products, passing each one to the given consumer.
+     * @return The number of products written.
+     * @throws IOException If the workbook cannot be written.
+     */
+    int writeProductListExcel(Workbook workbook, OutputStream outputStream,
+            Consumer<Consumer<ProductListingDto>> products) throws IOException {
+        log.info("Starting Excel generation.");
+        Sheet sheet = workbook.createSheet("Product List");
 
-            CellStyle headerStyle = workbook.createCellStyle();
-            generateHeader(workbook, sheet, headerStyle);
-            loadProductsInExcel(products, sheet);
+        CellStyle headerStyle = workbook.createCellStyle();
+        generateHeader(workbook, sheet, headerStyle);
 
-            workbook.write(byteArrayOutputStream);
-            workbook.close();
-            log.info("Excel generation completed successfully.");
-            return byteArrayOutputStream.toByteArray();
+        // Un único estilo para todos los precios: los estilos por celda agotan el límite del libro
+        CellStyle priceStyle = workbook.createCellStyle();
+        priceStyle.setDataFormat(workbook.createDataFormat().getFormat("#,##0.00 €"));
 
-        } catch (IOException e) {
-            log.error("An error occurred while generating the Excel file.", e);
-            return null;
-        }
+        int[] rowNum = { 1 };
+        products.accept(product -> {
+            Row row = sheet.createRow(rowNum[0]++);
+            row.createCell(0).setCellValue(product.getProductId());
+            row.createCell(1).setCellValue(product.getProductName());
+            row.createCell(2).setCellValue(product.getProductDescription());
+            Cell actualPrice = row.createCell(3);
+            actualPrice.setCellValue(product.getProductActualPrice());
+            actualPrice.setCellStyle(priceStyle);
+            Cell discountedPrice = row.createCell(4);
+            discountedPrice.setCellValue(product.getProductDiscountedPrice());
+            discountedPrice.setCellStyle(priceStyle);
+        });
+
+        workbook.write(outputStream);
+        log.info("Excel generation completed successfully: {} products written.", rowNum[0] - 1);
+        return rowNum[0] - 1;
     }
 
-    private void generateHeader(XSSFWorkbook workbook, Sheet sheet, CellStyle headerStyle) {
+    private void generateHeader(Workbook workbook, Sheet sheet, CellStyle headerStyle) {
         Font headerFont = workbook.createFont();
         headerFont.setBold(true);
         headerStyle.setFont(headerFont);
@@ -60,85 +119,121 @@ public class ExcelService {
         log.debug("Excel headers written successfully.");
     }
 
-    private void loadProductsInExcel(List<ProductEntity> products, Sheet sheet) {
-        int rowNum = 1;
-        for (ProductEntity product : products) {
-            Row row = sheet.createRow(rowNum++);
-            row.createCell(0).setCellValue(product.getProductId());
-            row.createCell(1).setCellValue(product.getProductName());
-            row.createCell(2).setCellValue(product.getProductDescription());
-            row.createCell(3).setCellValue(product.getProductActualPrice() + " €");
-            row.createCell(4).setCellValue(product.getProductDiscountedPrice() + " €");
-        }
-        log.debug("{} products have been written into the Excel file.", products.size());
+    /**
+     * Row of an imported product sheet.
+     *
+     * @param rowNumber the 1-based row number in the sheet
+     * @param product   the product read from the row, without validation
+     * @param error     why the row could not be read, or {@code null}
+     */
+    public record ImportedRow(int rowNumber, ProductEntity product, String error) {
     }
 
     /**
-     * Imports products from an Excel file and converts them into a list of ProductEntity objects.
+     * Reads the products of the first sheet of an Excel file and passes each row to the given consumer.
+     * <p>
+     * The sheet is parsed with the event-driven SAX API of {@link XSSFReader} instead of being loaded as a
+     * workbook, so only the current row and the shared strings table are held in memory. The columns are
+     * those of the export: ID (optional), name, description, original price and discounted price. The
+     * header row is skipped. Prices may be numeric cells or text such as {@code "10.5 €"}.
+     * </p>
      *
-     * @param file the Excel file containing product data
-     * @return a list of ProductEntity objects extracted from the file
-     * @throws IOException if an error occurs while reading the file
+     * @param inputStream the Excel file, which is not closed
+     * @param consumer    the consumer receiving each row, in sheet order
+     * @throws IOException if the file cannot be read or is not a valid .xlsx file
      */
-    public List<ProductEntity> importProductsFromExcel(MultipartFile file) throws IOException {
-        log.info("Starting import process for Excel file: {}", file.getOriginalFilename());
-        List<ProductEntity> productList = new ArrayList<>();
-
-        try (InputStream inputStream = file.getInputStream();
-             Workbook workbook = new XSSFWorkbook(inputStream)) {
-
-            Sheet sheet = workbook.getSheetAt(0);
-            if (sheet == null) {
+    public void readProductsFromExcel(InputStream inputStream, Consumer<ImportedRow> consumer) throws IOException {
+        try (OPCPackage opcPackage = OPCPackage.open(inputStream)) {
+            XSSFReader reader = new XSSFReader(opcPackage);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(opcPackage, false);
+            Iterator<InputStream> sheets = reader.getSheetsData();
+            if (!sheets.hasNext()) {
                 log.error("Excel file is empty or missing sheets.");
-                return productList;
+                return;
             }
 
-            for (int rowIndex = 1; rowIndex <= sheet.getLastRowNum(); rowIndex++) {
-                Row row = sheet.getRow(rowIndex);
-                if (row == null) continue;
-
-                try {
-                    ProductEntity product = new ProductEntity();
-                    product.setProductId((int) getNumericCellValue(row.getCell(0)));
-                    product.setProductName(getStringCellValue(row.getCell(1)));
-                    product.setProductDescription(getStringCellValue(row.getCell(2)));
-                    product.setProductDiscountedPrice(getNumericCellValue(row.getCell(3)));
-                    product.setProductActualPrice(getNumericCellValue(row.getCell(4)));
-
-                    productList.add(product);
-                } catch (Exception e) {
-                    log.error("Error processing row {} in Excel file: {}", rowIndex, e.getMessage());
-                }
+            try (InputStream sheet = sheets.next()) {
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(new XSSFSheetXMLHandler(reader.getStylesTable(), strings,
+                        new ProductRowHandler(consumer), new RawNumberFormatter(), false));
+                parser.parse(new InputSource(sheet));
             }
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException | POIXMLException
+                | UnsupportedFileFormatException e) {
+            throw new IOException("The file is not a valid Excel workbook: " + e.getMessage(), e);
         }
-
-        log.info("Successfully imported {} products from Excel.", productList.size());
-        return productList;
     }
 
     /**
-     * Retrieves the numeric value of a cell safely.
-     * If the cell is null or not of type NUMERIC, it returns 0.
-     *
-     * @param cell the Excel cell to extract the numeric value from
-     * @return the numeric value of the cell, or 0 if the cell is null or not numeric
+     * Builds a product from the cells of each data row.
      */
-    private double getNumericCellValue(Cell cell) {
-        if (cell == null) return 0;
-        return cell.getCellType() == CellType.NUMERIC ? cell.getNumericCellValue() : 0;
+    private static final class ProductRowHandler implements XSSFSheetXMLHandler.SheetContentsHandler {
+
+        private static final int COLUMNS = 5;
+
+        private final Consumer<ImportedRow> consumer;
+        private final String[] cells = new String[COLUMNS];
+
+        private ProductRowHandler(Consumer<ImportedRow> consumer) {
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            Arrays.fill(this.cells, null);
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int column = new CellReference(cellReference).getCol();
+            if (column < COLUMNS) {
+                this.cells[column] = formattedValue;
+            }
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if (rowNum == 0 || Arrays.stream(this.cells).allMatch(cell -> cell == null || cell.isBlank())) {
+                // Cabecera y filas vacías
+                return;
+            }
+
+            ProductEntity product = new ProductEntity();
+            try {
+                Double id = parseNumber(this.cells[0]);
+                product.setProductId(id == null ? null : (int) id.doubleValue());
+                product.setProductName(trim(this.cells[1]));
+                product.setProductDescription(trim(this.cells[2]));
+                Double actualPrice = parseNumber(this.cells[3]);
+                Double discountedPrice = parseNumber(this.cells[4]);
+                product.setProductActualPrice(actualPrice == null ? 0 : actualPrice);
+                product.setProductDiscountedPrice(discountedPrice == null ? 0 : discountedPrice);
+                this.consumer.accept(new ImportedRow(rowNum + 1, product, null));
+            } catch (NumberFormatException e) {
+                this.consumer.accept(new ImportedRow(rowNum + 1, product, "Invalid number: " + e.getMessage()));
+            }
+        }
+
+        private static Double parseNumber(String value) {
+            // Admite el formato de la exportación ("1,234.50 €")
+            String number = value == null ? "" : value.replace("€", "").replace(",", "").trim();
+            return number.isEmpty() ? null : Double.valueOf(number);
+        }
+
+        private static String trim(String value) {
+            return value == null ? null : value.trim();
+        }
     }
 
     /**
-     * Retrieves the string value of a cell safely.
-     * If the cell is null or not of type STRING, it returns an empty string.
-     *
-     * @param cell the Excel cell to extract the string value from
-     * @return the string value of the cell, or an empty string if the cell is null or not a string
+     * Returns numeric cells unformatted, so prices with a currency format are read as plain numbers.
      */
-    private String getStringCellValue(Cell cell) {
-        if (cell == null) return "";
-        return cell.getCellType() == CellType.STRING ? cell.getStringCellValue() : "";
-    }
+    private static final class RawNumberFormatter extends DataFormatter {
 
+        @Override
+        public String formatRawCellContents(double value, int formatIndex, String formatString) {
+            return BigDecimal.valueOf(value).toPlainString();
+        }
+    }
 
 }
@@ -1,18 +1,28 @@
 package spring.ecommerce.files;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.net.MalformedURLException;
-import java.util.List;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
 
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
 
+import com.itextpdf.io.font.FontProgram;
+import com.itextpdf.io.font.FontProgramFactory;
+import com.itextpdf.io.font.PdfEncodings;
+import com.itextpdf.io.font.constants.StandardFonts;
+import com.itextpdf.io.image.ImageData;
 import com.itextpdf.io.image.ImageDataFactory;
 import com.itextpdf.kernel.colors.DeviceRgb;
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.font.PdfFontFactory;
+import com.itextpdf.kernel.geom.PageSize;
 import com.itextpdf.kernel.pdf.PdfDocument;
 import com.itextpdf.kernel.pdf.PdfWriter;
 import com.itextpdf.layout.Document;
-import com.itextpdf.layout.element.AreaBreak;
+import com.itextpdf.layout.Style;
 import com.itextpdf.layout.element.Cell;
 import com.itextpdf.layout.element.Image;
 import com.itextpdf.layout.element.Paragraph;
@@ -20,95 +30,117 @@ import com.itextpdf.layout.element.Table;
 import com.itextpdf.layout.properties.TextAlignment;
 
 import lombok.extern.slf4j.Slf4j;
-import spring.ecommerce.entity.ProductEntity;
+import spring.ecommerce.dto.ProductListingDto;
 
 @Service
 @Slf4j
 public class PdfService {
-	
-	private static final int PDF_PAGE_SIZE = 10;
-	
+
+	private static final String LOGO_PATH = "static/logo.png";
+	private static final String[] HEADERS = { "Product ID", "Product Name", "Description", "Original Price", "Discounted Price" };
+	private static final float[] COLUMN_WIDTHS = { 2, 2, 3, 2, 2 };
+	// Filas tras las que la tabla grande se maqueta y las páginas completas se vuelcan a la respuesta
+	static final int TABLE_FLUSH_ROWS = 50;
+
+	// Recursos compartidos por todos los documentos: solo se leen al maquetar
+	private final ImageData logo;
+	private final FontProgram regularFont;
+	private final FontProgram boldFont;
+	private final Style headerStyle;
+
 	/**
-	 * Generates a PDF file containing a product list displayed in a table format. 
-	 * The PDF includes a logo in the top-left corner, a centered title, and a table with product information.
+	 * Loads the logo from the classpath and the fonts once, so they are reused by every document.
 	 *
-	 * @param products A list of {@link ProductEntity} objects containing the data to be displayed in the PDF.
-	 * @return A byte array representing the generated PDF file.
+	 * @throws UncheckedIOException If the logo or the fonts cannot be loaded.
+	 */
+	public PdfService() {
+		try (InputStream inputStream = new ClassPathResource(LOGO_PATH).getInputStream()) {
+			this.logo = ImageDataFactory.create(inputStream.readAllBytes());
+			this.regularFont = FontProgramFactory.createFont(StandardFonts.HELVETICA);
+			this.boldFont = FontProgramFactory.createFont(StandardFonts.HELVETICA_BOLD);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot load the resources of the PDF documents", e);
+		}
+		this.headerStyle = new Style()
+				.setBackgroundColor(new DeviceRgb(34, 193, 68))
+				.setFontColor(DeviceRgb.WHITE);
+	}
+
+	/**
+	 * Writes a PDF file containing a product list displayed in a table format to an output stream.
+	 * The PDF includes a logo in the top-left corner, a centered title, and a table with product information
+	 * whose header is repeated on every page.
+	 * <p>
+	 * The table is a large table: rows are laid out every {@value #TABLE_FLUSH_ROWS} products and, with the
+	 * immediate flush of the document, each completed page is written to the stream and released. Memory use
+	 * therefore does not grow with the number of products.
+	 * </p>
+	 *
+	 * @param outputStream The stream the PDF is written to, which is not closed.
+	 * @param products     The source of the products, passing each one to the given consumer.
 	 * @throws IOException If an error occurs while creating or writing the PDF.
 	 */
-	public byte[] generateProductListPdf(List<ProductEntity> products) throws IOException {
+	public void writeProductListPdf(OutputStream outputStream, Consumer<Consumer<ProductListingDto>> products)
+			throws IOException {
 		log.debug("Generating PDF List Products file");
-	    ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-	    PdfWriter writer = new PdfWriter(byteArrayOutputStream);
-	    PdfDocument pdfDocument = new PdfDocument(writer);
-	    Document document = new Document(pdfDocument);
-	    document.setMargins(50, 50, 50, 50); // Top, right, bottom, left
-
-	    // Añadir el logo en la esquina superior izquierda por encima del título
-	    generateLogo(pdfDocument, document);
-
-	    // Añadir un espacio después del logo antes de poner el título (4 saltos)
-	    generateSpace(document, 4);
-
-	    // Título centrado debajo del logo
-	    generateTitle(document);
-	    generateSpace(document, 2);
-
-	    // Dividir la lista de productos en grupos de 8
-	    int pageSize = PDF_PAGE_SIZE;
-	    int totalProducts = products.size();
-	    int totalPages = (int) Math.ceil((double) totalProducts / pageSize);
-
-	    for (int i = 0; i < totalPages; i++) {
-	        int fromIndex = i * pageSize;
-	        int toIndex = Math.min(fromIndex + pageSize, totalProducts);
-	        List<ProductEntity> subList = products.subList(fromIndex, toIndex);
-
-	        // Generar la tabla con los productos de la sublista
-	        Table table = generateTable(subList);
-	        document.add(table);
-
-	        // Si no es la última página, agregar un salto de página
-	        if (i < totalPages - 1) {
-	            document.add(new AreaBreak());
-	        }
-	    }
-
-	    document.close();
-	    return byteArrayOutputStream.toByteArray();
+		PdfWriter writer = new PdfWriter(outputStream);
+		writer.setCloseStream(false);
+		PdfDocument pdfDocument = new PdfDocument(writer);
+		int written = 0;
+
+		try (Document document = new Document(pdfDocument, PageSize.A4, true)) {
+			// Las fuentes pertenecen a cada documento; solo se comparte el programa de fuente ya leído
+			PdfFont regular = PdfFontFactory.createFont(this.regularFont, PdfEncodings.WINANSI);
+			PdfFont bold = PdfFontFactory.createFont(this.boldFont, PdfEncodings.WINANSI);
+			document.setFont(regular);
+			document.setMargins(50, 50, 50, 50); // Top, right, bottom, left
+
+			// Añadir el logo en la esquina superior izquierda por encima del título
+			generateLogo(pdfDocument, document);
+
+			// Añadir un espacio después del logo antes de poner el título (4 saltos)
+			generateSpace(document, 4);
+
+			// Título centrado debajo del logo
+			generateTitle(document, bold);
+			generateSpace(document, 2);
+
+			Table table = generateTable(bold);
+			document.add(table);
+
+			int[] rows = { 0 };
+			products.accept(product -> {
+				table.addCell(String.valueOf(product.getProductId()));
+				table.addCell(product.getProductName());
+				table.addCell(product.getProductDescription() == null ? "" : product.getProductDescription());
+				table.addCell("€" + product.getProductActualPrice());
+				table.addCell("€" + product.getProductDiscountedPrice());
+				if (++rows[0] % TABLE_FLUSH_ROWS == 0) {
+					table.flush();
+				}
+			});
+			table.complete();
+			written = rows[0];
+		}
+		log.debug("PDF generation completed: {} products written", written);
 	}
-    
-    /**
-     * Generates a table containing product information with predefined column widths.
-     * The table includes headers with a green background and white text, and it is filled with product data.
-     *
-     * @param products A list of {@link ProductEntity} objects containing the data to populate the table.
-     * @return A {@link Table} object populated with the product details.
-     */
-	private Table generateTable(List<ProductEntity> products) {
-		log.debug("Generating List Products table");
-		float[] columnWidths = {2, 2, 3, 2, 2};
-        Table table = new Table(columnWidths).useAllAvailableWidth();
-        // Encabezado en cada página
-        table.setSkipFirstHeader(false);
-
-        DeviceRgb customGreen = new DeviceRgb(34, 193, 68);
-
-        // Encabezados con fondo verde
-        table.addHeaderCell(new Cell().add(new Paragraph("Product ID")).setBackgroundColor(customGreen).setFontColor(DeviceRgb.WHITE).setBold());
-        table.addHeaderCell(new Cell().add(new Paragraph("Product Name")).setBackgroundColor(customGreen).setFontColor(DeviceRgb.WHITE).setBold());
-        table.addHeaderCell(new Cell().add(new Paragraph("Description")).setBackgroundColor(customGreen).setFontColor(DeviceRgb.WHITE).setBold());
-        table.addHeaderCell(new Cell().add(new Paragraph("Original Price")).setBackgroundColor(customGreen).setFontColor(DeviceRgb.WHITE).setBold());
-        table.addHeaderCell(new Cell().add(new Paragraph("Discounted Price")).setBackgroundColor(customGreen).setFontColor(DeviceRgb.WHITE).setBold());
-
-        // Rellenar la tabla con productos
-        for (ProductEntity product : products) {
-        	table.addCell(String.valueOf(product.getProductId()));
-            table.addCell(product.getProductName());
-            table.addCell(product.getProductDescription());
-            table.addCell("€" + product.getProductActualPrice());
-            table.addCell("€" + product.getProductDiscountedPrice());
-        }
+
+	/**
+	 * Generates an empty large table with predefined column widths.
+	 * The header, with a green background and white bold text, is repeated on every page.
+	 *
+	 * @param bold The bold font of the document.
+	 * @return A {@link Table} to be added to the document before its rows.
+	 */
+	private Table generateTable(PdfFont bold) {
+		Table table = new Table(COLUMN_WIDTHS, true).useAllAvailableWidth();
+		// Encabezado en cada página
+		table.setSkipFirstHeader(false);
+
+		// Encabezados con fondo verde
+		for (String header : HEADERS) {
+			table.addHeaderCell(new Cell().add(new Paragraph(header)).addStyle(this.headerStyle).setFont(bold));
+		}
 		return table;
 	}
 
@@ -116,32 +148,31 @@ public class PdfService {
 	 * Adds a centered title to the PDF document with bold styling and a font size of 18.
 	 *
 	 * @param document The {@link Document} object where the title will be added.
+	 * @param bold     The bold font of the document.
 	 */
-	private void generateTitle(Document document) {
+	private void generateTitle(Document document, PdfFont bold) {
 		Paragraph title = new Paragraph("Product List")
-                .setFontSize(18)
-                .setBold()
-                .setTextAlignment(TextAlignment.CENTER);
-        document.add(title);
+				.setFont(bold)
+				.setFontSize(18)
+				.setTextAlignment(TextAlignment.CENTER);
+		document.add(title);
 	}
 
 	/**
-	 * Adds a logo to the top left corner of the PDF document.
-	 * The logo is scaled to 50x50 pixels and positioned at a fixed position
-	 * near the top left of the page.
+	 * Adds the logo to the top left corner of the PDF document.
+	 * The logo is scaled to 50x40 points and positioned at a fixed position
+	 * near the top left of the first page.
 	 *
 	 * @param pdfDocument The {@link PdfDocument} instance that represents the PDF document.
 	 * @param document The {@link Document} instance to which the logo will be added.
-	 * @throws MalformedURLException If the logo path is invalid or the file cannot be accessed.
 	 */
-	private void generateLogo(PdfDocument pdfDocument, Document document) throws MalformedURLException {
-		String logoPath = "src/main/resources/static/logo.png";
-        Image logo = new Image(ImageDataFactory.create(logoPath));
-        logo.scaleAbsolute(50, 40); 
-        logo.setFixedPosition(50, pdfDocument.getDefaultPageSize().getHeight() - 70); 
-        document.add(logo);
+	private void generateLogo(PdfDocument pdfDocument, Document document) {
+		Image image = new Image(this.logo);
+		image.scaleAbsolute(50, 40);
+		image.setFixedPosition(1, 50, pdfDocument.getDefaultPageSize().getHeight() - 70);
+		document.add(image);
 	}
-	
+
 	/**
 	 * Adds a specified number of blank lines (new lines) as a space to the document.
 	 * The space is added by appending the specified number of newline characters
@@ -151,11 +182,7 @@ public class PdfService {
 	 * @param lines The number of new lines (blank lines) to add to the document.
 	 */
 	private void generateSpace(Document document, int lines) {
-	    StringBuilder space = new StringBuilder();
-	    for (int i = 0; i < lines; i++) {
-	        space.append("\n");
-	    }
-	    document.add(new Paragraph(space.toString()));
+		document.add(new Paragraph("\n".repeat(lines)));
 	}
 
 }
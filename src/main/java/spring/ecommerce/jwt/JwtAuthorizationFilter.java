@@ -16,6 +16,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import spring.ecommerce.constants.ConstantsEcommerce;
 import spring.ecommerce.service.CustomUserDetailService;
 
 /**
@@ -77,4 +78,15 @@ public class JwtAuthorizationFilter extends OncePerRequestFilter {
             response.sendError(HttpServletResponse.SC_FORBIDDEN, "Malformed JWT token.");
         }
     }
+
+    /**
+     * Skips JWT processing for the public static image files, which never need an authenticated user.
+     *
+     * @param request the current request
+     * @return {@code true} if the request targets {@code /images/**}
+     */
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getServletPath().startsWith(ConstantsEcommerce.IMAGE_FILES_PATH);
+    }
 }
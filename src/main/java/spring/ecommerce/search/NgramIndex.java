@@ -0,0 +1,503 @@
+package spring.ecommerce.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Trigram inverted index over the name and description of products.
+ * <p>
+ * Both texts are folded (lower case, without accents or punctuation) and split into overlapping trigrams; each
+ * trigram maps to the sorted array of the IDs of the products containing it. A query term of three or more
+ * characters only looks at the products found in the postings of all its trigrams, which are then checked for
+ * the whole term, so a substring search never scans the catalogue. Shorter terms match the start of a word: the
+ * one and two-character prefixes of every word have postings of their own, so they do not scan it either.
+ * </p>
+ * <p>
+ * For typo-tolerant searches the distinct words of the texts form a vocabulary with its own trigram index. A
+ * misspelt term is only compared with the words that pass a length filter and share at least one trigram with it,
+ * and as many as the q-gram lemma requires: each edit changes at most three trigrams of either word. Only those
+ * get a bounded edit distance. Each word keeps the products that contain it, and separately those that have it in
+ * their name, so typo matches are scored without looking at the texts. The vocabulary is much smaller than the
+ * catalogue and words are never removed from it: a word without products is just skipped.
+ * </p>
+ * <p>
+ * Not thread-safe: callers guard it with a read-write lock.
+ * </p>
+ */
+public class NgramIndex {
+
+    private static final int GRAM = 3;
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    // Puntuación de un término según dónde aparezca
+    private static final int NAME_WORD_SCORE = 3;
+    private static final int NAME_SCORE = 2;
+    private static final int DESCRIPTION_SCORE = 1;
+    // Las claves de los prefijos cortos no pueden coincidir con las de los trigramas, que no usan el bit de signo
+    private static final long PREFIX_KEY = Long.MIN_VALUE;
+
+    private final List<String> words = new ArrayList<>();
+    private final Map<String, Integer> wordIds = new HashMap<>();
+    private final List<Postings> wordProducts = new ArrayList<>();
+    private final List<Postings> wordNameProducts = new ArrayList<>();
+    private final List<Integer> wordGramCounts = new ArrayList<>();
+    private final Map<Long, Postings> wordGrams = new HashMap<>();
+
+    private final Map<Integer, Document> documents = new HashMap<>();
+    private final Map<Long, Postings> postings = new HashMap<>();
+
+    /**
+     * Match of a query: a product ID and its relevance.
+     */
+    public record Hit(int id, double score) {
+    }
+
+    private record Document(String name, String description, long[] grams, int[] words, int[] nameWords) {
+    }
+
+    /**
+     * Adds a product, replacing its previous texts if it was already indexed.
+     *
+     * @param id          the product ID
+     * @param name        the product name
+     * @param description the product description, may be {@code null}
+     */
+    public void put(int id, String name, String description) {
+        this.remove(id);
+
+        String foldedName = fold(name);
+        String foldedDescription = fold(description);
+        Set<Long> grams = new HashSet<>();
+        addGrams(foldedName, grams);
+        addGrams(foldedDescription, grams);
+        addPrefixes(foldedName, grams);
+        addPrefixes(foldedDescription, grams);
+
+        long[] keys = new long[grams.size()];
+        int i = 0;
+        for (Long gram : grams) {
+            keys[i++] = gram;
+            this.postings.computeIfAbsent(gram, key -> new Postings()).add(id);
+        }
+        Set<Integer> nameWords = new HashSet<>();
+        addWords(foldedName, nameWords);
+        Set<Integer> documentWords = new HashSet<>(nameWords);
+        addWords(foldedDescription, documentWords);
+        for (int wordId : documentWords) {
+            this.wordProducts.get(wordId).add(id);
+        }
+        for (int wordId : nameWords) {
+            this.wordNameProducts.get(wordId).add(id);
+        }
+        this.documents.put(id, new Document(foldedName, foldedDescription, keys,
+                documentWords.stream().mapToInt(Integer::intValue).toArray(),
+                nameWords.stream().mapToInt(Integer::intValue).toArray()));
+    }
+
+    /**
+     * Removes a product.
+     *
+     * @param id the product ID
+     */
+    public void remove(int id) {
+        Document document = this.documents.remove(id);
+        if (document == null) {
+            return;
+        }
+        for (long gram : document.grams()) {
+            Postings list = this.postings.get(gram);
+            if (list != null && list.remove(id) && list.size == 0) {
+                this.postings.remove(gram);
+            }
+        }
+        for (int wordId : document.words()) {
+            this.wordProducts.get(wordId).remove(id);
+        }
+        for (int wordId : document.nameWords()) {
+            this.wordNameProducts.get(wordId).remove(id);
+        }
+    }
+
+    /**
+     * Finds the products containing every term of a query in their name or description.
+     * <p>
+     * Terms of three or more characters match anywhere in the texts, shorter terms only at the start of a word.
+     * Results are ranked by relevance: a term at the start of a word of the name scores more than one inside it,
+     * and a term in the name more than one only in the description. Ties are ordered by name.
+     * </p>
+     *
+     * @param query the query, whose terms are folded like the indexed texts
+     * @return the matching products, most relevant first; empty if the query has no terms
+     */
+    public List<Hit> search(String query) {
+        String[] terms = terms(query);
+        if (terms.length == 0) {
+            return List.of();
+        }
+
+        int[] candidates = null;
+        for (String term : terms) {
+            int[] termCandidates = this.candidates(term);
+            candidates = candidates == null ? termCandidates : intersect(candidates, termCandidates);
+            if (candidates.length == 0) {
+                return List.of();
+            }
+        }
+
+        List<Hit> hits = new ArrayList<>();
+        for (int id : candidates) {
+            addHit(id, this.documents.get(id), terms, hits);
+        }
+        return this.rank(hits);
+    }
+
+    /**
+     * Finds the products matching every term of a query, tolerating typos.
+     * <p>
+     * A term matches the products that contain it, like in {@link #search(String)}, and also those with a word
+     * within one edit of it, or two for terms longer than four characters. Typo matches score less than exact
+     * ones, in proportion to their similarity. Terms shorter than three characters must match the start of a word
+     * exactly.
+     * </p>
+     *
+     * @param query the query, whose terms are folded like the indexed texts
+     * @return the matching products, most relevant first; empty if the query has no terms
+     */
+    public List<Hit> fuzzySearch(String query) {
+        String[] terms = terms(query);
+        if (terms.length == 0) {
+            return List.of();
+        }
+
+        Map<Integer, Double> scores = null;
+        for (String term : terms) {
+            Map<Integer, Double> termScores = this.fuzzyScores(term);
+            if (scores == null) {
+                scores = termScores;
+            } else {
+                scores.keySet().retainAll(termScores.keySet());
+                scores.replaceAll((id, score) -> score + termScores.get(id));
+            }
+            if (scores.isEmpty()) {
+                return List.of();
+            }
+        }
+
+        List<Hit> hits = new ArrayList<>(scores.size());
+        scores.forEach((id, score) -> hits.add(new Hit(id, score)));
+        return this.rank(hits);
+    }
+
+    private List<Hit> rank(List<Hit> hits) {
+        hits.sort(Comparator.comparingDouble(Hit::score).reversed()
+                .thenComparing(hit -> this.documents.get(hit.id()).name())
+                .thenComparingInt(Hit::id));
+        return hits;
+    }
+
+    /**
+     * Scores the products matching a term exactly or with typos; a product keeps its best score.
+     */
+    private Map<Integer, Double> fuzzyScores(String term) {
+        Map<Integer, Double> scores = new HashMap<>();
+        for (int id : this.candidates(term)) {
+            int score = score(this.documents.get(id), term);
+            if (score > 0) {
+                scores.put(id, (double) score);
+            }
+        }
+        if (term.length() < GRAM) {
+            return scores;
+        }
+
+        int maxEdits = term.length() <= 4 ? 1 : 2;
+        for (Map.Entry<Integer, Integer> match : this.similarWords(term, maxEdits).entrySet()) {
+            String word = this.words.get(match.getKey());
+            double similarity = 1 - (double) match.getValue() / Math.max(term.length(), word.length());
+            Postings products = this.wordProducts.get(match.getKey());
+            Postings nameProducts = this.wordNameProducts.get(match.getKey());
+            for (int i = 0; i < products.size; i++) {
+                int id = products.ids[i];
+                double score = similarity * (nameProducts.contains(id) ? NAME_SCORE : DESCRIPTION_SCORE);
+                scores.merge(id, score, Math::max);
+            }
+        }
+        return scores;
+    }
+
+    /**
+     * Finds the words of the vocabulary within the given edit distance of a term.
+     *
+     * @return the IDs of the words found, with their edit distance
+     */
+    private Map<Integer, Integer> similarWords(String term, int maxEdits) {
+        // Recuento de trigramas compartidos con cada palabra: solo se consideran las que comparten alguno
+        Set<Long> termGrams = new HashSet<>();
+        addGrams(term, termGrams);
+        Map<Integer, Integer> shared = new HashMap<>();
+        for (Long gram : termGrams) {
+            Postings list = this.wordGrams.get(gram);
+            if (list != null) {
+                for (int i = 0; i < list.size; i++) {
+                    shared.merge(list.ids[i], 1, Integer::sum);
+                }
+            }
+        }
+
+        // Lema de q-gramas: cada edición cambia como mucho tres trigramas de cada palabra
+        int minShared = termGrams.size() - GRAM * maxEdits;
+        Map<Integer, Integer> matches = new HashMap<>();
+        shared.forEach((wordId, count) -> {
+            String word = this.words.get(wordId);
+            if (count < minShared || count < this.wordGramCounts.get(wordId) - GRAM * maxEdits
+                    || Math.abs(word.length() - term.length()) > maxEdits || this.wordProducts.get(wordId).size == 0) {
+                return;
+            }
+            int distance = editDistance(term, word, maxEdits);
+            if (distance <= maxEdits) {
+                matches.put(wordId, distance);
+            }
+        });
+        return matches;
+    }
+
+    private void addWords(String text, Set<Integer> documentWords) {
+        if (text.isEmpty()) {
+            return;
+        }
+        for (String word : text.split(" ")) {
+            if (word.length() < GRAM) {
+                continue;
+            }
+            Integer wordId = this.wordIds.get(word);
+            if (wordId == null) {
+                wordId = this.words.size();
+                this.words.add(word);
+                this.wordIds.put(word, wordId);
+                this.wordProducts.add(new Postings());
+                this.wordNameProducts.add(new Postings());
+                Set<Long> grams = new HashSet<>();
+                addGrams(word, grams);
+                this.wordGramCounts.add(grams.size());
+                for (Long gram : grams) {
+                    this.wordGrams.computeIfAbsent(gram, key -> new Postings()).add(wordId);
+                }
+            }
+            documentWords.add(wordId);
+        }
+    }
+
+    /**
+     * Levenshtein distance limited to a band around the diagonal.
+     *
+     * @return the distance, or {@code maxEdits + 1} as soon as it is known to exceed {@code maxEdits}
+     */
+    static int editDistance(String a, String b, int maxEdits) {
+        if (Math.abs(a.length() - b.length()) > maxEdits) {
+            return maxEdits + 1;
+        }
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            Arrays.fill(current, maxEdits + 1);
+            current[0] = i;
+            int from = Math.max(1, i - maxEdits);
+            int to = Math.min(b.length(), i + maxEdits);
+            int rowMinimum = current[0];
+            for (int j = from; j <= to; j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMinimum = Math.min(rowMinimum, current[j]);
+            }
+            if (rowMinimum > maxEdits) {
+                return maxEdits + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return Math.min(previous[b.length()], maxEdits + 1);
+    }
+
+    /**
+     * Returns the number of indexed products.
+     *
+     * @return the number of products
+     */
+    public int size() {
+        return this.documents.size();
+    }
+
+    /**
+     * Folds a text for indexing and searching: lower case, accents removed and punctuation replaced by spaces.
+     *
+     * @param text the text, may be {@code null}
+     * @return the folded text, empty for {@code null}
+     */
+    public static String fold(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        String decomposed = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return SEPARATORS.matcher(decomposed.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    private static String[] terms(String query) {
+        String folded = fold(query);
+        return folded.isEmpty() ? new String[0] : folded.split(" ");
+    }
+
+    /**
+     * Returns the products that may contain a term: those with all its trigrams, or for a short term those with a
+     * word starting with it.
+     */
+    private int[] candidates(String term) {
+        if (term.length() < GRAM) {
+            Postings list = this.postings.get(prefix(term, term.length()));
+            return list == null ? new int[0] : Arrays.copyOf(list.ids, list.size);
+        }
+
+        // Se intersecan primero las listas más cortas
+        List<Postings> lists = new ArrayList<>();
+        for (int i = 0; i + GRAM <= term.length(); i++) {
+            Postings list = this.postings.get(gram(term, i));
+            if (list == null) {
+                return new int[0];
+            }
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(list -> list.size));
+
+        int[] result = Arrays.copyOf(lists.get(0).ids, lists.get(0).size);
+        for (int i = 1; i < lists.size() && result.length > 0; i++) {
+            result = intersect(result, Arrays.copyOf(lists.get(i).ids, lists.get(i).size));
+        }
+        return result;
+    }
+
+    private static void addHit(int id, Document document, String[] terms, List<Hit> hits) {
+        int score = 0;
+        for (String term : terms) {
+            int termScore = score(document, term);
+            if (termScore == 0) {
+                return;
+            }
+            score += termScore;
+        }
+        hits.add(new Hit(id, score));
+    }
+
+    private static int score(Document document, String term) {
+        String name = document.name();
+        if (term.length() < GRAM) {
+            // Los términos cortos solo coinciden al principio de una palabra
+            if (name.startsWith(term) || name.contains(" " + term)) {
+                return NAME_WORD_SCORE;
+            }
+            String description = document.description();
+            return description.startsWith(term) || description.contains(" " + term) ? DESCRIPTION_SCORE : 0;
+        }
+        int index = name.indexOf(term);
+        if (index >= 0) {
+            return index == 0 || name.contains(" " + term) ? NAME_WORD_SCORE : NAME_SCORE;
+        }
+        return document.description().contains(term) ? DESCRIPTION_SCORE : 0;
+    }
+
+    private static void addGrams(String text, Set<Long> grams) {
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(gram(text, i));
+        }
+    }
+
+    private static void addPrefixes(String text, Set<Long> grams) {
+        if (text.isEmpty()) {
+            return;
+        }
+        for (String word : text.split(" ")) {
+            grams.add(prefix(word, 1));
+            if (word.length() > 1) {
+                grams.add(prefix(word, 2));
+            }
+        }
+    }
+
+    private static long prefix(String word, int length) {
+        long key = PREFIX_KEY | ((long) word.charAt(0) << 16);
+        return length > 1 ? key | word.charAt(1) : key;
+    }
+
+    private static long gram(String text, int offset) {
+        return ((long) text.charAt(offset) << 32) | ((long) text.charAt(offset + 1) << 16) | text.charAt(offset + 2);
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[size++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    /**
+     * Sorted, growable array of product IDs.
+     */
+    private static final class Postings {
+
+        private int[] ids = new int[4];
+        private int size;
+
+        private void add(int id) {
+            int index = Arrays.binarySearch(this.ids, 0, this.size, id);
+            if (index >= 0) {
+                return;
+            }
+            int insertion = -index - 1;
+            if (this.size == this.ids.length) {
+                this.ids = Arrays.copyOf(this.ids, this.size * 2);
+            }
+            // Los IDs nuevos suelen ser los mayores: la copia casi siempre está vacía
+            System.arraycopy(this.ids, insertion, this.ids, insertion + 1, this.size - insertion);
+            this.ids[insertion] = id;
+            this.size++;
+        }
+
+        private boolean contains(int id) {
+            return Arrays.binarySearch(this.ids, 0, this.size, id) >= 0;
+        }
+
+        private boolean remove(int id) {
+            int index = Arrays.binarySearch(this.ids, 0, this.size, id);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(this.ids, index + 1, this.ids, index, this.size - index - 1);
+            this.size--;
+            return true;
+        }
+    }
+}
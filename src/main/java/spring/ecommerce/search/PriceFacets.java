@@ -0,0 +1,367 @@
+package spring.ecommerce.search;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Price and discount facets of the catalogue, answered from primitive arrays and bit sets.
+ * <p>
+ * Products are laid out by rank of effective price: {@code prices[rank]} is sorted, so a price range is a
+ * contiguous range of ranks found by binary search, and each facet or filter is a {@link BitSet} over the ranks.
+ * Combining filters is a few word-wise {@code and} operations and a bucket count is a {@link BitSet#cardinality()}
+ * over a range of ranks, so no query depends on more than {@code n / 64} words. The histogram of the whole
+ * catalogue is computed once per {@link View}.
+ * </p>
+ * <p>
+ * Changes are applied with {@link #put} and {@link #remove} and take effect when a new {@link View} is published.
+ * Building a view sorts the whole catalogue, so it is split in three steps: {@link #snapshot()} copies the
+ * products, {@link Snapshot#build()} sorts them without any lock held, and {@link #publish(View)} swaps the view
+ * in. {@link #refresh()} runs the three steps at once. Not thread-safe: callers guard it with a read-write lock.
+ * </p>
+ */
+public class PriceFacets {
+
+    private final double[] boundaries;
+    private final Map<Integer, Item> items = new HashMap<>();
+    private boolean dirty;
+    private View view;
+
+    private record Item(String sortName, double price, boolean discounted) {
+    }
+
+    /**
+     * Creates empty facets.
+     *
+     * @param boundaries the ascending lower bounds of the price buckets; the last bucket has no upper bound
+     */
+    public PriceFacets(double[] boundaries) {
+        this.boundaries = boundaries.clone();
+        Arrays.sort(this.boundaries);
+        this.view = new Snapshot(new int[0], new double[0], new boolean[0], new String[0], this.boundaries).build();
+    }
+
+    /**
+     * Adds or replaces a product.
+     *
+     * @param id              the product ID
+     * @param name            the product name, used to order filtered listings
+     * @param discountedPrice the discounted price, 0 when there is no discount
+     * @param actualPrice     the actual price
+     */
+    public void put(int id, String name, double discountedPrice, double actualPrice) {
+        this.items.put(id, new Item(name == null ? "" : name.toLowerCase(),
+                ProductFilter.effectivePrice(discountedPrice, actualPrice),
+                ProductFilter.isOnDiscount(discountedPrice, actualPrice)));
+        this.dirty = true;
+    }
+
+    /**
+     * Removes a product.
+     *
+     * @param id the product ID
+     */
+    public void remove(int id) {
+        if (this.items.remove(id) != null) {
+            this.dirty = true;
+        }
+    }
+
+    /**
+     * Builds and publishes a new view if the products changed since the last one.
+     */
+    public void refresh() {
+        Snapshot snapshot = this.snapshot();
+        if (snapshot != null) {
+            this.publish(snapshot.build());
+        }
+    }
+
+    /**
+     * Copies the products, ordered by ID, if they changed since the last snapshot. Only reads the products, so
+     * the read lock is enough.
+     *
+     * @return the copy to build the next view from, or {@code null} if nothing changed
+     */
+    public Snapshot snapshot() {
+        if (!this.dirty) {
+            return null;
+        }
+        this.dirty = false;
+
+        int[] ids = this.items.keySet().stream().mapToInt(Integer::intValue).toArray();
+        Arrays.sort(ids);
+        double[] prices = new double[ids.length];
+        boolean[] discounted = new boolean[ids.length];
+        String[] names = new String[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            Item item = this.items.get(ids[i]);
+            prices[i] = item.price();
+            discounted[i] = item.discounted();
+            names[i] = item.sortName();
+        }
+        return new Snapshot(ids, prices, discounted, names, this.boundaries);
+    }
+
+    /**
+     * Makes a view the one answering queries. Needs the write lock.
+     *
+     * @param view the view built from the last snapshot
+     */
+    public void publish(View view) {
+        this.view = view;
+    }
+
+    /**
+     * Returns the products kept by a filter.
+     *
+     * @param filter the filter
+     * @return the set of ranks of the matching products
+     */
+    public BitSet match(ProductFilter filter) {
+        int size = this.view.ids.length;
+        BitSet bits = new BitSet(size);
+        int from = filter.minPrice() == null ? 0 : lowerBound(this.view.prices, filter.minPrice());
+        int to = filter.maxPrice() == null ? size : upperBound(this.view.prices, filter.maxPrice());
+        if (from < to) {
+            bits.set(from, to);
+        }
+        if (Boolean.TRUE.equals(filter.onDiscount())) {
+            bits.and(this.view.discounted);
+        } else if (Boolean.FALSE.equals(filter.onDiscount())) {
+            bits.andNot(this.view.discounted);
+        }
+        return bits;
+    }
+
+    /**
+     * Returns the ranks of some products.
+     *
+     * @param productIds the product IDs
+     * @return the set of their ranks; unknown IDs are ignored
+     */
+    public BitSet ranksOf(Iterable<Integer> productIds) {
+        BitSet bits = new BitSet(this.view.ids.length);
+        for (int id : productIds) {
+            int rank = this.rank(id);
+            if (rank >= 0) {
+                bits.set(rank);
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * Tells whether a product is in a set of ranks.
+     *
+     * @param bits the set of ranks
+     * @param id   the product ID
+     * @return {@code true} if the product is known and its rank is set
+     */
+    public boolean contains(BitSet bits, int id) {
+        int rank = this.rank(id);
+        return rank >= 0 && bits.get(rank);
+    }
+
+    /**
+     * Returns a page of the products of a set of ranks, ordered by name.
+     *
+     * @param bits   the set of ranks
+     * @param offset the number of products to skip
+     * @param limit  the maximum number of products
+     * @return the IDs of the products of the page
+     */
+    public int[] idsByName(BitSet bits, long offset, int limit) {
+        int[] page = new int[Math.max(0, (int) Math.min(limit, bits.cardinality() - offset))];
+        long skipped = 0;
+        int filled = 0;
+        for (int i = 0; i < this.view.ranksByName.length && filled < page.length; i++) {
+            int rank = this.view.ranksByName[i];
+            if (bits.get(rank) && skipped++ >= offset) {
+                page[filled++] = this.view.ids[rank];
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Counts the products of a set of ranks in each price bucket.
+     *
+     * @param bits the set of ranks, or {@code null} for the whole catalogue
+     * @return the count of each bucket, in the order of the boundaries
+     */
+    public long[] histogram(BitSet bits) {
+        return bits == null ? this.view.histogram.clone() : this.countBuckets(bits);
+    }
+
+    /**
+     * Counts the discounted products of a set of ranks.
+     *
+     * @param bits the set of ranks
+     * @return the number of discounted products
+     */
+    public long countDiscounted(BitSet bits) {
+        BitSet result = (BitSet) bits.clone();
+        result.and(this.view.discounted);
+        return result.cardinality();
+    }
+
+    /**
+     * Returns the lower bounds of the price buckets.
+     *
+     * @return the ascending boundaries
+     */
+    public double[] boundaries() {
+        return this.boundaries.clone();
+    }
+
+    /**
+     * Returns the number of products.
+     *
+     * @return the number of products, as of the current view
+     */
+    public int size() {
+        return this.view.ids.length;
+    }
+
+    private long[] countBuckets(BitSet bits) {
+        return countBuckets(bits, this.view.prices, this.boundaries);
+    }
+
+    private static long[] countBuckets(BitSet bits, double[] prices, double[] boundaries) {
+        long[] counts = new long[boundaries.length];
+        for (int bucket = 0; bucket < boundaries.length; bucket++) {
+            int from = lowerBound(prices, boundaries[bucket]);
+            int to = bucket + 1 < boundaries.length ? lowerBound(prices, boundaries[bucket + 1]) : prices.length;
+            if (from < to) {
+                counts[bucket] = bits.get(from, to).cardinality();
+            }
+        }
+        return counts;
+    }
+
+    private int rank(int id) {
+        int index = Arrays.binarySearch(this.view.sortedIds, id);
+        return index >= 0 ? this.view.ranksOfSortedIds[index] : -1;
+    }
+
+    /**
+     * Returns the first index whose value is not lower than the given one.
+     */
+    private static int lowerBound(double[] values, double value) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (values[middle] < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the first index whose value is greater than the given one.
+     */
+    private static int upperBound(double[] values, double value) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (values[middle] <= value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Copy of the products, ordered by ID, taken by {@link PriceFacets#snapshot()}.
+     *
+     * @param ids        the product IDs, ascending
+     * @param prices     the effective price of each product
+     * @param discounted whether each product is on discount
+     * @param names      the lower-cased name of each product
+     * @param boundaries the lower bounds of the price buckets
+     */
+    public record Snapshot(int[] ids, double[] prices, boolean[] discounted, String[] names, double[] boundaries) {
+
+        /**
+         * Sorts the products by effective price and by name. Only primitive arrays are sorted by price; the
+         * name order compares the names directly, without map lookups.
+         *
+         * @return the new view
+         */
+        public View build() {
+            int size = this.ids.length;
+
+            // Rango de cada precio entre los precios ordenados: la clave (precio, índice) cabe en un long
+            double[] sortedPrices = this.prices.clone();
+            Arrays.sort(sortedPrices);
+            long[] byPrice = new long[size];
+            for (int i = 0; i < size; i++) {
+                byPrice[i] = (long) lowerBound(sortedPrices, this.prices[i]) << 32 | i;
+            }
+            Arrays.sort(byPrice);
+
+            int[] ids = new int[size];
+            BitSet discountedRanks = new BitSet(size);
+            int[] rankOfIndex = new int[size];
+            for (int rank = 0; rank < size; rank++) {
+                int index = (int) byPrice[rank];
+                ids[rank] = this.ids[index];
+                discountedRanks.set(rank, this.discounted[index]);
+                rankOfIndex[index] = rank;
+            }
+
+            // Los índices siguen el orden de los IDs, así que desempatan por ID
+            Integer[] byName = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                byName[i] = i;
+            }
+            Arrays.sort(byName, Comparator.comparing((Integer index) -> this.names[index])
+                    .thenComparingInt(Integer::intValue));
+            int[] ranksByName = new int[size];
+            for (int i = 0; i < size; i++) {
+                ranksByName[i] = rankOfIndex[byName[i]];
+            }
+
+            BitSet all = new BitSet(size);
+            all.set(0, size);
+            long[] histogram = countBuckets(all, sortedPrices, this.boundaries);
+            return new View(ids, sortedPrices, discountedRanks, ranksByName, this.ids.clone(), rankOfIndex, histogram);
+        }
+    }
+
+    /**
+     * Products laid out by rank of effective price, with the indexes answering the queries. Immutable.
+     */
+    public static final class View {
+
+        private final int[] ids;
+        private final double[] prices;
+        private final BitSet discounted;
+        private final int[] ranksByName;
+        // Búsqueda de rango por ID: IDs ordenados y su rango en paralelo
+        private final int[] sortedIds;
+        private final int[] ranksOfSortedIds;
+        private final long[] histogram;
+
+        private View(int[] ids, double[] prices, BitSet discounted, int[] ranksByName, int[] sortedIds,
+                int[] ranksOfSortedIds, long[] histogram) {
+            this.ids = ids;
+            this.prices = prices;
+            this.discounted = discounted;
+            this.ranksByName = ranksByName;
+            this.sortedIds = sortedIds;
+            this.ranksOfSortedIds = ranksOfSortedIds;
+            this.histogram = histogram;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package spring.ecommerce.search;
+
+/**
+ * Filters of a product listing besides the search terms.
+ * <p>
+ * Prices are effective prices: the discounted price when it is set, the actual price otherwise, as charged by
+ * {@code OrderDetailService.placeOrder}. {@code null} fields do not filter.
+ * </p>
+ *
+ * @param minPrice   the minimum effective price, inclusive
+ * @param maxPrice   the maximum effective price, inclusive
+ * @param onDiscount {@code true} for discounted products only, {@code false} for products without discount
+ */
+public record ProductFilter(Double minPrice, Double maxPrice, Boolean onDiscount) {
+
+    /**
+     * Filter that keeps every product.
+     */
+    public static final ProductFilter NONE = new ProductFilter(null, null, null);
+
+    /**
+     * Tells whether the filter keeps every product.
+     *
+     * @return {@code true} if no field is set
+     */
+    public boolean isEmpty() {
+        return this.minPrice == null && this.maxPrice == null && this.onDiscount == null;
+    }
+
+    /**
+     * Returns the same filter without the price range, used to count the products of each price bucket.
+     *
+     * @return the filter on discount status only
+     */
+    public ProductFilter withoutPrice() {
+        return new ProductFilter(null, null, this.onDiscount);
+    }
+
+    /**
+     * Returns the same filter without the discount status, used to count the discounted products.
+     *
+     * @return the filter on price only
+     */
+    public ProductFilter withoutDiscount() {
+        return new ProductFilter(this.minPrice, this.maxPrice, null);
+    }
+
+    /**
+     * Returns the price charged for a product.
+     *
+     * @param discountedPrice the discounted price, 0 when there is no discount
+     * @param actualPrice     the actual price
+     * @return the discounted price when it is set, the actual price otherwise
+     */
+    public static double effectivePrice(double discountedPrice, double actualPrice) {
+        return discountedPrice > 0 ? discountedPrice : actualPrice;
+    }
+
+    /**
+     * Tells whether a product is on discount.
+     *
+     * @param discountedPrice the discounted price, 0 when there is no discount
+     * @param actualPrice     the actual price
+     * @return {@code true} if the discounted price is set and lower than the actual price
+     */
+    public static boolean isOnDiscount(double discountedPrice, double actualPrice) {
+        return discountedPrice > 0 && discountedPrice < actualPrice;
+    }
+}
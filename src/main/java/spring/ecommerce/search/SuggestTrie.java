@@ -0,0 +1,483 @@
+package spring.ecommerce.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Radix trie of product names answering typeahead queries.
+ * <p>
+ * Each product is inserted under its folded name and under every suffix of it that starts a word, so "ref"
+ * completes "Cámara réflex". Chains of nodes with a single child and no product are collapsed into one edge
+ * labelled with the whole substring, so the trie has at most one branching node per key instead of one node per
+ * character. Every node stores the IDs of its {@code k} best products, ranked by popularity and then by name, so
+ * a query only walks down the prefix and copies that list. Children are kept in arrays sorted by the first
+ * character of their edge instead of maps to keep nodes small. When a product changes, the lists are recomputed
+ * only along the paths of its keys, from the deepest node up; a whole catalogue is loaded with a {@link Builder},
+ * which ranks every node once at the end.
+ * </p>
+ * <p>
+ * Not thread-safe: callers guard it with a read-write lock.
+ * </p>
+ */
+public class SuggestTrie {
+
+    // Profundidad máxima: más allá de este prefijo las sugerencias ya no cambian
+    private static final int MAX_KEY_LENGTH = 32;
+    private static final int[] NO_IDS = new int[0];
+
+    private final int k;
+    private final Node root = new Node("");
+    private final Map<Integer, Entry> entries = new HashMap<>();
+    private final Comparator<Integer> ranking;
+
+    /**
+     * Suggested product: its ID and name.
+     */
+    public record Suggestion(int id, String name) {
+    }
+
+    private record Entry(String name, String sortName, long popularity, List<String> keys) {
+    }
+
+    /**
+     * Creates an empty trie.
+     *
+     * @param k the number of completions kept per node, the maximum that can be suggested
+     */
+    public SuggestTrie(int k) {
+        this.k = k;
+        this.ranking = Comparator.<Integer>comparingLong(id -> -this.entries.get(id).popularity())
+                .thenComparing(id -> this.entries.get(id).sortName())
+                .thenComparing(Comparator.naturalOrder());
+    }
+
+    /**
+     * Starts loading a new trie with many products.
+     *
+     * @param k the number of completions kept per node
+     * @return the builder
+     */
+    public static Builder builder(int k) {
+        return new Builder(new SuggestTrie(k));
+    }
+
+    /**
+     * Adds a product, replacing its previous name and popularity if it was already in the trie.
+     *
+     * @param id         the product ID
+     * @param name       the product name
+     * @param popularity the popularity of the product, e.g. its number of orders
+     */
+    public void put(int id, String name, long popularity) {
+        this.remove(id);
+        this.rerank(this.insert(id, name, popularity));
+    }
+
+    /**
+     * Removes a product.
+     *
+     * @param id the product ID
+     */
+    public void remove(int id) {
+        Entry entry = this.entries.remove(id);
+        if (entry == null) {
+            return;
+        }
+
+        List<List<Node>> paths = new ArrayList<>();
+        for (String key : entry.keys()) {
+            List<Node> path = this.path(key);
+            if (path != null) {
+                Node last = path.get(path.size() - 1);
+                last.terminals = without(last.terminals, id);
+                paths.add(path);
+            }
+        }
+        this.rerank(paths);
+        for (String key : entry.keys()) {
+            this.prune(key);
+        }
+    }
+
+    /**
+     * Returns the best completions of a prefix.
+     *
+     * @param prefix the typed text, folded like the indexed names
+     * @param limit  the maximum number of suggestions, at most {@code k}
+     * @return the suggested products, most popular first; empty if nothing starts with the prefix
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String folded = NgramIndex.fold(prefix);
+        if (folded.isEmpty()) {
+            return List.of();
+        }
+        String key = folded.substring(0, Math.min(folded.length(), MAX_KEY_LENGTH));
+
+        // El prefijo puede terminar a mitad de una arista: su nodo final tiene las mismas sugerencias
+        Node node = this.root;
+        int position = 0;
+        while (position < key.length()) {
+            Node child = node.child(key.charAt(position));
+            if (child == null) {
+                return List.of();
+            }
+            int common = commonPrefix(child.edge, key, position);
+            if (common < child.edge.length() && position + common < key.length()) {
+                return List.of();
+            }
+            node = child;
+            position += common;
+        }
+
+        List<Suggestion> suggestions = new ArrayList<>();
+        for (int i = 0; i < node.top.length && suggestions.size() < limit; i++) {
+            suggestions.add(new Suggestion(node.top[i], this.entries.get(node.top[i]).name()));
+        }
+        return suggestions;
+    }
+
+    /**
+     * Returns the popularity of a product.
+     *
+     * @param id the product ID
+     * @return its popularity, or 0 if it is not in the trie
+     */
+    public long popularity(int id) {
+        Entry entry = this.entries.get(id);
+        return entry == null ? 0 : entry.popularity();
+    }
+
+    /**
+     * Returns the number of products in the trie.
+     *
+     * @return the number of products
+     */
+    public int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * Inserts the keys of a product, without ranking.
+     *
+     * @return the paths from the root to the node of each key
+     */
+    private List<List<Node>> insert(int id, String name, long popularity) {
+        String folded = NgramIndex.fold(name);
+        Set<String> keys = new LinkedHashSet<>();
+        for (int i = 0; i < folded.length(); i++) {
+            if (i == 0 || folded.charAt(i - 1) == ' ') {
+                keys.add(folded.substring(i, Math.min(folded.length(), i + MAX_KEY_LENGTH)));
+            }
+        }
+        this.entries.put(id, new Entry(name, folded, popularity, List.copyOf(keys)));
+
+        List<List<Node>> paths = new ArrayList<>();
+        for (String key : keys) {
+            List<Node> path = this.createPath(key);
+            Node last = path.get(path.size() - 1);
+            last.terminals = append(last.terminals, id);
+            paths.add(path);
+        }
+        return paths;
+    }
+
+    /**
+     * Returns the path to the node of a key, splitting an edge if the key ends inside it.
+     */
+    private List<Node> createPath(String key) {
+        List<Node> path = new ArrayList<>();
+        Node node = this.root;
+        path.add(node);
+        int position = 0;
+        while (position < key.length()) {
+            Node child = node.child(key.charAt(position));
+            if (child == null) {
+                child = new Node(key.substring(position));
+                node.addChild(child);
+                path.add(child);
+                return path;
+            }
+            int common = commonPrefix(child.edge, key, position);
+            if (common < child.edge.length()) {
+                child = node.split(child, common);
+            }
+            node = child;
+            position += common;
+            path.add(node);
+        }
+        return path;
+    }
+
+    /**
+     * Returns the path to the node of a key.
+     *
+     * @return the path, or {@code null} if no node ends exactly at the key
+     */
+    private List<Node> path(String key) {
+        List<Node> path = new ArrayList<>();
+        Node node = this.root;
+        path.add(node);
+        int position = 0;
+        while (position < key.length()) {
+            Node child = node.child(key.charAt(position));
+            if (child == null || !key.startsWith(child.edge, position)) {
+                return null;
+            }
+            node = child;
+            position += child.edge.length();
+            path.add(node);
+        }
+        return path;
+    }
+
+    /**
+     * Recomputes the best products of the nodes of some paths from their own products and the best products of
+     * their children. Nodes are visited deepest first, so a path is never ranked from a stale child of another.
+     */
+    private void rerank(List<List<Node>> paths) {
+        Map<Node, Integer> depths = new IdentityHashMap<>();
+        for (List<Node> path : paths) {
+            for (int i = 0; i < path.size(); i++) {
+                depths.put(path.get(i), i);
+            }
+        }
+        List<Node> nodes = new ArrayList<>(depths.keySet());
+        nodes.sort(Comparator.comparingInt(depths::get).reversed());
+
+        for (Node node : nodes) {
+            Set<Integer> candidates = new LinkedHashSet<>();
+            for (int id : node.terminals) {
+                candidates.add(id);
+            }
+            for (Node child : node.children) {
+                for (int id : child.top) {
+                    candidates.add(id);
+                }
+            }
+            node.top = candidates.stream()
+                    .filter(this.entries::containsKey)
+                    .sorted(this.ranking)
+                    .limit(this.k)
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+        }
+    }
+
+    /**
+     * Ranks every node of the trie, children first. Products are sorted once; each node then only sorts the
+     * positions of its candidates in that order.
+     */
+    private void rankAll() {
+        Integer[] sorted = this.entries.keySet().toArray(new Integer[0]);
+        Arrays.sort(sorted, this.ranking);
+        int[] idsByPosition = new int[sorted.length];
+        Map<Integer, Integer> positions = new HashMap<>(sorted.length * 2);
+        for (int i = 0; i < sorted.length; i++) {
+            idsByPosition[i] = sorted[i];
+            positions.put(sorted[i], i);
+        }
+        this.rankAll(this.root, idsByPosition, positions);
+    }
+
+    private void rankAll(Node node, int[] idsByPosition, Map<Integer, Integer> positions) {
+        int count = node.terminals.length;
+        for (Node child : node.children) {
+            this.rankAll(child, idsByPosition, positions);
+            count += child.top.length;
+        }
+
+        int[] candidates = new int[count];
+        int filled = 0;
+        for (int id : node.terminals) {
+            candidates[filled++] = positions.get(id);
+        }
+        for (Node child : node.children) {
+            for (int id : child.top) {
+                candidates[filled++] = positions.get(id);
+            }
+        }
+        Arrays.sort(candidates);
+
+        int[] top = new int[Math.min(this.k, candidates.length)];
+        int size = 0;
+        for (int i = 0; i < candidates.length && size < top.length; i++) {
+            if (i == 0 || candidates[i] != candidates[i - 1]) {
+                top[size++] = idsByPosition[candidates[i]];
+            }
+        }
+        node.top = size == top.length ? top : Arrays.copyOf(top, size);
+    }
+
+    /**
+     * Removes the nodes of a key left without products, and merges a node left with a single child and no
+     * products into that child.
+     */
+    private void prune(String key) {
+        List<Node> path = this.path(key);
+        if (path == null) {
+            return;
+        }
+        for (int i = path.size() - 1; i > 0; i--) {
+            Node node = path.get(i);
+            Node parent = path.get(i - 1);
+            if (node.terminals.length > 0) {
+                return;
+            }
+            if (node.children.length == 0) {
+                parent.removeChild(node);
+            } else if (node.children.length == 1) {
+                parent.replaceChild(node, node.children[0].withEdge(node.edge + node.children[0].edge));
+                return;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private static int commonPrefix(String edge, String key, int position) {
+        int length = Math.min(edge.length(), key.length() - position);
+        int i = 0;
+        while (i < length && edge.charAt(i) == key.charAt(position + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int[] append(int[] ids, int id) {
+        for (int existing : ids) {
+            if (existing == id) {
+                return ids;
+            }
+        }
+        int[] result = Arrays.copyOf(ids, ids.length + 1);
+        result[ids.length] = id;
+        return result;
+    }
+
+    private static int[] without(int[] ids, int id) {
+        int[] result = Arrays.stream(ids).filter(existing -> existing != id).toArray();
+        return result.length == 0 ? NO_IDS : result;
+    }
+
+    /**
+     * Loads many products into a new trie, ranking its nodes once when it is built instead of after each product.
+     */
+    public static final class Builder {
+
+        private final SuggestTrie trie;
+
+        private Builder(SuggestTrie trie) {
+            this.trie = trie;
+        }
+
+        /**
+         * Adds a product.
+         *
+         * @param id         the product ID
+         * @param name       the product name
+         * @param popularity the popularity of the product
+         * @return this builder
+         */
+        public Builder add(int id, String name, long popularity) {
+            this.trie.remove(id);
+            this.trie.insert(id, name, popularity);
+            return this;
+        }
+
+        /**
+         * Ranks the nodes and returns the trie. The builder must not be used afterwards.
+         *
+         * @return the loaded trie
+         */
+        public SuggestTrie build() {
+            this.trie.rankAll();
+            return this.trie;
+        }
+    }
+
+    private static final class Node {
+
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        // Subcadena de la clave desde el nodo padre (vacía solo en la raíz)
+        private String edge;
+        private Node[] children = NO_CHILDREN;
+        // Productos cuya clave termina en este nodo
+        private int[] terminals = NO_IDS;
+        // Mejores productos del subárbol, ya ordenados
+        private int[] top = NO_IDS;
+
+        private Node(String edge) {
+            this.edge = edge;
+        }
+
+        private Node child(char first) {
+            int index = this.indexOf(first);
+            return index >= 0 ? this.children[index] : null;
+        }
+
+        private void addChild(Node child) {
+            int insertion = -this.indexOf(child.edge.charAt(0)) - 1;
+            Node[] children = new Node[this.children.length + 1];
+            System.arraycopy(this.children, 0, children, 0, insertion);
+            System.arraycopy(this.children, insertion, children, insertion + 1, this.children.length - insertion);
+            children[insertion] = child;
+            this.children = children;
+        }
+
+        private void removeChild(Node child) {
+            int index = this.indexOf(child.edge.charAt(0));
+            Node[] children = new Node[this.children.length - 1];
+            System.arraycopy(this.children, 0, children, 0, index);
+            System.arraycopy(this.children, index + 1, children, index, children.length - index);
+            this.children = children.length == 0 ? NO_CHILDREN : children;
+        }
+
+        private void replaceChild(Node child, Node replacement) {
+            this.children[this.indexOf(child.edge.charAt(0))] = replacement;
+        }
+
+        /**
+         * Inserts a node after the first {@code length} characters of the edge of a child, which keeps the rest.
+         *
+         * @return the inserted node
+         */
+        private Node split(Node child, int length) {
+            Node middle = new Node(child.edge.substring(0, length));
+            middle.children = new Node[] { child };
+            middle.top = child.top;
+            this.replaceChild(child, middle);
+            child.edge = child.edge.substring(length);
+            return middle;
+        }
+
+        private Node withEdge(String edge) {
+            this.edge = edge;
+            return this;
+        }
+
+        private int indexOf(char first) {
+            int low = 0;
+            int high = this.children.length - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                char label = this.children[middle].edge.charAt(0);
+                if (label < first) {
+                    low = middle + 1;
+                } else if (label > first) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -low - 1;
+        }
+    }
+}
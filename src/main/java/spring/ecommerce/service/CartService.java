@@ -3,6 +3,7 @@ package spring.ecommerce.service;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -121,6 +122,34 @@ public class CartService {
 				cartPage.getNumber() // Página actual
 		);
 	}
+
+	/**
+	 * Retrieves a page of the authenticated user's cart details with a keyset cursor, optionally filtered by a
+	 * search key.
+	 * <p>
+	 * Items are sorted by product name and cart ID and each page is read after the last row of the previous one,
+	 * without an {@code OFFSET}. The COUNT query only runs when requested.
+	 * </p>
+	 *
+	 * @param cursor    The cursor returned with the previous page, or {@code null} or blank for the first page.
+	 * @param size      The number of items per page.
+	 * @param searchKey The search keyword for filtering cart items by product name (optional).
+	 * @param withTotal Whether to count the matching items.
+	 * @return A {@link PageResponseDto} with the cart items and the cursor of the next page.
+	 * @throws spring.ecommerce.exception.InvalidCursorException if the cursor is not valid
+	 */
+	public PageResponseDto<CartEntity> getCartDetailsOrderedByNameWithCursor(String cursor, int size, String searchKey,
+			boolean withTotal) {
+		PageCursor after = PageCursor.decode(cursor);
+		UserEntity user = getAuthenticatedUser();
+		String nameFilter = searchKey == null || searchKey.trim().isEmpty() ? null : searchKey;
+
+		List<CartEntity> items = after == null ? this.cartDao.findFirstPage(user, nameFilter, Limit.of(size + 1))
+				: this.cartDao.findPageAfter(user, nameFilter, after.sortKey(), (int) after.id(), Limit.of(size + 1));
+		long total = withTotal ? this.cartDao.countFiltered(user, nameFilter) : -1;
+		return PageCursor.page(items, size,
+				item -> new PageCursor(item.getProductEntity().getProductName(), item.getCartId()), total);
+	}
 	
 	/**
 	 * Deletes a specific item from the authenticated user's shopping cart.
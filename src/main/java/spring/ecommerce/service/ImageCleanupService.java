@@ -0,0 +1,293 @@
+package spring.ecommerce.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import lombok.extern.slf4j.Slf4j;
+import spring.ecommerce.configuration.AsyncConfiguration;
+import spring.ecommerce.dao.ImageDao;
+import spring.ecommerce.dao.ImageVariantDao;
+import spring.ecommerce.dto.ImageCleanupReportDto;
+import spring.ecommerce.entity.ImageEntity;
+import spring.ecommerce.storage.ImageCache;
+import spring.ecommerce.storage.ImagePackStore;
+import spring.ecommerce.storage.ImageStore;
+import spring.ecommerce.storage.StoredImage;
+
+/**
+ * Background job that reclaims images nobody uses any more.
+ * <p>
+ * A run has three phases, each working in bounded batches with bulk statements:
+ * </p>
+ * <ol>
+ * <li>images linked to no product, e.g. after their product was deleted, and older than the grace period are
+ * deleted with their variants; the delete itself checks that they are still unlinked;</li>
+ * <li>variants whose image no longer exists are deleted;</li>
+ * <li>stored contents older than the grace period and referenced by no image or variant are deleted, from the
+ * {@link ImageStore} and the {@link ImagePackStore}, whose segments are then compacted.</li>
+ * </ol>
+ * <p>
+ * The job rate-limits itself with a pause between batches and a maximum number of batches per run, so it
+ * never competes with regular traffic for long. The report of the last run is kept in memory.
+ * </p>
+ */
+@Service
+@Slf4j
+public class ImageCleanupService {
+
+    private final ImageDao imageDao;
+    private final ImageVariantDao imageVariantDao;
+    private final ImageStore imageStore;
+    private final ImagePackStore imagePackStore;
+    private final ImageCache imageCache;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor maintenanceExecutor;
+
+    private final boolean enabled;
+    private final int batchSize;
+    private final int maxBatches;
+    private final Duration batchPause;
+    private final Duration gracePeriod;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicReference<ImageCleanupReportDto> lastReport = new AtomicReference<>();
+
+    public ImageCleanupService(ImageDao imageDao, ImageVariantDao imageVariantDao, ImageStore imageStore,
+            ImagePackStore imagePackStore, ImageCache imageCache, TransactionTemplate transactionTemplate,
+            @Qualifier(AsyncConfiguration.IMAGE_MAINTENANCE_EXECUTOR) Executor maintenanceExecutor,
+            @Value("${ecommerce.images.gc.enabled:true}") boolean enabled,
+            @Value("${ecommerce.images.gc.batch-size:100}") int batchSize,
+            @Value("${ecommerce.images.gc.max-batches:200}") int maxBatches,
+            @Value("${ecommerce.images.gc.batch-pause:200ms}") Duration batchPause,
+            @Value("${ecommerce.images.gc.grace-period:24h}") Duration gracePeriod) {
+        this.imageDao = imageDao;
+        this.imageVariantDao = imageVariantDao;
+        this.imageStore = imageStore;
+        this.imagePackStore = imagePackStore;
+        this.imageCache = imageCache;
+        this.transactionTemplate = transactionTemplate;
+        this.maintenanceExecutor = maintenanceExecutor;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+        this.batchPause = batchPause;
+        this.gracePeriod = gracePeriod;
+    }
+
+    /**
+     * Runs the cleanup on the configured schedule, nightly by default.
+     */
+    @Scheduled(cron = "${ecommerce.images.gc.cron:0 30 3 * * *}")
+    public void scheduledCleanup() {
+        if (this.enabled) {
+            this.collectGarbage();
+        }
+    }
+
+    /**
+     * Deletes orphan images, variants and contents.
+     *
+     * @return the report of the run, or an empty {@link Optional} if another run is in progress
+     */
+    public Optional<ImageCleanupReportDto> collectGarbage() {
+        if (!this.running.compareAndSet(false, true)) {
+            log.info("Image cleanup already running, skipping");
+            return Optional.empty();
+        }
+
+        try {
+            return Optional.of(this.run());
+        } finally {
+            this.running.set(false);
+        }
+    }
+
+    /**
+     * Starts a cleanup run on the image maintenance executor and returns immediately. Its report is available
+     * from {@link #getLastReport()} once it finishes.
+     *
+     * @return {@code false} if another run is in progress or the maintenance executor has no room for it
+     */
+    public boolean startGarbageCollection() {
+        if (!this.running.compareAndSet(false, true)) {
+            return false;
+        }
+
+        try {
+            this.maintenanceExecutor.execute(() -> {
+                try {
+                    this.run();
+                } finally {
+                    this.running.set(false);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            this.running.set(false);
+            return false;
+        }
+    }
+
+    private ImageCleanupReportDto run() {
+        Instant cutoff = Instant.now().minus(this.gracePeriod);
+        ImageCleanupReportDto report = new ImageCleanupReportDto();
+        report.setStartedAt(LocalDateTime.now());
+
+        boolean completed = this.sweepImages(LocalDateTime.ofInstant(cutoff, ZoneId.systemDefault()), report)
+                && this.sweepVariants(report)
+                && this.sweepContents(this.imageStore, cutoff, report)
+                && this.sweepContents(this.imagePackStore, cutoff, report);
+        this.compactPacks();
+
+        report.setCompleted(completed);
+        report.setFinishedAt(LocalDateTime.now());
+        this.lastReport.set(report);
+        log.info("Image cleanup finished: {} images, {} variants and {} contents deleted, {} bytes reclaimed{}",
+                report.getDeletedImages(), report.getDeletedVariants(), report.getDeletedContents(),
+                report.getReclaimedBytes(), completed ? "" : " (batch budget exhausted)");
+        return report;
+    }
+
+    /**
+     * Returns the report of the last finished run.
+     *
+     * @return the last report, or an empty {@link Optional} if the cleanup has not run yet
+     */
+    public Optional<ImageCleanupReportDto> getLastReport() {
+        return Optional.ofNullable(this.lastReport.get());
+    }
+
+    private boolean sweepImages(LocalDateTime createdBefore, ImageCleanupReportDto report) {
+        long afterId = 0;
+        while (this.acquireBatch(report)) {
+            List<ImageEntity> orphans = this.imageDao.findOrphans(createdBefore, afterId, Limit.of(this.batchSize));
+            if (orphans.isEmpty()) {
+                return true;
+            }
+
+            // La condición de huérfana se comprueba de nuevo al borrar: la imagen puede haberse enlazado a un producto
+            List<Long> ids = orphans.stream().map(ImageEntity::getId).toList();
+            this.transactionTemplate.executeWithoutResult(status -> {
+                report.setDeletedImages(report.getDeletedImages() + this.imageDao.deleteOrphansByIdIn(ids));
+                report.setDeletedVariants(
+                        report.getDeletedVariants() + this.imageVariantDao.deleteOrphansByImageIdIn(ids));
+            });
+            orphans.forEach(this.imageCache::invalidateImage);
+
+            if (orphans.size() < this.batchSize) {
+                return true;
+            }
+            afterId = ids.get(ids.size() - 1);
+        }
+        return false;
+    }
+
+    private boolean sweepVariants(ImageCleanupReportDto report) {
+        while (this.acquireBatch(report)) {
+            List<Long> ids = this.imageVariantDao.findOrphanIds(Limit.of(this.batchSize));
+            if (ids.isEmpty()) {
+                return true;
+            }
+            report.setDeletedVariants(report.getDeletedVariants() + this.imageVariantDao.deleteAllByIdIn(ids));
+            if (ids.size() < this.batchSize) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean sweepContents(ImageStore store, Instant storedBefore, ImageCleanupReportDto report) {
+        try (Stream<StoredImage> contents = store.list(storedBefore)) {
+            Iterator<StoredImage> iterator = contents.iterator();
+            List<StoredImage> batch = new ArrayList<>(this.batchSize);
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() == this.batchSize || !iterator.hasNext()) {
+                    if (!this.acquireBatch(report)) {
+                        return false;
+                    }
+                    this.deleteUnreferenced(store, batch, report);
+                    batch.clear();
+                }
+            }
+            return true;
+        } catch (IOException | UncheckedIOException e) {
+            log.error("Error listing stored image contents: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private void deleteUnreferenced(ImageStore store, List<StoredImage> contents, ImageCleanupReportDto report) {
+        List<String> hashes = contents.stream().map(StoredImage::getHash).toList();
+        Set<String> referenced = new HashSet<>(this.imageDao.findReferencedHashes(hashes));
+        referenced.addAll(this.imageVariantDao.findReferencedHashes(hashes));
+
+        for (StoredImage content : contents) {
+            if (referenced.contains(content.getHash())) {
+                continue;
+            }
+            try {
+                store.delete(content.getHash());
+                this.imageCache.invalidateContent(content.getHash());
+                report.setDeletedContents(report.getDeletedContents() + 1);
+                report.setReclaimedBytes(report.getReclaimedBytes() + content.getSize());
+            } catch (IOException e) {
+                log.error("Error deleting image content {}: {}", content.getHash(), e.getMessage());
+            }
+        }
+    }
+
+    private void compactPacks() {
+        try {
+            long reclaimed = this.imagePackStore.compact();
+            if (reclaimed > 0) {
+                log.info("Image pack compaction reclaimed {} bytes", reclaimed);
+            }
+        } catch (IOException e) {
+            log.error("Error compacting image packs: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Counts a new batch against the budget of the run, pausing between batches.
+     *
+     * @return {@code false} if the budget is exhausted or the thread was interrupted
+     */
+    private boolean acquireBatch(ImageCleanupReportDto report) {
+        if (report.getBatches() >= this.maxBatches) {
+            return false;
+        }
+        if (report.getBatches() > 0 && !this.batchPause.isZero()) {
+            try {
+                Thread.sleep(this.batchPause.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        report.setBatches(report.getBatches() + 1);
+        return true;
+    }
+}
@@ -0,0 +1,137 @@
+package spring.ecommerce.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import lombok.extern.slf4j.Slf4j;
+import spring.ecommerce.configuration.AsyncConfiguration;
+import spring.ecommerce.dao.ImageDao;
+import spring.ecommerce.entity.ImageEntity;
+import spring.ecommerce.storage.BlurHash;
+import spring.ecommerce.storage.ImageCache;
+import spring.ecommerce.storage.ImageDecoder;
+import spring.ecommerce.storage.ImageStore;
+
+/**
+ * Computes the {@link BlurHash} placeholders of images stored before placeholders existed.
+ * <p>
+ * New images get their placeholder from the {@link ImageVariantService}, together with their variants. Existing
+ * images are filled in by a background job after startup, on the image maintenance executor, which works in
+ * small batches with a pause between them so it never competes with regular traffic for the database.
+ * </p>
+ */
+@Service
+@Slf4j
+public class ImagePlaceholderService {
+
+    // Las componentes de un BlurHash no necesitan más resolución que esta
+    private static final int DECODE_SIZE = 64;
+
+    private final ImageDao imageDao;
+    private final ImageStore imageStore;
+    private final ImageCache imageCache;
+    private final boolean backfillEnabled;
+    private final int batchSize;
+    private final Duration batchPause;
+
+    public ImagePlaceholderService(ImageDao imageDao, ImageStore imageStore, ImageCache imageCache,
+            @Value("${ecommerce.images.placeholders.backfill-enabled:true}") boolean backfillEnabled,
+            @Value("${ecommerce.images.placeholders.batch-size:50}") int batchSize,
+            @Value("${ecommerce.images.placeholders.batch-pause:1s}") Duration batchPause) {
+        this.imageDao = imageDao;
+        this.imageStore = imageStore;
+        this.imageCache = imageCache;
+        this.backfillEnabled = backfillEnabled;
+        this.batchSize = batchSize;
+        this.batchPause = batchPause;
+    }
+
+    /**
+     * Computes the placeholder of a stored image, decoding it at a reduced resolution.
+     *
+     * @param image the image
+     * @return the BlurHash, or an empty {@link Optional} if the content is missing or cannot be decoded
+     */
+    public Optional<String> computePlaceholder(ImageEntity image) {
+        Optional<Resource> content = this.imageStore.load(image.getHash());
+        if (content.isEmpty()) {
+            return Optional.empty();
+        }
+        try (InputStream inputStream = content.get().getInputStream()) {
+            return ImageDecoder.decodeSubsampled(inputStream, DECODE_SIZE).map(BlurHash::encode);
+        } catch (IOException | RuntimeException e) {
+            log.debug("Cannot compute the placeholder of image {}: {}", image.getId(), e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Computes the missing placeholders of existing images, in the background after startup.
+     */
+    @Async(AsyncConfiguration.IMAGE_MAINTENANCE_EXECUTOR)
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillPlaceholders() {
+        if (this.backfillEnabled) {
+            this.backfill();
+        }
+    }
+
+    /**
+     * Computes the missing placeholders of existing images, in throttled batches.
+     * <p>
+     * Images are walked once in ID order, so those that cannot be decoded are not retried until the next start.
+     * The job stops early if its thread is interrupted, e.g. on shutdown.
+     * </p>
+     *
+     * @return the number of placeholders computed
+     */
+    public int backfill() {
+        long afterId = 0;
+        int updated = 0;
+        List<ImageEntity> images;
+        do {
+            images = this.imageDao.findWithoutPlaceholder(afterId, Limit.of(this.batchSize));
+            for (ImageEntity image : images) {
+                Optional<String> placeholder = this.computePlaceholder(image);
+                if (placeholder.isPresent()) {
+                    this.imageDao.updatePlaceholder(image.getId(), placeholder.get());
+                    this.imageCache.invalidateImage(image);
+                    updated++;
+                }
+                afterId = image.getId();
+            }
+        } while (images.size() == this.batchSize && this.pause());
+
+        if (updated > 0) {
+            log.info("Computed the placeholder of {} existing images", updated);
+        }
+        return updated;
+    }
+
+    private boolean pause() {
+        if (Thread.currentThread().isInterrupted()) {
+            return false;
+        }
+        if (this.batchPause.isZero()) {
+            return true;
+        }
+        try {
+            Thread.sleep(this.batchPause.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -1,60 +1,244 @@
 package spring.ecommerce.service;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
-import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import spring.ecommerce.configuration.AsyncConfiguration;
+import spring.ecommerce.constants.ConstantsEcommerce;
 import spring.ecommerce.dao.ImageDao;
+import spring.ecommerce.dao.ImageVariantDao;
+import spring.ecommerce.dto.CacheStatsDto;
+import spring.ecommerce.dto.CursorPageResponseDto;
+import spring.ecommerce.dto.ImageMetadataDto;
 import spring.ecommerce.entity.ImageEntity;
+import spring.ecommerce.event.ImageChangedEvent;
+import spring.ecommerce.event.ImagesStoredEvent;
+import spring.ecommerce.event.ProductChangedEvent;
+import spring.ecommerce.exception.ImageUploadException;
+import spring.ecommerce.exception.InvalidImageException;
+import spring.ecommerce.storage.ImageCache;
+import spring.ecommerce.storage.ImageFormats;
+import spring.ecommerce.storage.ImageStore;
+import spring.ecommerce.storage.LimitedInputStream;
+import spring.ecommerce.storage.LimitedInputStream.ContentTooLargeException;
+import spring.ecommerce.storage.StoredImage;
 
 @Service
-@AllArgsConstructor
 @Slf4j
 public class ImageService {
 
+    private static final int MAX_METADATA_PAGE_SIZE = 500;
+
     private final ImageDao imageDao;
+    private final ImageStore imageStore;
+    private final ImageVariantDao imageVariantDao;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ImageCache imageCache;
+    private final NearDuplicateService nearDuplicateService;
+    private final Executor imageUploadExecutor;
+
+    public ImageService(ImageDao imageDao, ImageStore imageStore, ImageVariantDao imageVariantDao,
+            ApplicationEventPublisher eventPublisher, ImageCache imageCache,
+            NearDuplicateService nearDuplicateService,
+            @Qualifier(AsyncConfiguration.IMAGE_UPLOAD_EXECUTOR) Executor imageUploadExecutor) {
+        this.imageDao = imageDao;
+        this.imageStore = imageStore;
+        this.imageVariantDao = imageVariantDao;
+        this.eventPublisher = eventPublisher;
+        this.imageCache = imageCache;
+        this.nearDuplicateService = nearDuplicateService;
+        this.imageUploadExecutor = imageUploadExecutor;
+    }
 
     /**
      * Saves an image to the database.
      * <p>
-     * This method receives an image file, extracts relevant information such as the file name, content type, and byte data,
-     * then creates an {@link ImageEntity} object and saves it to the database using the {@link imageDao}. 
-     * If there is an error during the file processing or saving, an exception is logged and rethrown as a runtime exception.
+     * This method receives an image file, stores its content in the {@link ImageStore} and then creates an
+     * {@link ImageEntity} object with the file name, content type and content hash, and saves it to the database
+     * using the {@link imageDao}. Its resized variants are then generated in the background.
      * </p>
      *
      * @param file the image file to be saved
      * @return the saved {@link ImageEntity} object
-     * @throws RuntimeException if there is an error saving the image to the database
+     * @throws ImageUploadException if there is an error storing the image content
      */
     public ImageEntity saveImage(MultipartFile file) {
-        try {
-            log.info("Saving image: {}", file.getOriginalFilename());
+        log.info("Saving image: {}", file.getOriginalFilename());
+        ImageEntity image = this.storeImage(file, file.getOriginalFilename());
+        ImageEntity savedImage = imageDao.save(image);
+        this.requestVariants(List.of(savedImage));
+        return savedImage;
+    }
 
-            ImageEntity image = new ImageEntity(
-                file.getOriginalFilename(), 
-                file.getOriginalFilename(), 
-                file.getContentType(), 
-                file.getBytes()
-            );
+    /**
+     * Requests the background generation of the resized variants of persisted images.
+     * <p>
+     * The variants are generated by the {@link ImageVariantService} after the current transaction commits,
+     * so this method returns immediately. Until they are ready, clients use the original images.
+     * </p>
+     *
+     * @param images the persisted images
+     */
+    public void requestVariants(Collection<ImageEntity> images) {
+        List<Long> imageIds = images.stream().map(ImageEntity::getId).filter(id -> id != null).toList();
+        if (!imageIds.isEmpty()) {
+            this.eventPublisher.publishEvent(new ImagesStoredEvent(imageIds));
+        }
+    }
 
-            return imageDao.save(image);
+    /**
+     * Stores the content of an image file and builds its (not yet persisted) {@link ImageEntity}.
+     * <p>
+     * The file is read once: its first bytes are checked to be a supported image format and the rest is
+     * streamed into the {@link ImageStore}, which hashes it while writing and keeps a single copy of identical
+     * contents. The upload is aborted as soon as it exceeds {@link ConstantsEcommerce#MAX_IMAGE_SIZE}, so
+     * oversized or fake images are never fully read. The returned entity only holds the metadata and the
+     * content hash, with the detected content type instead of the one declared by the client, and its
+     * perceptual hash when the format can be decoded.
+     * </p>
+     *
+     * @param file the image file to be stored
+     * @param name the unique name to give to the image
+     * @return a new {@link ImageEntity} referencing the stored content
+     * @throws InvalidImageException if the file is too large or is not a supported image
+     * @throws ImageUploadException if there is an error reading or storing the file
+     */
+    public ImageEntity storeImage(MultipartFile file, String name) {
+        // El tamaño de la parte ya es conocido: se rechaza antes de leerla
+        if (file.getSize() > ConstantsEcommerce.MAX_IMAGE_SIZE) {
+            throw tooLarge(file);
+        }
+
+        try (PushbackInputStream inputStream = new PushbackInputStream(
+                new LimitedInputStream(file.getInputStream(), ConstantsEcommerce.MAX_IMAGE_SIZE),
+                ImageFormats.SNIFF_LENGTH)) {
+            byte[] header = inputStream.readNBytes(ImageFormats.SNIFF_LENGTH);
+            String type = ImageFormats.sniff(header, header.length)
+                    .orElseThrow(() -> new InvalidImageException(
+                            "File " + file.getOriginalFilename() + " is not a supported image."));
+            inputStream.unread(header);
+
+            StoredImage storedImage = this.imageStore.store(inputStream);
+            ImageEntity image = new ImageEntity(name, file.getOriginalFilename(), type, storedImage.getHash(),
+                    storedImage.getSize());
+            this.assignPerceptualHash(image);
+            return image;
+        } catch (ContentTooLargeException e) {
+            throw tooLarge(file);
         } catch (IOException e) {
-            log.error("Error saving image: {}", e.getMessage());
-            throw new RuntimeException("Error saving image.", e);
+            log.error("Error storing image {}: {}", file.getOriginalFilename(), e.getMessage());
+            throw new ImageUploadException("Error processing image file: " + file.getOriginalFilename(), e);
         }
     }
 
+    /**
+     * Stores the contents of several image files in parallel and assigns them unique names.
+     * <p>
+     * Each file is stored with {@link #storeImage(MultipartFile, String)} on the image upload executor.
+     * The first failure aborts the whole upload: files not started yet are skipped and the exception is
+     * rethrown. Contents already stored by the other files are left for the orphan content cleanup.
+     * </p>
+     *
+     * @param files the image files to be stored
+     * @return the new (not yet persisted) {@link ImageEntity} objects, in the order of the files
+     * @throws InvalidImageException if a file is too large or is not a supported image
+     * @throws ImageUploadException if there is an error reading or storing a file
+     */
+    public List<ImageEntity> storeImages(List<MultipartFile> files) {
+        List<CompletableFuture<ImageEntity>> futures = files.stream()
+                .map(file -> CompletableFuture.supplyAsync(
+                        () -> this.storeImage(file, UUID.randomUUID().toString() + "_" + file.getOriginalFilename()),
+                        this.imageUploadExecutor))
+                .toList();
+
+        // Completa en cuanto falle un fichero, sin esperar al resto
+        CompletableFuture<Void> all = CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+        futures.forEach(future -> future.whenComplete((image, e) -> {
+            if (e != null) {
+                all.completeExceptionally(e);
+            }
+        }));
+
+        try {
+            all.join();
+            return futures.stream().map(CompletableFuture::join).toList();
+        } catch (CompletionException e) {
+            futures.forEach(future -> future.cancel(false));
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Computes the perceptual hash of a stored image, used to detect near-duplicates.
+     * <p>
+     * The content is decoded again from the {@link ImageStore} at a reduced resolution. Formats that cannot be
+     * decoded leave the hash empty, so those images are never taken for duplicates.
+     * </p>
+     *
+     * @param image the image, whose content is already stored
+     */
+    public void assignPerceptualHash(ImageEntity image) {
+        this.nearDuplicateService.computePerceptualHash(image.getHash()).ifPresent(image::setPerceptualHash);
+    }
+
+    /**
+     * Replaces new images by existing images that look the same.
+     * <p>
+     * Each new image is looked up by its perceptual hash with the {@link NearDuplicateService}. When reuse is
+     * enabled and a near-duplicate already exists, it is returned instead, so the same picture uploaded again is
+     * not kept twice; the content just stored is left to the {@link ImageCleanupService}. Existing images may then
+     * be shared by several products.
+     * </p>
+     *
+     * @param images the new (not yet persisted) images
+     * @return the images to use, in the same order
+     */
+    public List<ImageEntity> reuseNearDuplicates(List<ImageEntity> images) {
+        return images.stream()
+                .map(image -> this.nearDuplicateService.findReusableImage(image)
+                        .map(existing -> {
+                            log.info("Image {} is a near-duplicate of image {}, reusing it", image.getShortName(),
+                                    existing.getId());
+                            return existing;
+                        })
+                        .orElse(image))
+                .toList();
+    }
+
+    private static InvalidImageException tooLarge(MultipartFile file) {
+        return new InvalidImageException("File " + file.getOriginalFilename() + " exceeds the maximum size of "
+                + ConstantsEcommerce.MAX_IMAGE_SIZE / (1024 * 1024) + "MB.");
+    }
+
     /**
      * Retrieves an image from the database by its ID.
      * <p>
-     * This method attempts to fetch an {@link ImageEntity} object from the database using the provided ID. 
-     * If the image is found, it returns an {@link Optional} containing the image. 
+     * This method attempts to fetch an {@link ImageEntity} object from the {@link ImageCache}, and from the
+     * database using the provided ID on a miss.
+     * If the image is found, it returns an {@link Optional} containing the image.
      * If an error occurs during the fetch process, it logs the error and throws a runtime exception.
      * </p>
      *
@@ -65,7 +249,7 @@ public class ImageService {
     public Optional<ImageEntity> getImageById(Long id) {
         try {
             log.info("Fetching image by ID: {}", id);
-            return this.imageDao.findById(id);
+            return this.imageCache.getImageById(id, this.imageDao::findById);
         } catch (Exception e) {
             log.error("Error fetching image by ID: {}", e.getMessage());
             throw new RuntimeException("Error fetching image.");
@@ -75,8 +259,9 @@ public class ImageService {
     /**
      * Retrieves an image from the database by its name.
      * <p>
-     * This method attempts to fetch an {@link ImageEntity} object from the database using the provided name. 
-     * If the image is found, it returns an {@link Optional} containing the image. 
+     * This method attempts to fetch an {@link ImageEntity} object from the {@link ImageCache}, and from the
+     * database using the provided name on a miss.
+     * If the image is found, it returns an {@link Optional} containing the image.
      * If an error occurs during the fetch process, it logs the error and throws a runtime exception.
      * </p>
      *
@@ -87,22 +272,80 @@ public class ImageService {
     public Optional<ImageEntity> getImageByName(String name) {
         try {
             log.info("Fetching image by name: {}", name);
-            return imageDao.findByName(name);
+            return this.imageCache.getImageByName(name, this.imageDao::findByName);
         } catch (Exception e) {
             log.error("Error fetching image by name: {}", e.getMessage());
             throw new RuntimeException("Error fetching image.");
         }
     }
-    
+
+    /**
+     * Loads the content of an image.
+     * <p>
+     * Hot contents are served from the off-heap {@link ImageCache}; misses are read from the {@link ImageStore}
+     * and cached within the configured byte budget.
+     * </p>
+     *
+     * @param image the image whose content is loaded
+     * @return a {@link Resource} with the image bytes, or an empty {@link Optional} if the content is missing
+     */
+    public Optional<Resource> loadContent(ImageEntity image) {
+        return this.imageCache.getContent(image.getHash(), this.imageStore::load);
+    }
+
+    /**
+     * Returns the hit, miss and eviction counters of the image caches.
+     *
+     * @return the statistics of each image cache
+     */
+    public List<CacheStatsDto> getCacheStats() {
+        return this.imageCache.getStats();
+    }
+
+    /**
+     * Reads the whole content of an image into memory.
+     *
+     * @param image the image whose content is read
+     * @return the image bytes
+     * @throws RuntimeException if the content is missing or cannot be read
+     */
+    public byte[] readContent(ImageEntity image) {
+        Resource content = this.loadContent(image)
+                .orElseThrow(() -> new RuntimeException("Image content not found for image " + image.getId()));
+        try (InputStream inputStream = content.getInputStream()) {
+            return inputStream.readAllBytes();
+        } catch (IOException e) {
+            log.error("Error reading image content {}: {}", image.getHash(), e.getMessage());
+            throw new RuntimeException("Error reading image content.", e);
+        }
+    }
+
+    /**
+     * Computes a strong ETag for the content of an image.
+     * <p>
+     * Images are content-addressed, so the tag is the SHA-256 hash of the image bytes and two responses carry
+     * the same tag only when their bodies are byte-for-byte identical.
+     * </p>
+     *
+     * @param image the image whose content is tagged
+     * @return the quoted ETag value
+     */
+    public String computeETag(ImageEntity image) {
+        return "\"" + image.getHash() + "\"";
+    }
+
     /**
      * Removes an image from the database by its ID.
      * <p>
-     * This method first deletes any relationships between the image and products in the 
-     * {@code product_images} table by calling {@link imageDao#deleteFromProductImagesByImageID(Long)}. 
-     * Afterward, it deletes the image from the {@code image} table using the provided image ID.
+     * This method first deletes any relationships between the image and products in the
+     * {@code product_images} table by calling {@link imageDao#deleteFromProductImagesByImageID(Long)}.
+     * Afterward, it deletes its variants and the image from the {@code image} table using the provided image ID.
+     * Once the transaction commits, the image is dropped from the {@link ImageCache} and the cached catalog is
+     * dropped. The image and variant contents are not deleted here: the {@link ImageCleanupService} deletes them
+     * once they have stayed unreferenced for its grace period.
      * </p>
      * <p>
-     * This operation is performed within a transaction to ensure that both deletions are successful 
+     * This operation is performed within a transaction to ensure that both deletions are successful
      * and consistent. If any part of the process fails, the transaction is rolled back.
      * </p>
      *
@@ -110,29 +353,107 @@ public class ImageService {
      */
     @Transactional
     public void removeImage(Long imageId) {
+        Optional<ImageEntity> image = this.imageDao.findById(imageId);
+
         // Elimina las relaciones en la tabla product_images
     	this.imageDao.deleteFromProductImagesByImageID(imageId);
 
+        this.discardVariants(imageId);
+
         // Elimina la imagen de la tabla image
         this.imageDao.deleteById(imageId);
+
+        image.map(ImageChangedEvent::new).ifPresent(this.eventPublisher::publishEvent);
+        // Puede haberse quitado de cualquier producto
+        this.eventPublisher.publishEvent(new ProductChangedEvent(null));
+    }
+
+    /**
+     * Deletes images that are no longer used by a product.
+     * <p>
+     * Each image is deleted from the database together with its variants, unless another product still uses it
+     * (near-duplicate uploads share the existing image). Their contents are not deleted here: a concurrent
+     * upload of the same bytes may be reusing them, so the {@link ImageCleanupService} deletes them once they
+     * have stayed unreferenced for its grace period.
+     * </p>
+     *
+     * @param images the images to delete
+     */
+    @Transactional
+    public void discardImages(Collection<ImageEntity> images) {
+        for (ImageEntity image : images) {
+            if (this.imageDao.countProductLinks(image.getId()) > 0) {
+                log.info("Image {} still used by a product, keeping it", image.getShortName());
+                continue;
+            }
+            log.info("Discarding image: {}", image.getShortName());
+            this.discardVariants(image.getId());
+            this.imageDao.delete(image);
+            this.eventPublisher.publishEvent(new ImageChangedEvent(image));
+        }
     }
 
     /**
-     * Retrieves all images stored in the database.
+     * Retrieves a page of image metadata, ordered by ID.
+     * <p>
+     * Pages are read with a keyset query ({@code id > cursor}), so deep pages are as cheap as the first one,
+     * and only metadata columns are selected. The IDs of the products using each image are attached with a
+     * single extra query per page.
+     * </p>
      *
-     * This method fetches all images from the {@code imageDao} repository.
-     * If an error occurs during the retrieval process, a {@link RuntimeException} is thrown.
+     * @param cursor the cursor returned with the previous page, or {@code null} for the first page
+     * @param size   the requested page size, capped at {@value #MAX_METADATA_PAGE_SIZE}
+     * @return the page, with the cursor of the next page or {@code null} if it is the last one
+     * @throws NumberFormatException if the cursor is not valid
+     */
+    public CursorPageResponseDto<ImageMetadataDto> getImageMetadataPage(String cursor, int size) {
+        long afterId = cursor == null || cursor.isBlank() ? 0 : Long.parseLong(cursor);
+        int pageSize = Math.max(1, Math.min(size, MAX_METADATA_PAGE_SIZE));
+
+        List<ImageMetadataDto> images = this.findMetadataAfter(afterId, pageSize);
+        String nextCursor = images.size() == pageSize ? String.valueOf(images.get(images.size() - 1).getId()) : null;
+        return new CursorPageResponseDto<>(images, pageSize, nextCursor);
+    }
+
+    /**
+     * Passes the metadata of every image, ordered by ID, to the given consumer.
+     * <p>
+     * Images are read in keyset batches of {@value #MAX_METADATA_PAGE_SIZE}, so the whole table is never
+     * held in memory. Used to stream the full listing to tooling.
+     * </p>
      *
-     * @return A {@link List} of {@link ImageEntity} objects representing all stored images.
-     * @throws RuntimeException if an error occurs while retrieving the images.
+     * @param consumer the consumer receiving each image
      */
-    public List<ImageEntity> getAllImages() {
-        try {
-            log.info("Fetching all images.");
-            return (List<ImageEntity>) this.imageDao.findAll();
-        } catch (Exception e) {
-            log.error("Error fetching all images: {}", e.getMessage());
-            throw new RuntimeException("Error fetching all images.");
+    public void forEachImageMetadata(Consumer<ImageMetadataDto> consumer) {
+        long afterId = 0;
+        List<ImageMetadataDto> images;
+        do {
+            images = this.findMetadataAfter(afterId, MAX_METADATA_PAGE_SIZE);
+            images.forEach(consumer);
+            if (!images.isEmpty()) {
+                afterId = images.get(images.size() - 1).getId();
+            }
+        } while (images.size() == MAX_METADATA_PAGE_SIZE);
+    }
+
+    private List<ImageMetadataDto> findMetadataAfter(long afterId, int limit) {
+        List<ImageMetadataDto> images = this.imageDao.findMetadataAfter(afterId, Limit.of(limit));
+        if (images.isEmpty()) {
+            return images;
         }
+
+        Map<Long, ImageMetadataDto> imagesById = images.stream()
+                .collect(Collectors.toMap(ImageMetadataDto::getId, image -> image));
+        for (Object[] row : this.imageDao.findProductIdsByImageIds(imagesById.keySet())) {
+            imagesById.get((Long) row[0]).getProductIds().add((Integer) row[1]);
+        }
+        return images;
+    }
+
+    /**
+     * Deletes the variants of an image. Their contents are left to the {@link ImageCleanupService}.
+     */
+    private void discardVariants(Long imageId) {
+        this.imageVariantDao.deleteByImageId(imageId);
     }
 }
@@ -0,0 +1,324 @@
+package spring.ecommerce.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import lombok.extern.slf4j.Slf4j;
+import spring.ecommerce.dao.ImageDao;
+import spring.ecommerce.dao.ImageUploadSessionDao;
+import spring.ecommerce.dto.UploadSessionDto;
+import spring.ecommerce.entity.ImageEntity;
+import spring.ecommerce.entity.ImageUploadSessionEntity;
+import spring.ecommerce.exception.ImageUploadException;
+import spring.ecommerce.exception.InvalidImageException;
+import spring.ecommerce.exception.UploadOffsetConflictException;
+import spring.ecommerce.exception.UploadSessionNotFoundException;
+import spring.ecommerce.storage.ContentHash;
+import spring.ecommerce.storage.ImageFormats;
+import spring.ecommerce.storage.ImageStore;
+import spring.ecommerce.storage.StoredImage;
+
+/**
+ * Resumable, chunked uploads of large images.
+ * <p>
+ * A client creates a session announcing the file size, sends the bytes in chunks of any size, each starting
+ * at the offset received so far, and commits the session with the SHA-256 hash of the whole file. After a
+ * dropped connection it asks for the current offset and resumes from there instead of starting again.
+ * </p>
+ * <p>
+ * Chunks are streamed from the request straight into a {@code .part} file through a {@link FileChannel}, so
+ * memory use does not depend on the file size. The bytes received are the size of that file, which keeps the
+ * offset correct even after a chunk is interrupted. On commit the file is hashed, checked and moved into the
+ * {@link ImageStore} without being copied.
+ * </p>
+ */
+@Service
+@Slf4j
+public class ImageUploadSessionService {
+
+    private static final String PART_EXTENSION = ".part";
+    private static final int EXPIRED_SESSIONS_BATCH_SIZE = 100;
+
+    private final ImageUploadSessionDao imageUploadSessionDao;
+    private final ImageDao imageDao;
+    private final ImageStore imageStore;
+    private final ImageService imageService;
+    private final Path uploadDirectory;
+    private final long maxSize;
+    private final Duration expiration;
+
+    public ImageUploadSessionService(ImageUploadSessionDao imageUploadSessionDao, ImageDao imageDao,
+            ImageStore imageStore, ImageService imageService,
+            @Value("${ecommerce.images.upload-sessions.dir:${ecommerce.images.storage-dir:images}/.uploads}") String uploadDirectory,
+            @Value("${ecommerce.images.upload-sessions.max-size:50MB}") DataSize maxSize,
+            @Value("${ecommerce.images.upload-sessions.expiration:24h}") Duration expiration) throws IOException {
+        this.imageUploadSessionDao = imageUploadSessionDao;
+        this.imageDao = imageDao;
+        this.imageStore = imageStore;
+        this.imageService = imageService;
+        this.uploadDirectory = Paths.get(uploadDirectory).toAbsolutePath().normalize();
+        this.maxSize = maxSize.toBytes();
+        this.expiration = expiration;
+        Files.createDirectories(this.uploadDirectory);
+    }
+
+    /**
+     * Creates an upload session for a file of the given size.
+     *
+     * @param fileName the original file name
+     * @param size     the total size of the file, in bytes
+     * @return the new session, with offset 0
+     * @throws InvalidImageException if the name is missing or the size is out of bounds
+     */
+    public UploadSessionDto createSession(String fileName, long size) {
+        if (fileName == null || fileName.isBlank()) {
+            throw new InvalidImageException("A file name is required.");
+        }
+        if (size <= 0 || size > this.maxSize) {
+            throw new InvalidImageException("File " + fileName + " must be between 1 byte and "
+                    + DataSize.ofBytes(this.maxSize).toMegabytes() + "MB.");
+        }
+
+        ImageUploadSessionEntity session = this.imageUploadSessionDao.save(
+                new ImageUploadSessionEntity(UUID.randomUUID().toString(), fileName, size));
+        try {
+            Files.createFile(this.resolvePart(session.getId()));
+        } catch (IOException e) {
+            this.imageUploadSessionDao.delete(session);
+            log.error("Error creating upload session for {}: {}", fileName, e.getMessage());
+            throw new ImageUploadException("Error creating upload session for " + fileName, e);
+        }
+        log.info("Created upload session {} for {} ({} bytes)", session.getId(), fileName, size);
+        return new UploadSessionDto(session.getId(), fileName, size, 0);
+    }
+
+    /**
+     * Returns the state of an upload session, with the offset where the next chunk must start.
+     *
+     * @param id the session ID
+     * @return the session
+     * @throws UploadSessionNotFoundException if the session does not exist
+     */
+    public UploadSessionDto getSession(String id) {
+        ImageUploadSessionEntity session = this.findSession(id);
+        return new UploadSessionDto(session.getId(), session.getFileName(), session.getSize(), this.receivedBytes(id));
+    }
+
+    /**
+     * Appends a chunk to an upload session.
+     * <p>
+     * The chunk is transferred from the request body to the {@code .part} file without being buffered. A chunk
+     * that would go past the announced size is rejected and its bytes are discarded. If the connection drops,
+     * the bytes already written are kept and the client resumes from the new offset.
+     * </p>
+     *
+     * @param id      the session ID
+     * @param offset  the position of the chunk in the file, which must be the current offset
+     * @param content the chunk bytes; the stream is read to the end but not closed
+     * @return the session, with its new offset
+     * @throws UploadSessionNotFoundException if the session does not exist
+     * @throws UploadOffsetConflictException if the offset is not the current one or another chunk is being written
+     * @throws InvalidImageException if the chunk goes past the announced size
+     */
+    public UploadSessionDto writeChunk(String id, long offset, InputStream content) {
+        ImageUploadSessionEntity session = this.findSession(id);
+        Path part = this.resolvePart(id);
+
+        try (FileChannel channel = FileChannel.open(part, StandardOpenOption.WRITE, StandardOpenOption.CREATE)) {
+            // El bloqueo se libera al cerrar el canal
+            if (!tryLock(channel)) {
+                throw new UploadOffsetConflictException("Another chunk of upload " + id + " is being written.",
+                        channel.size());
+            }
+
+            long received = channel.size();
+            if (offset != received) {
+                throw new UploadOffsetConflictException("Upload " + id + " expects a chunk at offset " + received + ".",
+                        received);
+            }
+
+            // Copia del cuerpo de la petición al fichero con el buffer interno del canal
+            ReadableByteChannel source = Channels.newChannel(content);
+            long position = received;
+            while (position < session.getSize()) {
+                long transferred = channel.transferFrom(source, position, session.getSize() - position);
+                if (transferred == 0) {
+                    break;
+                }
+                position += transferred;
+            }
+
+            if (content.read() >= 0) {
+                channel.truncate(received);
+                throw new InvalidImageException("Chunk exceeds the announced size of " + session.getSize() + " bytes.");
+            }
+            log.debug("Upload {} received {} bytes at offset {}", id, position - received, received);
+            return new UploadSessionDto(id, session.getFileName(), session.getSize(), position);
+        } catch (IOException e) {
+            log.warn("Chunk of upload {} interrupted: {}", id, e.getMessage());
+            throw new ImageUploadException("Error writing chunk of upload " + id, e);
+        }
+    }
+
+    /**
+     * Completes an upload session and saves the uploaded image.
+     * <p>
+     * The file must be complete, be a supported image and match the given SHA-256 hash. A file with another
+     * hash was corrupted in transit: the session is discarded and the upload must start again. Resized
+     * variants are generated in the background, as for regular uploads.
+     * </p>
+     *
+     * @param id     the session ID
+     * @param sha256 the hexadecimal SHA-256 hash of the whole file
+     * @return the saved {@link ImageEntity}
+     * @throws UploadSessionNotFoundException if the session does not exist
+     * @throws InvalidImageException if the file is incomplete, is not a supported image or does not match the hash
+     */
+    public ImageEntity commit(String id, String sha256) {
+        ImageUploadSessionEntity session = this.findSession(id);
+        Path part = this.resolvePart(id);
+        if (!ContentHash.isValid(sha256 == null ? null : sha256.toLowerCase())) {
+            throw new InvalidImageException("A valid SHA-256 hash of the file is required.");
+        }
+
+        long received = this.receivedBytes(id);
+        if (received != session.getSize()) {
+            throw new InvalidImageException("Upload " + id + " is incomplete: " + received + " of "
+                    + session.getSize() + " bytes received.");
+        }
+
+        String type = this.sniff(part).orElseThrow(() -> {
+            this.discard(session);
+            return new InvalidImageException("File " + session.getFileName() + " is not a supported image.");
+        });
+
+        StoredImage storedImage;
+        try {
+            storedImage = this.imageStore.store(part, sha256);
+        } catch (ContentHash.MismatchException e) {
+            this.imageUploadSessionDao.delete(session);
+            log.warn("Upload {} discarded: {}", id, e.getMessage());
+            throw new InvalidImageException("File " + session.getFileName() + " does not match its SHA-256 hash.");
+        } catch (IOException e) {
+            log.error("Error storing upload {}: {}", id, e.getMessage());
+            throw new ImageUploadException("Error storing upload " + id, e);
+        }
+
+        ImageEntity image = new ImageEntity(UUID.randomUUID().toString() + "_" + session.getFileName(),
+                session.getFileName(), type, storedImage.getHash(), storedImage.getSize());
+        this.imageService.assignPerceptualHash(image);
+        image = this.imageDao.save(image);
+        this.imageUploadSessionDao.delete(session);
+        this.imageService.requestVariants(List.of(image));
+        log.info("Upload {} committed as image {}", id, image.getId());
+        return image;
+    }
+
+    /**
+     * Cancels an upload session, deleting the bytes received.
+     *
+     * @param id the session ID
+     * @throws UploadSessionNotFoundException if the session does not exist
+     */
+    public void cancel(String id) {
+        this.discard(this.findSession(id));
+        log.info("Upload {} cancelled", id);
+    }
+
+    /**
+     * Deletes the sessions that have received no chunk during the expiration period.
+     */
+    @Scheduled(fixedDelayString = "${ecommerce.images.upload-sessions.cleanup-interval:PT1H}")
+    public void deleteExpiredSessions() {
+        Instant cutoff = Instant.now().minus(this.expiration);
+        List<ImageUploadSessionEntity> candidates = this.imageUploadSessionDao.findByCreatedAtBeforeOrderByCreatedAt(
+                LocalDateTime.now().minus(this.expiration), Limit.of(EXPIRED_SESSIONS_BATCH_SIZE));
+
+        int deleted = 0;
+        for (ImageUploadSessionEntity session : candidates) {
+            try {
+                Path part = this.resolvePart(session.getId());
+                // Las sesiones antiguas que siguen recibiendo partes se conservan
+                if (Files.exists(part) && Files.getLastModifiedTime(part).toInstant().isAfter(cutoff)) {
+                    continue;
+                }
+                this.discard(session);
+                deleted++;
+            } catch (IOException | RuntimeException e) {
+                log.error("Error deleting expired upload {}: {}", session.getId(), e.getMessage());
+            }
+        }
+        if (deleted > 0) {
+            log.info("Deleted {} expired upload sessions", deleted);
+        }
+    }
+
+    private ImageUploadSessionEntity findSession(String id) {
+        return this.imageUploadSessionDao.findById(id)
+                .orElseThrow(() -> new UploadSessionNotFoundException("Upload session " + id + " not found."));
+    }
+
+    private Path resolvePart(String id) {
+        // El ID se genera con UUID; se valida para no construir rutas con datos del cliente
+        return this.uploadDirectory.resolve(UUID.fromString(id).toString() + PART_EXTENSION);
+    }
+
+    private long receivedBytes(String id) {
+        try {
+            Path part = this.resolvePart(id);
+            return Files.exists(part) ? Files.size(part) : 0;
+        } catch (IOException e) {
+            throw new ImageUploadException("Error reading upload " + id, e);
+        }
+    }
+
+    private Optional<String> sniff(Path part) {
+        try (FileChannel channel = FileChannel.open(part, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(ImageFormats.SNIFF_LENGTH);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // Lee la cabecera completa
+            }
+            return ImageFormats.sniff(header.array(), header.position());
+        } catch (IOException e) {
+            throw new ImageUploadException("Error reading upload " + part.getFileName(), e);
+        }
+    }
+
+    private void discard(ImageUploadSessionEntity session) {
+        try {
+            Files.deleteIfExists(this.resolvePart(session.getId()));
+        } catch (IOException e) {
+            log.warn("Error deleting upload {}: {}", session.getId(), e.getMessage());
+        }
+        this.imageUploadSessionDao.delete(session);
+    }
+
+    private static boolean tryLock(FileChannel channel) throws IOException {
+        try {
+            return channel.tryLock() != null;
+        } catch (OverlappingFileLockException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package spring.ecommerce.service;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.imageio.ImageIO;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.Resource;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import spring.ecommerce.configuration.AsyncConfiguration;
+import spring.ecommerce.dao.ImageDao;
+import spring.ecommerce.dao.ImageVariantDao;
+import spring.ecommerce.entity.ImageEntity;
+import spring.ecommerce.entity.ImageVariantEntity;
+import spring.ecommerce.event.ImagesStoredEvent;
+import spring.ecommerce.event.ProductChangedEvent;
+import spring.ecommerce.storage.BlurHash;
+import spring.ecommerce.storage.ImageCache;
+import spring.ecommerce.storage.ImagePackStore;
+import spring.ecommerce.storage.ImageStore;
+import spring.ecommerce.storage.ImageVariant;
+import spring.ecommerce.storage.StoredImage;
+
+@Service
+@AllArgsConstructor
+@Slf4j
+public class ImageVariantService {
+
+    private static final String JPEG_TYPE = "image/jpeg";
+    private static final String PNG_TYPE = "image/png";
+
+    private final ImageDao imageDao;
+    private final ImageVariantDao imageVariantDao;
+    private final ImageStore imageStore;
+    private final ImagePackStore imagePackStore;
+    private final ImageCache imageCache;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Generates the variants of newly stored images.
+     * <p>
+     * Runs on the bounded image executor once the transaction that stored the images commits, or immediately
+     * when they were stored outside a transaction. The upload request never waits for it.
+     * </p>
+     *
+     * @param event the event with the IDs of the stored images
+     */
+    @Async(AsyncConfiguration.IMAGE_TASK_EXECUTOR)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onImagesStored(ImagesStoredEvent event) {
+        for (Long imageId : event.getImageIds()) {
+            try {
+                this.generateVariants(imageId);
+            } catch (RuntimeException e) {
+                log.error("Error generating variants of image {}: {}", imageId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Generates the missing variants of an image, and its placeholder.
+     * <p>
+     * The original is decoded once with {@link ImageIO} and each variant is scaled down from the previous,
+     * larger one. Variants that would not be smaller than the original are skipped, as clients can use the
+     * original directly. Formats that {@link ImageIO} cannot decode are left without variants. Small variants
+     * are stored in the {@link ImagePackStore}, the others in the {@link ImageStore}. The {@link BlurHash}
+     * placeholder is then encoded from the smallest image of the chain.
+     * </p>
+     *
+     * @param imageId the ID of the image
+     * @return the variants generated by this call
+     */
+    public List<ImageVariantEntity> generateVariants(Long imageId) {
+        List<ImageVariantEntity> generated = new ArrayList<>();
+        Optional<ImageEntity> image = this.imageDao.findById(imageId);
+        if (image.isEmpty() || image.get().getHash() == null) {
+            log.debug("Image {} has no stored content, skipping variants", imageId);
+            return generated;
+        }
+
+        Set<ImageVariant> existing = this.imageVariantDao.findByImageId(imageId).stream()
+                .map(ImageVariantEntity::getVariant)
+                .collect(Collectors.toSet());
+        boolean missingPlaceholder = image.get().getPlaceholder() == null;
+        if (existing.size() == ImageVariant.values().length && !missingPlaceholder) {
+            return generated;
+        }
+
+        BufferedImage source = this.decode(image.get());
+        if (source == null) {
+            log.info("Image {} of type {} cannot be decoded, skipping variants", imageId, image.get().getType());
+            return generated;
+        }
+
+        String type = JPEG_TYPE.equalsIgnoreCase(image.get().getType()) ? JPEG_TYPE : PNG_TYPE;
+        for (ImageVariant variant : ImageVariant.values()) {
+            int maxSize = variant.getMaxSize();
+            if (source.getWidth() <= maxSize && source.getHeight() <= maxSize) {
+                continue;
+            }
+            // Cada variante se reduce a partir de la anterior, que ya es más pequeña que el original
+            source = scale(source, maxSize, type);
+            if (!existing.contains(variant)) {
+                this.saveVariant(imageId, variant, source, type).ifPresent(generated::add);
+            }
+        }
+        if (missingPlaceholder) {
+            this.imageDao.updatePlaceholder(imageId, BlurHash.encode(source));
+            // Los metadatos en caché no tienen el placeholder
+            this.imageCache.invalidateImage(image.get());
+        }
+        if (missingPlaceholder || !generated.isEmpty()) {
+            // Los listados de productos incluyen las URLs de las variantes y el placeholder
+            this.eventPublisher.publishEvent(new ProductChangedEvent(null));
+        }
+        log.info("Generated {} variants for image {}", generated.size(), imageId);
+        return generated;
+    }
+
+    private BufferedImage decode(ImageEntity image) {
+        Optional<Resource> content = this.imageStore.load(image.getHash());
+        if (content.isEmpty()) {
+            return null;
+        }
+        try (InputStream inputStream = content.get().getInputStream()) {
+            return ImageIO.read(inputStream);
+        } catch (IOException e) {
+            log.error("Error decoding image {}: {}", image.getId(), e.getMessage());
+            return null;
+        }
+    }
+
+    private Optional<ImageVariantEntity> saveVariant(Long imageId, ImageVariant variant, BufferedImage scaled,
+            String type) {
+        try {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            ImageIO.write(scaled, JPEG_TYPE.equals(type) ? "jpg" : "png", outputStream);
+            // Las variantes pequeñas se empaquetan en segmentos en lugar de ficheros sueltos
+            ImageStore store = this.imagePackStore.accepts(outputStream.size()) ? this.imagePackStore : this.imageStore;
+            StoredImage storedImage = store.store(new ByteArrayInputStream(outputStream.toByteArray()));
+            return Optional.of(this.imageVariantDao.save(new ImageVariantEntity(imageId, variant,
+                    storedImage.getHash(), type, scaled.getWidth(), scaled.getHeight(), storedImage.getSize())));
+        } catch (IOException e) {
+            log.error("Error storing {} variant of image {}: {}", variant, imageId, e.getMessage());
+        } catch (DataIntegrityViolationException e) {
+            // Otra tarea ha generado la misma variante a la vez
+            log.debug("{} variant of image {} already exists", variant, imageId);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Scales an image down to fit in a square of the given size, keeping its aspect ratio.
+     * Large reductions are done in successive halvings, which avoids the aliasing of a single bilinear pass.
+     */
+    private static BufferedImage scale(BufferedImage source, int maxSize, String type) {
+        double ratio = Math.min((double) maxSize / source.getWidth(), (double) maxSize / source.getHeight());
+        int width = Math.max(1, (int) Math.round(source.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * ratio));
+
+        // JPEG no admite transparencia
+        int imageType = JPEG_TYPE.equals(type) ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+        BufferedImage current = source;
+        while (current.getWidth() / 2 >= width && current.getHeight() / 2 >= height) {
+            current = draw(current, current.getWidth() / 2, current.getHeight() / 2, imageType);
+        }
+        return draw(current, width, height, imageType);
+    }
+
+    private static BufferedImage draw(BufferedImage source, int width, int height, int imageType) {
+        BufferedImage scaled = new BufferedImage(width, height, imageType);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+}
@@ -0,0 +1,367 @@
+package spring.ecommerce.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import lombok.extern.slf4j.Slf4j;
+import spring.ecommerce.configuration.AsyncConfiguration;
+import spring.ecommerce.dao.ImageDao;
+import spring.ecommerce.dto.ImageMetadataDto;
+import spring.ecommerce.dto.NearDuplicateClusterDto;
+import spring.ecommerce.entity.ImageEntity;
+import spring.ecommerce.event.ImagesStoredEvent;
+import spring.ecommerce.storage.BkTree;
+import spring.ecommerce.storage.ImageCache;
+import spring.ecommerce.storage.ImageStore;
+import spring.ecommerce.storage.PerceptualHash;
+
+/**
+ * Finds stored images that look the same as a new one.
+ * <p>
+ * Every image gets a 64-bit {@link PerceptualHash} when it is uploaded. The hashes of all images are kept in an
+ * in-memory {@link BkTree}, loaded from the database on first use and updated as images are persisted, so a
+ * Hamming distance query over the whole catalogue only visits a few nodes. Deleted images are dropped from the
+ * tree lazily, when a query finds they no longer exist. Images stored before perceptual hashes existed are hashed
+ * by a background job after startup, in small batches with a pause between them.
+ * </p>
+ */
+@Service
+@Slf4j
+public class NearDuplicateService {
+
+    private static final int MAX_REPORT_CLUSTERS = 500;
+
+    private final ImageDao imageDao;
+    private final ImageStore imageStore;
+    private final ImageCache imageCache;
+    private final int maxDistance;
+    private final boolean reuseOnUpload;
+    private final boolean backfillEnabled;
+    private final int batchSize;
+    private final Duration batchPause;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile BkTree index;
+
+    public NearDuplicateService(ImageDao imageDao, ImageStore imageStore, ImageCache imageCache,
+            @Value("${ecommerce.images.near-duplicates.max-distance:4}") int maxDistance,
+            @Value("${ecommerce.images.near-duplicates.reuse-on-upload:false}") boolean reuseOnUpload,
+            @Value("${ecommerce.images.near-duplicates.backfill-enabled:true}") boolean backfillEnabled,
+            @Value("${ecommerce.images.near-duplicates.batch-size:100}") int batchSize,
+            @Value("${ecommerce.images.near-duplicates.batch-pause:1s}") Duration batchPause) {
+        this.imageDao = imageDao;
+        this.imageStore = imageStore;
+        this.imageCache = imageCache;
+        this.maxDistance = maxDistance;
+        this.reuseOnUpload = reuseOnUpload;
+        this.backfillEnabled = backfillEnabled;
+        this.batchSize = batchSize;
+        this.batchPause = batchPause;
+    }
+
+    /**
+     * Computes the perceptual hash of a stored content.
+     *
+     * @param hash the SHA-256 hash of the content in the {@link ImageStore}
+     * @return the perceptual hash, or an empty {@link OptionalLong} if the content is missing or cannot be decoded
+     */
+    public OptionalLong computePerceptualHash(String hash) {
+        Optional<Resource> content = this.imageStore.load(hash);
+        if (content.isEmpty()) {
+            return OptionalLong.empty();
+        }
+
+        try (InputStream inputStream = content.get().getInputStream()) {
+            return PerceptualHash.compute(inputStream);
+        } catch (IOException | RuntimeException e) {
+            // Formatos sin lector en ImageIO (p. ej. WebP) o ficheros corruptos: sin hash, sin deduplicación
+            log.debug("Cannot compute the perceptual hash of {}: {}", hash, e.getMessage());
+            return OptionalLong.empty();
+        }
+    }
+
+    /**
+     * Finds an existing image that can be used instead of a new upload.
+     * <p>
+     * Reuse is disabled by default: a small perceptual distance does not prove two pictures are the same, e.g.
+     * two colours of a product shot against the same background, and swapping one for the other would show the
+     * wrong picture. Without it, near-duplicates are only reported by {@link #findClusters(Integer)}.
+     * </p>
+     *
+     * @param image the new, not yet persisted image
+     * @return the nearest existing image, or an empty {@link Optional} if reuse is disabled, the new image has no
+     *         perceptual hash or none is close enough
+     */
+    public Optional<ImageEntity> findReusableImage(ImageEntity image) {
+        if (!this.reuseOnUpload || image.getPerceptualHash() == null) {
+            return Optional.empty();
+        }
+        return this.findNearDuplicate(image.getPerceptualHash());
+    }
+
+    /**
+     * Finds the existing image most similar to a perceptual hash, within the configured maximum distance.
+     *
+     * @param perceptualHash the perceptual hash of the new image
+     * @return the nearest existing image, or an empty {@link Optional} if none is close enough
+     */
+    public Optional<ImageEntity> findNearDuplicate(long perceptualHash) {
+        BkTree tree = this.loadIndex();
+        List<BkTree.Match> matches;
+        this.lock.readLock().lock();
+        try {
+            matches = tree.search(perceptualHash, this.maxDistance);
+        } finally {
+            this.lock.readLock().unlock();
+        }
+
+        for (BkTree.Match match : matches) {
+            Optional<ImageEntity> image = this.imageDao.findById(match.id());
+            if (image.isPresent()) {
+                return image;
+            }
+            this.remove(match.hash(), match.id());
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Adds newly persisted images to the index, once their transaction commits.
+     *
+     * @param event the event with the IDs of the persisted images
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onImagesStored(ImagesStoredEvent event) {
+        if (this.index == null) {
+            // Se cargarán de la base de datos junto con el resto
+            return;
+        }
+        for (ImageEntity image : this.imageDao.findAllById(event.getImageIds())) {
+            if (image.getPerceptualHash() != null) {
+                this.add(image.getPerceptualHash(), image.getId());
+            }
+        }
+    }
+
+    /**
+     * Computes the missing perceptual hashes of existing images, in the background after startup.
+     */
+    @Async(AsyncConfiguration.IMAGE_MAINTENANCE_EXECUTOR)
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillPerceptualHashes() {
+        if (this.backfillEnabled) {
+            this.backfill();
+        }
+    }
+
+    /**
+     * Computes the missing perceptual hashes of existing images, in throttled batches.
+     * <p>
+     * Images are walked once in ID order, so those that cannot be decoded are not retried until the next start.
+     * The job stops early if its thread is interrupted, e.g. on shutdown.
+     * </p>
+     *
+     * @return the number of perceptual hashes computed
+     */
+    public int backfill() {
+        long afterId = 0;
+        int updated = 0;
+        List<ImageEntity> images;
+        do {
+            images = this.imageDao.findWithoutPerceptualHash(afterId, Limit.of(this.batchSize));
+            for (ImageEntity image : images) {
+                OptionalLong perceptualHash = this.computePerceptualHash(image.getHash());
+                if (perceptualHash.isPresent()) {
+                    this.imageDao.updatePerceptualHash(image.getId(), perceptualHash.getAsLong());
+                    this.imageCache.invalidateImage(image);
+                    this.add(perceptualHash.getAsLong(), image.getId());
+                    updated++;
+                }
+                afterId = image.getId();
+            }
+        } while (images.size() == this.batchSize && this.pause());
+
+        if (updated > 0) {
+            log.info("Computed the perceptual hash of {} existing images", updated);
+        }
+        return updated;
+    }
+
+    private boolean pause() {
+        if (Thread.currentThread().isInterrupted()) {
+            return false;
+        }
+        if (this.batchPause.isZero()) {
+            return true;
+        }
+        try {
+            Thread.sleep(this.batchPause.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Groups the stored images into clusters of near-duplicates.
+     * <p>
+     * Each image is queried against the index and linked with the images found, so two images end up in the same
+     * cluster when a chain of near-duplicates joins them. Only clusters of two or more images are returned, the
+     * largest first, up to {@value #MAX_REPORT_CLUSTERS}.
+     * </p>
+     *
+     * @param maxDistance the maximum Hamming distance, or {@code null} for the configured one
+     * @return the clusters of near-duplicate images
+     */
+    public List<NearDuplicateClusterDto> findClusters(Integer maxDistance) {
+        int distance = maxDistance == null ? this.maxDistance : Math.max(0, Math.min(maxDistance, Long.SIZE));
+        Map<Long, Long> parents = new HashMap<>();
+        Map<Long, Long> hashes = new HashMap<>();
+
+        BkTree tree = this.loadIndex();
+        this.lock.readLock().lock();
+        try {
+            tree.forEach((hash, ids) -> {
+                Long first = ids.iterator().next();
+                for (Long id : ids) {
+                    hashes.put(id, hash);
+                    union(parents, first, id);
+                }
+                for (BkTree.Match match : tree.search(hash, distance)) {
+                    union(parents, first, match.id());
+                }
+            });
+        } finally {
+            this.lock.readLock().unlock();
+        }
+
+        Map<Long, List<Long>> groups = new HashMap<>();
+        for (Long id : parents.keySet()) {
+            groups.computeIfAbsent(find(parents, id), root -> new ArrayList<>()).add(id);
+        }
+
+        return groups.values().stream()
+                .filter(ids -> ids.size() > 1)
+                .sorted(Comparator.comparingInt(List<Long>::size).reversed())
+                .limit(MAX_REPORT_CLUSTERS)
+                .map(ids -> this.toCluster(ids, hashes))
+                .filter(cluster -> cluster.getImages().size() > 1)
+                .toList();
+    }
+
+    private NearDuplicateClusterDto toCluster(List<Long> ids, Map<Long, Long> hashes) {
+        NearDuplicateClusterDto cluster = new NearDuplicateClusterDto();
+        Map<Long, ImageMetadataDto> imagesById = new HashMap<>();
+        for (ImageMetadataDto image : this.imageDao.findMetadataByIdIn(ids)) {
+            imagesById.put(image.getId(), image);
+            cluster.getImages().add(image);
+            cluster.setTotalSize(cluster.getTotalSize() + (image.getSize() == null ? 0 : image.getSize()));
+        }
+        if (imagesById.isEmpty()) {
+            return cluster;
+        }
+
+        for (Object[] row : this.imageDao.findProductIdsByImageIds(imagesById.keySet())) {
+            imagesById.get((Long) row[0]).getProductIds().add((Integer) row[1]);
+        }
+        for (ImageMetadataDto a : cluster.getImages()) {
+            for (ImageMetadataDto b : cluster.getImages()) {
+                cluster.setMaxDistance(Math.max(cluster.getMaxDistance(),
+                        PerceptualHash.distance(hashes.get(a.getId()), hashes.get(b.getId()))));
+            }
+        }
+        return cluster;
+    }
+
+    /**
+     * Returns the index, loading the perceptual hashes of all images on first use.
+     */
+    private BkTree loadIndex() {
+        BkTree tree = this.index;
+        if (tree != null) {
+            return tree;
+        }
+
+        this.lock.writeLock().lock();
+        try {
+            if (this.index == null) {
+                BkTree loaded = new BkTree();
+                for (Object[] row : this.imageDao.findPerceptualHashes()) {
+                    loaded.add((Long) row[1], (Long) row[0]);
+                }
+                log.info("Loaded the perceptual hashes of {} images", loaded.size());
+                this.index = loaded;
+            }
+            return this.index;
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    private void add(long perceptualHash, long id) {
+        this.lock.writeLock().lock();
+        try {
+            if (this.index != null) {
+                this.index.add(perceptualHash, id);
+            }
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    private void remove(long perceptualHash, long id) {
+        this.lock.writeLock().lock();
+        try {
+            if (this.index != null) {
+                this.index.remove(perceptualHash, id);
+            }
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    private static void union(Map<Long, Long> parents, Long a, Long b) {
+        Long rootA = find(parents, a);
+        Long rootB = find(parents, b);
+        if (!rootA.equals(rootB)) {
+            parents.put(rootB, rootA);
+        }
+    }
+
+    private static Long find(Map<Long, Long> parents, Long id) {
+        Long root = id;
+        Long parent;
+        while (!(parent = parents.getOrDefault(root, root)).equals(root)) {
+            root = parent;
+        }
+        // Compresión de caminos
+        Long current = id;
+        while (!current.equals(root)) {
+            Long next = parents.get(current);
+            parents.put(current, root);
+            current = next;
+        }
+        parents.putIfAbsent(root, root);
+        return root;
+    }
+}
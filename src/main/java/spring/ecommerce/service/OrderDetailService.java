@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -142,7 +143,60 @@ public class OrderDetailService {
     }
 
 
-    
+    /**
+     * Retrieves a page of order details with a keyset cursor, based on search key and status filters.
+     * <p>
+     * Orders are sorted by full name and ID and each page is read after the last row of the previous one, so
+     * paging through a large table costs the same on every page. The COUNT query only runs when requested.
+     * </p>
+     *
+     * @param cursor    The cursor returned with the previous page, or {@code null} or blank for the first page.
+     * @param size      The number of records per page.
+     * @param searchKey The search keyword to filter orders by full name. If null or empty, no name filtering is applied.
+     * @param status    The status of the orders to filter. If "all", no status filtering is applied.
+     * @param withTotal Whether to count the matching orders.
+     * @return A {@link PageResponseDto} with the orders and the cursor of the next page.
+     * @throws spring.ecommerce.exception.InvalidCursorException if the cursor is not valid
+     */
+    public PageResponseDto<OrderDetailEntity> getOrderDetailsBySearchKeyWithCursor(String cursor, int size,
+            String searchKey, String status, boolean withTotal) {
+        PageCursor after = PageCursor.decode(cursor);
+        String nameFilter = searchKey == null || searchKey.isEmpty() ? null : searchKey;
+        String statusFilter = "all".equalsIgnoreCase(status) ? null : status;
+
+        List<OrderDetailEntity> orders = after == null
+                ? this.orderDetailDao.findFirstPage(nameFilter, statusFilter, Limit.of(size + 1))
+                : this.orderDetailDao.findPageAfter(nameFilter, statusFilter, after.sortKey(), (int) after.id(),
+                        Limit.of(size + 1));
+        long total = withTotal ? this.orderDetailDao.countFiltered(nameFilter, statusFilter) : -1;
+        return PageCursor.page(orders, size, order -> new PageCursor(order.getOrderFullName(), order.getOrderId()), total);
+    }
+
+    /**
+     * Retrieves a page of the authenticated user's order details with a keyset cursor.
+     *
+     * @param cursor    The cursor returned with the previous page, or {@code null} or blank for the first page.
+     * @param size      The number of records per page.
+     * @param searchKey The search keyword to filter orders by name.
+     * @param withTotal Whether to count the matching orders.
+     * @return A {@link PageResponseDto} with the orders and the cursor of the next page.
+     * @throws spring.ecommerce.exception.InvalidCursorException if the cursor is not valid
+     * @see #getOrderDetailsBySearchKeyWithCursor(String, int, String, String, boolean)
+     */
+    public PageResponseDto<OrderDetailEntity> getMyOrderDetailsBySearchKeyWithCursor(String cursor, int size,
+            String searchKey, boolean withTotal) {
+        PageCursor after = PageCursor.decode(cursor);
+        UserEntity userEntity = this.commonService.getAuthenticatedUser();
+        String nameFilter = searchKey == null || searchKey.isEmpty() ? null : searchKey;
+
+        List<OrderDetailEntity> orders = after == null
+                ? this.orderDetailDao.findFirstPageOfUser(userEntity, nameFilter, null, Limit.of(size + 1))
+                : this.orderDetailDao.findPageOfUserAfter(userEntity, nameFilter, null, after.sortKey(),
+                        (int) after.id(), Limit.of(size + 1));
+        long total = withTotal ? this.orderDetailDao.countFilteredOfUser(userEntity, nameFilter, null) : -1;
+        return PageCursor.page(orders, size, order -> new PageCursor(order.getOrderFullName(), order.getOrderId()), total);
+    }
+
     /**
      * Retrieves a paginated and filtered list of the authenticated user's order details.
      *
@@ -0,0 +1,86 @@
+package spring.ecommerce.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+import spring.ecommerce.dto.PageResponseDto;
+import spring.ecommerce.exception.InvalidCursorException;
+
+/**
+ * Position of a keyset (seek) pagination: the sort key and ID of the last row of a page.
+ * <p>
+ * The next page is read with {@code WHERE (sortKey, id) > (:sortKey, :id)} instead of an {@code OFFSET}, so it
+ * costs the same whatever its depth. Clients receive it as an opaque URL-safe token and must not build or parse it.
+ * For listings ranked in memory, {@code sortKey} is {@code null} and {@code id} holds the number of the next
+ * page.
+ * </p>
+ *
+ * @param sortKey the sort key of the last row, may be {@code null}
+ * @param id      the ID of the last row, or the number of the next page
+ */
+public record PageCursor(String sortKey, long id) {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    // Separa el ID de la clave de ordenación, que puede contener cualquier otro carácter
+    private static final char SEPARATOR = '\n';
+
+    /**
+     * Encodes the cursor as an opaque token.
+     *
+     * @return the token
+     */
+    public String encode() {
+        String plain = this.sortKey == null ? String.valueOf(this.id) : this.id + String.valueOf(SEPARATOR) + this.sortKey;
+        return ENCODER.encodeToString(plain.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a token returned with a previous page.
+     *
+     * @param token the token, or {@code null} or blank for the first page
+     * @return the cursor, or {@code null} for the first page
+     * @throws InvalidCursorException if the token is not valid
+     */
+    public static PageCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String plain = new String(DECODER.decode(token), StandardCharsets.UTF_8);
+            int separator = plain.indexOf(SEPARATOR);
+            if (separator < 0) {
+                return new PageCursor(null, Long.parseLong(plain));
+            }
+            return new PageCursor(plain.substring(separator + 1), Long.parseLong(plain.substring(0, separator)));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Invalid pagination cursor: " + token);
+        }
+    }
+
+    /**
+     * Builds a page of a keyset listing.
+     * <p>
+     * The rows are read with a limit of {@code size + 1}: the extra row only tells whether there is a next page, so
+     * the last page never comes with a cursor to an empty one. The total is {@code -1} when it was not counted, and
+     * so is the page number, which keyset pagination does not know.
+     * </p>
+     *
+     * @param rows     the rows read, at most {@code size + 1}
+     * @param size     the page size
+     * @param cursorOf the function returning the cursor after a row
+     * @param total    the total number of rows, or {@code -1} if not counted
+     * @return the page, with the token of the next page or {@code null} if it is the last one
+     */
+    public static <T> PageResponseDto<T> page(List<T> rows, int size, Function<T, PageCursor> cursorOf, long total) {
+        boolean hasNext = rows.size() > size;
+        List<T> content = hasNext ? rows.subList(0, size) : rows;
+        int totalPages = total < 0 ? -1 : (int) ((total + size - 1) / size);
+
+        PageResponseDto<T> page = new PageResponseDto<>(content, totalPages, total, size, -1);
+        page.setNextCursor(hasNext ? cursorOf.apply(content.get(content.size() - 1)).encode() : null);
+        return page;
+    }
+}
@@ -0,0 +1,126 @@
+package spring.ecommerce.service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import spring.ecommerce.dao.ProductDao;
+import spring.ecommerce.entity.ProductEntity;
+
+/**
+ * Bulk write path for products, shared by imports and admin bulk edits.
+ * <p>
+ * {@link ProductEntity} uses {@code GenerationType.IDENTITY}, so Hibernate sends every insert on its own to learn
+ * the generated ID. This service skips the persistence context instead: the products of a batch are split into
+ * inserts and updates with a single query for their existing IDs, and written with one JDBC batch for each, in a
+ * single transaction. With {@code rewriteBatchedStatements} the MySQL driver sends each batch as a multi-row
+ * statement, and new products get their IDs from the AUTO_INCREMENT counter in one go. Only imports may insert
+ * products with an explicit ID; bulk edits can only update existing products or create new ones.
+ * </p>
+ * <p>
+ * Products are not validated here: callers must pass valid products.
+ * </p>
+ */
+@Service
+public class ProductBulkWriteService {
+
+    private static final String INSERT_SQL = "INSERT INTO product (product_id, product_name, product_description, "
+            + "product_discounted_price, product_actual_price) VALUES (?, ?, ?, ?, ?)";
+    private static final String UPDATE_SQL = "UPDATE product SET product_name = ?, product_description = ?, "
+            + "product_discounted_price = ?, product_actual_price = ? WHERE product_id = ?";
+
+    private final ProductDao productDao;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Outcome of a bulk write: the number of products inserted and updated, and the positions in the written
+     * list of the products whose ID does not exist.
+     */
+    public record Result(int inserted, int updated, List<Integer> missing) {
+
+        public Result(int inserted, int updated) {
+            this(inserted, updated, List.of());
+        }
+    }
+
+    public ProductBulkWriteService(ProductDao productDao, JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate) {
+        this.productDao = productDao;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * Inserts or updates a batch of products in a single transaction.
+     * <p>
+     * Products without an ID are inserted. Products whose ID exists are updated. A product with an unknown ID is
+     * inserted with that ID only if {@code insertWithIds} is set, as when re-importing an export; otherwise it is
+     * reported as missing and not written, so a bulk edit never recreates a deleted product. When several products
+     * share an ID, the first one is inserted if needed and the next ones update it. Existing IDs are read inside
+     * the write transaction, and the updates are counted from the rows each statement matched, so a product
+     * deleted in the meantime is reported as missing too. Images are not written.
+     * </p>
+     *
+     * @param products      the valid products to write
+     * @param insertWithIds whether products with an unknown ID are inserted with it
+     * @return the number of products inserted and updated, and the positions of the missing ones
+     */
+    public Result upsert(List<ProductEntity> products, boolean insertWithIds) {
+        if (products.isEmpty()) {
+            return new Result(0, 0);
+        }
+
+        Set<Integer> ids = products.stream().map(ProductEntity::getProductId).filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        return this.transactionTemplate.execute(status -> {
+            Set<Integer> existing = ids.isEmpty() ? new HashSet<>()
+                    : new HashSet<>(this.productDao.findExistingProductIds(ids));
+
+            List<Integer> missing = new ArrayList<>();
+            List<Object[]> inserts = new ArrayList<>();
+            List<Object[]> updates = new ArrayList<>();
+            List<Integer> updatePositions = new ArrayList<>();
+            for (int i = 0; i < products.size(); i++) {
+                ProductEntity product = products.get(i);
+                Integer id = product.getProductId();
+                if (id != null && !existing.contains(id) && !insertWithIds) {
+                    missing.add(i);
+                } else if (id != null && !existing.add(id)) {
+                    updates.add(new Object[] { product.getProductName(), product.getProductDescription(),
+                            product.getProductDiscountedPrice(), product.getProductActualPrice(), id });
+                    updatePositions.add(i);
+                } else {
+                    inserts.add(new Object[] { id, product.getProductName(), product.getProductDescription(),
+                            product.getProductDiscountedPrice(), product.getProductActualPrice() });
+                }
+            }
+
+            // Las inserciones primero: un ID repetido actualiza la fila que acaba de insertarse
+            if (!inserts.isEmpty()) {
+                this.jdbcTemplate.batchUpdate(INSERT_SQL, inserts);
+            }
+            int updated = 0;
+            if (!updates.isEmpty()) {
+                int[] counts = this.jdbcTemplate.batchUpdate(UPDATE_SQL, updates);
+                for (int i = 0; i < counts.length; i++) {
+                    // El driver devuelve las filas encontradas; SUCCESS_NO_INFO si no puede saberlo
+                    if (counts[i] == 0) {
+                        missing.add(updatePositions.get(i));
+                    } else {
+                        updated++;
+                    }
+                }
+            }
+            missing.sort(null);
+            return new Result(inserts.size(), updated, missing);
+        });
+    }
+}
@@ -0,0 +1,115 @@
+package spring.ecommerce.service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import lombok.extern.slf4j.Slf4j;
+import spring.ecommerce.dto.CacheStatsDto;
+import spring.ecommerce.dto.PageResponseDto;
+import spring.ecommerce.dto.ProductListingDto;
+import spring.ecommerce.entity.ProductEntity;
+import spring.ecommerce.event.ProductChangedEvent;
+import spring.ecommerce.event.ProductsImportedEvent;
+import spring.ecommerce.search.ProductFilter;
+
+/**
+ * Read-through, in-process cache of the product catalog.
+ * <p>
+ * Products are cached by ID and listing pages by page, size and search key. Concurrent misses on the same key
+ * wait for a single database load, so an expired hot page never sends a burst of identical queries to MySQL.
+ * Entries are dropped when a {@link ProductChangedEvent} is published, after the transaction of the change
+ * commits: the changed product by ID and every page, since a single change can move products between pages.
+ * Full lists of the catalog are never cached: they are read or streamed from the database on each call. Sizes
+ * are bounded and entries expire after a TTL, as a safety net for changes made outside the application.
+ * </p>
+ */
+@Component
+@Slf4j
+public class ProductCatalogCache {
+
+	/**
+	 * Key of a cached listing page.
+	 */
+	public record PageKey(int page, int size, String searchKey, boolean fuzzy, ProductFilter filter) {
+	}
+
+	private final Cache<Integer, ProductEntity> productsById;
+	private final Cache<PageKey, PageResponseDto<ProductListingDto>> pages;
+
+	public ProductCatalogCache(@Value("${ecommerce.catalog.cache.max-products:10000}") long maxProducts,
+			@Value("${ecommerce.catalog.cache.max-pages:1000}") long maxPages,
+			@Value("${ecommerce.catalog.cache.ttl:10m}") Duration ttl) {
+		this.productsById = Caffeine.newBuilder().maximumSize(maxProducts).expireAfterWrite(ttl).recordStats().build();
+		this.pages = Caffeine.newBuilder().maximumSize(maxPages).expireAfterWrite(ttl).recordStats().build();
+	}
+
+	/**
+	 * Returns the product with the given ID, loading and caching it on a miss.
+	 *
+	 * @param productId the product ID
+	 * @param loader    the function loading the product from the database, returning {@code null} if it does not exist
+	 * @return the product, or {@code null} if it does not exist
+	 */
+	public ProductEntity getProduct(Integer productId, Function<Integer, ProductEntity> loader) {
+		return this.productsById.get(productId, loader);
+	}
+
+	/**
+	 * Returns a listing page, loading and caching it on a miss.
+	 *
+	 * @param key    the page key
+	 * @param loader the function loading the page from the database
+	 * @return the page
+	 */
+	public PageResponseDto<ProductListingDto> getPage(PageKey key,
+			Function<PageKey, PageResponseDto<ProductListingDto>> loader) {
+		return this.pages.get(key, loader);
+	}
+
+	/**
+	 * Drops the entries affected by a product change, once its transaction commits.
+	 *
+	 * @param event the event with the ID of the changed product
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onProductChanged(ProductChangedEvent event) {
+		if (event.getProductId() != null) {
+			this.productsById.invalidate(event.getProductId());
+		} else {
+			this.productsById.invalidateAll();
+		}
+		this.pages.invalidateAll();
+		log.debug("Catalog cache invalidated for product {}", event.getProductId());
+	}
+
+	/**
+	 * Drops every entry after a bulk import.
+	 *
+	 * @param event the event of the import
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onProductsImported(ProductsImportedEvent event) {
+		this.productsById.invalidateAll();
+		this.pages.invalidateAll();
+		log.debug("Catalog cache invalidated after importing {} products", event.getChangedProducts());
+	}
+
+	/**
+	 * Returns the hit, miss and eviction counters of the catalog caches.
+	 *
+	 * @return the statistics of each cache
+	 */
+	public List<CacheStatsDto> getStats() {
+		return List.of(
+				CacheStatsDto.of("productsById", this.productsById),
+				CacheStatsDto.of("productPages", this.pages));
+	}
+}
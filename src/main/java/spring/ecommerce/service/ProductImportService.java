@@ -0,0 +1,181 @@
+package spring.ecommerce.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import spring.ecommerce.dto.ProductImportRejectionDto;
+import spring.ecommerce.dto.ProductImportSummaryDto;
+import spring.ecommerce.entity.ProductEntity;
+import spring.ecommerce.event.ProductsImportedEvent;
+import spring.ecommerce.files.ExcelService;
+import spring.ecommerce.files.ExcelService.ImportedRow;
+import spring.ecommerce.service.ProductBulkWriteService.Result;
+import spring.ecommerce.validation.DiscountPriceValidator;
+
+/**
+ * Imports products into the catalogue, from Excel files or from admin bulk edits.
+ * <p>
+ * Rows are streamed from the sheet by {@link ExcelService#readProductsFromExcel(InputStream, Consumer)}
+ * and processed in chunks of the configured batch size, so memory use does not depend on the size of the file. The
+ * rows of each chunk are validated in parallel against the constraints of {@link ProductEntity}, including
+ * {@link DiscountPriceValidator}, and the valid ones are upserted by {@link ProductBulkWriteService}, in a
+ * transaction per chunk: rows whose ID already exists are updated, the others are inserted, keeping their ID if
+ * they have one. Bulk edits cannot create products with an explicit ID: products with an unknown ID are rejected.
+ * A failed chunk stops the import; the chunks before it stay saved.
+ * </p>
+ */
+@Service
+@Slf4j
+public class ProductImportService {
+
+    private static final int MAX_REPORTED_REJECTIONS = 100;
+
+    private final ExcelService excelService;
+    private final ProductBulkWriteService productBulkWriteService;
+    private final Validator validator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int batchSize;
+
+    public ProductImportService(ExcelService excelService, ProductBulkWriteService productBulkWriteService,
+            Validator validator, ApplicationEventPublisher eventPublisher,
+            @Value("${ecommerce.products.import.batch-size:1000}") int batchSize) {
+        this.excelService = excelService;
+        this.productBulkWriteService = productBulkWriteService;
+        this.validator = validator;
+        this.eventPublisher = eventPublisher;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Imports the products of an Excel file.
+     *
+     * @param inputStream the Excel file, which is not closed
+     * @return the number of rows read, inserted, updated and rejected
+     * @throws IOException if the file cannot be read or is not a valid .xlsx file
+     */
+    public ProductImportSummaryDto importProductsFromExcel(InputStream inputStream) throws IOException {
+        try {
+            return this.importRows("Excel file", true, consumer -> {
+                try {
+                    this.excelService.readProductsFromExcel(inputStream, consumer);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Inserts or updates a list of products sent by an administrator.
+     * <p>
+     * Each product is validated and written like a row of an Excel import; rejections report its position in the
+     * list, starting at 1. Unlike an import, a product with the ID of no existing product is rejected instead of
+     * being inserted with that ID.
+     * </p>
+     *
+     * @param products the products to save; those with the ID of an existing product update it, those without an
+     *                 ID are created
+     * @return the number of products read, inserted, updated and rejected
+     */
+    public ProductImportSummaryDto importProducts(List<ProductEntity> products) {
+        return this.importRows("bulk edit", false, consumer -> {
+            for (int i = 0; i < products.size(); i++) {
+                consumer.accept(new ImportedRow(i + 1, products.get(i), null));
+            }
+        });
+    }
+
+    private ProductImportSummaryDto importRows(String source, boolean insertWithIds,
+            Consumer<Consumer<ImportedRow>> rows) {
+        ProductImportSummaryDto summary = new ProductImportSummaryDto();
+        summary.setStartedAt(LocalDateTime.now());
+        List<ImportedRow> chunk = new ArrayList<>(this.batchSize);
+
+        try {
+            rows.accept(row -> {
+                chunk.add(row);
+                if (chunk.size() == this.batchSize) {
+                    this.importChunk(chunk, insertWithIds, summary);
+                    chunk.clear();
+                }
+            });
+            if (!chunk.isEmpty()) {
+                this.importChunk(chunk, insertWithIds, summary);
+            }
+        } finally {
+            // También tras un fallo: los lotes anteriores ya están guardados
+            long changed = summary.getInserted() + summary.getUpdated();
+            if (changed > 0) {
+                this.eventPublisher.publishEvent(new ProductsImportedEvent(changed));
+            }
+        }
+
+        summary.setFinishedAt(LocalDateTime.now());
+        log.info("Imported products from {}: {} rows, {} inserted, {} updated, {} rejected", source,
+                summary.getRows(), summary.getInserted(), summary.getUpdated(), summary.getRejected());
+        return summary;
+    }
+
+    private void importChunk(List<ImportedRow> rows, boolean insertWithIds, ProductImportSummaryDto summary) {
+        // La validación no depende de la base de datos: se reparte entre los núcleos
+        List<String> errors = rows.parallelStream().map(this::validate).toList();
+
+        List<ImportedRow> valid = new ArrayList<>(rows.size());
+        List<ProductEntity> products = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            if (errors.get(i) == null) {
+                valid.add(rows.get(i));
+                products.add(rows.get(i).product());
+            } else {
+                this.reject(summary, rows.get(i).rowNumber(), errors.get(i));
+            }
+        }
+        summary.setRows(summary.getRows() + rows.size());
+        if (products.isEmpty()) {
+            return;
+        }
+
+        Result result = this.productBulkWriteService.upsert(products, insertWithIds);
+        for (int position : result.missing()) {
+            ImportedRow row = valid.get(position);
+            this.reject(summary, row.rowNumber(), "Product " + row.product().getProductId() + " does not exist");
+        }
+        summary.setInserted(summary.getInserted() + result.inserted());
+        summary.setUpdated(summary.getUpdated() + result.updated());
+        summary.setBatches(summary.getBatches() + 1);
+    }
+
+    private String validate(ImportedRow row) {
+        if (row.error() != null) {
+            return row.error();
+        }
+        Set<ConstraintViolation<ProductEntity>> violations = this.validator.validate(row.product());
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream().map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining("; "));
+    }
+
+    private void reject(ProductImportSummaryDto summary, int rowNumber, String reason) {
+        summary.setRejected(summary.getRejected() + 1);
+        if (summary.getRejections().size() < MAX_REPORTED_REJECTIONS) {
+            summary.getRejections().add(new ProductImportRejectionDto(rowNumber, reason));
+        }
+    }
+}
@@ -0,0 +1,437 @@
+package spring.ecommerce.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import lombok.extern.slf4j.Slf4j;
+import spring.ecommerce.dao.OrderDetailDao;
+import spring.ecommerce.dao.ProductDao;
+import spring.ecommerce.dto.PriceBucketDto;
+import spring.ecommerce.dto.ProductFacetsDto;
+import spring.ecommerce.dto.ProductSuggestionDto;
+import spring.ecommerce.event.ProductChangedEvent;
+import spring.ecommerce.event.ProductsImportedEvent;
+import spring.ecommerce.search.NgramIndex;
+import spring.ecommerce.search.PriceFacets;
+import spring.ecommerce.search.ProductFilter;
+import spring.ecommerce.search.SuggestTrie;
+
+/**
+ * Full-text product search, facets and typeahead suggestions served from memory.
+ * <p>
+ * The names and descriptions of all products are kept in an {@link NgramIndex}, their prices in
+ * {@link PriceFacets}, and their names in a {@link SuggestTrie} ranked by number of orders. All three are loaded
+ * from the database on first use and updated after each committed {@link ProductChangedEvent}; price changes
+ * reach the facets on their next periodic refresh. Queries are matched, ranked and paginated against the index;
+ * only the IDs of the requested page are returned, for the caller to load their listings. The popularity of the
+ * suggestions is refreshed periodically, since orders do not change the catalogue.
+ * </p>
+ * <p>
+ * Full reloads, after a bulk import or to re-rank the suggestions, build new structures from the database without
+ * holding the lock, so searches keep using the previous ones meanwhile. Products changed during the reload are
+ * recorded and re-read before the new structures are swapped in under a short write lock.
+ * </p>
+ */
+@Service
+@Slf4j
+public class ProductSearchService {
+
+    private final ProductDao productDao;
+    private final OrderDetailDao orderDetailDao;
+    private final int suggestTopK;
+    private final double[] priceBuckets;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile NgramIndex index;
+    private SuggestTrie suggestions;
+    private PriceFacets facets;
+    // Una sola recarga a la vez; los productos cambiados mientras tanto se anotan bajo el cerrojo de escritura
+    private final Object rebuildMonitor = new Object();
+    private Set<Integer> changedDuringRebuild;
+
+    public ProductSearchService(ProductDao productDao, OrderDetailDao orderDetailDao,
+            @Value("${ecommerce.search.suggest.top-k:10}") int suggestTopK,
+            @Value("${ecommerce.search.facets.price-buckets:0,10,25,50,100,250,500,1000}") double[] priceBuckets) {
+        this.productDao = productDao;
+        this.orderDetailDao = orderDetailDao;
+        this.suggestTopK = suggestTopK;
+        this.priceBuckets = priceBuckets;
+    }
+
+    /**
+     * Searches the products whose name or description contain every term of a query.
+     *
+     * @param query    the search terms; case and accents are ignored
+     * @param pageable the requested page
+     * @return the page of matching product IDs, most relevant first, with the total number of matches
+     */
+    public Page<Integer> search(String query, Pageable pageable) {
+        return this.search(query, false, pageable);
+    }
+
+    /**
+     * Searches the products matching every term of a query, optionally tolerating typos.
+     *
+     * @param query    the search terms; case and accents are ignored
+     * @param fuzzy    whether terms also match words one or two edits away, e.g. "labtop" for "laptop"
+     * @param pageable the requested page
+     * @return the page of matching product IDs, most relevant first, with the total number of matches
+     */
+    public Page<Integer> search(String query, boolean fuzzy, Pageable pageable) {
+        return this.search(query, fuzzy, ProductFilter.NONE, pageable);
+    }
+
+    /**
+     * Searches the products matching every term of a query and a price and discount filter.
+     * <p>
+     * Without terms, the products kept by the filter are returned ordered by name.
+     * </p>
+     *
+     * @param query    the search terms, may be empty; case and accents are ignored
+     * @param fuzzy    whether terms also match words one or two edits away
+     * @param filter   the price and discount filter
+     * @param pageable the requested page
+     * @return the page of matching product IDs, most relevant first, with the total number of matches
+     */
+    public Page<Integer> search(String query, boolean fuzzy, ProductFilter filter, Pageable pageable) {
+        this.loadIndex();
+        this.lock.readLock().lock();
+        try {
+            NgramIndex current = this.index;
+            if (NgramIndex.fold(query).isEmpty()) {
+                BitSet matches = this.facets.match(filter);
+                int[] ids = this.facets.idsByName(matches, pageable.getOffset(), pageable.getPageSize());
+                return new PageImpl<>(Arrays.stream(ids).boxed().toList(), pageable, matches.cardinality());
+            }
+
+            List<NgramIndex.Hit> hits = fuzzy ? current.fuzzySearch(query) : current.search(query);
+            if (!filter.isEmpty()) {
+                BitSet matches = this.facets.match(filter);
+                hits = hits.stream().filter(hit -> this.facets.contains(matches, hit.id())).toList();
+            }
+            int from = (int) Math.min(pageable.getOffset(), hits.size());
+            int to = Math.min(from + pageable.getPageSize(), hits.size());
+            List<Integer> ids = hits.subList(from, to).stream().map(NgramIndex.Hit::id).toList();
+            return new PageImpl<>(ids, pageable, hits.size());
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Counts the products of each price bucket and on discount, among those matching a query and a filter.
+     * <p>
+     * Each facet is counted without its own filter. Without terms and filters the histogram computed when the
+     * facets were last refreshed is returned.
+     * </p>
+     *
+     * @param query  the search terms, may be empty
+     * @param fuzzy  whether terms also match words one or two edits away
+     * @param filter the price and discount filter
+     * @return the facet counts
+     */
+    public ProductFacetsDto getFacets(String query, boolean fuzzy, ProductFilter filter) {
+        this.loadIndex();
+        this.lock.readLock().lock();
+        try {
+            NgramIndex current = this.index;
+            BitSet base = null;
+            if (!NgramIndex.fold(query).isEmpty()) {
+                List<NgramIndex.Hit> hits = fuzzy ? current.fuzzySearch(query) : current.search(query);
+                base = this.facets.ranksOf(hits.stream().map(NgramIndex.Hit::id).toList());
+            }
+
+            ProductFacetsDto dto = new ProductFacetsDto();
+            dto.setTotalCount(this.filtered(base, filter).cardinality());
+            dto.setOnDiscountCount(this.facets.countDiscounted(this.filtered(base, filter.withoutDiscount())));
+            ProductFilter bucketFilter = filter.withoutPrice();
+            long[] counts = this.facets.histogram(base == null && bucketFilter.isEmpty() ? null
+                    : this.filtered(base, bucketFilter));
+            double[] boundaries = this.facets.boundaries();
+            for (int i = 0; i < boundaries.length; i++) {
+                Double maxPrice = i + 1 < boundaries.length ? boundaries[i + 1] : null;
+                dto.getPriceBuckets().add(new PriceBucketDto(boundaries[i], maxPrice, counts[i]));
+            }
+            return dto;
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    private BitSet filtered(BitSet base, ProductFilter filter) {
+        BitSet bits = this.facets.match(filter);
+        if (base != null) {
+            bits.and(base);
+        }
+        return bits;
+    }
+
+    /**
+     * Suggests the most ordered products whose name, or a word of it, starts with the typed text.
+     *
+     * @param prefix the typed text; case and accents are ignored
+     * @param limit  the maximum number of suggestions, capped to the configured top-k
+     * @return the suggested products, most ordered first
+     */
+    public List<ProductSuggestionDto> suggest(String prefix, int limit) {
+        this.loadIndex();
+        this.lock.readLock().lock();
+        try {
+            return this.suggestions.suggest(prefix, Math.max(0, Math.min(limit, this.suggestTopK))).stream()
+                    .map(suggestion -> new ProductSuggestionDto(suggestion.id(), suggestion.name()))
+                    .toList();
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Re-indexes a product once the transaction that changed it commits.
+     * <p>
+     * It runs before the other listeners, so the {@link ProductCatalogCache} is not refilled from a stale index.
+     * Events without a product ID only concern images and are ignored.
+     * </p>
+     *
+     * @param event the event with the ID of the changed product
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getProductId() == null) {
+            return;
+        }
+        this.lock.writeLock().lock();
+        try {
+            if (this.changedDuringRebuild != null) {
+                // La recarga en curso volverá a leer el producto antes de publicar sus estructuras
+                this.changedDuringRebuild.add(event.getProductId());
+            }
+            if (this.index == null) {
+                // Sin índice todavía: se cargará de la base de datos con el cambio incluido
+                return;
+            }
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+        List<Integer> ids = List.of(event.getProductId());
+        List<Object[]> rows = this.productDao.findSearchFieldsByProductIdIn(ids);
+
+        this.lock.writeLock().lock();
+        try {
+            apply(ids, rows, this.index, this.suggestions, this.facets);
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reloads the index from the database after a bulk import.
+     * <p>
+     * Reloading once is cheaper than re-indexing each imported product. Like
+     * {@link #onProductChanged(ProductChangedEvent)}, it runs before the {@link ProductCatalogCache} is cleared.
+     * </p>
+     *
+     * @param event the event of the import
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onProductsImported(ProductsImportedEvent event) {
+        if (this.index == null) {
+            // Sin índice todavía: se cargará de la base de datos con el cambio incluido
+            return;
+        }
+        this.rebuild(true);
+    }
+
+    /**
+     * Publishes the price facets changed since the last refresh.
+     * <p>
+     * Sorting the catalogue takes a while with many products, so it is not done on each change under the write
+     * lock: the products are copied under the read lock, sorted without any lock, and the new view is swapped in
+     * under a short write lock. Until then, filters and facet counts use the previous prices.
+     * </p>
+     */
+    @Scheduled(fixedDelayString = "${ecommerce.search.facets.refresh-delay:PT1S}")
+    public void refreshFacets() {
+        PriceFacets current;
+        PriceFacets.Snapshot snapshot;
+        this.lock.readLock().lock();
+        try {
+            current = this.facets;
+            snapshot = current == null ? null : current.snapshot();
+        } finally {
+            this.lock.readLock().unlock();
+        }
+        if (snapshot == null) {
+            return;
+        }
+
+        PriceFacets.View view = snapshot.build();
+        this.lock.writeLock().lock();
+        try {
+            // Una recarga completa puede haber sustituido las facetas mientras tanto
+            if (this.facets == current) {
+                current.publish(view);
+            }
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Re-ranks the suggestions with the current number of orders of each product.
+     * <p>
+     * Only the suggestion trie is rebuilt, from the names of the products; the index and the facets do not
+     * depend on orders.
+     * </p>
+     */
+    @Scheduled(fixedDelayString = "${ecommerce.search.suggest.popularity-refresh:PT1H}")
+    public void refreshPopularity() {
+        if (this.index == null) {
+            return;
+        }
+        this.rebuild(false);
+    }
+
+    /**
+     * Loads the index, the suggestions and the facets on first use.
+     */
+    private void loadIndex() {
+        if (this.index != null) {
+            return;
+        }
+        synchronized (this.rebuildMonitor) {
+            if (this.index == null) {
+                this.rebuild(true);
+            }
+        }
+    }
+
+    /**
+     * Builds new structures from the database without holding the lock and swaps them in under the write lock.
+     * <p>
+     * Products changed meanwhile are re-read and applied to the new structures until none is pending; the last
+     * check and the swap happen under the same write lock, so later changes go to the new structures directly.
+     * </p>
+     *
+     * @param catalogue whether to rebuild the index and the facets too, or only the suggestions
+     */
+    private void rebuild(boolean catalogue) {
+        synchronized (this.rebuildMonitor) {
+            this.lock.writeLock().lock();
+            try {
+                this.changedDuringRebuild = new HashSet<>();
+            } finally {
+                this.lock.writeLock().unlock();
+            }
+
+            try {
+                Map<Integer, Long> popularities = this.findPopularities();
+                NgramIndex loaded = catalogue ? new NgramIndex() : null;
+                PriceFacets prices = catalogue ? new PriceFacets(this.priceBuckets) : null;
+                SuggestTrie.Builder trie = SuggestTrie.builder(this.suggestTopK);
+                if (catalogue) {
+                    for (Object[] row : this.productDao.findSearchFields()) {
+                        Integer productId = (Integer) row[0];
+                        loaded.put(productId, (String) row[1], (String) row[2]);
+                        trie.add(productId, (String) row[1], popularities.getOrDefault(productId, 0L));
+                        prices.put(productId, (String) row[1], (Double) row[3], (Double) row[4]);
+                    }
+                    prices.refresh();
+                } else {
+                    for (Object[] row : this.productDao.findNames()) {
+                        Integer productId = (Integer) row[0];
+                        trie.add(productId, (String) row[1], popularities.getOrDefault(productId, 0L));
+                    }
+                }
+                SuggestTrie built = trie.build();
+
+                while (true) {
+                    List<Integer> pending;
+                    this.lock.writeLock().lock();
+                    try {
+                        if (this.changedDuringRebuild.isEmpty()) {
+                            this.suggestions = built;
+                            if (catalogue) {
+                                this.facets = prices;
+                                this.index = loaded;
+                                log.info("Indexed {} products for search", loaded.size());
+                            }
+                            return;
+                        }
+                        pending = new ArrayList<>(this.changedDuringRebuild);
+                        this.changedDuringRebuild.clear();
+                    } finally {
+                        this.lock.writeLock().unlock();
+                    }
+                    // Las estructuras nuevas aún no son visibles: se actualizan sin cerrojo
+                    apply(pending, this.productDao.findSearchFieldsByProductIdIn(pending), loaded, built, prices);
+                }
+            } finally {
+                this.lock.writeLock().lock();
+                try {
+                    this.changedDuringRebuild = null;
+                } finally {
+                    this.lock.writeLock().unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies the current search fields of some products, removing those without a row. Structures passed as
+     * {@code null} are skipped.
+     */
+    private static void apply(Collection<Integer> ids, List<Object[]> rows, NgramIndex index, SuggestTrie suggestions,
+            PriceFacets facets) {
+        Set<Integer> removed = new HashSet<>(ids);
+        for (Object[] row : rows) {
+            Integer productId = (Integer) row[0];
+            removed.remove(productId);
+            if (index != null) {
+                index.put(productId, (String) row[1], (String) row[2]);
+            }
+            // Un cambio de nombre no altera el número de pedidos
+            suggestions.put(productId, (String) row[1], suggestions.popularity(productId));
+            if (facets != null) {
+                facets.put(productId, (String) row[1], (Double) row[3], (Double) row[4]);
+            }
+        }
+        for (Integer productId : removed) {
+            if (index != null) {
+                index.remove(productId);
+            }
+            suggestions.remove(productId);
+            if (facets != null) {
+                facets.remove(productId);
+            }
+        }
+    }
+
+    private Map<Integer, Long> findPopularities() {
+        Map<Integer, Long> popularities = new HashMap<>();
+        for (Object[] row : this.orderDetailDao.countOrdersByProduct()) {
+            popularities.put((Integer) row[0], (Long) row[1]);
+        }
+        return popularities;
+    }
+}
@@ -1,56 +1,81 @@
 package spring.ecommerce.service;
 
-import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
-import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import spring.ecommerce.dao.CartDao;
-import spring.ecommerce.dao.ImageDao;
 import spring.ecommerce.dao.ProductDao;
+import spring.ecommerce.dto.CacheStatsDto;
 import spring.ecommerce.dto.PageResponseDto;
+import spring.ecommerce.dto.ProductFacetsDto;
+import spring.ecommerce.dto.ProductListingDto;
+import spring.ecommerce.dto.ProductSuggestionDto;
 import spring.ecommerce.entity.CartEntity;
 import spring.ecommerce.entity.ImageEntity;
 import spring.ecommerce.entity.ProductEntity;
 import spring.ecommerce.entity.UserEntity;
+import spring.ecommerce.event.ProductChangedEvent;
 import spring.ecommerce.exception.ImageUploadException; // Nueva excepción personalizada
+import spring.ecommerce.exception.InvalidImageException;
 import spring.ecommerce.exception.ProductNotFoundException;
+import spring.ecommerce.search.NgramIndex;
+import spring.ecommerce.search.ProductFilter;
+import spring.ecommerce.storage.ImageUrls;
+import spring.ecommerce.storage.ImageVariant;
 
 @Service
 @Slf4j
 @AllArgsConstructor
 public class ProductService {
 	
+	private static final int STREAM_BATCH_SIZE = 500;
+
 	private final ProductDao productDao;
-	private final ImageDao imageDao;
+	private final ImageService imageService;
 	private final CommonService commonService;
 	private final CartDao cartDao;
+	private final ProductCatalogCache productCatalogCache;
+	private final ProductSearchService productSearchService;
+	private final ApplicationEventPublisher eventPublisher;
 
 
 	/**
      * Creates a new product in the system.
      *
+     * The resized variants of its images are generated in the background once the product is saved.
+     * It runs in a single transaction, so the existing images reused for near-duplicate uploads are
+     * managed entities when the new product is persisted.
+     *
      * @param product the product to be saved
      * @return the saved product
      */
+	@Transactional
 	public ProductEntity addNewProduct(ProductEntity product, MultipartFile[] files) {
 	    log.info("Creating a new product: {}", product.getProductName());
 
+	    Set<ImageEntity> images = new HashSet<>();
 	    if (files != null && files.length > 0) {
 	        try {
-	            Set<ImageEntity> images = this.uploadImages(files);
+	            images = this.uploadImages(files);
 	            product.setProductImages(images);
 	        } catch (ImageUploadException e) {
 	            log.error("Error uploading images", e);
@@ -59,6 +84,8 @@ public class ProductService {
 	    }
 
 	    ProductEntity savedProduct = this.productDao.save(product);
+	    this.requestImageVariants(savedProduct, images);
+	    this.eventPublisher.publishEvent(new ProductChangedEvent(savedProduct.getProductId()));
 	    log.info("Product created successfully: {}", savedProduct.getProductId());
 	    return savedProduct;
 	}
@@ -66,57 +93,251 @@ public class ProductService {
 	/**
 	 * Retrieves all products stored in the database.
 	 *
-	 * This method fetches all products from the {@code productDao} repository.
-	 * If no products are found, a warning message is logged.
+	 * This method fetches a lightweight listing of all products from the {@code productDao} repository,
+	 * with image IDs and URLs instead of image data. The list is read from the database on each call; it is
+	 * not kept in the {@link ProductCatalogCache}. If no products are found, a warning message is logged.
 	 *
-	 * @return A {@link List} of {@link ProductEntity} objects representing all stored products.
+	 * @return A {@link List} of {@link ProductListingDto} objects representing all stored products.
 	 */
-	public List<ProductEntity> getAllProducts() {
-	    List<ProductEntity> products = (List<ProductEntity>) productDao.findAll();
+	public List<ProductListingDto> getAllProducts() {
+	    List<ProductListingDto> products = this.productDao.findAllListings(Sort.by(Sort.Order.asc("productId")));
 	    if (products.isEmpty()) {
 	        log.warn("No products found.");
 	    }
-	    return products;
+	    return attachImageReferences(products);
+	}
+	
+	/**
+	 * Passes the listing of every product, ordered by ID, to the given consumer.
+	 * 
+	 * Products are read in keyset batches of {@value #STREAM_BATCH_SIZE} lean listings,
+	 * which are not managed entities, so neither the whole catalog nor a growing
+	 * persistence context is ever held in memory. Image references are attached batch by
+	 * batch. Used to stream the full catalog; it bypasses the {@link ProductCatalogCache}.
+	 * 
+	 * @param consumer the consumer receiving each product
+	 */
+	public void forEachProductListing(Consumer<ProductListingDto> consumer) {
+	    int afterId = 0;
+	    List<ProductListingDto> products;
+	    do {
+	        products = attachImageReferences(this.productDao.findListingsAfterId(afterId, Limit.of(STREAM_BATCH_SIZE)));
+	        products.forEach(consumer);
+	        if (!products.isEmpty()) {
+	            afterId = products.get(products.size() - 1).getProductId();
+	        }
+	    } while (products.size() == STREAM_BATCH_SIZE);
 	}
 	
 	/**
 	 * Retrieves a paginated and sorted list of products ordered by their name.
 	 * 
-	 * This method fetches a paginated list of products from the database, ordered by the 
+	 * Without a search key, this method fetches a paginated list of products from the database, ordered by the 
 	 * product name in ascending order. It uses the provided page number and page size 
-	 * to determine the pagination parameters.
+	 * to determine the pagination parameters. With a search key, the products whose name or
+	 * description contain every term are found, ranked and paginated by the {@link ProductSearchService}
+	 * in memory, and only the listings of the requested page are read from the database. The price and
+	 * discount filter is applied in memory too; without a search key, filtered products are ordered by name.
 	 * 
 	 * @param page The page number to retrieve, starting from 0.
 	 * @param size The number of products per page.
+	 * @param searchKey The search terms; case and accents are ignored.
+	 * @param fuzzy Whether the search tolerates typos, so "labtop" also finds "laptop".
+	 * @param filter The effective price range and discount status of the products.
+	 * The products are returned as {@link ProductListingDto} objects, so no image data is loaded.
+	 * Pages are served from the {@link ProductCatalogCache}, keyed by page, size and search key.
+	 * 
 	 * @return A PageResponse object containing the list of products, total number of pages, 
 	 *         total number of elements, page size, and the current page number.
 	 */
-	public PageResponseDto<ProductEntity> getProductsBySearchKeyWithPagination(int page, int size, String searchKey) {
+	public PageResponseDto<ProductListingDto> getProductsBySearchKeyWithPagination(int page, int size, String searchKey,
+	        boolean fuzzy, ProductFilter filter) {
+	    // La búsqueda no distingue mayúsculas ni acentos: una única entrada por término
+	    String key = NgramIndex.fold(searchKey);
+	    return this.productCatalogCache.getPage(new ProductCatalogCache.PageKey(page, size, key, fuzzy, filter),
+	            pageKey -> this.findListingPage(page, size, key, fuzzy, filter));
+	}
+
+	/**
+	 * Retrieves a paginated list of products matching a search key exactly.
+	 *
+	 * @see #getProductsBySearchKeyWithPagination(int, int, String, boolean, ProductFilter)
+	 */
+	public PageResponseDto<ProductListingDto> getProductsBySearchKeyWithPagination(int page, int size, String searchKey) {
+	    return this.getProductsBySearchKeyWithPagination(page, size, searchKey, false, ProductFilter.NONE);
+	}
+
+	/**
+	 * Retrieves a page of products with a keyset cursor.
+	 *
+	 * Without search key or filter, products are sorted by name and ID and each page is read from the
+	 * database after the last row of the previous one, without an {@code OFFSET}; the COUNT query only
+	 * runs when requested. Searches and filters are answered from memory, where the cursor holds the
+	 * number of the next page of the ranked results and the total is always known. Cursor pages are not cached.
+	 *
+	 * @param cursor    the cursor returned with the previous page, or {@code null} or blank for the first page
+	 * @param size      the number of products per page
+	 * @param searchKey the search terms, may be empty
+	 * @param fuzzy     whether the search tolerates typos
+	 * @param filter    the effective price range and discount status of the products
+	 * @param withTotal whether to count the products of a database listing
+	 * @return the page, with the cursor of the next page
+	 * @throws spring.ecommerce.exception.InvalidCursorException if the cursor is not valid
+	 */
+	public PageResponseDto<ProductListingDto> getProductsBySearchKeyWithCursor(String cursor, int size, String searchKey,
+	        boolean fuzzy, ProductFilter filter, boolean withTotal) {
+	    PageCursor after = PageCursor.decode(cursor);
+	    String key = NgramIndex.fold(searchKey);
+
+	    if (!key.isEmpty() || !filter.isEmpty()) {
+	        // El ranking se calcula en memoria: el cursor guarda el número de la siguiente página
+	        int page = after == null ? 0 : (int) after.id();
+	        Page<Integer> idPage = this.productSearchService.search(key, fuzzy, filter, PageRequest.of(page, size));
+	        List<ProductListingDto> products = attachImageReferences(this.findListingsInOrder(idPage.getContent()));
+	        PageResponseDto<ProductListingDto> response = new PageResponseDto<>(products, idPage.getTotalPages(),
+	                idPage.getTotalElements(), size, page);
+	        response.setNextCursor(idPage.hasNext() ? new PageCursor(null, page + 1).encode() : null);
+	        return response;
+	    }
+
+	    // Un cursor de una búsqueda (sin clave de orden) vuelve a la primera página
+	    List<ProductListingDto> products = after == null || after.sortKey() == null
+	            ? this.productDao.findFirstListings(Limit.of(size + 1))
+	            : this.productDao.findListingsAfter(after.sortKey(), (int) after.id(), Limit.of(size + 1));
+	    PageResponseDto<ProductListingDto> response = PageCursor.page(products, size,
+	            product -> new PageCursor(product.getProductName(), product.getProductId()),
+	            withTotal ? this.productDao.count() : -1);
+	    attachImageReferences(response.getContent());
+	    return response;
+	}
+
+	/**
+	 * Counts the products of each price bucket and on discount for a listing.
+	 *
+	 * The counts are computed in memory by the {@link ProductSearchService}, each facet without its own filter.
+	 *
+	 * @param searchKey the search terms, may be empty
+	 * @param fuzzy     whether the search tolerates typos
+	 * @param filter    the effective price range and discount status of the products
+	 * @return the facet counts
+	 */
+	public ProductFacetsDto getProductFacets(String searchKey, boolean fuzzy, ProductFilter filter) {
+	    return this.productSearchService.getFacets(searchKey, fuzzy, filter);
+	}
+
+	private PageResponseDto<ProductListingDto> findListingPage(int page, int size, String searchKey, boolean fuzzy,
+	        ProductFilter filter) {
+	    if (!searchKey.isEmpty() || !filter.isEmpty()) {
+	        // Búsqueda, filtros y paginación en memoria; la base de datos solo completa la página
+	        Page<Integer> idPage = this.productSearchService.search(searchKey, fuzzy, filter, PageRequest.of(page, size));
+	        List<ProductListingDto> products = this.findListingsInOrder(idPage.getContent());
+	        return new PageResponseDto<>(attachImageReferences(products), idPage.getTotalPages(), idPage.getTotalElements(), idPage.getSize(), idPage.getNumber());
+	    }
+
+	    // Si no hay searchKey, retornar todos los productos
 	    Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Order.asc("productName")));
+	    Page<ProductListingDto> productPage = this.productDao.findAllListings(pageable);
+	    return new PageResponseDto<>(attachImageReferences(productPage.getContent()), productPage.getTotalPages(), productPage.getTotalElements(), productPage.getSize(), productPage.getNumber());
+	}
 
-	    if (searchKey != null && !searchKey.isEmpty()) {
-	        // Filtrar por el searchKey (por ejemplo, nombre del producto)
-	        Page<ProductEntity> productPage = this.productDao.findByProductNameContainingIgnoreCase(searchKey, pageable);
-	        return new PageResponseDto<>(productPage.getContent(), productPage.getTotalPages(), productPage.getTotalElements(), productPage.getSize(), productPage.getNumber());
-	    } else {
-	        // Si no hay searchKey, retornar todos los productos
-	        Page<ProductEntity> productPage = this.productDao.findAll(pageable);
-	        return new PageResponseDto<>(productPage.getContent(), productPage.getTotalPages(), productPage.getTotalElements(), productPage.getSize(), productPage.getNumber());
+	/**
+	 * Loads the listings of the given products, keeping the order of the IDs.
+	 *
+	 * @param productIds the IDs, in the order of the search results
+	 * @return the listings of the products that still exist
+	 */
+	private List<ProductListingDto> findListingsInOrder(List<Integer> productIds) {
+	    if (productIds.isEmpty()) {
+	        return new ArrayList<>();
+	    }
+	    Map<Integer, ProductListingDto> productsById = this.productDao.findListingsByProductIdIn(productIds).stream()
+	            .collect(Collectors.toMap(ProductListingDto::getProductId, product -> product));
+	    return productIds.stream()
+	            .map(productsById::get)
+	            .filter(Objects::nonNull)
+	            .collect(Collectors.toList());
+	}
+
+	/**
+	 * Suggests products for a search box as the user types.
+	 *
+	 * The suggestions are answered from memory by the {@link ProductSearchService}: products whose name,
+	 * or a word of it, starts with the typed text, most ordered first.
+	 *
+	 * @param prefix the typed text
+	 * @param limit  the maximum number of suggestions
+	 * @return the IDs and names of the suggested products
+	 */
+	public List<ProductSuggestionDto> suggestProducts(String prefix, int limit) {
+	    return this.productSearchService.suggest(prefix, limit);
+	}
+
+	/**
+	 * Returns the hit, miss and eviction counters of the catalog caches.
+	 *
+	 * @return the statistics of each catalog cache
+	 */
+	public List<CacheStatsDto> getCacheStats() {
+	    return this.productCatalogCache.getStats();
+	}
+
+	/**
+	 * Fills the image IDs and URLs of a list of product listings.
+	 * 
+	 * The image references of every product in the list are fetched with a single query on the
+	 * {@code product_images} relationship, so the image data itself is never read.
+	 * Stored contents are linked through their static {@code /images/} URL, and the grid URLs point
+	 * to the {@link ImageVariant#CARD} variant when it has already been generated. The BlurHash
+	 * placeholders computed in the background are embedded inline, so they cost no extra request.
+	 * 
+	 * @param products The product listings to complete.
+	 * @return The same list, with image references attached to each product.
+	 */
+	private List<ProductListingDto> attachImageReferences(List<ProductListingDto> products) {
+	    if (products.isEmpty()) {
+	        return products;
 	    }
+
+	    Map<Integer, ProductListingDto> productsById = products.stream()
+	            .collect(Collectors.toMap(ProductListingDto::getProductId, product -> product));
+
+	    for (Object[] row : this.productDao.findImageReferencesByProductIds(productsById.keySet(), ImageVariant.CARD)) {
+	        ProductListingDto product = productsById.get((Integer) row[0]);
+	        Long imageId = (Long) row[1];
+	        String imageUrl = ImageUrls.of(imageId, (String) row[2], (String) row[3]);
+	        product.getImageIds().add(imageId);
+	        product.getImageUrls().add(imageUrl);
+	        product.getCardImageUrls().add(row[4] == null ? imageUrl : ImageUrls.of(imageId, (String) row[4], (String) row[5]));
+	        product.getImagePlaceholders().add((String) row[6]);
+	    }
+	    return products;
 	}
 
 
 	
 	/**
-	 * Retrieves a list of all products ordered by their name in ascending order.
+	 * Passes the listing of every product, ordered by name, to the given consumer.
 	 * 
-	 * This method fetches all products from the database, ordered by the product name 
-	 * in ascending order.
+	 * Products are read in keyset batches of {@value #STREAM_BATCH_SIZE} lean listings on
+	 * (name, ID), so the whole catalog is never held in memory. Image references are not
+	 * attached. Used by the file exports; it bypasses the {@link ProductCatalogCache}.
 	 * 
-	 * @return A list of all products sorted by their name.
+	 * @param consumer the consumer receiving each product
 	 */
-	public List<ProductEntity> getAllProductsOrderedByName() {
-	    return this.productDao.findAll(Sort.by(Sort.Order.asc("productName")));
+	public void forEachProductListingOrderedByName(Consumer<ProductListingDto> consumer) {
+	    String afterName = null;
+	    int afterId = 0;
+	    List<ProductListingDto> products;
+	    do {
+	        products = afterName == null ? this.productDao.findFirstListings(Limit.of(STREAM_BATCH_SIZE))
+	                : this.productDao.findListingsAfter(afterName, afterId, Limit.of(STREAM_BATCH_SIZE));
+	        products.forEach(consumer);
+	        if (!products.isEmpty()) {
+	            ProductListingDto last = products.get(products.size() - 1);
+	            afterName = last.getProductName();
+	            afterId = last.getProductId();
+	        }
+	    } while (products.size() == STREAM_BATCH_SIZE);
 	}
 
 	/**
@@ -135,14 +356,17 @@ public class ProductService {
 	        throw new ProductNotFoundException("Product not found with ID: " + productId);  
 	    }
 	    this.productDao.deleteById(productId);
+	    this.eventPublisher.publishEvent(new ProductChangedEvent(productId));
 	    log.info("Product with ID {} deleted successfully.", productId);
 	}
 
 	/**
 	 * Retrieves a product by its ID.
 	 *
-	 * This method attempts to find a product in the database using the provided {@code productId}.
-	 * If the product is found, it is returned. Otherwise, a {@link ProductNotFoundException} is thrown.
+	 * This method attempts to find a product in the {@link ProductCatalogCache}, and in the database
+	 * using the provided {@code productId} on a miss. The returned product is shared with other readers
+	 * and must not be modified. If the product is found, it is returned. Otherwise, a
+	 * {@link ProductNotFoundException} is thrown.
 	 *
 	 * @param productId The ID of the product to retrieve.
 	 * @return The {@link ProductEntity} associated with the given ID.
@@ -150,8 +374,12 @@ public class ProductService {
 	 */
 	public ProductEntity getProductById(Integer productId) {
 	    log.info("Attempting to retrieve product with ID: {}", productId);
-	    return this.productDao.findById(productId)
-	        .orElseThrow(() -> new ProductNotFoundException("Product not found with ID: " + productId));
+	    ProductEntity product = this.productCatalogCache.getProduct(productId,
+	            id -> this.productDao.findById(id).orElse(null));
+	    if (product == null) {
+	        throw new ProductNotFoundException("Product not found with ID: " + productId);
+	    }
+	    return product;
 	}
 
 	/**
@@ -159,7 +387,9 @@ public class ProductService {
 	 *
 	 * This method retrieves the existing product by its ID, updates its attributes,
 	 * handles the removal of preview images, adds new images if provided, and saves
-	 * the updated product in the database.
+	 * the updated product in the database. Variants of the new images are generated in the
+	 * background. Removed images are deleted through the
+	 * {@link ImageService}, which only frees their stored content when no other image uses it.
 	 *
 	 * @param id            The ID of the product to be updated.
 	 * @param product       The updated product details.
@@ -167,11 +397,14 @@ public class ProductService {
 	 * @param previewImages A list of existing image names to be removed from the product (optional).
 	 * @throws ProductNotFoundException if no product is found with the given ID.
 	 * @throws ImageUploadException if an error occurs while uploading new images.
+	 * @throws InvalidImageException if a new image is too large or is not a supported image.
 	 */
 	public void updateProduct(Integer id, ProductEntity product, List<MultipartFile> newImages, List<String> previewImages) {
 	    log.info("Updating product with ID: {}", id);
 
-	    ProductEntity existingProduct = this.getProductById(id);
+	    // Se lee de la base de datos, no de la caché: la entidad se modifica
+	    ProductEntity existingProduct = this.productDao.findById(id)
+	        .orElseThrow(() -> new ProductNotFoundException("Product not found with ID: " + id));
 
 	    // Actualizar los atributos del producto
 	    existingProduct.setProductName(product.getProductName());
@@ -182,14 +415,15 @@ public class ProductService {
 	    // Obtener todas las imágenes actuales del producto
 	    Set<ImageEntity> savedImages = new HashSet<>(existingProduct.getProductImages());
 	    Set<ImageEntity> finalImages = new HashSet<>();
+	    Set<ImageEntity> removedImages = new HashSet<>();
 
 
 	    if (previewImages != null && !previewImages.isEmpty()) {
 	        for (ImageEntity image : savedImages) {
 	            if (previewImages.contains(image.getShortName())) {
-	                // Si la imagen es parte de las imágenes previas, la eliminamos de la base de datos
+	                // Si la imagen es parte de las imágenes previas, la eliminamos
 	                log.info("Removing preview image: {}", image.getShortName());
-	                this.imageDao.delete(image);  
+	                removedImages.add(image);
 	            } else {
 	                // Si no está en la lista de preview, la mantenemos
 	                finalImages.add(image);
@@ -198,9 +432,11 @@ public class ProductService {
 	    }
 
 	    // Agregar nuevas imágenes si existen
+	    Set<ImageEntity> uploadedImages = new HashSet<>();
 	    if (newImages != null && !newImages.isEmpty()) {
 	        try {
-	            finalImages.addAll(uploadImages(newImages.toArray(new MultipartFile[0])));
+	            uploadedImages = uploadImages(newImages.toArray(new MultipartFile[0]));
+	            finalImages.addAll(uploadedImages);
 	        } catch (ImageUploadException e) {
 	            log.error("Error uploading new images for product ID: {}", id, e);
 	            throw e;
@@ -211,34 +447,55 @@ public class ProductService {
 	    existingProduct.setProductImages(finalImages);
 
 	    // Guardar el producto actualizado
-	    this.productDao.save(existingProduct);
+	    ProductEntity savedProduct = this.productDao.save(existingProduct);
+	    this.requestImageVariants(savedProduct, uploadedImages);
+
+	    // Borrar las imágenes eliminadas una vez desvinculadas del producto
+	    if (!removedImages.isEmpty()) {
+	        this.imageService.discardImages(removedImages);
+	    }
+	    this.eventPublisher.publishEvent(new ProductChangedEvent(id));
 	    log.info("Product with ID {} updated successfully.", id);
 	}
 
 	/**
 	 * Uploads images and assigns them unique names.
 	 *
+	 * The files are streamed into the image store in parallel by the {@link ImageService},
+	 * which rejects files that are too large or are not images; the returned images
+	 * only hold metadata and are persisted together with their product. Files that look the
+	 * same as a stored image are replaced by that image instead of being stored again.
+	 *
 	 * @param files the array of image files
 	 * @return a set of images
+	 * @throws InvalidImageException if a file is too large or is not a supported image
 	 * @throws ImageUploadException if an error occurs while reading the file
 	 */
 	private Set<ImageEntity> uploadImages(MultipartFile[] files) {
-	    Set<ImageEntity> images = new HashSet<>();
+	    if (files == null || files.length == 0) {
+	        return new HashSet<>();
+	    }
+	    List<ImageEntity> images = this.imageService.storeImages(Arrays.asList(files));
+	    return new HashSet<>(this.imageService.reuseNearDuplicates(images));
+	}
 
-	    if (files != null) {
-	        for (MultipartFile file : files) {
-	            try {
-	            	String shortName = file.getOriginalFilename();
-	                String fileName = UUID.randomUUID().toString() + "_" + shortName;
-	                ImageEntity image = new ImageEntity(fileName, shortName, file.getContentType(), file.getBytes());
-	                images.add(image);
-	            } catch (IOException e) {
-	                log.error("Failed to process image file: {}", file.getOriginalFilename(), e);
-	                throw new ImageUploadException("Error processing image file: " + file.getOriginalFilename(), e);
-	            }
-	        }
+	/**
+	 * Requests the background generation of variants for the images uploaded with a product.
+	 *
+	 * The uploaded images are looked up by their unique name in the saved product, since saving
+	 * a detached product returns copies of its images that hold the generated IDs.
+	 *
+	 * @param savedProduct   the product returned by the repository
+	 * @param uploadedImages the images uploaded with the product
+	 */
+	private void requestImageVariants(ProductEntity savedProduct, Set<ImageEntity> uploadedImages) {
+	    if (uploadedImages.isEmpty() || savedProduct == null || savedProduct.getProductImages() == null) {
+	        return;
 	    }
-	    return images;
+	    Set<String> uploadedNames = uploadedImages.stream().map(ImageEntity::getName).collect(Collectors.toSet());
+	    this.imageService.requestVariants(savedProduct.getProductImages().stream()
+	            .filter(image -> uploadedNames.contains(image.getName()))
+	            .toList());
 	}
 
     /**
@@ -256,8 +513,7 @@ public class ProductService {
 		if(isSingleProductCheckOut && productId != 0) {
 			List<ProductEntity> productList = new ArrayList<>();
             log.debug("Fetching single product with ID: {}", productId);
-			ProductEntity product = this.productDao.findById(productId).get();		
-			productList.add(product);
+			productList.add(this.getProductById(productId));
 			return productList;
 		} 
 		// Checkout entire car
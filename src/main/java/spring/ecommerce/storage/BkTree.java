@@ -0,0 +1,158 @@
+package spring.ecommerce.storage;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * BK-tree of {@link PerceptualHash perceptual hashes}, answering Hamming distance queries.
+ * <p>
+ * Each node holds a hash and the IDs of the images sharing it; its children are keyed by their distance to it.
+ * By the triangle inequality a query within distance {@code d} of {@code q} only descends into the children at
+ * distance {@code [dist(q, node) - d, dist(q, node) + d]}, so small radius queries visit a tiny part of the tree.
+ * </p>
+ * <p>
+ * Not thread-safe: callers guard it with a read-write lock.
+ * </p>
+ */
+public class BkTree {
+
+    private Node root;
+    private int size;
+
+    /**
+     * Match of a query: an image ID and the distance of its hash to the queried one.
+     */
+    public record Match(long id, long hash, int distance) {
+    }
+
+    /**
+     * Adds an image.
+     *
+     * @param hash the perceptual hash of the image
+     * @param id   the image ID
+     */
+    public void add(long hash, long id) {
+        if (this.root == null) {
+            this.root = new Node(hash);
+        }
+
+        Node node = this.root;
+        while (true) {
+            int distance = PerceptualHash.distance(hash, node.hash);
+            if (distance == 0) {
+                if (node.ids.add(id)) {
+                    this.size++;
+                }
+                return;
+            }
+            Node child = node.children.get(distance);
+            if (child == null) {
+                child = new Node(hash);
+                node.children.put(distance, child);
+            }
+            node = child;
+        }
+    }
+
+    /**
+     * Removes an image. Its node is kept, without IDs, to preserve the structure of the tree.
+     *
+     * @param hash the perceptual hash of the image
+     * @param id   the image ID
+     */
+    public void remove(long hash, long id) {
+        Node node = this.root;
+        while (node != null) {
+            int distance = PerceptualHash.distance(hash, node.hash);
+            if (distance == 0) {
+                if (node.ids.remove(id)) {
+                    this.size--;
+                }
+                return;
+            }
+            node = node.children.get(distance);
+        }
+    }
+
+    /**
+     * Finds the images whose hash is within the given distance of a hash, nearest first.
+     *
+     * @param hash        the queried hash
+     * @param maxDistance the maximum Hamming distance
+     * @return the matches, ordered by distance
+     */
+    public List<Match> search(long hash, int maxDistance) {
+        List<Match> matches = new ArrayList<>();
+        if (this.root == null) {
+            return matches;
+        }
+
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(this.root);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            int distance = PerceptualHash.distance(hash, node.hash);
+            if (distance <= maxDistance) {
+                for (Long id : node.ids) {
+                    matches.add(new Match(id, node.hash, distance));
+                }
+            }
+            for (Map.Entry<Integer, Node> child : node.children.entrySet()) {
+                if (Math.abs(child.getKey() - distance) <= maxDistance) {
+                    pending.push(child.getValue());
+                }
+            }
+        }
+        matches.sort(Comparator.comparingInt(Match::distance));
+        return matches;
+    }
+
+    /**
+     * Passes every hash of the tree with the IDs of its images to the given consumer.
+     *
+     * @param consumer the consumer receiving each hash and its image IDs
+     */
+    public void forEach(BiConsumer<Long, Set<Long>> consumer) {
+        if (this.root == null) {
+            return;
+        }
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(this.root);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            if (!node.ids.isEmpty()) {
+                consumer.accept(node.hash, node.ids);
+            }
+            node.children.values().forEach(pending::push);
+        }
+    }
+
+    /**
+     * Returns the number of images in the tree.
+     *
+     * @return the number of images
+     */
+    public int size() {
+        return this.size;
+    }
+
+    private static final class Node {
+
+        private final long hash;
+        // Varias imágenes pueden compartir el mismo hash perceptual
+        private final Set<Long> ids = new HashSet<>(2);
+        private final Map<Integer, Node> children = new HashMap<>(4);
+
+        private Node(long hash) {
+            this.hash = hash;
+        }
+    }
+}
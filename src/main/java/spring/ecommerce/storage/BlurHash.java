@@ -0,0 +1,150 @@
+package spring.ecommerce.storage;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+
+/**
+ * Encoder of <a href="https://blurha.sh">BlurHash</a> placeholders.
+ * <p>
+ * A BlurHash is a short string holding the average colour and a few low-frequency cosine components of an image.
+ * Clients decode it into a blurred preview while the real image downloads. With the default 4x3 components the
+ * string is 28 characters long.
+ * </p>
+ */
+public final class BlurHash {
+
+    public static final int COMPONENTS_X = 4;
+    public static final int COMPONENTS_Y = 3;
+
+    // Las componentes de baja frecuencia no necesitan más resolución que esta
+    private static final int SAMPLE_SIZE = 32;
+    private static final String CHARACTERS =
+            "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz#$%*+,-.:;=?@[]^_{|}~";
+
+    private BlurHash() {
+    }
+
+    /**
+     * Encodes an image with {@value #COMPONENTS_X}x{@value #COMPONENTS_Y} components.
+     * <p>
+     * The image is first reduced to at most {@value #SAMPLE_SIZE} pixels per side, so the cost does not depend on
+     * its size.
+     * </p>
+     *
+     * @param image the image
+     * @return the BlurHash string
+     */
+    public static String encode(BufferedImage image) {
+        BufferedImage sample = sample(image);
+        int width = sample.getWidth();
+        int height = sample.getHeight();
+        int[] pixels = sample.getRGB(0, 0, width, height, null, 0, width);
+
+        // Cosenos precalculados por columna y fila para cada componente
+        double[][] cosX = new double[COMPONENTS_X][width];
+        for (int i = 0; i < COMPONENTS_X; i++) {
+            for (int x = 0; x < width; x++) {
+                cosX[i][x] = Math.cos(Math.PI * i * x / width);
+            }
+        }
+        double[][] cosY = new double[COMPONENTS_Y][height];
+        for (int j = 0; j < COMPONENTS_Y; j++) {
+            for (int y = 0; y < height; y++) {
+                cosY[j][y] = Math.cos(Math.PI * j * y / height);
+            }
+        }
+        double[][] linear = new double[pixels.length][3];
+        for (int p = 0; p < pixels.length; p++) {
+            linear[p][0] = toLinear((pixels[p] >> 16) & 0xFF);
+            linear[p][1] = toLinear((pixels[p] >> 8) & 0xFF);
+            linear[p][2] = toLinear(pixels[p] & 0xFF);
+        }
+
+        double[][] factors = new double[COMPONENTS_X * COMPONENTS_Y][3];
+        for (int j = 0; j < COMPONENTS_Y; j++) {
+            for (int i = 0; i < COMPONENTS_X; i++) {
+                double normalisation = i == 0 && j == 0 ? 1 : 2;
+                double[] factor = factors[j * COMPONENTS_X + i];
+                for (int y = 0; y < height; y++) {
+                    for (int x = 0; x < width; x++) {
+                        double basis = normalisation * cosX[i][x] * cosY[j][y];
+                        double[] pixel = linear[y * width + x];
+                        factor[0] += basis * pixel[0];
+                        factor[1] += basis * pixel[1];
+                        factor[2] += basis * pixel[2];
+                    }
+                }
+                double scale = 1.0 / (width * height);
+                factor[0] *= scale;
+                factor[1] *= scale;
+                factor[2] *= scale;
+            }
+        }
+
+        StringBuilder hash = new StringBuilder();
+        encode83((COMPONENTS_X - 1) + (COMPONENTS_Y - 1) * 9, 1, hash);
+
+        double actualMaximum = 0;
+        for (int f = 1; f < factors.length; f++) {
+            for (double component : factors[f]) {
+                actualMaximum = Math.max(actualMaximum, Math.abs(component));
+            }
+        }
+        int quantisedMaximum = (int) Math.max(0, Math.min(82, Math.floor(actualMaximum * 166 - 0.5)));
+        double maximum = (quantisedMaximum + 1) / 166.0;
+        encode83(quantisedMaximum, 1, hash);
+
+        double[] dc = factors[0];
+        encode83((toSrgb(dc[0]) << 16) + (toSrgb(dc[1]) << 8) + toSrgb(dc[2]), 4, hash);
+        for (int f = 1; f < factors.length; f++) {
+            double[] ac = factors[f];
+            encode83(quantise(ac[0], maximum) * 19 * 19 + quantise(ac[1], maximum) * 19 + quantise(ac[2], maximum), 2,
+                    hash);
+        }
+        return hash.toString();
+    }
+
+    private static BufferedImage sample(BufferedImage image) {
+        double ratio = Math.min(1, Math.min((double) SAMPLE_SIZE / image.getWidth(), (double) SAMPLE_SIZE / image.getHeight()));
+        int width = Math.max(1, (int) Math.round(image.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * ratio));
+
+        BufferedImage sample = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = sample.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return sample;
+    }
+
+    private static int quantise(double value, double maximum) {
+        double normalised = value / maximum;
+        double signed = Math.copySign(Math.sqrt(Math.abs(normalised)), normalised);
+        return (int) Math.max(0, Math.min(18, Math.floor(signed * 9 + 9.5)));
+    }
+
+    private static double toLinear(int value) {
+        double v = value / 255.0;
+        return v <= 0.04045 ? v / 12.92 : Math.pow((v + 0.055) / 1.055, 2.4);
+    }
+
+    private static int toSrgb(double value) {
+        double v = Math.max(0, Math.min(1, value));
+        return v <= 0.0031308 ? (int) (v * 12.92 * 255 + 0.5) : (int) ((1.055 * Math.pow(v, 1 / 2.4) - 0.055) * 255 + 0.5);
+    }
+
+    private static void encode83(int value, int length, StringBuilder hash) {
+        int divisor = 1;
+        for (int i = 1; i < length; i++) {
+            divisor *= 83;
+        }
+        for (int i = 0; i < length; i++) {
+            hash.append(CHARACTERS.charAt((value / divisor) % 83));
+            divisor /= 83;
+        }
+    }
+}
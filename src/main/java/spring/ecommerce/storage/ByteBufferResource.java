@@ -0,0 +1,77 @@
+package spring.ecommerce.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import org.springframework.core.io.AbstractResource;
+
+/**
+ * {@link org.springframework.core.io.Resource} reading from a {@link ByteBuffer}, such as a cached direct buffer.
+ * <p>
+ * Each stream reads from its own view of the buffer, so the same buffer can be served to many concurrent
+ * requests without being copied.
+ * </p>
+ */
+public class ByteBufferResource extends AbstractResource {
+
+	private final ByteBuffer buffer;
+	private final String description;
+
+	public ByteBufferResource(ByteBuffer buffer, String description) {
+		this.buffer = buffer.asReadOnlyBuffer();
+		this.description = description;
+	}
+
+	@Override
+	public boolean exists() {
+		return true;
+	}
+
+	@Override
+	public long contentLength() {
+		return this.buffer.remaining();
+	}
+
+	@Override
+	public InputStream getInputStream() throws IOException {
+		ByteBuffer view = this.buffer.duplicate();
+		return new InputStream() {
+
+			@Override
+			public int read() {
+				return view.hasRemaining() ? view.get() & 0xFF : -1;
+			}
+
+			@Override
+			public int read(byte[] b, int off, int len) {
+				if (len == 0) {
+					return 0;
+				}
+				if (!view.hasRemaining()) {
+					return -1;
+				}
+				int read = Math.min(len, view.remaining());
+				view.get(b, off, read);
+				return read;
+			}
+
+			@Override
+			public long skip(long n) {
+				int skipped = (int) Math.max(0, Math.min(n, view.remaining()));
+				view.position(view.position() + skipped);
+				return skipped;
+			}
+
+			@Override
+			public int available() {
+				return view.remaining();
+			}
+		};
+	}
+
+	@Override
+	public String getDescription() {
+		return "Byte buffer resource [" + this.description + "]";
+	}
+}
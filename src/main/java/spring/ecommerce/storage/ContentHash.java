@@ -0,0 +1,63 @@
+package spring.ecommerce.storage;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+/**
+ * Helpers for the SHA-256 hashes used to address image contents.
+ */
+public final class ContentHash {
+
+	private static final Pattern HASH_PATTERN = Pattern.compile("[0-9a-f]{64}");
+
+	private ContentHash() {
+	}
+
+	/**
+	 * Creates a new SHA-256 digest.
+	 *
+	 * @return a fresh {@link MessageDigest}
+	 */
+	public static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 algorithm not available.", e);
+		}
+	}
+
+	/**
+	 * Formats a digest as a lowercase hexadecimal hash.
+	 *
+	 * @param digest the digest bytes
+	 * @return the hexadecimal hash
+	 */
+	public static String toHex(byte[] digest) {
+		return HexFormat.of().formatHex(digest);
+	}
+
+	/**
+	 * Checks that a value is a well-formed hash, so it can be safely used to build file paths.
+	 *
+	 * @param hash the value to check
+	 * @return {@code true} if the value is 64 lowercase hexadecimal characters
+	 */
+	public static boolean isValid(String hash) {
+		return hash != null && HASH_PATTERN.matcher(hash).matches();
+	}
+
+	/**
+	 * Thrown when a content does not match the hash announced for it.
+	 */
+	public static class MismatchException extends IOException {
+
+		private static final long serialVersionUID = 1L;
+
+		public MismatchException(String expectedHash, String actualHash) {
+			super("Content hash " + actualHash + " does not match the expected hash " + expectedHash);
+		}
+	}
+}
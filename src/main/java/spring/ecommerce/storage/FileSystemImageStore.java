@@ -0,0 +1,158 @@
+package spring.ecommerce.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * {@link ImageStore} backed by a sharded directory tree on the local filesystem.
+ * <p>
+ * A content with hash {@code abcdef...} is stored in {@code <root>/ab/cd/abcdef...}. Contents are first written
+ * to a temporary file while being hashed, and then moved atomically to their final location.
+ * </p>
+ * <p>
+ * This is the primary store, holding the originals; small variants may be packed in the {@link ImagePackStore}.
+ * </p>
+ */
+@Component
+@Primary
+@Slf4j
+public class FileSystemImageStore implements ImageStore {
+
+	private static final String TEMP_DIRECTORY = ".tmp";
+	private static final int HASH_BUFFER_SIZE = 64 * 1024;
+
+	private final Path rootDirectory;
+	private final Path tempDirectory;
+
+	public FileSystemImageStore(@Value("${ecommerce.images.storage-dir:images}") String rootDirectory) throws IOException {
+		this.rootDirectory = Paths.get(rootDirectory).toAbsolutePath().normalize();
+		this.tempDirectory = this.rootDirectory.resolve(TEMP_DIRECTORY);
+		Files.createDirectories(this.tempDirectory);
+		log.info("Image store located at {}", this.rootDirectory);
+	}
+
+	@Override
+	public StoredImage store(InputStream content) throws IOException {
+		Path tempFile = Files.createTempFile(this.tempDirectory, "upload-", ".tmp");
+		try {
+			MessageDigest digest = ContentHash.newDigest();
+			long size;
+			try (OutputStream outputStream = new DigestOutputStream(Files.newOutputStream(tempFile), digest)) {
+				size = content.transferTo(outputStream);
+			}
+			String hash = ContentHash.toHex(digest.digest());
+			moveIntoStore(tempFile, hash);
+			return new StoredImage(hash, size);
+		} finally {
+			Files.deleteIfExists(tempFile);
+		}
+	}
+
+	@Override
+	public StoredImage store(Path file, String expectedHash) throws IOException {
+		try {
+			// Se calcula el hash con un buffer fijo, sea cual sea el tamaño del fichero
+			MessageDigest digest = ContentHash.newDigest();
+			ByteBuffer buffer = ByteBuffer.allocateDirect(HASH_BUFFER_SIZE);
+			long size = 0;
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+				while (channel.read(buffer) >= 0) {
+					buffer.flip();
+					size += buffer.remaining();
+					digest.update(buffer);
+					buffer.clear();
+				}
+			}
+			String hash = ContentHash.toHex(digest.digest());
+			if (expectedHash != null && !expectedHash.equalsIgnoreCase(hash)) {
+				throw new ContentHash.MismatchException(expectedHash, hash);
+			}
+			moveIntoStore(file, hash);
+			return new StoredImage(hash, size);
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	@Override
+	public Optional<Resource> load(String hash) {
+		if (!ContentHash.isValid(hash)) {
+			return Optional.empty();
+		}
+		Path path = resolve(hash);
+		return Files.isRegularFile(path) ? Optional.of(new FileSystemResource(path)) : Optional.empty();
+	}
+
+	@Override
+	public void delete(String hash) throws IOException {
+		if (ContentHash.isValid(hash) && Files.deleteIfExists(resolve(hash))) {
+			log.info("Deleted image content {}", hash);
+		}
+	}
+
+	@Override
+	public Stream<StoredImage> list(Instant storedBefore) throws IOException {
+		FileTime cutoff = FileTime.from(storedBefore);
+		// Contenidos en <root>/ab/cd/<hash>; los temporales no tienen nombre de hash
+		return Files.find(this.rootDirectory, 3, (path, attributes) -> attributes.isRegularFile()
+					&& attributes.lastModifiedTime().compareTo(cutoff) < 0
+					&& ContentHash.isValid(path.getFileName().toString()))
+				.map(path -> {
+					try {
+						return new StoredImage(path.getFileName().toString(), Files.size(path));
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+	}
+
+	/**
+	 * Resolves the path where the content with the given hash is stored.
+	 *
+	 * @param hash a valid content hash
+	 * @return the path of the content file, which may not exist
+	 */
+	public Path resolve(String hash) {
+		return this.rootDirectory.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+	}
+
+	/**
+	 * Moves a fully written temporary file to the location of its hash. If the content is already stored,
+	 * the temporary file is left in place to be deleted by the caller, and the stored copy is touched so the
+	 * orphan content cleanup does not delete it before the new reference is committed.
+	 */
+	private void moveIntoStore(Path tempFile, String hash) throws IOException {
+		Path target = resolve(hash);
+		if (Files.exists(target)) {
+			log.debug("Image content {} already stored, reusing it", hash);
+			Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+			return;
+		}
+		Files.createDirectories(target.getParent());
+		Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE);
+		log.debug("Stored image content {}", hash);
+	}
+}
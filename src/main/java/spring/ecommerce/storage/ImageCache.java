@@ -0,0 +1,203 @@
+package spring.ecommerce.storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.unit.DataSize;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import lombok.extern.slf4j.Slf4j;
+import spring.ecommerce.dto.CacheStatsDto;
+import spring.ecommerce.entity.ImageEntity;
+import spring.ecommerce.event.ImageChangedEvent;
+
+/**
+ * In-memory cache of image metadata and contents.
+ * <p>
+ * Contents are kept in direct {@link ByteBuffer}s, outside the Java heap, within a configurable byte budget.
+ * They are addressed by hash, so a cached content never becomes stale: it only has to be dropped when it is
+ * deleted from the {@link ImageStore}. Metadata is cached by ID and by name and must be invalidated when an
+ * image is deleted. Eviction is frequency-aware (W-TinyLFU), so a burst of one-off requests does not flush
+ * the hot images, and every cache records hit, miss and eviction counters.
+ * </p>
+ */
+@Component
+@Slf4j
+public class ImageCache {
+
+	private final Cache<Long, ImageEntity> imagesById;
+	private final Cache<String, ImageEntity> imagesByName;
+	private final Cache<String, ByteBuffer> contents;
+	private final long maxContentSize;
+
+	public ImageCache(@Value("${ecommerce.images.cache.max-size:256MB}") DataSize maxSize,
+			@Value("${ecommerce.images.cache.max-entries:10000}") long maxEntries) {
+		this.imagesById = Caffeine.newBuilder().maximumSize(maxEntries).recordStats().build();
+		this.imagesByName = Caffeine.newBuilder().maximumSize(maxEntries).recordStats().build();
+		this.contents = Caffeine.newBuilder()
+				.maximumWeight(maxSize.toBytes())
+				.weigher((String hash, ByteBuffer content) -> content.capacity())
+				.recordStats()
+				.build();
+		this.maxContentSize = maxSize.toBytes();
+		log.info("Image content cache limited to {} bytes", this.maxContentSize);
+	}
+
+	/**
+	 * Returns the image with the given ID, loading and caching it on a miss.
+	 *
+	 * @param id     the image ID
+	 * @param loader the function loading the image from the database
+	 * @return the image, or an empty {@link Optional} if it does not exist
+	 */
+	public Optional<ImageEntity> getImageById(Long id, Function<Long, Optional<ImageEntity>> loader) {
+		ImageEntity cached = this.imagesById.getIfPresent(id);
+		if (cached != null) {
+			return Optional.of(cached);
+		}
+		Optional<ImageEntity> image = loader.apply(id);
+		image.ifPresent(this::putImage);
+		return image;
+	}
+
+	/**
+	 * Returns the image with the given name, loading and caching it on a miss.
+	 *
+	 * @param name   the image name
+	 * @param loader the function loading the image from the database
+	 * @return the image, or an empty {@link Optional} if it does not exist
+	 */
+	public Optional<ImageEntity> getImageByName(String name, Function<String, Optional<ImageEntity>> loader) {
+		ImageEntity cached = this.imagesByName.getIfPresent(name);
+		if (cached != null) {
+			return Optional.of(cached);
+		}
+		Optional<ImageEntity> image = loader.apply(name);
+		image.ifPresent(this::putImage);
+		return image;
+	}
+
+	/**
+	 * Drops the cached metadata of an image.
+	 *
+	 * @param image the image
+	 */
+	public void invalidateImage(ImageEntity image) {
+		if (image.getId() != null) {
+			this.imagesById.invalidate(image.getId());
+		}
+		if (image.getName() != null) {
+			this.imagesByName.invalidate(image.getName());
+		}
+	}
+
+	/**
+	 * Drops the cached metadata of a deleted image, once the transaction that deleted it commits. Dropping it
+	 * earlier would let a concurrent read cache the row again before the delete is visible.
+	 *
+	 * @param event the event with the deleted image
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onImageChanged(ImageChangedEvent event) {
+		this.invalidateImage(event.getImage());
+	}
+
+	/**
+	 * Returns the content with the given hash, reading it into a direct buffer on a miss.
+	 * <p>
+	 * Contents larger than the whole budget are served from the source without being cached.
+	 * </p>
+	 *
+	 * @param hash   the content hash
+	 * @param source the function loading the content from the {@link ImageStore}
+	 * @return the content, or an empty {@link Optional} if it is not stored
+	 */
+	public Optional<Resource> getContent(String hash, Function<String, Optional<Resource>> source) {
+		if (hash == null) {
+			return Optional.empty();
+		}
+
+		// Las peticiones simultáneas del mismo contenido esperan a una única lectura
+		Resource[] uncached = new Resource[1];
+		try {
+			ByteBuffer content = this.contents.get(hash, key -> {
+				Optional<Resource> resource = source.apply(key);
+				if (resource.isEmpty()) {
+					return null;
+				}
+				if (contentLength(resource.get()) > this.maxContentSize) {
+					uncached[0] = resource.get();
+					return null;
+				}
+				return read(resource.get());
+			});
+			return content != null ? Optional.of(new ByteBufferResource(content, hash)) : Optional.ofNullable(uncached[0]);
+		} catch (UncheckedIOException e) {
+			log.warn("Error caching image content {}: {}", hash, e.getMessage());
+			return source.apply(hash);
+		}
+	}
+
+	/**
+	 * Drops a cached content, once it has been deleted from the {@link ImageStore}.
+	 *
+	 * @param hash the content hash
+	 */
+	public void invalidateContent(String hash) {
+		this.contents.invalidate(hash);
+	}
+
+	/**
+	 * Returns the counters of the metadata and content caches.
+	 *
+	 * @return the statistics of each cache
+	 */
+	public List<CacheStatsDto> getStats() {
+		// Aplica las escrituras pendientes para que los tamaños estén al día
+		this.contents.cleanUp();
+		return List.of(
+				CacheStatsDto.of("imagesById", this.imagesById),
+				CacheStatsDto.of("imagesByName", this.imagesByName),
+				CacheStatsDto.of("imageContents", this.contents));
+	}
+
+	private void putImage(ImageEntity image) {
+		if (image.getId() != null) {
+			this.imagesById.put(image.getId(), image);
+		}
+		if (image.getName() != null) {
+			this.imagesByName.put(image.getName(), image);
+		}
+	}
+
+	private static long contentLength(Resource resource) {
+		try {
+			return resource.contentLength();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static ByteBuffer read(Resource resource) {
+		try (ReadableByteChannel channel = resource.readableChannel()) {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(Math.toIntExact(resource.contentLength()));
+			while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+				// Lee hasta llenar el buffer
+			}
+			return buffer.flip();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
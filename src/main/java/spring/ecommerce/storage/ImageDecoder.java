@@ -0,0 +1,53 @@
+package spring.ecommerce.storage;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.Optional;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * Decodes images at a reduced resolution.
+ * <p>
+ * Perceptual hashes and placeholders only need a few dozen pixels per side. Decoding with source subsampling
+ * skips the other rows and columns as they are read, so a multi-megapixel original never has to fit in memory.
+ * </p>
+ */
+public final class ImageDecoder {
+
+    private ImageDecoder() {
+    }
+
+    /**
+     * Decodes an image keeping about {@code minSize} pixels on its shorter side, or all of them if it is smaller.
+     *
+     * @param inputStream the encoded image, which is not closed
+     * @param minSize     the approximate size of the shorter side of the decoded image
+     * @return the decoded image, or an empty {@link Optional} if no {@link ImageIO} reader supports the format
+     * @throws IOException if the image cannot be read
+     */
+    public static Optional<BufferedImage> decodeSubsampled(InputStream inputStream, int minSize) throws IOException {
+        try (ImageInputStream imageInputStream = ImageIO.createImageInputStream(inputStream)) {
+            Iterator<ImageReader> readers = imageInputStream == null ? null : ImageIO.getImageReaders(imageInputStream);
+            if (readers == null || !readers.hasNext()) {
+                return Optional.empty();
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageInputStream, true, true);
+                int step = Math.max(1, Math.min(reader.getWidth(0), reader.getHeight(0)) / minSize);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return Optional.of(reader.read(0, param));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package spring.ecommerce.storage;
+
+import java.util.Optional;
+
+/**
+ * Detects the format of an image from the magic bytes at the start of its content.
+ * <p>
+ * The content type declared by the client is not trusted: only contents whose header matches one of the
+ * supported raster formats are accepted as images.
+ * </p>
+ */
+public final class ImageFormats {
+
+	/**
+	 * Number of leading bytes needed to detect every supported format.
+	 */
+	public static final int SNIFF_LENGTH = 12;
+
+	private static final byte[] JPEG = { (byte) 0xFF, (byte) 0xD8, (byte) 0xFF };
+	private static final byte[] PNG = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n' };
+	private static final byte[] GIF87A = { 'G', 'I', 'F', '8', '7', 'a' };
+	private static final byte[] GIF89A = { 'G', 'I', 'F', '8', '9', 'a' };
+	private static final byte[] RIFF = { 'R', 'I', 'F', 'F' };
+	private static final byte[] WEBP = { 'W', 'E', 'B', 'P' };
+
+	private ImageFormats() {
+	}
+
+	/**
+	 * Returns the content type of an image from its first bytes.
+	 *
+	 * @param header the first bytes of the content
+	 * @param length the number of valid bytes in {@code header}
+	 * @return the detected content type, or an empty {@link Optional} if the content is not a supported image
+	 */
+	public static Optional<String> sniff(byte[] header, int length) {
+		if (startsWith(header, length, 0, JPEG)) {
+			return Optional.of("image/jpeg");
+		}
+		if (startsWith(header, length, 0, PNG)) {
+			return Optional.of("image/png");
+		}
+		if (startsWith(header, length, 0, GIF87A) || startsWith(header, length, 0, GIF89A)) {
+			return Optional.of("image/gif");
+		}
+		if (startsWith(header, length, 0, RIFF) && startsWith(header, length, 8, WEBP)) {
+			return Optional.of("image/webp");
+		}
+		return Optional.empty();
+	}
+
+	private static boolean startsWith(byte[] header, int length, int offset, byte[] magic) {
+		if (length < offset + magic.length) {
+			return false;
+		}
+		for (int i = 0; i < magic.length; i++) {
+			if (header[offset + i] != magic[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,501 @@
+package spring.ecommerce.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * {@link ImageStore} packing small contents, such as thumbnails, into large append-only segment files.
+ * <p>
+ * Storing each thumbnail in its own file costs an inode, a directory entry and a file open per request. Here
+ * contents are appended as records to a segment of {@code ecommerce.images.packs.segment-size}; a full segment
+ * is sealed with a footer listing its records and a new one is started. An in-memory index maps each hash to
+ * its record, and is rebuilt at startup from the footers, scanning only the segment that was being written.
+ * </p>
+ * <p>
+ * Segments are memory-mapped, so contents are read as slices of the mapping straight from the page cache,
+ * without copying. The mapping stays valid after compaction removes its file, so contents are always served
+ * from it rather than by reopening the segment. Deleting a content only flags its record; {@link #compact()}
+ * rewrites the live records of segments with too much deleted space and removes them.
+ * </p>
+ */
+@Component
+@Slf4j
+public class ImagePackStore implements ImageStore {
+
+	// Registro: magic (4) | flags (1) | storedAt (8) | hash (32) | length (4) | contenido
+	private static final int RECORD_MAGIC = 0x50494D47;
+	private static final int FLAGS_OFFSET = 4;
+	private static final int STORED_AT_OFFSET = 5;
+	private static final int HASH_OFFSET = 13;
+	private static final int LENGTH_OFFSET = 45;
+	private static final int HEADER_SIZE = 49;
+	private static final byte LIVE = 0;
+	private static final byte DELETED = 1;
+
+	// Pie: (hash (32) | headerOffset (8)) * n | n (4) | inicio del pie (8) | magic (4)
+	private static final int FOOTER_MAGIC = 0x50465452;
+	private static final int FOOTER_ENTRY_SIZE = 40;
+	private static final int TRAILER_SIZE = 16;
+
+	private static final int HASH_BYTES = 32;
+	private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d{6})\\.pack");
+
+	private final Path directory;
+	private final boolean enabled;
+	private final int segmentSize;
+	private final int maxEntrySize;
+	private final double compactionThreshold;
+
+	private final Map<String, Entry> index = new ConcurrentHashMap<>();
+	private final ConcurrentSkipListMap<Integer, Segment> segments = new ConcurrentSkipListMap<>();
+	private final Object writeLock = new Object();
+	private Segment activeSegment;
+
+	public ImagePackStore(
+			@Value("${ecommerce.images.packs.dir:${ecommerce.images.storage-dir:images}/.packs}") String directory,
+			@Value("${ecommerce.images.packs.enabled:true}") boolean enabled,
+			@Value("${ecommerce.images.packs.segment-size:64MB}") DataSize segmentSize,
+			@Value("${ecommerce.images.packs.max-entry-size:64KB}") DataSize maxEntrySize,
+			@Value("${ecommerce.images.packs.compaction-threshold:0.5}") double compactionThreshold) throws IOException {
+		this.directory = Paths.get(directory).toAbsolutePath().normalize();
+		this.enabled = enabled;
+		this.segmentSize = Math.toIntExact(segmentSize.toBytes());
+		this.maxEntrySize = Math.toIntExact(maxEntrySize.toBytes());
+		this.compactionThreshold = compactionThreshold;
+		if (this.maxEntrySize + HEADER_SIZE > this.segmentSize) {
+			throw new IllegalArgumentException("Image pack segments must be larger than their maximum entry size");
+		}
+		Files.createDirectories(this.directory);
+		this.open();
+	}
+
+	/**
+	 * Tells whether a content of the given size should be stored in this store.
+	 *
+	 * @param size the content size, in bytes
+	 * @return {@code true} if packing is enabled and the content is small enough
+	 */
+	public boolean accepts(long size) {
+		return this.enabled && size <= this.maxEntrySize;
+	}
+
+	@Override
+	public StoredImage store(InputStream content) throws IOException {
+		byte[] bytes = new LimitedInputStream(content, this.maxEntrySize).readAllBytes();
+		String hash = ContentHash.toHex(ContentHash.newDigest().digest(bytes));
+		this.put(hash, ByteBuffer.wrap(bytes), Instant.now());
+		return new StoredImage(hash, bytes.length);
+	}
+
+	@Override
+	public StoredImage store(Path file, String expectedHash) throws IOException {
+		try (InputStream inputStream = Files.newInputStream(file)) {
+			byte[] bytes = new LimitedInputStream(inputStream, this.maxEntrySize).readAllBytes();
+			String hash = ContentHash.toHex(ContentHash.newDigest().digest(bytes));
+			if (expectedHash != null && !expectedHash.equalsIgnoreCase(hash)) {
+				throw new ContentHash.MismatchException(expectedHash, hash);
+			}
+			this.put(hash, ByteBuffer.wrap(bytes), Instant.now());
+			return new StoredImage(hash, bytes.length);
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	@Override
+	public Optional<Resource> load(String hash) {
+		Entry entry = hash == null ? null : this.index.get(hash);
+		return entry == null ? Optional.empty() : Optional.of(new ByteBufferResource(entry.content(), hash));
+	}
+
+	/**
+	 * Locates the record of a content in its segment.
+	 *
+	 * @param hash the content hash
+	 * @return the location of the content, or an empty {@link Optional} if it is not stored here
+	 */
+	public Optional<Region> locate(String hash) {
+		Entry entry = hash == null ? null : this.index.get(hash);
+		if (entry == null) {
+			return Optional.empty();
+		}
+		return Optional.of(new Region(entry.segment().path, entry.dataOffset(), entry.length(), entry.storedAt(),
+				entry.content()));
+	}
+
+	@Override
+	public void delete(String hash) throws IOException {
+		synchronized (this.writeLock) {
+			Entry entry = hash == null ? null : this.index.remove(hash);
+			if (entry != null) {
+				this.markDeleted(entry);
+				log.info("Deleted packed image content {}", hash);
+			}
+		}
+	}
+
+	@Override
+	public Stream<StoredImage> list(Instant storedBefore) {
+		List<StoredImage> contents = new ArrayList<>();
+		this.index.forEach((hash, entry) -> {
+			if (entry.storedAt().isBefore(storedBefore)) {
+				contents.add(new StoredImage(hash, entry.length()));
+			}
+		});
+		return contents.stream();
+	}
+
+	/**
+	 * Rewrites the live records of the sealed segments whose deleted records exceed the compaction threshold,
+	 * and removes those segments.
+	 *
+	 * @return the number of bytes reclaimed on disk
+	 * @throws IOException if a segment cannot be rewritten or removed
+	 */
+	@Override
+	public long compact() throws IOException {
+		long reclaimed = 0;
+		synchronized (this.writeLock) {
+			for (Segment segment : List.copyOf(this.segments.values())) {
+				if (segment == this.activeSegment || segment.deadBytes < this.compactionThreshold * segment.recordsEnd) {
+					continue;
+				}
+
+				long fileSize = segment.channel.size();
+				long liveBytes = 0;
+				for (Map.Entry<String, Entry> indexed : List.copyOf(this.index.entrySet())) {
+					Entry entry = indexed.getValue();
+					if (entry.segment() == segment) {
+						this.append(indexed.getKey(), entry.content(), entry.storedAt());
+						liveBytes += HEADER_SIZE + entry.length();
+					}
+				}
+
+				// Las lecturas en curso siguen usando el mapeo, que sobrevive al borrado del fichero
+				this.segments.remove(segment.id);
+				segment.channel.close();
+				Files.delete(segment.path);
+				reclaimed += fileSize - liveBytes;
+				log.info("Compacted image pack {}: {} bytes moved, {} bytes reclaimed", segment.path.getFileName(),
+						liveBytes, fileSize - liveBytes);
+			}
+		}
+		return reclaimed;
+	}
+
+	/**
+	 * Closes the segment files. The mappings stay valid until they are garbage collected.
+	 */
+	@PreDestroy
+	public void close() throws IOException {
+		synchronized (this.writeLock) {
+			for (Segment segment : this.segments.values()) {
+				segment.channel.close();
+			}
+		}
+	}
+
+	private void put(String hash, ByteBuffer content, Instant storedAt) throws IOException {
+		synchronized (this.writeLock) {
+			Entry existing = this.index.get(hash);
+			if (existing != null) {
+				// Contenido repetido: se conserva el registro y cuenta como guardado ahora
+				ByteBuffer timestamp = ByteBuffer.allocate(Long.BYTES).putLong(0, storedAt.toEpochMilli());
+				writeFully(existing.segment().channel, timestamp, existing.headerOffset() + STORED_AT_OFFSET);
+				log.debug("Image content {} already packed, reusing it", hash);
+				return;
+			}
+			this.append(hash, content, storedAt);
+		}
+	}
+
+	/**
+	 * Appends a record to the active segment, sealing it first if the record does not fit.
+	 */
+	private void append(String hash, ByteBuffer content, Instant storedAt) throws IOException {
+		int length = content.remaining();
+		if (this.activeSegment.recordsEnd > 0 && this.activeSegment.recordsEnd + HEADER_SIZE + length > this.segmentSize) {
+			this.seal(this.activeSegment);
+			this.activeSegment = this.createSegment(this.segments.lastKey() + 1);
+		}
+
+		Segment segment = this.activeSegment;
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		header.putInt(RECORD_MAGIC).put(LIVE).putLong(storedAt.toEpochMilli())
+				.put(HexFormat.of().parseHex(hash)).putInt(length).flip();
+		long headerOffset = segment.recordsEnd;
+		writeFully(segment.channel, header, headerOffset);
+		writeFully(segment.channel, content.duplicate(), headerOffset + HEADER_SIZE);
+		segment.channel.force(false);
+		segment.recordsEnd += HEADER_SIZE + length;
+
+		Entry previous = this.index.put(hash, new Entry(segment, headerOffset, length));
+		if (previous != null) {
+			// Solo ocurre al compactar: el registro antiguo queda marcado por si el segmento sobrevive a un fallo
+			this.markDeleted(previous);
+		}
+	}
+
+	private void markDeleted(Entry entry) throws IOException {
+		Segment segment = entry.segment();
+		if (segment.channel.isOpen()) {
+			writeFully(segment.channel, ByteBuffer.wrap(new byte[] { DELETED }), entry.headerOffset() + FLAGS_OFFSET);
+		}
+		segment.deadBytes += HEADER_SIZE + entry.length();
+	}
+
+	/**
+	 * Writes the footer of a full segment, so its index can be loaded at startup without reading the records.
+	 */
+	private void seal(Segment segment) throws IOException {
+		List<Long> headerOffsets = scanRecords(segment.buffer, segment.recordsEnd);
+		ByteBuffer footer = ByteBuffer.allocate(headerOffsets.size() * FOOTER_ENTRY_SIZE + TRAILER_SIZE);
+		for (long headerOffset : headerOffsets) {
+			footer.put(segment.buffer.slice((int) headerOffset + HASH_OFFSET, HASH_BYTES)).putLong(headerOffset);
+		}
+		footer.putInt(headerOffsets.size()).putLong(segment.recordsEnd).putInt(FOOTER_MAGIC).flip();
+
+		// El fichero se reservó con el tamaño máximo del segmento; se recorta tras el pie
+		writeFully(segment.channel, footer, segment.recordsEnd);
+		segment.channel.truncate(segment.recordsEnd + footer.limit());
+		segment.channel.force(true);
+		log.info("Sealed image pack {} with {} records", segment.path.getFileName(), headerOffsets.size());
+	}
+
+	private Segment createSegment(int id) throws IOException {
+		Path path = this.directory.resolve(String.format("segment-%06d.pack", id));
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		Segment segment = new Segment(id, path, channel, this.mapActive(channel), 0);
+		this.segments.put(id, segment);
+		return segment;
+	}
+
+	/**
+	 * Maps the whole capacity of the segment being written, so appended records are readable without remapping.
+	 * The file is extended sparsely to that capacity.
+	 */
+	private MappedByteBuffer mapActive(FileChannel channel) throws IOException {
+		if (channel.size() < this.segmentSize) {
+			writeFully(channel, ByteBuffer.allocate(1), this.segmentSize - 1L);
+		}
+		return channel.map(FileChannel.MapMode.READ_ONLY, 0, this.segmentSize);
+	}
+
+	/**
+	 * Loads the segments found in the directory and rebuilds the index.
+	 */
+	private void open() throws IOException {
+		List<Integer> ids = new ArrayList<>();
+		try (Stream<Path> files = Files.list(this.directory)) {
+			files.forEach(file -> {
+				Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+				if (matcher.matches()) {
+					ids.add(Integer.parseInt(matcher.group(1)));
+				}
+			});
+		}
+		ids.sort(null);
+
+		for (int i = 0; i < ids.size(); i++) {
+			this.loadSegment(ids.get(i), i == ids.size() - 1);
+		}
+		if (this.activeSegment == null) {
+			this.activeSegment = this.createSegment(ids.isEmpty() ? 1 : ids.get(ids.size() - 1) + 1);
+		}
+		log.info("Image pack store located at {}: {} contents in {} segments", this.directory, this.index.size(),
+				this.segments.size());
+	}
+
+	private void loadSegment(int id, boolean last) throws IOException {
+		Path path = this.directory.resolve(String.format("segment-%06d.pack", id));
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		long fileSize = channel.size();
+		MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+
+		List<Long> headerOffsets = readFooter(buffer);
+		boolean sealed = headerOffsets != null;
+		long recordsEnd;
+		if (sealed) {
+			recordsEnd = buffer.getLong((int) fileSize - TRAILER_SIZE + Integer.BYTES);
+		} else {
+			// Segmento sin pie: se recorren sus registros hasta el primero incompleto o con el contenido dañado
+			headerOffsets = verifyRecords(buffer, scanRecords(buffer, fileSize));
+			recordsEnd = headerOffsets.isEmpty() ? 0 : recordEnd(buffer, headerOffsets.get(headerOffsets.size() - 1));
+		}
+
+		Segment segment = new Segment(id, path, channel, buffer, recordsEnd);
+		this.segments.put(id, segment);
+		for (long headerOffset : headerOffsets) {
+			int length = buffer.getInt((int) headerOffset + LENGTH_OFFSET);
+			Entry entry = new Entry(segment, headerOffset, length);
+			if (buffer.get((int) headerOffset + FLAGS_OFFSET) == DELETED) {
+				segment.deadBytes += HEADER_SIZE + length;
+				continue;
+			}
+			String hash = HexFormat.of().formatHex(bytes(buffer, (int) headerOffset + HASH_OFFSET, HASH_BYTES));
+			Entry previous = this.index.put(hash, entry);
+			if (previous != null) {
+				// Copia anterior de una compactación interrumpida
+				this.markDeleted(previous);
+			}
+		}
+
+		if (!sealed) {
+			if (last) {
+				segment.buffer = this.mapActive(channel);
+				this.activeSegment = segment;
+			} else {
+				this.seal(segment);
+			}
+		}
+	}
+
+	/**
+	 * Reads the record offsets listed in the footer of a sealed segment.
+	 *
+	 * @return the offsets, or {@code null} if the segment has no valid footer
+	 */
+	private static List<Long> readFooter(MappedByteBuffer buffer) {
+		int size = buffer.capacity();
+		if (size < TRAILER_SIZE || buffer.getInt(size - Integer.BYTES) != FOOTER_MAGIC) {
+			return null;
+		}
+		int count = buffer.getInt(size - TRAILER_SIZE);
+		long footerStart = buffer.getLong(size - TRAILER_SIZE + Integer.BYTES);
+		if (count < 0 || footerStart + (long) count * FOOTER_ENTRY_SIZE + TRAILER_SIZE != size) {
+			return null;
+		}
+		List<Long> headerOffsets = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			headerOffsets.add(buffer.getLong((int) footerStart + i * FOOTER_ENTRY_SIZE + HASH_BYTES));
+		}
+		return headerOffsets;
+	}
+
+	private static List<Long> scanRecords(ByteBuffer buffer, long limit) {
+		List<Long> headerOffsets = new ArrayList<>();
+		long position = 0;
+		while (position + HEADER_SIZE <= limit && buffer.getInt((int) position) == RECORD_MAGIC) {
+			byte flags = buffer.get((int) position + FLAGS_OFFSET);
+			int length = buffer.getInt((int) position + LENGTH_OFFSET);
+			if ((flags != LIVE && flags != DELETED) || length < 0 || position + HEADER_SIZE + length > limit) {
+				break;
+			}
+			headerOffsets.add(position);
+			position += HEADER_SIZE + length;
+		}
+		return headerOffsets;
+	}
+
+	/**
+	 * Keeps the records whose content matches the hash in their header, up to the first one that does not.
+	 * <p>
+	 * The header of a record is written before its content, and the segment file is pre-sized and zero-filled, so
+	 * after a crash the last record may have a valid header and a missing content.
+	 * </p>
+	 */
+	private static List<Long> verifyRecords(ByteBuffer buffer, List<Long> headerOffsets) {
+		MessageDigest digest = ContentHash.newDigest();
+		for (int i = 0; i < headerOffsets.size(); i++) {
+			int headerOffset = Math.toIntExact(headerOffsets.get(i));
+			int length = buffer.getInt(headerOffset + LENGTH_OFFSET);
+			digest.update(buffer.slice(headerOffset + HEADER_SIZE, length));
+			if (!Arrays.equals(digest.digest(), bytes(buffer, headerOffset + HASH_OFFSET, HASH_BYTES))) {
+				log.warn("Discarding {} torn image pack records from offset {}", headerOffsets.size() - i, headerOffset);
+				return headerOffsets.subList(0, i);
+			}
+		}
+		return headerOffsets;
+	}
+
+	private static long recordEnd(ByteBuffer buffer, long headerOffset) {
+		return headerOffset + HEADER_SIZE + buffer.getInt((int) headerOffset + LENGTH_OFFSET);
+	}
+
+	private static byte[] bytes(ByteBuffer buffer, int offset, int length) {
+		byte[] bytes = new byte[length];
+		buffer.get(offset, bytes);
+		return bytes;
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer source, long position) throws IOException {
+		long offset = position;
+		while (source.hasRemaining()) {
+			offset += channel.write(source, offset);
+		}
+	}
+
+	/**
+	 * Location of a packed content: a region of a segment file, and the mapped bytes of that region.
+	 *
+	 * @param file     the segment file
+	 * @param offset   the position of the content in the file
+	 * @param length   the content length
+	 * @param storedAt the instant the content was last stored
+	 * @param content  a read-only slice of the mapped segment with the content
+	 */
+	public record Region(Path file, long offset, long length, Instant storedAt, ByteBuffer content) {
+	}
+
+	private static final class Segment {
+
+		private final int id;
+		private final Path path;
+		private final FileChannel channel;
+		private volatile MappedByteBuffer buffer;
+		private long recordsEnd;
+		private long deadBytes;
+
+		private Segment(int id, Path path, FileChannel channel, MappedByteBuffer buffer, long recordsEnd) {
+			this.id = id;
+			this.path = path;
+			this.channel = channel;
+			this.buffer = buffer;
+			this.recordsEnd = recordsEnd;
+		}
+	}
+
+	private record Entry(Segment segment, long headerOffset, int length) {
+
+		private long dataOffset() {
+			return this.headerOffset + HEADER_SIZE;
+		}
+
+		private ByteBuffer content() {
+			return this.segment.buffer.slice((int) this.dataOffset(), this.length).asReadOnlyBuffer();
+		}
+
+		private Instant storedAt() {
+			return Instant.ofEpochMilli(this.segment.buffer.getLong((int) this.headerOffset + STORED_AT_OFFSET));
+		}
+	}
+}
@@ -0,0 +1,84 @@
+package spring.ecommerce.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.springframework.core.io.Resource;
+
+/**
+ * Storage backend for image contents.
+ * <p>
+ * Contents are addressed by the hexadecimal SHA-256 hash of their bytes, so storing the same bytes twice
+ * keeps a single copy. Image metadata lives in the database and references the contents through that hash.
+ * </p>
+ */
+public interface ImageStore {
+
+	/**
+	 * Stores the given content, hashing it while it is being written.
+	 * If the same content is already stored, the existing copy is kept and counts as stored now.
+	 *
+	 * @param content the stream with the bytes to store; it is read to the end but not closed
+	 * @return the hash and size of the stored content
+	 * @throws IOException if the content cannot be read or written
+	 */
+	StoredImage store(InputStream content) throws IOException;
+
+	/**
+	 * Stores the content of a local file, moving the file into the store when possible.
+	 * <p>
+	 * The file is consumed: it is either moved into the store or deleted, also when its hash does not match.
+	 * It should live on the same file system as the store, so it can be moved without being copied.
+	 * </p>
+	 *
+	 * @param file         the file with the bytes to store
+	 * @param expectedHash the hash announced for the content, or {@code null} to skip the check
+	 * @return the hash and size of the stored content
+	 * @throws ContentHash.MismatchException if the content does not match {@code expectedHash}
+	 * @throws IOException if the file cannot be read or moved
+	 */
+	StoredImage store(Path file, String expectedHash) throws IOException;
+
+	/**
+	 * Loads the content stored under the given hash.
+	 *
+	 * @param hash the content hash
+	 * @return a {@link Resource} for the content, or an empty {@link Optional} if nothing is stored under the hash
+	 */
+	Optional<Resource> load(String hash);
+
+	/**
+	 * Deletes the content stored under the given hash. Deleting a missing hash does nothing.
+	 *
+	 * @param hash the content hash
+	 * @throws IOException if the content exists but cannot be deleted
+	 */
+	void delete(String hash) throws IOException;
+
+	/**
+	 * Lists the contents stored before the given instant.
+	 * <p>
+	 * Contents stored or reused more recently may still be waiting for the transaction that references them,
+	 * so they are not listed. The returned stream must be closed.
+	 * </p>
+	 *
+	 * @param storedBefore the instant before which contents must have been stored
+	 * @return a lazily populated stream with the hash and size of each content
+	 * @throws IOException if the store cannot be read
+	 */
+	Stream<StoredImage> list(Instant storedBefore) throws IOException;
+
+	/**
+	 * Reclaims the disk space left by deleted contents, for stores that do not free it on deletion.
+	 *
+	 * @return the number of bytes reclaimed
+	 * @throws IOException if the store cannot be compacted
+	 */
+	default long compact() throws IOException {
+		return 0;
+	}
+}
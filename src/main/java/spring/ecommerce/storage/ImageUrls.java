@@ -0,0 +1,41 @@
+package spring.ecommerce.storage;
+
+import java.util.Map;
+
+import spring.ecommerce.constants.ConstantsEcommerce;
+
+/**
+ * Builds the public URLs used by clients to download image contents.
+ */
+public final class ImageUrls {
+
+	private static final Map<String, String> EXTENSIONS = Map.of(
+			"image/jpeg", ".jpg",
+			"image/png", ".png",
+			"image/gif", ".gif",
+			"image/webp", ".webp",
+			"image/svg+xml", ".svg");
+
+	private ImageUrls() {
+	}
+
+	/**
+	 * Returns the URL of an image content.
+	 * <p>
+	 * Images with a stored content are served as static files under {@code /images/}, named after their hash
+	 * plus an extension matching their content type. Images without a hash fall back to the content endpoint.
+	 * </p>
+	 *
+	 * @param id   the image ID
+	 * @param hash the content hash, may be {@code null}
+	 * @param type the content type, may be {@code null}
+	 * @return the URL of the image content
+	 */
+	public static String of(Long id, String hash, String type) {
+		if (hash == null) {
+			return String.format(ConstantsEcommerce.IMAGE_CONTENT_URL, id);
+		}
+		String extension = type == null ? "" : EXTENSIONS.getOrDefault(type.toLowerCase(), "");
+		return ConstantsEcommerce.IMAGE_FILES_PATH + hash + extension;
+	}
+}
@@ -0,0 +1,23 @@
+package spring.ecommerce.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Fixed sizes generated in the background for every uploaded image.
+ * <p>
+ * Each variant fits the original image, keeping its aspect ratio, into a square of {@link #getMaxSize()} pixels.
+ * Constants are declared from the largest to the smallest size, which is the order they are generated in.
+ * </p>
+ */
+@Getter
+@AllArgsConstructor
+public enum ImageVariant {
+
+	DETAIL(1024),
+	CARD(400),
+	THUMBNAIL(150);
+
+	private final int maxSize;
+
+}
@@ -0,0 +1,82 @@
+package spring.ecommerce.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Moves image contents still stored in the legacy {@code image.pic_byte} column into the {@link ImageStore}.
+ * <p>
+ * Rows are migrated in small batches at startup: each content is streamed into the store, its hash and size
+ * are saved on the row and the column is cleared. Databases created without that column are skipped.
+ * </p>
+ */
+@Component
+@Slf4j
+public class LegacyImageContentMigrator implements ApplicationRunner {
+
+	private static final int BATCH_SIZE = 20;
+
+	private final JdbcTemplate jdbcTemplate;
+	private final ImageStore imageStore;
+	private final boolean enabled;
+
+	public LegacyImageContentMigrator(JdbcTemplate jdbcTemplate, ImageStore imageStore,
+			@Value("${ecommerce.images.migrate-legacy-content:true}") boolean enabled) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.imageStore = imageStore;
+		this.enabled = enabled;
+	}
+
+	@Override
+	public void run(ApplicationArguments args) {
+		if (!this.enabled) {
+			return;
+		}
+
+		try {
+			int migrated = 0;
+			List<Long> ids;
+			do {
+				ids = this.jdbcTemplate.queryForList(
+						"SELECT id FROM image WHERE hash IS NULL AND pic_byte IS NOT NULL ORDER BY id LIMIT ?",
+						Long.class, BATCH_SIZE);
+				for (Long id : ids) {
+					migrate(id);
+					migrated++;
+				}
+			} while (!ids.isEmpty());
+
+			if (migrated > 0) {
+				log.info("Migrated {} legacy image contents to the image store", migrated);
+			}
+		} catch (BadSqlGrammarException e) {
+			log.debug("No legacy image content column found, skipping migration");
+		}
+	}
+
+	private void migrate(Long id) {
+		StoredImage storedImage = this.jdbcTemplate.query("SELECT pic_byte FROM image WHERE id = ?", resultSet -> {
+			resultSet.next();
+			try (InputStream content = resultSet.getBinaryStream(1)) {
+				return this.imageStore.store(content);
+			} catch (IOException e) {
+				throw new UncheckedIOException("Error migrating content of image " + id, e);
+			}
+		}, id);
+
+		this.jdbcTemplate.update("UPDATE image SET hash = ?, size = ?, pic_byte = NULL WHERE id = ?",
+				storedImage.getHash(), storedImage.getSize(), id);
+		log.debug("Migrated content of image {} to {}", id, storedImage.getHash());
+	}
+}
@@ -0,0 +1,72 @@
+package spring.ecommerce.storage;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Input stream that fails as soon as more than a given number of bytes is read from it.
+ * <p>
+ * Used to enforce upload limits while the content is streamed, without trusting the size declared by the
+ * client and without reading the whole content first.
+ * </p>
+ */
+public class LimitedInputStream extends FilterInputStream {
+
+	private final long maxSize;
+	private long count;
+
+	public LimitedInputStream(InputStream in, long maxSize) {
+		super(in);
+		this.maxSize = maxSize;
+	}
+
+	@Override
+	public int read() throws IOException {
+		int b = super.read();
+		if (b >= 0) {
+			this.count(1);
+		}
+		return b;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		int read = super.read(b, off, len);
+		if (read > 0) {
+			this.count(read);
+		}
+		return read;
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		long skipped = super.skip(n);
+		this.count(skipped);
+		return skipped;
+	}
+
+	@Override
+	public boolean markSupported() {
+		return false;
+	}
+
+	private void count(long read) throws ContentTooLargeException {
+		this.count += read;
+		if (this.count > this.maxSize) {
+			throw new ContentTooLargeException(this.maxSize);
+		}
+	}
+
+	/**
+	 * Thrown when a {@link LimitedInputStream} exceeds its maximum size.
+	 */
+	public static class ContentTooLargeException extends IOException {
+
+		private static final long serialVersionUID = 1L;
+
+		public ContentTooLargeException(long maxSize) {
+			super("Content exceeds the maximum size of " + maxSize + " bytes");
+		}
+	}
+}
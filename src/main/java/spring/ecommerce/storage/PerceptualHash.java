@@ -0,0 +1,91 @@
+package spring.ecommerce.storage;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.OptionalLong;
+
+/**
+ * 64-bit perceptual hash (dHash) of an image.
+ * <p>
+ * The image is reduced to a 9x8 grayscale thumbnail and each bit tells whether a pixel is brighter than its
+ * right neighbour. Re-encoded, resized or slightly retouched copies of a picture get hashes a few bits apart,
+ * so near-duplicates are found by the Hamming distance between hashes.
+ * </p>
+ */
+public final class PerceptualHash {
+
+    private static final int WIDTH = 9;
+    private static final int HEIGHT = 8;
+    // Lado mínimo aproximado al que se decodifica la imagen antes de reducirla
+    private static final int DECODE_SIZE = 64;
+
+    private PerceptualHash() {
+    }
+
+    /**
+     * Computes the perceptual hash of an encoded image.
+     * <p>
+     * The image is decoded by the {@link ImageDecoder} with source subsampling, so only about
+     * {@value #DECODE_SIZE} pixels per side are kept in memory whatever the size of the original.
+     * </p>
+     *
+     * @param inputStream the encoded image, which is not closed
+     * @return the hash, or an empty {@link OptionalLong} if the format cannot be decoded
+     * @throws IOException if the image cannot be read
+     */
+    public static OptionalLong compute(InputStream inputStream) throws IOException {
+        return ImageDecoder.decodeSubsampled(inputStream, DECODE_SIZE)
+                .map(image -> OptionalLong.of(of(image)))
+                .orElse(OptionalLong.empty());
+    }
+
+    /**
+     * Computes the perceptual hash of a decoded image.
+     *
+     * @param image the image
+     * @return the hash
+     */
+    public static long of(BufferedImage image) {
+        // Media de luminancia de cada celda de una rejilla de 9x8
+        int width = image.getWidth();
+        int height = image.getHeight();
+        long[] sums = new long[WIDTH * HEIGHT];
+        int[] counts = new int[WIDTH * HEIGHT];
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            int cellY = y * HEIGHT / height;
+            for (int x = 0; x < width; x++) {
+                int rgb = row[x];
+                int luma = (299 * ((rgb >> 16) & 0xFF) + 587 * ((rgb >> 8) & 0xFF) + 114 * (rgb & 0xFF)) / 1000;
+                int cell = cellY * WIDTH + x * WIDTH / width;
+                sums[cell] += luma;
+                counts[cell]++;
+            }
+        }
+
+        long hash = 0;
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH - 1; x++) {
+                int cell = y * WIDTH + x;
+                // Producto cruzado para comparar medias sin dividir (celdas vacías en imágenes diminutas)
+                long left = sums[cell] * Math.max(1, counts[cell + 1]);
+                long right = sums[cell + 1] * Math.max(1, counts[cell]);
+                hash = (hash << 1) | (left > right ? 1 : 0);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Returns the number of bits that differ between two hashes.
+     *
+     * @param a a hash
+     * @param b another hash
+     * @return the Hamming distance, from 0 (same picture) to 64
+     */
+    public static int distance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+}
@@ -0,0 +1,16 @@
+package spring.ecommerce.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Result of storing an image content in an {@link ImageStore}.
+ */
+@Getter
+@AllArgsConstructor
+public class StoredImage {
+
+	private final String hash;
+	private final long size;
+
+}
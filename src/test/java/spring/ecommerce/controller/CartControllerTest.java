@@ -23,6 +23,7 @@ import org.springframework.http.ResponseEntity;
 import spring.ecommerce.dto.PageResponseDto;
 import spring.ecommerce.entity.CartEntity;
 import spring.ecommerce.entity.UserEntity;
+import spring.ecommerce.exception.InvalidCursorException;
 import spring.ecommerce.service.CartService;
 import spring.ecommerce.service.CommonService;
 
@@ -97,7 +98,7 @@ class CartControllerTest {
         when(cartService.getCartDetailsOrderedByNameWithPagination(0, 10, ""))
             .thenReturn(pageResponse);
         
-        ResponseEntity<?> response = cartController.getCartDetailsOrderedByNameWithPagination(0, 10, "");
+        ResponseEntity<?> response = cartController.getCartDetailsOrderedByNameWithPagination(0, 10, "", null, false);
         
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(pageResponse, response.getBody());
@@ -108,12 +109,22 @@ class CartControllerTest {
         when(cartService.getCartDetailsOrderedByNameWithPagination(0, 10, ""))
             .thenThrow(new RuntimeException("Pagination error"));
         
-        ResponseEntity<?> response = cartController.getCartDetailsOrderedByNameWithPagination(0, 10, "");
+        ResponseEntity<?> response = cartController.getCartDetailsOrderedByNameWithPagination(0, 10, "", null, false);
         
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
         assertNull(response.getBody());
     }
     
+    @Test
+    void testGetCartDetailsOrderedByNameWithPagination_InvalidCursor() {
+        when(cartService.getCartDetailsOrderedByNameWithCursor("bad", 10, "", false))
+            .thenThrow(new InvalidCursorException("Invalid pagination cursor: bad"));
+        
+        ResponseEntity<?> response = cartController.getCartDetailsOrderedByNameWithPagination(0, 10, "", "bad", false);
+        
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+    
     @Test
     void testDeleteCartItem() {
         UserEntity mockUser = new UserEntity();
@@ -3,22 +3,39 @@ package spring.ecommerce.controller;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.util.Base64;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import spring.ecommerce.dto.CacheStatsDto;
+import spring.ecommerce.dto.CursorPageResponseDto;
+import spring.ecommerce.dto.ImageCleanupReportDto;
+import spring.ecommerce.dto.ImageMetadataDto;
+import spring.ecommerce.dto.NearDuplicateClusterDto;
 import spring.ecommerce.entity.ImageEntity;
+import spring.ecommerce.service.ImageCleanupService;
 import spring.ecommerce.service.ImageService;
+import spring.ecommerce.service.NearDuplicateService;
 
 @ExtendWith(MockitoExtension.class)
 class ImageControllerTest {
@@ -26,9 +43,20 @@ class ImageControllerTest {
     @Mock
     private ImageService imageService;
 
+    @Mock
+    private ImageCleanupService imageCleanupService;
+
+    @Mock
+    private NearDuplicateService nearDuplicateService;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
     @InjectMocks
     private ImageController imageController;
 
+    private static final byte[] CONTENT = {1, 2, 3, 4};
+
     private ImageEntity imageEntity;
 
     @BeforeEach
@@ -36,7 +64,8 @@ class ImageControllerTest {
         imageEntity = new ImageEntity();
         imageEntity.setId(1L);
         imageEntity.setName("testImage.jpg");
-        imageEntity.setPicByte(new byte[]{1, 2, 3, 4});
+        imageEntity.setType("image/jpeg");
+        imageEntity.setHash("9f64a747e1b97f131fabb6b447296c9b6f0201e79fb3c5356e6c77e89b6a806a");
     }
 
     @Test
@@ -53,11 +82,12 @@ class ImageControllerTest {
     @Test
     void testGetImageAsBase64_Found() {
         when(imageService.getImageById(1L)).thenReturn(Optional.of(imageEntity));
+        when(imageService.readContent(imageEntity)).thenReturn(CONTENT);
         
         ResponseEntity<String> response = imageController.getImageAsBase64(1L);
         
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertEquals(Base64.getEncoder().encodeToString(imageEntity.getPicByte()), response.getBody());
+        assertEquals(Base64.getEncoder().encodeToString(CONTENT), response.getBody());
     }
 
     @Test
@@ -70,6 +100,41 @@ class ImageControllerTest {
         assertNull(response.getBody());
     }
 
+    @Test
+    void testGetImageContent_Found() throws Exception {
+        when(imageService.getImageById(1L)).thenReturn(Optional.of(imageEntity));
+        when(imageService.loadContent(imageEntity)).thenReturn(Optional.of(new ByteArrayResource(CONTENT)));
+        when(imageService.computeETag(imageEntity)).thenReturn("\"abc\"");
+
+        ResponseEntity<Resource> response = imageController.getImageContent(1L);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(MediaType.IMAGE_JPEG, response.getHeaders().getContentType());
+        assertEquals("\"abc\"", response.getHeaders().getETag());
+        assertTrue(response.getHeaders().getCacheControl().contains("immutable"));
+        assertArrayEquals(CONTENT, response.getBody().getContentAsByteArray());
+    }
+
+    @Test
+    void testGetImageContent_MissingContent() {
+        when(imageService.getImageById(1L)).thenReturn(Optional.of(imageEntity));
+        when(imageService.loadContent(imageEntity)).thenReturn(Optional.empty());
+
+        ResponseEntity<Resource> response = imageController.getImageContent(1L);
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
+    @Test
+    void testGetImageContent_NotFound() {
+        when(imageService.getImageById(1L)).thenReturn(Optional.empty());
+
+        ResponseEntity<Resource> response = imageController.getImageContent(1L);
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertNull(response.getBody());
+    }
+
     @Test
     void testGetImageByName_Found() {
         when(imageService.getImageByName("testImage.jpg")).thenReturn(Optional.of(imageEntity));
@@ -101,12 +166,94 @@ class ImageControllerTest {
 
     @Test
     void testGetAllImages() {
-        when(imageService.getAllImages()).thenReturn(List.of(imageEntity));
+        ImageMetadataDto image = new ImageMetadataDto(1L, "testImage.jpg", "testImage.jpg", "image/jpeg", 4L, imageEntity.getHash());
+        when(imageService.getImageMetadataPage(null, 50)).thenReturn(new CursorPageResponseDto<>(List.of(image), 50, null));
+        
+        ResponseEntity<CursorPageResponseDto<ImageMetadataDto>> response = imageController.getAllImages(null, 50);
         
-        ResponseEntity<List<ImageEntity>> response = imageController.getAllImages();
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(1, response.getBody().getContent().size());
+        assertEquals(image, response.getBody().getContent().get(0));
+    }
+
+    @Test
+    void testGetAllImages_InvalidCursor() {
+        when(imageService.getImageMetadataPage("abc", 50)).thenThrow(NumberFormatException.class);
         
+        ResponseEntity<CursorPageResponseDto<ImageMetadataDto>> response = imageController.getAllImages("abc", 50);
+        
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testExportImages() throws IOException {
+        ImageMetadataDto image = new ImageMetadataDto(1L, "testImage.jpg", "testImage.jpg", "image/jpeg", 4L, imageEntity.getHash());
+        image.getProductIds().add(3);
+        doAnswer(invocation -> {
+            Consumer<ImageMetadataDto> consumer = invocation.getArgument(0);
+            consumer.accept(image);
+            consumer.accept(image);
+            return null;
+        }).when(imageService).forEachImageMetadata(any());
+        
+        ResponseEntity<StreamingResponseBody> response = imageController.exportImages();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        response.getBody().writeTo(outputStream);
+        
+        assertEquals(MediaType.APPLICATION_NDJSON, response.getHeaders().getContentType());
+        String[] lines = outputStream.toString().split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("\"productIds\":[3]"));
+    }
+
+    @Test
+    void testGetCacheStats() {
+        CacheStatsDto stats = new CacheStatsDto("imageContents", 3, 1, 0.75, 0, 1, 4, 1024);
+        when(imageService.getCacheStats()).thenReturn(List.of(stats));
+
+        ResponseEntity<List<CacheStatsDto>> response = imageController.getCacheStats();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(stats, response.getBody().get(0));
+    }
+
+    @Test
+    void testGetCleanupReport_NotRunYet() {
+        when(imageCleanupService.getLastReport()).thenReturn(Optional.empty());
+
+        ResponseEntity<ImageCleanupReportDto> response = imageController.getCleanupReport();
+
+        assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
+    }
+
+    @Test
+    void testRunCleanup() {
+        when(imageCleanupService.startGarbageCollection()).thenReturn(true);
+
+        ResponseEntity<Void> response = imageController.runCleanup();
+
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+    }
+
+    @Test
+    void testRunCleanup_AlreadyRunning() {
+        when(imageCleanupService.startGarbageCollection()).thenReturn(false);
+
+        ResponseEntity<Void> response = imageController.runCleanup();
+
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+    }
+
+    @Test
+    void testGetNearDuplicates() {
+        NearDuplicateClusterDto cluster = new NearDuplicateClusterDto();
+        cluster.setMaxDistance(3);
+        when(nearDuplicateService.findClusters(5)).thenReturn(List.of(cluster));
+
+        ResponseEntity<List<NearDuplicateClusterDto>> response = imageController.getNearDuplicates(5);
+
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertEquals(1, response.getBody().size());
-        assertEquals(imageEntity, response.getBody().get(0));
+        assertEquals(3, response.getBody().get(0).getMaxDistance());
     }
 }
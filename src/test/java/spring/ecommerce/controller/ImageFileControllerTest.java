@@ -0,0 +1,137 @@
+package spring.ecommerce.controller;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+
+import spring.ecommerce.storage.FileSystemImageStore;
+import spring.ecommerce.storage.ImagePackStore;
+
+class ImageFileControllerTest {
+
+    private static final byte[] CONTENT = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 1, 2, 3, 4};
+
+    @TempDir
+    Path rootDirectory;
+
+    private ImagePackStore imagePackStore;
+
+    private String hash;
+
+    private ImageFileController imageFileController;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        FileSystemImageStore imageStore = new FileSystemImageStore(rootDirectory.toString());
+        hash = imageStore.store(new ByteArrayInputStream(CONTENT)).getHash();
+        imagePackStore = new ImagePackStore(rootDirectory.resolve(".packs").toString(), true,
+                DataSize.ofKilobytes(64), DataSize.ofKilobytes(16), 0.5);
+        imageFileController = new ImageFileController(imageStore, imagePackStore);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        imagePackStore.close();
+    }
+
+    @Test
+    void testGetImageFile() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/images/" + hash + ".png");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        imageFileController.getImageFile(hash + ".png", request, response);
+
+        assertEquals(200, response.getStatus());
+        assertEquals("image/png", response.getContentType());
+        assertEquals("nosniff", response.getHeader("X-Content-Type-Options"));
+        assertEquals("\"" + hash + "\"", response.getHeader("ETag"));
+        assertTrue(response.getHeader("Cache-Control").contains("immutable"));
+        assertArrayEquals(CONTENT, response.getContentAsByteArray());
+    }
+
+    @Test
+    void testGetImageFile_Packed() throws IOException {
+        byte[] thumbnail = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, 5, 6, 7};
+        String thumbnailHash = imagePackStore.store(new ByteArrayInputStream(thumbnail)).getHash();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/images/" + thumbnailHash + ".jpg");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        imageFileController.getImageFile(thumbnailHash + ".jpg", request, response);
+
+        assertEquals(200, response.getStatus());
+        assertEquals("image/jpeg", response.getContentType());
+        assertArrayEquals(thumbnail, response.getContentAsByteArray());
+    }
+
+    @Test
+    void testGetImageFile_PackedNotSentWithSendfile() throws IOException {
+        byte[] thumbnail = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, 8, 9};
+        String thumbnailHash = imagePackStore.store(new ByteArrayInputStream(thumbnail)).getHash();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/images/" + thumbnailHash + ".jpg");
+        request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        imageFileController.getImageFile(thumbnailHash + ".jpg", request, response);
+
+        assertNull(request.getAttribute("org.apache.tomcat.sendfile.filename"));
+        assertArrayEquals(thumbnail, response.getContentAsByteArray());
+    }
+
+    @Test
+    void testGetImageFile_TypeFromContent() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/images/" + hash + ".gif");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        imageFileController.getImageFile(hash + ".gif", request, response);
+
+        assertEquals(200, response.getStatus());
+        assertEquals("image/png", response.getContentType());
+    }
+
+    @Test
+    void testGetImageFile_NonImageExtension() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/images/" + hash + ".html");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        imageFileController.getImageFile(hash + ".html", request, response);
+
+        assertEquals(404, response.getStatus());
+        assertEquals("nosniff", response.getHeader("X-Content-Type-Options"));
+    }
+
+    @Test
+    void testGetImageFile_NotModified() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/images/" + hash + ".png");
+        request.addHeader("If-None-Match", "\"" + hash + "\"");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        imageFileController.getImageFile(hash + ".png", request, response);
+
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void testGetImageFile_NotFound() throws IOException {
+        String missingHash = "0".repeat(64);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/images/" + missingHash);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        imageFileController.getImageFile(missingHash, request, response);
+
+        assertEquals(404, response.getStatus());
+    }
+}
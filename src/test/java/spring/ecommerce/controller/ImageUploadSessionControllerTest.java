@@ -0,0 +1,70 @@
+package spring.ecommerce.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import spring.ecommerce.dto.UploadSessionDto;
+import spring.ecommerce.entity.ImageEntity;
+import spring.ecommerce.service.ImageUploadSessionService;
+
+@ExtendWith(MockitoExtension.class)
+class ImageUploadSessionControllerTest {
+
+    private static final String SESSION_ID = "3f1c2a4e-6b1d-4c8e-9a51-2d7f0e6b9c13";
+
+    @Mock
+    private ImageUploadSessionService imageUploadSessionService;
+
+    @InjectMocks
+    private ImageUploadSessionController imageUploadSessionController;
+
+    @Test
+    void testCreateSession() {
+        UploadSessionDto session = new UploadSessionDto(SESSION_ID, "photo.png", 100, 0);
+        when(imageUploadSessionService.createSession("photo.png", 100)).thenReturn(session);
+
+        ResponseEntity<UploadSessionDto> response = imageUploadSessionController.createSession("photo.png", 100);
+
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        assertEquals("/api/v1/images/uploads/" + SESSION_ID, response.getHeaders().getLocation().toString());
+        assertEquals(session, response.getBody());
+    }
+
+    @Test
+    void testWriteChunk() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("PUT", "/api/v1/images/uploads/" + SESSION_ID);
+        request.setContent(new byte[] { 1, 2, 3 });
+        UploadSessionDto session = new UploadSessionDto(SESSION_ID, "photo.png", 100, 3);
+        when(imageUploadSessionService.writeChunk(eq(SESSION_ID), eq(0L), any(InputStream.class))).thenReturn(session);
+
+        ResponseEntity<UploadSessionDto> response = imageUploadSessionController.writeChunk(SESSION_ID, 0, request);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(3, response.getBody().getOffset());
+    }
+
+    @Test
+    void testCommit() {
+        ImageEntity image = new ImageEntity("uuid_photo.png", "photo.png", "image/png", "hash", 100L);
+        when(imageUploadSessionService.commit(SESSION_ID, "hash")).thenReturn(image);
+
+        ResponseEntity<ImageEntity> response = imageUploadSessionController.commit(SESSION_ID, "hash");
+
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        assertEquals(image, response.getBody());
+    }
+}
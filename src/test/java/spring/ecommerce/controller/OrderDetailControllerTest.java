@@ -29,6 +29,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import spring.ecommerce.dto.OrderInputDto;
 import spring.ecommerce.dto.PageResponseDto;
 import spring.ecommerce.entity.OrderDetailEntity;
+import spring.ecommerce.exception.InvalidCursorException;
 import spring.ecommerce.service.OrderDetailService;
 
 @ExtendWith(MockitoExtension.class)
@@ -77,6 +78,29 @@ class OrderDetailControllerTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    void getAllOrderDetailsOrderedByNameWithPagination_WithCursor_ShouldUseKeysetPagination() throws Exception {
+        PageResponseDto<OrderDetailEntity> pageResponse = new PageResponseDto<>();
+
+        when(orderDetailService.getOrderDetailsBySearchKeyWithCursor("abc", 10, "", "all", true))
+                .thenReturn(pageResponse);
+
+        mockMvc.perform(get("/api/v1/order/getAllOrderDetailsPaginated/all")
+                .param("cursor", "abc")
+                .param("withTotal", "true"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void getMyOrderDetailsOrderedByNameWithPagination_InvalidCursor_ShouldReturnBadRequest() throws Exception {
+        when(orderDetailService.getMyOrderDetailsBySearchKeyWithCursor("bad", 10, "", false))
+                .thenThrow(new InvalidCursorException("Invalid pagination cursor: bad"));
+
+        mockMvc.perform(get("/api/v1/order/getMyOrderDetailsPaginated")
+                .param("cursor", "bad"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void markOrderAsDelivered_ShouldReturnSuccessMessage() throws Exception {
         doNothing().when(orderDetailService).changeOrderStatus(anyInt(), anyString());
@@ -3,26 +3,45 @@ package spring.ecommerce.controller;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
-import static org.mockito.ArgumentMatchers.anyList;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import spring.ecommerce.dto.CacheStatsDto;
+import spring.ecommerce.dto.ProductFacetsDto;
+import spring.ecommerce.dto.ProductImportSummaryDto;
+import spring.ecommerce.dto.ProductListingDto;
+import spring.ecommerce.dto.ProductSuggestionDto;
 import spring.ecommerce.entity.ProductEntity;
 import spring.ecommerce.files.CsvService;
 import spring.ecommerce.files.ExcelService;
 import spring.ecommerce.files.PdfService;
+import spring.ecommerce.search.ProductFilter;
+import spring.ecommerce.service.ProductImportService;
 import spring.ecommerce.service.ProductService;
 
 @ExtendWith(MockitoExtension.class)
@@ -40,6 +59,12 @@ class ProductControllerTest {
     @Mock
     private ExcelService excelService;
 
+    @Mock
+    private ProductImportService productImportService;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
     @InjectMocks
     private ProductController productController;
 
@@ -54,7 +79,7 @@ class ProductControllerTest {
 
     @Test
     void testGetAllProducts() {
-        when(productService.getAllProducts()).thenReturn(Collections.singletonList(sampleProduct));
+        when(productService.getAllProducts()).thenReturn(Collections.singletonList(new ProductListingDto(1, "Test Product", null, 0, 0)));
 
         ResponseEntity<?> response = productController.getAllProducts();
 
@@ -62,6 +87,25 @@ class ProductControllerTest {
         assertNotNull(response.getBody());
     }
 
+    @Test
+    void testStreamAllProducts() throws IOException {
+        doAnswer(invocation -> {
+            Consumer<ProductListingDto> consumer = invocation.getArgument(0);
+            consumer.accept(new ProductListingDto(1, "Test Product", null, 0, 0));
+            consumer.accept(new ProductListingDto(2, "Other Product", null, 0, 0));
+            return null;
+        }).when(productService).forEachProductListing(any());
+
+        ResponseEntity<StreamingResponseBody> response = productController.streamAllProducts();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        response.getBody().writeTo(outputStream);
+
+        assertEquals(MediaType.APPLICATION_NDJSON, response.getHeaders().getContentType());
+        String[] lines = outputStream.toString().split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[1].contains("\"productName\":\"Other Product\""));
+    }
+
     @Test
     void testGetProductById() {
         when(productService.getProductById(1)).thenReturn(sampleProduct);
@@ -94,34 +138,106 @@ class ProductControllerTest {
 
     @Test
     void testGenerateProductListPdf() throws IOException {
-        when(productService.getAllProductsOrderedByName()).thenReturn(Collections.singletonList(sampleProduct));
-        when(pdfService.generateProductListPdf(anyList())).thenReturn(new byte[]{1, 2, 3});
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(0).write(new byte[]{1, 2, 3});
+            return null;
+        }).when(pdfService).writeProductListPdf(any(), any());
 
-        ResponseEntity<byte[]> response = productController.generateProductListPdf();
+        ResponseEntity<StreamingResponseBody> response = productController.generateProductListPdf();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        response.getBody().writeTo(outputStream);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertNotNull(response.getBody());
+        assertEquals(MediaType.APPLICATION_PDF, response.getHeaders().getContentType());
+        assertEquals(3, outputStream.size());
     }
 
     @Test
-    void testDownloadProductListCsv() {
-        when(productService.getAllProductsOrderedByName()).thenReturn(Collections.singletonList(sampleProduct));
-        when(csvService.generateProductListCsv(anyList())).thenReturn(new byte[]{1, 2, 3});
+    void testDownloadProductListCsv() throws IOException {
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(0).write(new byte[]{1, 2, 3});
+            return null;
+        }).when(csvService).writeProductListCsv(any(), any());
 
-        ResponseEntity<byte[]> response = productController.downloadProductListCsv();
+        ResponseEntity<StreamingResponseBody> response = productController.downloadProductListCsv();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        response.getBody().writeTo(outputStream);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertNotNull(response.getBody());
+        assertEquals(3, outputStream.size());
     }
 
     @Test
-    void testDownloadProductListExcel() {
-        when(productService.getAllProductsOrderedByName()).thenReturn(Collections.singletonList(sampleProduct));
-        when(excelService.generateProductListExcel(anyList())).thenReturn(new byte[]{1, 2, 3});
+    void testDownloadProductListExcel() throws IOException {
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(0).write(new byte[]{1, 2, 3});
+            return null;
+        }).when(excelService).writeProductListExcel(any(), any());
 
-        ResponseEntity<byte[]> response = productController.downloadProductListExcel();
+        ResponseEntity<StreamingResponseBody> response = productController.downloadProductListExcel();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        response.getBody().writeTo(outputStream);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertNotNull(response.getBody());
+        assertEquals(3, outputStream.size());
+    }
+
+    @Test
+    void testImportProducts() throws IOException {
+        MockMultipartFile file = new MockMultipartFile("file", "products.xlsx", null, new byte[] {1});
+        ProductImportSummaryDto summary = new ProductImportSummaryDto();
+        summary.setInserted(1);
+        when(productImportService.importProductsFromExcel(any())).thenReturn(summary);
+
+        ResponseEntity<ProductImportSummaryDto> response = productController.importProducts(file);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(1, response.getBody().getInserted());
+    }
+
+    @Test
+    void testBulkEditProducts() {
+        List<ProductEntity> products = List.of(new ProductEntity());
+        ProductImportSummaryDto summary = new ProductImportSummaryDto();
+        summary.setUpdated(1);
+        when(productImportService.importProducts(products)).thenReturn(summary);
+
+        ResponseEntity<ProductImportSummaryDto> response = productController.bulkEditProducts(products);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(1, response.getBody().getUpdated());
+    }
+
+    @Test
+    void testGetCacheStats() {
+        CacheStatsDto stats = new CacheStatsDto("productsById", 9, 1, 0.9, 0, 5, 5, 100);
+        when(productService.getCacheStats()).thenReturn(List.of(stats));
+
+        ResponseEntity<List<CacheStatsDto>> response = productController.getCacheStats();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(0.9, response.getBody().get(0).getHitRate());
+    }
+
+    @Test
+    void testSuggestProducts() {
+        when(productService.suggestProducts("lap", 8)).thenReturn(List.of(new ProductSuggestionDto(1, "Laptop")));
+
+        ResponseEntity<List<ProductSuggestionDto>> response = productController.suggestProducts("lap", 8);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("Laptop", response.getBody().get(0).getProductName());
+    }
+
+    @Test
+    void testGetProductFacets() {
+        ProductFacetsDto facets = new ProductFacetsDto();
+        facets.setTotalCount(3);
+        when(productService.getProductFacets("laptop", false, new ProductFilter(10.0, null, true))).thenReturn(facets);
+
+        ResponseEntity<ProductFacetsDto> response = productController.getProductFacets("laptop", false, 10.0, null, true);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(3, response.getBody().getTotalCount());
     }
 }
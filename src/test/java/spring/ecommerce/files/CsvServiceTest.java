@@ -0,0 +1,58 @@
+package spring.ecommerce.files;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import spring.ecommerce.dto.ProductListingDto;
+
+class CsvServiceTest {
+
+    private final CsvService csvService = new CsvService();
+
+    @Test
+    void testWriteProductListCsv() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        csvService.writeProductListCsv(outputStream, consumer -> {
+            consumer.accept(new ProductListingDto(1, "Laptop", "Fast, light", 8.0, 10.0));
+            consumer.accept(new ProductListingDto(2, "Mouse", "Line 1\nLine 2", 0, 5.0));
+        });
+
+        String csv = outputStream.toString(StandardCharsets.UTF_8);
+        assertEquals("\uFEFF\"Product ID\",\"Product Name\",\"Description\",\"Original Price\",\"Discounted Price\"\n"
+                + "\"1\",\"Laptop\",\"Fast, light\",\"10.0 €\",\"8.0 €\"\n"
+                + "\"2\",\"Mouse\",\"Line 1\nLine 2\",\"5.0 €\",\"0.0 €\"\n", csv);
+    }
+
+    @Test
+    void testWriteProductListCsvStopsWhenClientDisconnects() {
+        int[] read = { 0 };
+        OutputStream closed = new OutputStream() {
+            private int written;
+
+            @Override
+            public void write(int b) throws IOException {
+                if (++written > 3) {
+                    throw new IOException("Broken pipe");
+                }
+            }
+        };
+
+        assertThrows(IOException.class, () -> csvService.writeProductListCsv(closed, consumer -> {
+            for (int i = 0; i < 100_000; i++) {
+                read[0]++;
+                consumer.accept(new ProductListingDto(i, "x".repeat(100), null, 0, 0));
+            }
+        }));
+        // Se corta al llenarse el primer búfer, sin leer el resto del catálogo
+        assertTrue(read[0] < 1_000);
+    }
+}
@@ -0,0 +1,89 @@
+package spring.ecommerce.files;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import spring.ecommerce.dto.ProductListingDto;
+
+/**
+ * Compares the peak heap and time of the streaming Excel export with an in-memory {@link XSSFWorkbook}.
+ * <p>
+ * Skipped by default. Run with {@code mvn test -Dtest=ExcelServiceBenchmarkTest -Dbenchmark=true}, ideally with a
+ * fixed heap ({@code -DargLine=-Xmx2g}) so both modes run under the same limit.
+ * </p>
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ExcelServiceBenchmarkTest {
+
+    private static final int[] ROWS = { 10_000, 100_000, 1_000_000 };
+
+    private final ExcelService excelService = new ExcelService();
+
+    @Test
+    void benchmarkWriteProductListExcel() throws Exception {
+        System.out.printf("%-10s %10s %12s %14s%n", "mode", "rows", "time (ms)", "peak heap (MB)");
+        for (int rows : ROWS) {
+            run("xssf", rows, () -> {
+                try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+                    this.excelService.writeProductListExcel(workbook, OutputStream.nullOutputStream(), products(rows));
+                }
+            });
+            run("sxssf", rows, () -> this.excelService.writeProductListExcel(OutputStream.nullOutputStream(), products(rows)));
+        }
+    }
+
+    private static void run(String mode, int rows, Export export) throws Exception {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long baseline = memory.getHeapMemoryUsage().getUsed();
+        AtomicLong peak = new AtomicLong(baseline);
+
+        // Muestreo del heap en paralelo: el pico se alcanza antes de que termine la escritura
+        Thread sampler = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                peak.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+        sampler.setDaemon(true);
+        sampler.start();
+
+        long start = System.nanoTime();
+        String time;
+        try {
+            export.run();
+            time = String.valueOf((System.nanoTime() - start) / 1_000_000);
+        } catch (OutOfMemoryError e) {
+            time = "OOM";
+        } finally {
+            sampler.interrupt();
+            sampler.join();
+        }
+        System.out.printf("%-10s %10d %12s %14d%n", mode, rows, time, (peak.get() - baseline) / (1024 * 1024));
+    }
+
+    private static Consumer<Consumer<ProductListingDto>> products(int rows) {
+        return consumer -> {
+            for (int i = 1; i <= rows; i++) {
+                consumer.accept(new ProductListingDto(i, "Product " + i, "Description of product " + i, 8.0, 10.0));
+            }
+        };
+    }
+
+    @FunctionalInterface
+    private interface Export {
+        void run() throws IOException;
+    }
+}
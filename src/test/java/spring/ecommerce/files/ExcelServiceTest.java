@@ -0,0 +1,110 @@
+package spring.ecommerce.files;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+
+import spring.ecommerce.dto.ProductListingDto;
+import spring.ecommerce.entity.ProductEntity;
+
+class ExcelServiceTest {
+
+    private final ExcelService excelService = new ExcelService();
+
+    @Test
+    void testWriteProductListExcel() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // Más filas que la ventana, para que se vuelquen al fichero temporal
+        excelService.writeProductListExcel(outputStream, consumer -> {
+            for (int i = 1; i <= ExcelService.ROW_WINDOW * 3; i++) {
+                consumer.accept(new ProductListingDto(i, "Product " + i, "Description", 8.0, 10.5));
+            }
+        });
+
+        try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(outputStream.toByteArray()))) {
+            Sheet sheet = workbook.getSheetAt(0);
+            assertEquals(ExcelService.ROW_WINDOW * 3, sheet.getLastRowNum());
+            assertEquals("Product Name", sheet.getRow(0).getCell(1).getStringCellValue());
+
+            Row last = sheet.getRow(sheet.getLastRowNum());
+            assertEquals(ExcelService.ROW_WINDOW * 3, last.getCell(0).getNumericCellValue());
+            assertEquals("Product 300", last.getCell(1).getStringCellValue());
+            assertEquals(10.5, last.getCell(3).getNumericCellValue());
+            assertEquals(8.0, last.getCell(4).getNumericCellValue());
+            // Todas las celdas de precio comparten un único estilo
+            assertEquals(sheet.getRow(1).getCell(3).getCellStyle().getIndex(), last.getCell(4).getCellStyle().getIndex());
+        }
+    }
+
+    @Test
+    void testReadProductsFromExcel() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        excelService.writeProductListExcel(outputStream, consumer -> {
+            consumer.accept(new ProductListingDto(7, "Laptop", "Fast", 899.99, 1049.5));
+            consumer.accept(new ProductListingDto(8, "Mouse", null, 0, 12.0));
+        });
+
+        List<ExcelService.ImportedRow> rows = new ArrayList<>();
+        excelService.readProductsFromExcel(new ByteArrayInputStream(outputStream.toByteArray()), rows::add);
+
+        // La cabecera se omite y los precios con formato de moneda se leen como números
+        assertEquals(2, rows.size());
+        ProductEntity laptop = rows.get(0).product();
+        assertEquals(2, rows.get(0).rowNumber());
+        assertEquals(7, laptop.getProductId());
+        assertEquals("Laptop", laptop.getProductName());
+        assertEquals(1049.5, laptop.getProductActualPrice());
+        assertEquals(899.99, laptop.getProductDiscountedPrice());
+        assertNull(rows.get(1).product().getProductDescription());
+    }
+
+    @Test
+    void testReadProductsFromExcelWithTextCells() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (Workbook workbook = new XSSFWorkbook()) {
+            Sheet sheet = workbook.createSheet();
+            sheet.createRow(0).createCell(0).setCellValue("Product ID");
+            Row valid = sheet.createRow(1);
+            valid.createCell(1).setCellValue(" Keyboard ");
+            valid.createCell(3).setCellValue("1,200.00 €");
+            valid.createCell(4).setCellValue("10 €");
+            sheet.createRow(2).createCell(1).setCellValue("");
+            Row invalid = sheet.createRow(3);
+            invalid.createCell(1).setCellValue("Monitor");
+            invalid.createCell(3).setCellValue("cheap");
+            workbook.write(outputStream);
+        }
+
+        List<ExcelService.ImportedRow> rows = new ArrayList<>();
+        excelService.readProductsFromExcel(new ByteArrayInputStream(outputStream.toByteArray()), rows::add);
+
+        // Las filas vacías se omiten
+        assertEquals(2, rows.size());
+        assertNull(rows.get(0).product().getProductId());
+        assertEquals("Keyboard", rows.get(0).product().getProductName());
+        assertEquals(1200.0, rows.get(0).product().getProductActualPrice());
+        assertNull(rows.get(0).error());
+        assertEquals(4, rows.get(1).rowNumber());
+        assertNotNull(rows.get(1).error());
+    }
+
+    @Test
+    void testReadProductsFromInvalidFile() {
+        assertThrows(IOException.class,
+                () -> excelService.readProductsFromExcel(new ByteArrayInputStream(new byte[] {1, 2, 3}), row -> { }));
+    }
+}
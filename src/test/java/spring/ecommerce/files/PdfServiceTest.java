@@ -0,0 +1,72 @@
+package spring.ecommerce.files;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.canvas.parser.PdfTextExtractor;
+
+import spring.ecommerce.dto.ProductListingDto;
+
+class PdfServiceTest {
+
+    private final PdfService pdfService = new PdfService();
+
+    @Test
+    void testWriteProductListPdf() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // Varias descargas de la tabla grande repartidas en varias páginas
+        pdfService.writeProductListPdf(outputStream, consumer -> {
+            for (int i = 1; i <= PdfService.TABLE_FLUSH_ROWS * 3; i++) {
+                consumer.accept(new ProductListingDto(i, "Product " + i, i % 2 == 0 ? null : "Description", 8.0, 10.5));
+            }
+        });
+
+        try (PdfDocument pdfDocument = new PdfDocument(new PdfReader(new ByteArrayInputStream(outputStream.toByteArray())))) {
+            assertTrue(pdfDocument.getNumberOfPages() > 1);
+            String first = PdfTextExtractor.getTextFromPage(pdfDocument.getFirstPage());
+            assertTrue(first.contains("Product List"));
+            assertTrue(first.contains("Product 1"));
+            assertTrue(first.contains("€10.5"));
+            String last = PdfTextExtractor.getTextFromPage(pdfDocument.getLastPage());
+            // Encabezado repetido en cada página
+            assertTrue(last.contains("Original Price"));
+            assertTrue(last.contains("Product " + PdfService.TABLE_FLUSH_ROWS * 3));
+        }
+    }
+
+    @Test
+    void testWriteEmptyProductListPdf() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        pdfService.writeProductListPdf(outputStream, consumer -> {
+        });
+
+        try (PdfDocument pdfDocument = new PdfDocument(new PdfReader(new ByteArrayInputStream(outputStream.toByteArray())))) {
+            assertEquals(1, pdfDocument.getNumberOfPages());
+            assertFalse(PdfTextExtractor.getTextFromPage(pdfDocument.getFirstPage()).contains("Product 1"));
+        }
+    }
+
+    @Test
+    void testDocumentsReuseSharedResources() throws IOException {
+        // El logo y las fuentes cargados una vez sirven para documentos sucesivos
+        ByteArrayOutputStream first = new ByteArrayOutputStream();
+        ByteArrayOutputStream second = new ByteArrayOutputStream();
+        pdfService.writeProductListPdf(first, consumer -> consumer.accept(new ProductListingDto(1, "Laptop", "Fast", 900, 1000)));
+        pdfService.writeProductListPdf(second, consumer -> consumer.accept(new ProductListingDto(1, "Laptop", "Fast", 900, 1000)));
+
+        try (PdfDocument pdfDocument = new PdfDocument(new PdfReader(new ByteArrayInputStream(second.toByteArray())))) {
+            assertTrue(PdfTextExtractor.getTextFromPage(pdfDocument.getFirstPage()).contains("Laptop"));
+        }
+    }
+}
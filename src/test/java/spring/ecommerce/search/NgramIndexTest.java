@@ -0,0 +1,145 @@
+package spring.ecommerce.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class NgramIndexTest {
+
+    private NgramIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new NgramIndex();
+        index.put(1, "Cámara réflex", "Cuerpo de aluminio");
+        index.put(2, "Funda para cámara", null);
+        index.put(3, "Trípode", "Compatible con cualquier cámara");
+        index.put(4, "Portátil", "Pantalla de 15 pulgadas");
+    }
+
+    @Test
+    void testFold() {
+        assertEquals("camara reflex 4k", NgramIndex.fold("  Cámara-Réflex, 4K! "));
+        assertEquals("", NgramIndex.fold(null));
+    }
+
+    @Test
+    void testSearchRanksByWhereTermAppears() {
+        // Inicio del nombre, dentro del nombre y solo en la descripción
+        assertEquals(List.of(1, 2, 3), ids(index.search("CAMARA")));
+    }
+
+    @Test
+    void testSearchSubstringInsideWord() {
+        assertEquals(List.of(4), ids(index.search("rtat")));
+    }
+
+    @Test
+    void testSearchRequiresEveryTerm() {
+        assertEquals(List.of(1), ids(index.search("camara aluminio")));
+        assertTrue(index.search("camara portatil").isEmpty());
+    }
+
+    @Test
+    void testSearchShortTerm() {
+        assertEquals(List.of(4), ids(index.search("15")));
+        assertEquals(List.of(4), ids(index.search("pu")));
+        // Solo al principio de una palabra: "ul" está dentro de "pulgadas"
+        assertTrue(index.search("ul").isEmpty());
+        assertEquals(List.of(1, 4), ids(index.search("de")));
+        assertEquals(List.of(1), ids(index.search("camara r")));
+    }
+
+    @Test
+    void testSearchShortTermAfterRemove() {
+        index.remove(4);
+
+        assertTrue(index.search("15").isEmpty());
+        assertTrue(index.fuzzySearch("15").isEmpty());
+    }
+
+    @Test
+    void testSearchTrigramsMustBeContiguous() {
+        // "fun" y "ara" están en "Funda para cámara", pero no "funara"
+        assertTrue(index.search("funara").isEmpty());
+    }
+
+    @Test
+    void testPutReplacesAndRemove() {
+        index.put(2, "Mochila", null);
+        assertEquals(List.of(1, 3), ids(index.search("camara")));
+
+        index.remove(1);
+        assertEquals(List.of(3), ids(index.search("camara")));
+        assertTrue(index.search("reflex").isEmpty());
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void testSearchWithoutTerms() {
+        assertTrue(index.search(" ¡! ").isEmpty());
+    }
+
+    @Test
+    void testFuzzySearchToleratesTypos() {
+        index.put(5, "Laptop gaming", null);
+        index.put(6, "Funda", "Para laptop");
+
+        assertTrue(index.search("labtop").isEmpty());
+        // Coincidencia en el nombre antes que en la descripción
+        assertEquals(List.of(5, 6), ids(index.fuzzySearch("labtop")));
+        assertEquals(List.of(4), ids(index.fuzzySearch("portatl 15")));
+    }
+
+    @Test
+    void testFuzzySearchRanksExactMatchesFirst() {
+        index.put(5, "Camera", null);
+
+        assertEquals(List.of(1, 2, 5, 3), ids(index.fuzzySearch("camara")));
+    }
+
+    @Test
+    void testFuzzySearchNeedsASharedTrigram() {
+        index.put(5, "Mesa", null);
+
+        // "masa" está a una edición de "mesa" pero no comparte ningún trigrama: no es candidata
+        assertTrue(index.fuzzySearch("masa").isEmpty());
+        assertEquals(List.of(5), ids(index.fuzzySearch("mesas")));
+    }
+
+    @Test
+    void testFuzzySearchScoresNameWordsAfterRename() {
+        index.put(5, "Funda", "Para laptop");
+        index.put(6, "Bolsa", "Para laptop");
+        assertEquals(List.of(6, 5), ids(index.fuzzySearch("labtop")));
+
+        // La palabra pasa de la descripción al nombre del producto 5, que sube por delante
+        index.put(5, "Funda laptop", null);
+        assertEquals(List.of(5, 6), ids(index.fuzzySearch("labtop")));
+        index.remove(5);
+        assertEquals(List.of(6), ids(index.fuzzySearch("labtop")));
+    }
+
+    @Test
+    void testFuzzySearchIgnoresRemovedProducts() {
+        index.remove(4);
+
+        assertTrue(index.fuzzySearch("portatl").isEmpty());
+    }
+
+    @Test
+    void testEditDistance() {
+        assertEquals(1, NgramIndex.editDistance("labtop", "laptop", 2));
+        assertEquals(2, NgramIndex.editDistance("lpatop", "laptop", 2));
+        assertEquals(3, NgramIndex.editDistance("tablet", "laptop", 2));
+        assertEquals(3, NgramIndex.editDistance("lap", "laptop", 2));
+    }
+
+    private static List<Integer> ids(List<NgramIndex.Hit> hits) {
+        return hits.stream().map(NgramIndex.Hit::id).toList();
+    }
+}
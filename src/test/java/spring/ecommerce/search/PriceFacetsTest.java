@@ -0,0 +1,84 @@
+package spring.ecommerce.search;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.BitSet;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PriceFacetsTest {
+
+    private PriceFacets facets;
+
+    @BeforeEach
+    void setUp() {
+        facets = new PriceFacets(new double[] {0, 10, 100});
+        facets.put(1, "Teclado", 0, 25);
+        facets.put(2, "Altavoz", 80, 120);
+        facets.put(3, "Cable", 0, 5);
+        // Precio rebajado igual al original: no cuenta como descuento
+        facets.put(4, "Monitor", 150, 150);
+        facets.refresh();
+    }
+
+    @Test
+    void testMatchUsesEffectivePrice() {
+        BitSet matches = facets.match(new ProductFilter(20.0, 100.0, null));
+
+        assertEquals(2, matches.cardinality());
+        assertArrayEquals(new int[] {2, 1}, facets.idsByName(matches, 0, 10));
+    }
+
+    @Test
+    void testMatchOnDiscount() {
+        assertArrayEquals(new int[] {2}, facets.idsByName(facets.match(new ProductFilter(null, null, true)), 0, 10));
+        assertArrayEquals(new int[] {3, 4, 1},
+                facets.idsByName(facets.match(new ProductFilter(null, null, false)), 0, 10));
+    }
+
+    @Test
+    void testIdsByNamePaginates() {
+        BitSet all = facets.match(ProductFilter.NONE);
+
+        assertArrayEquals(new int[] {3, 4}, facets.idsByName(all, 1, 2));
+        assertArrayEquals(new int[] {}, facets.idsByName(all, 8, 2));
+    }
+
+    @Test
+    void testHistogram() {
+        assertArrayEquals(new long[] {1, 2, 1}, facets.histogram(null));
+        assertArrayEquals(new long[] {0, 1, 0}, facets.histogram(facets.ranksOf(List.of(2, 99))));
+        assertEquals(1, facets.countDiscounted(facets.match(ProductFilter.NONE)));
+    }
+
+    @Test
+    void testChangesApplyOnRefresh() {
+        facets.put(3, "Cable", 0, 500);
+        facets.remove(1);
+        assertEquals(4, facets.size());
+
+        facets.refresh();
+
+        assertEquals(3, facets.size());
+        assertArrayEquals(new long[] {0, 1, 2}, facets.histogram(null));
+        assertEquals(false, facets.contains(facets.match(ProductFilter.NONE), 1));
+    }
+
+    @Test
+    void testSnapshotBuildAndPublish() {
+        facets.put(5, "Batería", 0, 10);
+        PriceFacets.Snapshot snapshot = facets.snapshot();
+        assertNull(facets.snapshot());
+
+        PriceFacets.View view = snapshot.build();
+        assertEquals(4, facets.size());
+        facets.publish(view);
+
+        assertEquals(5, facets.size());
+        assertArrayEquals(new int[] {2, 5, 3, 4, 1}, facets.idsByName(facets.match(ProductFilter.NONE), 0, 10));
+    }
+}
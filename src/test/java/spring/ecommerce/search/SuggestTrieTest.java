@@ -0,0 +1,87 @@
+package spring.ecommerce.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SuggestTrieTest {
+
+    private SuggestTrie trie;
+
+    @BeforeEach
+    void setUp() {
+        trie = new SuggestTrie(2);
+        trie.put(1, "Cámara réflex", 1);
+        trie.put(2, "Camiseta", 10);
+        trie.put(3, "Funda para cámara", 5);
+    }
+
+    @Test
+    void testSuggestKeepsTopKByPopularity() {
+        assertEquals(List.of(2, 3), ids(trie.suggest("ca", 10)));
+        assertEquals(List.of(3, 1), ids(trie.suggest("CÁMA", 10)));
+        assertEquals(List.of(3), ids(trie.suggest("cama", 1)));
+    }
+
+    @Test
+    void testSuggestWordInsideName() {
+        List<SuggestTrie.Suggestion> suggestions = trie.suggest("refl", 10);
+
+        assertEquals(List.of(1), ids(suggestions));
+        assertEquals("Cámara réflex", suggestions.get(0).name());
+    }
+
+    @Test
+    void testSuggestUnknownOrEmptyPrefix() {
+        assertTrue(trie.suggest("zz", 10).isEmpty());
+        assertTrue(trie.suggest(" ", 10).isEmpty());
+    }
+
+    @Test
+    void testRemoveAndPutUpdateRankings() {
+        trie.remove(2);
+        assertEquals(List.of(3, 1), ids(trie.suggest("ca", 10)));
+        assertTrue(trie.suggest("camis", 10).isEmpty());
+
+        trie.put(1, "Cámara réflex", 20);
+        assertEquals(List.of(1, 3), ids(trie.suggest("ca", 10)));
+        assertEquals(2, trie.size());
+    }
+
+    @Test
+    void testBuilderRanksLikePut() {
+        SuggestTrie built = SuggestTrie.builder(2)
+                .add(1, "Cámara réflex", 50)
+                .add(2, "Camiseta", 10)
+                .add(3, "Funda para cámara", 5)
+                .build();
+
+        assertEquals(List.of(1, 2), ids(built.suggest("ca", 10)));
+        assertEquals(List.of(1, 3), ids(built.suggest("cama", 10)));
+        assertEquals(0, built.popularity(4));
+        assertEquals(3, built.size());
+    }
+
+    @Test
+    void testSuggestPrefixEndingInsideEdge() {
+        // "funda para camara" queda en una sola arista: el prefijo termina dentro de ella
+        assertEquals(List.of(3), ids(trie.suggest("funda pa", 10)));
+        assertTrue(trie.suggest("funda po", 10).isEmpty());
+
+        trie.put(4, "Funda de piel", 7);
+        assertEquals(List.of(4, 3), ids(trie.suggest("funda", 10)));
+        assertEquals(List.of(3), ids(trie.suggest("funda p", 10)));
+
+        trie.remove(4);
+        assertEquals(List.of(3), ids(trie.suggest("funda pa", 10)));
+        assertTrue(trie.suggest("funda d", 10).isEmpty());
+    }
+
+    private static List<Integer> ids(List<SuggestTrie.Suggestion> suggestions) {
+        return suggestions.stream().map(SuggestTrie.Suggestion::id).toList();
+    }
+}
@@ -12,9 +12,11 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 
 import spring.ecommerce.dao.CartDao;
 import spring.ecommerce.dao.ProductDao;
+import spring.ecommerce.dto.PageResponseDto;
 import spring.ecommerce.entity.CartEntity;
 import spring.ecommerce.entity.ProductEntity;
 import spring.ecommerce.entity.UserEntity;
@@ -129,4 +131,20 @@ class CartServiceTest {
 
         verify(cartDao, never()).deleteById(any());
     }
+
+    @Test
+    void testGetCartDetailsOrderedByNameWithCursor() {
+        mockCartItem.setCartId(5);
+        CartEntity next = new CartEntity(mockProduct, mockUser);
+        next.setCartId(6);
+        when(commonService.getAuthenticatedUser()).thenReturn(mockUser);
+        when(cartDao.findFirstPage(mockUser, null, Limit.of(2))).thenReturn(List.of(mockCartItem, next));
+        when(cartDao.countFiltered(mockUser, null)).thenReturn(2L);
+
+        PageResponseDto<CartEntity> result = cartService.getCartDetailsOrderedByNameWithCursor("", 1, " ", true);
+
+        assertEquals(List.of(mockCartItem), result.getContent());
+        assertEquals(new PageCursor("Test Product", 5), PageCursor.decode(result.getNextCursor()));
+        assertEquals(2, result.getTotalPages());
+    }
 }
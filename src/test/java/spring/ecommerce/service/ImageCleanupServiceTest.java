@@ -0,0 +1,156 @@
+package spring.ecommerce.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import spring.ecommerce.dao.ImageDao;
+import spring.ecommerce.dao.ImageVariantDao;
+import spring.ecommerce.dto.ImageCleanupReportDto;
+import spring.ecommerce.entity.ImageEntity;
+import spring.ecommerce.storage.ImageCache;
+import spring.ecommerce.storage.ImagePackStore;
+import spring.ecommerce.storage.ImageStore;
+import spring.ecommerce.storage.StoredImage;
+
+@ExtendWith(MockitoExtension.class)
+class ImageCleanupServiceTest {
+
+    private static final String HASH = "9f64a747e1b97f131fabb6b447296c9b6f0201e79fb3c5356e6c77e89b6a806a";
+    private static final String ORPHAN_HASH = HASH.replace('9', '8');
+
+    @Mock
+    private ImageDao imageDao;
+
+    @Mock
+    private ImageVariantDao imageVariantDao;
+
+    @Mock
+    private ImageStore imageStore;
+
+    @Mock
+    private ImagePackStore imagePackStore;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private ImageCleanupService imageCleanupService;
+
+    @BeforeEach
+    void setUp() {
+        imageCleanupService = new ImageCleanupService(imageDao, imageVariantDao, imageStore, imagePackStore,
+                new ImageCache(DataSize.ofMegabytes(1), 100), transactionTemplate, Runnable::run, true, 2, 10, Duration.ZERO,
+                Duration.ofHours(24));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testCollectGarbage() throws IOException {
+        ImageEntity orphan = new ImageEntity("old.png", "old.png", "image/png", ORPHAN_HASH, 4L);
+        orphan.setId(7L);
+        when(imageDao.findOrphans(any(LocalDateTime.class), eq(0L), any(Limit.class))).thenReturn(List.of(orphan));
+        doAnswer(invocation -> {
+            invocation.getArgument(0, Consumer.class).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any(Consumer.class));
+        when(imageDao.deleteOrphansByIdIn(List.of(7L))).thenReturn(1);
+        when(imageVariantDao.deleteOrphansByImageIdIn(List.of(7L))).thenReturn(3);
+        when(imageVariantDao.findOrphanIds(any(Limit.class))).thenReturn(List.of());
+        when(imageStore.list(any(Instant.class))).thenReturn(Stream.of(
+                new StoredImage(HASH, 10), new StoredImage(ORPHAN_HASH, 4)));
+        when(imageDao.findReferencedHashes(anyCollection())).thenReturn(List.of(HASH));
+        when(imageVariantDao.findReferencedHashes(anyCollection())).thenReturn(List.of());
+        when(imagePackStore.list(any(Instant.class))).thenReturn(Stream.empty());
+
+        Optional<ImageCleanupReportDto> report = imageCleanupService.collectGarbage();
+
+        assertTrue(report.isPresent());
+        assertTrue(report.get().isCompleted());
+        assertEquals(1, report.get().getDeletedImages());
+        assertEquals(3, report.get().getDeletedVariants());
+        assertEquals(1, report.get().getDeletedContents());
+        assertEquals(4, report.get().getReclaimedBytes());
+        verify(imageStore).delete(ORPHAN_HASH);
+        verify(imageStore, never()).delete(HASH);
+        assertEquals(report, imageCleanupService.getLastReport());
+    }
+
+    @Test
+    void testCollectGarbage_BatchBudgetExhausted() throws IOException {
+        // Cada lote devuelve huérfanas nuevas, así que la ejecución se detiene al agotar los lotes
+        when(imageVariantDao.findOrphanIds(any(Limit.class))).thenReturn(List.of(1L, 2L));
+        when(imageVariantDao.deleteAllByIdIn(anyCollection())).thenReturn(2);
+        when(imageDao.findOrphans(any(LocalDateTime.class), anyLong(), any(Limit.class))).thenReturn(List.of());
+
+        Optional<ImageCleanupReportDto> report = imageCleanupService.collectGarbage();
+
+        assertTrue(report.isPresent());
+        assertFalse(report.get().isCompleted());
+        assertEquals(10, report.get().getBatches());
+        assertEquals(18, report.get().getDeletedVariants());
+        verify(imageStore, never()).list(any(Instant.class));
+    }
+
+    @Test
+    void testStartGarbageCollection() throws IOException {
+        when(imageDao.findOrphans(any(LocalDateTime.class), anyLong(), any(Limit.class))).thenReturn(List.of());
+        when(imageVariantDao.findOrphanIds(any(Limit.class))).thenReturn(List.of());
+        when(imageStore.list(any(Instant.class))).thenReturn(Stream.empty());
+        when(imagePackStore.list(any(Instant.class))).thenReturn(Stream.empty());
+
+        assertTrue(imageCleanupService.startGarbageCollection());
+
+        assertTrue(imageCleanupService.getLastReport().get().isCompleted());
+        assertTrue(imageCleanupService.startGarbageCollection());
+    }
+
+    @Test
+    void testStartGarbageCollection_ExecutorBusy() {
+        AtomicInteger submissions = new AtomicInteger();
+        ImageCleanupService busyService = new ImageCleanupService(imageDao, imageVariantDao, imageStore,
+                imagePackStore, new ImageCache(DataSize.ofMegabytes(1), 100), transactionTemplate, task -> {
+                    submissions.incrementAndGet();
+                    throw new RejectedExecutionException("busy");
+                }, true, 2, 10, Duration.ZERO, Duration.ofHours(24));
+
+        assertFalse(busyService.startGarbageCollection());
+        // El rechazo no deja la ejecución marcada como en curso: se vuelve a intentar
+        assertFalse(busyService.startGarbageCollection());
+        assertEquals(2, submissions.get());
+        assertTrue(busyService.getLastReport().isEmpty());
+    }
+
+    @Test
+    void testGetLastReport_NotRunYet() {
+        assertTrue(imageCleanupService.getLastReport().isEmpty());
+    }
+}
@@ -0,0 +1,102 @@
+package spring.ecommerce.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.data.domain.Limit;
+
+import spring.ecommerce.dao.ImageDao;
+import spring.ecommerce.entity.ImageEntity;
+import spring.ecommerce.storage.ImageCache;
+import spring.ecommerce.storage.ImageStore;
+
+@ExtendWith(MockitoExtension.class)
+class ImagePlaceholderServiceTest {
+
+    private static final String HASH = "9f64a747e1b97f131fabb6b447296c9b6f0201e79fb3c5356e6c77e89b6a806a";
+    private static final String OTHER_HASH = "8f64a747e1b97f131fabb6b447296c9b6f0201e79fb3c5356e6c77e89b6a806a";
+
+    @Mock
+    private ImageDao imageDao;
+
+    @Mock
+    private ImageStore imageStore;
+
+    @Mock
+    private ImageCache imageCache;
+
+    private ImagePlaceholderService imagePlaceholderService;
+
+    @BeforeEach
+    void setUp() {
+        imagePlaceholderService = new ImagePlaceholderService(imageDao, imageStore, imageCache, true, 2, Duration.ZERO);
+    }
+
+    @Test
+    void testBackfill() throws IOException {
+        ImageEntity first = image(1L, HASH);
+        ImageEntity second = image(2L, OTHER_HASH);
+        ImageEntity third = image(3L, HASH);
+        when(imageDao.findWithoutPlaceholder(0L, Limit.of(2))).thenReturn(List.of(first, second));
+        when(imageDao.findWithoutPlaceholder(2L, Limit.of(2))).thenReturn(List.of(third));
+        when(imageStore.load(HASH)).thenReturn(Optional.of(new ByteArrayResource(png())));
+        // Contenido que no se puede decodificar: se salta sin volver a intentarlo
+        when(imageStore.load(OTHER_HASH)).thenReturn(Optional.of(new ByteArrayResource("<svg/>".getBytes())));
+
+        int updated = imagePlaceholderService.backfill();
+
+        assertEquals(2, updated);
+        verify(imageDao).updatePlaceholder(1L, "L00000" + "fQ".repeat(11));
+        verify(imageDao).updatePlaceholder(3L, "L00000" + "fQ".repeat(11));
+        verify(imageDao, never()).updatePlaceholder(eq(2L), any());
+        verify(imageCache).invalidateImage(first);
+        verify(imageCache).invalidateImage(third);
+        verify(imageCache, never()).invalidateImage(second);
+    }
+
+    @Test
+    void testComputePlaceholder_MissingContent() {
+        when(imageStore.load(HASH)).thenReturn(Optional.empty());
+
+        assertFalse(imagePlaceholderService.computePlaceholder(image(1L, HASH)).isPresent());
+    }
+
+    @Test
+    void testBackfillPlaceholders_Disabled() {
+        new ImagePlaceholderService(imageDao, imageStore, imageCache, false, 2, Duration.ZERO).backfillPlaceholders();
+
+        verify(imageDao, never()).findWithoutPlaceholder(any(), any());
+    }
+
+    private static ImageEntity image(Long id, String hash) {
+        ImageEntity image = new ImageEntity("test.png", "test.png", "image/png", hash, 4L);
+        image.setId(id);
+        return image;
+    }
+
+    private static byte[] png() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(640, 480, BufferedImage.TYPE_INT_RGB), "png", outputStream);
+        return outputStream.toByteArray();
+    }
+}
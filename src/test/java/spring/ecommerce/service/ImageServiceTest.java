@@ -1,29 +1,56 @@
 package spring.ecommerce.service;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.Limit;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
+import spring.ecommerce.constants.ConstantsEcommerce;
 import spring.ecommerce.dao.ImageDao;
+import spring.ecommerce.dao.ImageVariantDao;
+import spring.ecommerce.dto.CursorPageResponseDto;
+import spring.ecommerce.dto.ImageMetadataDto;
 import spring.ecommerce.entity.ImageEntity;
+import spring.ecommerce.event.ImageChangedEvent;
+import spring.ecommerce.event.ImagesStoredEvent;
+import spring.ecommerce.exception.InvalidImageException;
+import spring.ecommerce.storage.ImageCache;
+import spring.ecommerce.storage.ImageStore;
+import spring.ecommerce.storage.StoredImage;
 
 @ExtendWith(MockitoExtension.class)
 class ImageServiceTest {
@@ -31,35 +58,145 @@ class ImageServiceTest {
     @Mock
     private ImageDao imageDao;
 
+    @Mock
+    private ImageStore imageStore;
+
+    @Mock
+    private ImageVariantDao imageVariantDao;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private ImageCache imageCache = new ImageCache(DataSize.ofMegabytes(1), 100);
+
+    @Mock
+    private NearDuplicateService nearDuplicateService;
+
     @Mock
     private MultipartFile mockFile;
 
-    @InjectMocks
     private ImageService imageService;
 
+    private static final String HASH = "9f64a747e1b97f131fabb6b447296c9b6f0201e79fb3c5356e6c77e89b6a806a";
+    private static final String OTHER_HASH = "8f64a747e1b97f131fabb6b447296c9b6f0201e79fb3c5356e6c77e89b6a806a";
+
+    private static final byte[] PNG_CONTENT = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0, 0, 0, 13, 1, 2};
+
     private ImageEntity mockImage;
 
     @BeforeEach
     void setUp() {
         // Solo inicializar la imagen simulada
-        mockImage = new ImageEntity("test.png", "test.png", "image/png", new byte[]{1, 2, 3, 4});
+        mockImage = new ImageEntity("test.png", "test.png", "image/png", HASH, 4L);
+        imageService = new ImageService(imageDao, imageStore, imageVariantDao, eventPublisher, imageCache, nearDuplicateService, Runnable::run);
     }
 
     @Test
     void testSaveImage() throws IOException {
         // Simulación de archivo dentro de la prueba
         when(mockFile.getOriginalFilename()).thenReturn("test.png");
-        when(mockFile.getContentType()).thenReturn("image/png");
-        when(mockFile.getBytes()).thenReturn(new byte[]{1, 2, 3, 4});
+        when(mockFile.getInputStream()).thenReturn(new ByteArrayInputStream(PNG_CONTENT));
+        when(imageStore.store(any(InputStream.class))).thenReturn(new StoredImage(HASH, 4));
 
-        when(imageDao.save(any(ImageEntity.class))).thenReturn(mockImage);
+        when(imageDao.save(any(ImageEntity.class))).thenAnswer(invocation -> {
+            ImageEntity image = invocation.getArgument(0);
+            image.setId(1L);
+            return image;
+        });
 
         ImageEntity savedImage = imageService.saveImage(mockFile);
 
         assertNotNull(savedImage);
         assertEquals("test.png", savedImage.getName());
         assertEquals("image/png", savedImage.getType());
-        assertNotNull(savedImage.getName());
+        assertEquals(HASH, savedImage.getHash());
+        assertEquals(4L, savedImage.getSize());
+        verify(eventPublisher, times(1)).publishEvent(any(ImagesStoredEvent.class));
+    }
+
+    @Test
+    void testStoreImage_DetectsContentType() throws IOException {
+        when(mockFile.getOriginalFilename()).thenReturn("photo.jpg");
+        when(mockFile.getInputStream()).thenReturn(new ByteArrayInputStream(PNG_CONTENT));
+        when(imageStore.store(any(InputStream.class))).thenAnswer(invocation -> {
+            byte[] content = ((InputStream) invocation.getArgument(0)).readAllBytes();
+            assertArrayEquals(PNG_CONTENT, content);
+            return new StoredImage(HASH, content.length);
+        });
+
+        ImageEntity image = imageService.storeImage(mockFile, "name");
+
+        assertEquals("image/png", image.getType());
+        assertEquals(PNG_CONTENT.length, image.getSize());
+    }
+
+    @Test
+    void testStoreImage_TooLarge() throws IOException {
+        when(mockFile.getSize()).thenReturn(ConstantsEcommerce.MAX_IMAGE_SIZE + 1);
+
+        assertThrows(InvalidImageException.class, () -> imageService.storeImage(mockFile, "name"));
+        verify(mockFile, never()).getInputStream();
+    }
+
+    @Test
+    void testStoreImage_TooLargeWhileStreaming() throws IOException {
+        // El tamaño declarado no supera el límite, pero el contenido sí
+        InputStream endless = new SequenceInputStream(new ByteArrayInputStream(PNG_CONTENT), new InputStream() {
+            @Override
+            public int read() {
+                return 0;
+            }
+        });
+        when(mockFile.getInputStream()).thenReturn(endless);
+        when(imageStore.store(any(InputStream.class))).thenAnswer(invocation -> {
+            ((InputStream) invocation.getArgument(0)).transferTo(OutputStream.nullOutputStream());
+            return new StoredImage(HASH, 0);
+        });
+
+        assertThrows(InvalidImageException.class, () -> imageService.storeImage(mockFile, "name"));
+    }
+
+    @Test
+    void testStoreImage_NotAnImage() throws IOException {
+        when(mockFile.getInputStream()).thenReturn(new ByteArrayInputStream("<svg onload=alert(1)/>".getBytes()));
+
+        assertThrows(InvalidImageException.class, () -> imageService.storeImage(mockFile, "name"));
+        verify(imageStore, never()).store(any(InputStream.class));
+    }
+
+    @Test
+    void testStoreImages() throws IOException {
+        ImageService directImageService = new ImageService(imageDao, imageStore, imageVariantDao, eventPublisher, imageCache, nearDuplicateService, Runnable::run);
+        MultipartFile otherFile = mock(MultipartFile.class);
+        when(mockFile.getOriginalFilename()).thenReturn("a.png");
+        when(mockFile.getInputStream()).thenReturn(new ByteArrayInputStream(PNG_CONTENT));
+        when(otherFile.getOriginalFilename()).thenReturn("b.png");
+        when(otherFile.getInputStream()).thenReturn(new ByteArrayInputStream(PNG_CONTENT));
+        when(imageStore.store(any(InputStream.class))).thenReturn(new StoredImage(HASH, PNG_CONTENT.length));
+
+        List<ImageEntity> images = directImageService.storeImages(List.of(mockFile, otherFile));
+
+        assertEquals(2, images.size());
+        assertEquals("a.png", images.get(0).getShortName());
+        assertEquals("b.png", images.get(1).getShortName());
+        assertTrue(images.get(0).getName().endsWith("_a.png"));
+        assertNotEquals(images.get(0).getName(), images.get(1).getName());
+    }
+
+    @Test
+    void testStoreImages_RejectsInvalidFile() throws IOException {
+        ImageService directImageService = new ImageService(imageDao, imageStore, imageVariantDao, eventPublisher, imageCache, nearDuplicateService, Runnable::run);
+        when(mockFile.getSize()).thenReturn(ConstantsEcommerce.MAX_IMAGE_SIZE + 1);
+
+        assertThrows(InvalidImageException.class, () -> directImageService.storeImages(List.of(mockFile)));
+    }
+
+    @Test
+    void testRequestVariants_UnsavedImages() {
+        imageService.requestVariants(List.of(mockImage));
+
+        verify(eventPublisher, never()).publishEvent(any(ImagesStoredEvent.class));
     }
 
 
@@ -73,6 +210,48 @@ class ImageServiceTest {
         assertEquals("test.png", foundImage.get().getName());
     }
 
+    @Test
+    void testGetImageById_Cached() {
+        mockImage.setId(1L);
+        when(imageDao.findById(1L)).thenReturn(Optional.of(mockImage));
+
+        imageService.getImageById(1L);
+        Optional<ImageEntity> foundImage = imageService.getImageById(1L);
+
+        assertTrue(foundImage.isPresent());
+        verify(imageDao, times(1)).findById(1L);
+    }
+
+    @Test
+    void testLoadContent_Cached() throws IOException {
+        when(imageStore.load(HASH)).thenReturn(Optional.of(new ByteArrayResource(PNG_CONTENT)));
+
+        imageService.loadContent(mockImage);
+        Optional<Resource> content = imageService.loadContent(mockImage);
+
+        assertTrue(content.isPresent());
+        assertArrayEquals(PNG_CONTENT, content.get().getInputStream().readAllBytes());
+        verify(imageStore, times(1)).load(HASH);
+    }
+
+    @Test
+    void testRemoveImage_InvalidatesCache() {
+        mockImage.setId(1L);
+        when(imageDao.findById(1L)).thenReturn(Optional.of(mockImage));
+
+        imageService.getImageById(1L);
+        imageService.removeImage(1L);
+        imageService.getImageById(1L);
+
+        // La caché sólo se invalida al confirmarse la transacción, al recibir el evento
+        verify(imageDao, times(2)).findById(1L);
+        verify(eventPublisher, times(1)).publishEvent(any(ImageChangedEvent.class));
+
+        imageCache.onImageChanged(new ImageChangedEvent(mockImage));
+        imageService.getImageById(1L);
+        verify(imageDao, times(3)).findById(1L);
+    }
+
     @Test
     void testGetImageById_NotFound() {
         when(imageDao.findById(1L)).thenReturn(Optional.empty());
@@ -81,17 +260,65 @@ class ImageServiceTest {
     }
 
     @Test
-    void testGetAllImages() {
-        when(imageDao.findAll()).thenReturn(List.of(mockImage));
+    void testGetImageMetadataPage() {
+        ImageMetadataDto first = new ImageMetadataDto(3L, "a.png", "a.png", "image/png", 4L, HASH);
+        ImageMetadataDto second = new ImageMetadataDto(7L, "b.png", "b.png", "image/png", 4L, HASH);
+        when(imageDao.findMetadataAfter(2L, Limit.of(2))).thenReturn(List.of(first, second));
+        when(imageDao.findProductIdsByImageIds(Set.of(3L, 7L))).thenReturn(List.<Object[]>of(new Object[]{3L, 10}));
 
-        List<ImageEntity> images = imageService.getAllImages();
-        assertFalse(images.isEmpty());
-        assertEquals(1, images.size());
+        CursorPageResponseDto<ImageMetadataDto> page = imageService.getImageMetadataPage("2", 2);
+
+        assertEquals(2, page.getContent().size());
+        assertEquals(List.of(10), page.getContent().get(0).getProductIds());
+        assertTrue(page.getContent().get(1).getProductIds().isEmpty());
+        assertEquals("7", page.getNextCursor());
+    }
+
+    @Test
+    void testGetImageMetadataPage_LastPage() {
+        ImageMetadataDto image = new ImageMetadataDto(3L, "a.png", "a.png", "image/png", 4L, HASH);
+        when(imageDao.findMetadataAfter(0L, Limit.of(50))).thenReturn(List.of(image));
+        when(imageDao.findProductIdsByImageIds(Set.of(3L))).thenReturn(List.of());
+
+        CursorPageResponseDto<ImageMetadataDto> page = imageService.getImageMetadataPage(null, 50);
+
+        assertEquals(1, page.getContent().size());
+        assertNull(page.getNextCursor());
     }
 
     @Test
-    void testRemoveImage() {
+    void testGetImageMetadataPage_InvalidCursor() {
+        assertThrows(NumberFormatException.class, () -> imageService.getImageMetadataPage("abc", 50));
+    }
+
+    @Test
+    void testForEachImageMetadata() {
+        List<ImageMetadataDto> batch = new ArrayList<>();
+        for (long id = 1; id <= 500; id++) {
+            batch.add(new ImageMetadataDto(id, "a.png", "a.png", "image/png", 4L, HASH));
+        }
+        when(imageDao.findMetadataAfter(0L, Limit.of(500))).thenReturn(batch);
+        when(imageDao.findMetadataAfter(500L, Limit.of(500))).thenReturn(List.of());
+        when(imageDao.findProductIdsByImageIds(any())).thenReturn(List.of());
+
+        List<ImageMetadataDto> images = new ArrayList<>();
+        imageService.forEachImageMetadata(images::add);
+
+        assertEquals(500, images.size());
+        verify(imageDao, times(2)).findMetadataAfter(any(), any());
+    }
+
+    @Test
+    void testComputeETag() {
+        String eTag = imageService.computeETag(mockImage);
+
+        assertEquals("\"" + HASH + "\"", eTag);
+    }
+
+    @Test
+    void testRemoveImage() throws IOException {
         // No devuelve nada porque es `void`, solo verificamos que se llame al método
+        when(imageDao.findById(1L)).thenReturn(Optional.of(mockImage));
         doNothing().when(imageDao).deleteFromProductImagesByImageID(1L);
         doNothing().when(imageDao).deleteById(1L);
 
@@ -99,5 +326,44 @@ class ImageServiceTest {
 
         verify(imageDao, times(1)).deleteFromProductImagesByImageID(1L);
         verify(imageDao, times(1)).deleteById(1L);
+        // El contenido lo borra la limpieza programada, pasado el periodo de gracia
+        verify(imageStore, never()).delete(HASH);
+    }
+
+    @Test
+    void testReuseNearDuplicates() throws IOException {
+        ImageEntity existing = new ImageEntity("existing.png", "existing.png", "image/png", HASH, 4L);
+        existing.setId(7L);
+        ImageEntity duplicate = new ImageEntity("copy.png", "copy.png", "image/png", OTHER_HASH, 5L);
+        duplicate.setPerceptualHash(42L);
+        when(nearDuplicateService.findReusableImage(duplicate)).thenReturn(Optional.of(existing));
+        when(nearDuplicateService.findReusableImage(mockImage)).thenReturn(Optional.empty());
+
+        List<ImageEntity> images = imageService.reuseNearDuplicates(List.of(duplicate, mockImage));
+
+        assertEquals(List.of(existing, mockImage), images);
+        verify(imageStore, never()).delete(OTHER_HASH);
+    }
+
+    @Test
+    void testDiscardImages_StillUsedByAnotherProduct() throws IOException {
+        mockImage.setId(1L);
+        when(imageDao.countProductLinks(1L)).thenReturn(1L);
+
+        imageService.discardImages(List.of(mockImage));
+
+        verify(imageDao, never()).delete(any(ImageEntity.class));
+        verify(imageStore, never()).delete(HASH);
+        verify(eventPublisher, never()).publishEvent(any(ImageChangedEvent.class));
+    }
+
+    @Test
+    void testRemoveImage_DiscardsVariants() throws IOException {
+        when(imageDao.findById(1L)).thenReturn(Optional.of(mockImage));
+
+        imageService.removeImage(1L);
+
+        verify(imageVariantDao, times(1)).deleteByImageId(1L);
+        verify(imageStore, never()).delete(any());
     }
 }
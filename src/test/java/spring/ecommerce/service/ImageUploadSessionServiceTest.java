@@ -0,0 +1,170 @@
+package spring.ecommerce.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.unit.DataSize;
+
+import spring.ecommerce.dao.ImageDao;
+import spring.ecommerce.dao.ImageUploadSessionDao;
+import spring.ecommerce.dto.UploadSessionDto;
+import spring.ecommerce.entity.ImageEntity;
+import spring.ecommerce.entity.ImageUploadSessionEntity;
+import spring.ecommerce.exception.InvalidImageException;
+import spring.ecommerce.exception.UploadOffsetConflictException;
+import spring.ecommerce.exception.UploadSessionNotFoundException;
+import spring.ecommerce.storage.ContentHash;
+import spring.ecommerce.storage.FileSystemImageStore;
+
+@ExtendWith(MockitoExtension.class)
+class ImageUploadSessionServiceTest {
+
+    @TempDir
+    Path storageDirectory;
+
+    @Mock
+    private ImageUploadSessionDao imageUploadSessionDao;
+
+    @Mock
+    private ImageDao imageDao;
+
+    @Mock
+    private ImageService imageService;
+
+    private FileSystemImageStore imageStore;
+
+    private ImageUploadSessionService imageUploadSessionService;
+
+    private byte[] content;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        imageStore = new FileSystemImageStore(storageDirectory.toString());
+        imageUploadSessionService = new ImageUploadSessionService(imageUploadSessionDao, imageDao, imageStore,
+                imageService, storageDirectory.resolve(".uploads").toString(), DataSize.ofMegabytes(1),
+                Duration.ofHours(24));
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(64, 64, BufferedImage.TYPE_INT_RGB), "png", outputStream);
+        content = outputStream.toByteArray();
+    }
+
+    @Test
+    void testCreateSession_TooLarge() {
+        assertThrows(InvalidImageException.class,
+                () -> imageUploadSessionService.createSession("large.png", DataSize.ofMegabytes(2).toBytes()));
+        verify(imageUploadSessionDao, never()).save(any());
+    }
+
+    @Test
+    void testUploadInChunksAndCommit() {
+        UploadSessionDto session = createSession();
+
+        int half = content.length / 2;
+        UploadSessionDto afterFirst = imageUploadSessionService.writeChunk(session.getId(), 0,
+                new ByteArrayInputStream(Arrays.copyOfRange(content, 0, half)));
+        UploadSessionDto afterSecond = imageUploadSessionService.writeChunk(session.getId(), half,
+                new ByteArrayInputStream(Arrays.copyOfRange(content, half, content.length)));
+        when(imageDao.save(any(ImageEntity.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        ImageEntity image = imageUploadSessionService.commit(session.getId(), sha256(content));
+
+        assertEquals(half, afterFirst.getOffset());
+        assertEquals(content.length, afterSecond.getOffset());
+        assertEquals("image/png", image.getType());
+        assertEquals("photo.png", image.getShortName());
+        assertEquals(sha256(content), image.getHash());
+        assertTrue(imageStore.load(image.getHash()).isPresent());
+        verify(imageService).requestVariants(anyList());
+    }
+
+    @Test
+    void testWriteChunk_WrongOffset() {
+        UploadSessionDto session = createSession();
+        imageUploadSessionService.writeChunk(session.getId(), 0, new ByteArrayInputStream(content, 0, 10));
+
+        UploadOffsetConflictException exception = assertThrows(UploadOffsetConflictException.class,
+                () -> imageUploadSessionService.writeChunk(session.getId(), 0, new ByteArrayInputStream(content)));
+
+        assertEquals(10, exception.getOffset());
+    }
+
+    @Test
+    void testWriteChunk_ExceedsAnnouncedSize() {
+        UploadSessionDto session = createSession();
+        byte[] tooLong = Arrays.copyOf(content, content.length + 1);
+
+        assertThrows(InvalidImageException.class,
+                () -> imageUploadSessionService.writeChunk(session.getId(), 0, new ByteArrayInputStream(tooLong)));
+
+        assertEquals(0, imageUploadSessionService.getSession(session.getId()).getOffset());
+    }
+
+    @Test
+    void testCommit_Incomplete() {
+        UploadSessionDto session = createSession();
+        imageUploadSessionService.writeChunk(session.getId(), 0, new ByteArrayInputStream(content, 0, 10));
+
+        assertThrows(InvalidImageException.class,
+                () -> imageUploadSessionService.commit(session.getId(), sha256(content)));
+        verify(imageDao, never()).save(any());
+    }
+
+    @Test
+    void testCommit_HashMismatch() {
+        UploadSessionDto session = createSession();
+        imageUploadSessionService.writeChunk(session.getId(), 0, new ByteArrayInputStream(content));
+
+        assertThrows(InvalidImageException.class,
+                () -> imageUploadSessionService.commit(session.getId(), sha256(new byte[] { 1 })));
+
+        assertFalse(imageStore.load(sha256(content)).isPresent());
+        verify(imageUploadSessionDao).delete(any(ImageUploadSessionEntity.class));
+        verify(imageDao, never()).save(any());
+    }
+
+    @Test
+    void testGetSession_NotFound() {
+        when(imageUploadSessionDao.findById("missing")).thenReturn(Optional.empty());
+
+        assertThrows(UploadSessionNotFoundException.class, () -> imageUploadSessionService.getSession("missing"));
+    }
+
+    private UploadSessionDto createSession() {
+        when(imageUploadSessionDao.save(any(ImageUploadSessionEntity.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        UploadSessionDto session = imageUploadSessionService.createSession("photo.png", content.length);
+        when(imageUploadSessionDao.findById(session.getId()))
+                .thenReturn(Optional.of(new ImageUploadSessionEntity(session.getId(), "photo.png", (long) content.length)));
+        return session;
+    }
+
+    private static String sha256(byte[] bytes) {
+        return ContentHash.toHex(ContentHash.newDigest().digest(bytes));
+    }
+}
@@ -0,0 +1,156 @@
+package spring.ecommerce.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Optional;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.ByteArrayResource;
+
+import spring.ecommerce.dao.ImageDao;
+import spring.ecommerce.dao.ImageVariantDao;
+import spring.ecommerce.entity.ImageEntity;
+import spring.ecommerce.entity.ImageVariantEntity;
+import spring.ecommerce.event.ProductChangedEvent;
+import spring.ecommerce.storage.ImageCache;
+import spring.ecommerce.storage.ImagePackStore;
+import spring.ecommerce.storage.ImageStore;
+import spring.ecommerce.storage.ImageVariant;
+import spring.ecommerce.storage.StoredImage;
+
+@ExtendWith(MockitoExtension.class)
+class ImageVariantServiceTest {
+
+    private static final String HASH = "9f64a747e1b97f131fabb6b447296c9b6f0201e79fb3c5356e6c77e89b6a806a";
+
+    @Mock
+    private ImageDao imageDao;
+
+    @Mock
+    private ImageVariantDao imageVariantDao;
+
+    @Mock
+    private ImageStore imageStore;
+
+    @Mock
+    private ImagePackStore imagePackStore;
+
+    @Mock
+    private ImageCache imageCache;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private ImageVariantService imageVariantService;
+
+    private ImageEntity image;
+
+    @BeforeEach
+    void setUp() {
+        image = new ImageEntity("test.png", "test.png", "image/png", HASH, 4L);
+        image.setId(1L);
+        imageVariantService = new ImageVariantService(imageDao, imageVariantDao, imageStore, imagePackStore, imageCache,
+                eventPublisher);
+    }
+
+    @Test
+    void testGenerateVariants() throws IOException {
+        when(imageDao.findById(1L)).thenReturn(Optional.of(image));
+        when(imageStore.load(HASH)).thenReturn(Optional.of(new ByteArrayResource(png(2000, 1000))));
+        when(imageStore.store(any(InputStream.class))).thenReturn(new StoredImage(HASH.replace('9', '8'), 10));
+        when(imageVariantDao.save(any(ImageVariantEntity.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<ImageVariantEntity> variants = imageVariantService.generateVariants(1L);
+
+        assertEquals(3, variants.size());
+        assertEquals(ImageVariant.DETAIL, variants.get(0).getVariant());
+        assertEquals(1024, variants.get(0).getWidth());
+        assertEquals(512, variants.get(0).getHeight());
+        assertEquals(ImageVariant.THUMBNAIL, variants.get(2).getVariant());
+        assertEquals(150, variants.get(2).getWidth());
+        assertEquals(75, variants.get(2).getHeight());
+        // Imagen negra y uniforme: color medio 0 y ninguna componente AC
+        verify(imageDao).updatePlaceholder(1L, "L00000" + "fQ".repeat(11));
+        verify(imageCache).invalidateImage(image);
+        verify(eventPublisher).publishEvent(any(ProductChangedEvent.class));
+    }
+
+    @Test
+    void testGenerateVariants_SmallImage() throws IOException {
+        when(imageDao.findById(1L)).thenReturn(Optional.of(image));
+        when(imageStore.load(HASH)).thenReturn(Optional.of(new ByteArrayResource(png(300, 200))));
+        when(imageStore.store(any(InputStream.class))).thenReturn(new StoredImage(HASH.replace('9', '8'), 10));
+        when(imageVariantDao.save(any(ImageVariantEntity.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<ImageVariantEntity> variants = imageVariantService.generateVariants(1L);
+
+        // Solo la miniatura es más pequeña que el original
+        assertEquals(1, variants.size());
+        assertEquals(ImageVariant.THUMBNAIL, variants.get(0).getVariant());
+    }
+
+    @Test
+    void testGenerateVariants_SmallVariantsArePacked() throws IOException {
+        when(imageDao.findById(1L)).thenReturn(Optional.of(image));
+        when(imageStore.load(HASH)).thenReturn(Optional.of(new ByteArrayResource(png(300, 200))));
+        when(imagePackStore.accepts(anyLong())).thenReturn(true);
+        when(imagePackStore.store(any(InputStream.class))).thenReturn(new StoredImage(HASH.replace('9', '8'), 10));
+        when(imageVariantDao.save(any(ImageVariantEntity.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<ImageVariantEntity> variants = imageVariantService.generateVariants(1L);
+
+        assertEquals(1, variants.size());
+        verify(imageStore, never()).store(any(InputStream.class));
+    }
+
+    @Test
+    void testGenerateVariants_UnsupportedFormat() throws IOException {
+        when(imageDao.findById(1L)).thenReturn(Optional.of(image));
+        when(imageStore.load(HASH)).thenReturn(Optional.of(new ByteArrayResource("<svg/>".getBytes())));
+
+        List<ImageVariantEntity> variants = imageVariantService.generateVariants(1L);
+
+        assertTrue(variants.isEmpty());
+        verify(imageStore, never()).store(any(InputStream.class));
+    }
+
+    @Test
+    void testGenerateVariants_AlreadyGenerated() {
+        image.setPlaceholder("L00000" + "fQ".repeat(11));
+        when(imageDao.findById(1L)).thenReturn(Optional.of(image));
+        when(imageVariantDao.findByImageId(1L)).thenReturn(List.of(
+                new ImageVariantEntity(1L, ImageVariant.DETAIL, HASH, "image/png", 1024, 512, 10L),
+                new ImageVariantEntity(1L, ImageVariant.CARD, HASH, "image/png", 400, 200, 10L),
+                new ImageVariantEntity(1L, ImageVariant.THUMBNAIL, HASH, "image/png", 150, 75, 10L)));
+
+        List<ImageVariantEntity> variants = imageVariantService.generateVariants(1L);
+
+        assertTrue(variants.isEmpty());
+        verify(imageStore, times(0)).load(HASH);
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", outputStream);
+        return outputStream.toByteArray();
+    }
+}
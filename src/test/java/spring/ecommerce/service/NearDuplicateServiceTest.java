@@ -0,0 +1,175 @@
+package spring.ecommerce.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.data.domain.Limit;
+
+import spring.ecommerce.dao.ImageDao;
+import spring.ecommerce.dto.ImageMetadataDto;
+import spring.ecommerce.dto.NearDuplicateClusterDto;
+import spring.ecommerce.entity.ImageEntity;
+import spring.ecommerce.event.ImagesStoredEvent;
+import spring.ecommerce.storage.ImageCache;
+import spring.ecommerce.storage.ImageStore;
+
+@ExtendWith(MockitoExtension.class)
+class NearDuplicateServiceTest {
+
+    private static final String HASH = "9f64a747e1b97f131fabb6b447296c9b6f0201e79fb3c5356e6c77e89b6a806a";
+
+    @Mock
+    private ImageDao imageDao;
+
+    @Mock
+    private ImageStore imageStore;
+
+    @Mock
+    private ImageCache imageCache;
+
+    private NearDuplicateService nearDuplicateService;
+
+    private ImageEntity existing;
+
+    @BeforeEach
+    void setUp() {
+        nearDuplicateService = new NearDuplicateService(imageDao, imageStore, imageCache, 4, true, true, 100, Duration.ZERO);
+        existing = new ImageEntity("existing.png", "existing.png", "image/png", HASH, 4L);
+        existing.setId(1L);
+        existing.setPerceptualHash(0b1111L);
+    }
+
+    @Test
+    void testFindReusableImage() {
+        when(imageDao.findPerceptualHashes()).thenReturn(List.of(new Object[] {1L, 0b1111L}, new Object[] {2L, -1L}));
+        when(imageDao.findById(1L)).thenReturn(Optional.of(existing));
+
+        Optional<ImageEntity> image = nearDuplicateService.findReusableImage(upload(0b0111L));
+
+        assertEquals(Optional.of(existing), image);
+        verify(imageDao, never()).findById(2L);
+    }
+
+    @Test
+    void testFindReusableImage_TooFar() {
+        when(imageDao.findPerceptualHashes()).thenReturn(List.<Object[]>of(new Object[] {1L, 0b1111L}));
+
+        assertFalse(nearDuplicateService.findReusableImage(upload(0b1111L << 8)).isPresent());
+        verify(imageDao, never()).findById(anyLong());
+    }
+
+    @Test
+    void testFindReusableImage_Disabled() {
+        NearDuplicateService disabled = new NearDuplicateService(imageDao, imageStore, imageCache, 4, false, true, 100, Duration.ZERO);
+
+        assertFalse(disabled.findReusableImage(upload(0b1111L)).isPresent());
+        verify(imageDao, never()).findPerceptualHashes();
+    }
+
+    @Test
+    void testFindNearDuplicate_DropsDeletedImages() {
+        when(imageDao.findPerceptualHashes()).thenReturn(List.<Object[]>of(new Object[] {1L, 0b1111L}));
+        when(imageDao.findById(1L)).thenReturn(Optional.empty());
+
+        assertFalse(nearDuplicateService.findNearDuplicate(0b1111L).isPresent());
+        assertFalse(nearDuplicateService.findNearDuplicate(0b1111L).isPresent());
+
+        verify(imageDao, times(1)).findById(1L);
+    }
+
+    @Test
+    void testOnImagesStored_AddsToLoadedIndex() {
+        when(imageDao.findPerceptualHashes()).thenReturn(List.of());
+        nearDuplicateService.findNearDuplicate(0L);
+        when(imageDao.findAllById(List.of(1L))).thenReturn(List.of(existing));
+        when(imageDao.findById(1L)).thenReturn(Optional.of(existing));
+
+        nearDuplicateService.onImagesStored(new ImagesStoredEvent(List.of(1L)));
+
+        assertEquals(Optional.of(existing), nearDuplicateService.findNearDuplicate(0b1110L));
+    }
+
+    @Test
+    void testFindClusters() {
+        when(imageDao.findPerceptualHashes()).thenReturn(List.of(new Object[] {1L, 0b1111L},
+                new Object[] {2L, 0b1110L}, new Object[] {3L, 0b1100L}, new Object[] {4L, -1L}));
+        when(imageDao.findMetadataByIdIn(any())).thenAnswer(invocation -> ((Collection<?>) invocation
+                .getArgument(0)).stream().map(id -> new ImageMetadataDto((Long) id, "n", "n", "image/png", 10L, HASH))
+                .toList());
+        when(imageDao.findProductIdsByImageIds(any())).thenReturn(List.<Object[]>of(new Object[] {1L, 5}));
+
+        List<NearDuplicateClusterDto> clusters = nearDuplicateService.findClusters(1);
+
+        // 1-2 y 2-3 están a distancia 1: se agrupan en cadena
+        assertEquals(1, clusters.size());
+        NearDuplicateClusterDto cluster = clusters.get(0);
+        assertEquals(Set.of(1L, 2L, 3L), Set.copyOf(cluster.getImages().stream().map(ImageMetadataDto::getId).toList()));
+        assertEquals(2, cluster.getMaxDistance());
+        assertEquals(30, cluster.getTotalSize());
+        assertTrue(cluster.getImages().stream().anyMatch(image -> image.getProductIds().contains(5)));
+    }
+
+    @Test
+    void testBackfillPerceptualHashes() throws IOException {
+        ImageEntity legacy = new ImageEntity("legacy.png", "legacy.png", "image/png", HASH, 4L);
+        legacy.setId(9L);
+        when(imageDao.findWithoutPerceptualHash(0L, Limit.of(100))).thenReturn(List.of(legacy));
+        when(imageStore.load(HASH)).thenReturn(Optional.of(new ByteArrayResource(png())));
+
+        assertEquals(1, nearDuplicateService.backfill());
+
+        verify(imageDao).updatePerceptualHash(any(), any());
+        verify(imageCache).invalidateImage(legacy);
+    }
+
+    @Test
+    void testBackfillPerceptualHashes_Disabled() {
+        new NearDuplicateService(imageDao, imageStore, imageCache, 4, true, false, 100, Duration.ZERO).backfillPerceptualHashes();
+
+        verify(imageDao, never()).findWithoutPerceptualHash(anyLong(), any());
+    }
+
+    @Test
+    void testComputePerceptualHash_MissingContent() {
+        when(imageStore.load(HASH)).thenReturn(Optional.empty());
+
+        assertEquals(OptionalLong.empty(), nearDuplicateService.computePerceptualHash(HASH));
+    }
+
+    private static ImageEntity upload(long perceptualHash) {
+        ImageEntity image = new ImageEntity("new.png", "new.png", "image/png", HASH, 4L);
+        image.setPerceptualHash(perceptualHash);
+        return image;
+    }
+
+    private static byte[] png() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(32, 32, BufferedImage.TYPE_INT_RGB), "png", outputStream);
+        return outputStream.toByteArray();
+    }
+}
@@ -1,7 +1,9 @@
 package spring.ecommerce.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -16,11 +18,13 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 
 import spring.ecommerce.dao.OrderDetailDao;
 import spring.ecommerce.dao.ProductDao;
 import spring.ecommerce.dto.OrderInputDto;
 import spring.ecommerce.dto.OrderProductQuantityDto;
+import spring.ecommerce.dto.PageResponseDto;
 import spring.ecommerce.entity.OrderDetailEntity;
 import spring.ecommerce.entity.ProductEntity;
 import spring.ecommerce.entity.UserEntity;
@@ -100,4 +104,38 @@ class OrderDetailServiceTest {
         assertEquals("Delivered", order.getOrderStatus());
         verify(orderDetailDao).save(order);
     }
+
+    @Test
+    void testGetOrderDetailsBySearchKeyWithCursor() {
+        OrderDetailEntity first = new OrderDetailEntity();
+        first.setOrderId(3);
+        first.setOrderFullName("Ana");
+        OrderDetailEntity second = new OrderDetailEntity();
+        second.setOrderId(1);
+        second.setOrderFullName("Bea");
+        String cursor = new PageCursor("Aa", 7).encode();
+
+        when(orderDetailDao.findPageAfter(null, "Placed", "Aa", 7, Limit.of(2))).thenReturn(List.of(first, second));
+
+        PageResponseDto<OrderDetailEntity> result = orderDetailService.getOrderDetailsBySearchKeyWithCursor(cursor, 1, "",
+                "Placed", false);
+
+        assertEquals(List.of(first), result.getContent());
+        assertEquals(new PageCursor("Ana", 3), PageCursor.decode(result.getNextCursor()));
+        assertEquals(-1, result.getTotalElements());
+        verify(orderDetailDao, never()).countFiltered(any(), any());
+    }
+
+    @Test
+    void testGetMyOrderDetailsBySearchKeyWithCursor_WithTotal() {
+        when(commonService.getAuthenticatedUser()).thenReturn(mockUser);
+        when(orderDetailDao.findFirstPageOfUser(mockUser, "ana", null, Limit.of(11))).thenReturn(List.of());
+        when(orderDetailDao.countFilteredOfUser(mockUser, "ana", null)).thenReturn(0L);
+
+        PageResponseDto<OrderDetailEntity> result = orderDetailService.getMyOrderDetailsBySearchKeyWithCursor(null, 10,
+                "ana", true);
+
+        assertEquals(0, result.getTotalElements());
+        assertNull(result.getNextCursor());
+    }
 }
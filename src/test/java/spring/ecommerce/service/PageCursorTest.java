@@ -0,0 +1,55 @@
+package spring.ecommerce.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import spring.ecommerce.dto.PageResponseDto;
+import spring.ecommerce.exception.InvalidCursorException;
+
+class PageCursorTest {
+
+    @Test
+    void testEncodeAndDecode() {
+        PageCursor cursor = new PageCursor("Juan Pérez\nSegunda línea", 42);
+
+        assertEquals(cursor, PageCursor.decode(cursor.encode()));
+        assertEquals(new PageCursor(null, 3), PageCursor.decode(new PageCursor(null, 3).encode()));
+    }
+
+    @Test
+    void testDecodeFirstPage() {
+        assertNull(PageCursor.decode(null));
+        assertNull(PageCursor.decode(" "));
+    }
+
+    @Test
+    void testDecodeInvalid() {
+        assertThrows(InvalidCursorException.class, () -> PageCursor.decode("not a cursor!"));
+        assertThrows(InvalidCursorException.class, () -> PageCursor.decode(new PageCursor("x", 1).encode().substring(1)));
+    }
+
+    @Test
+    void testPageWithNext() {
+        PageResponseDto<String> page = PageCursor.page(List.of("a", "b", "c"), 2, row -> new PageCursor(row, row.length()), -1);
+
+        assertEquals(List.of("a", "b"), page.getContent());
+        assertEquals(new PageCursor("b", 1), PageCursor.decode(page.getNextCursor()));
+        assertEquals(-1, page.getTotalElements());
+        assertEquals(-1, page.getTotalPages());
+    }
+
+    @Test
+    void testLastPage() {
+        PageResponseDto<String> page = PageCursor.page(List.of("a"), 2, row -> new PageCursor(row, 1), 5);
+
+        assertEquals(List.of("a"), page.getContent());
+        assertNull(page.getNextCursor());
+        assertEquals(5, page.getTotalElements());
+        assertEquals(3, page.getTotalPages());
+    }
+}
@@ -0,0 +1,115 @@
+package spring.ecommerce.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import spring.ecommerce.dao.ProductDao;
+import spring.ecommerce.entity.ProductEntity;
+import spring.ecommerce.service.ProductBulkWriteService.Result;
+
+@ExtendWith(MockitoExtension.class)
+class ProductBulkWriteServiceTest {
+
+    private static final String INSERT_SQL = "INSERT INTO product (product_id, product_name, product_description, "
+            + "product_discounted_price, product_actual_price) VALUES (?, ?, ?, ?, ?)";
+    private static final String UPDATE_SQL = "UPDATE product SET product_name = ?, product_description = ?, "
+            + "product_discounted_price = ?, product_actual_price = ? WHERE product_id = ?";
+
+    @Mock
+    private ProductDao productDao;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Captor
+    private ArgumentCaptor<List<Object[]>> batch;
+
+    @InjectMocks
+    private ProductBulkWriteService productBulkWriteService;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<Result>>getArgument(0).doInTransaction(null));
+    }
+
+    @Test
+    void testUpsert() {
+        when(productDao.findExistingProductIds(Set.of(1, 9))).thenReturn(List.of(1));
+        when(jdbcTemplate.batchUpdate(eq(INSERT_SQL), anyList())).thenReturn(new int[] {1, 1});
+        when(jdbcTemplate.batchUpdate(eq(UPDATE_SQL), anyList())).thenReturn(new int[] {1, 1});
+
+        Result result = productBulkWriteService.upsert(List.of(
+                product(1, "Laptop"), product(null, "Mouse"), product(9, "Monitor"), product(9, "Monitor 4K")), true);
+
+        assertEquals(new Result(2, 2), result);
+        verify(jdbcTemplate).batchUpdate(eq(INSERT_SQL), batch.capture());
+        assertEquals(List.of("Mouse", "Monitor"), batch.getValue().stream().map(row -> row[1]).toList());
+        assertEquals(9, batch.getValue().get(1)[0]);
+        verify(jdbcTemplate).batchUpdate(eq(UPDATE_SQL), batch.capture());
+        assertEquals(List.of(1, 9), batch.getValue().stream().map(row -> row[4]).toList());
+    }
+
+    @Test
+    void testUpsertWithoutInsertingIds() {
+        when(productDao.findExistingProductIds(Set.of(1, 2, 9))).thenReturn(List.of(1, 2));
+        // El producto 2 se borra antes de actualizarlo: la sentencia no encuentra la fila
+        when(jdbcTemplate.batchUpdate(eq(INSERT_SQL), anyList())).thenReturn(new int[] {1});
+        when(jdbcTemplate.batchUpdate(eq(UPDATE_SQL), anyList())).thenReturn(new int[] {1, 0});
+
+        Result result = productBulkWriteService.upsert(List.of(
+                product(1, "Laptop"), product(9, "Monitor"), product(null, "Mouse"), product(2, "Tablet")), false);
+
+        assertEquals(new Result(1, 1, List.of(1, 3)), result);
+        verify(jdbcTemplate).batchUpdate(eq(INSERT_SQL), batch.capture());
+        assertEquals(List.of("Mouse"), batch.getValue().stream().map(row -> row[1]).toList());
+    }
+
+    @Test
+    void testUpsertOnlyNewProducts() {
+        Result result = productBulkWriteService.upsert(List.of(product(null, "Mouse")), false);
+
+        assertEquals(new Result(1, 0), result);
+        verify(productDao, never()).findExistingProductIds(any());
+        verify(jdbcTemplate, never()).batchUpdate(eq(UPDATE_SQL), anyList());
+    }
+
+    @Test
+    void testUpsertEmptyList() {
+        assertEquals(new Result(0, 0), productBulkWriteService.upsert(List.of(), true));
+        verifyNoInteractions(productDao, jdbcTemplate, transactionTemplate);
+    }
+
+    private static ProductEntity product(Integer id, String name) {
+        ProductEntity product = new ProductEntity();
+        product.setProductId(id);
+        product.setProductName(name);
+        product.setProductActualPrice(10);
+        return product;
+    }
+}
@@ -0,0 +1,156 @@
+package spring.ecommerce.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import spring.ecommerce.dto.CacheStatsDto;
+import spring.ecommerce.dto.PageResponseDto;
+import spring.ecommerce.dto.ProductListingDto;
+import spring.ecommerce.entity.ProductEntity;
+import spring.ecommerce.event.ProductChangedEvent;
+import spring.ecommerce.event.ProductsImportedEvent;
+import spring.ecommerce.search.ProductFilter;
+
+class ProductCatalogCacheTest {
+
+    private static final ProductCatalogCache.PageKey PAGE = new ProductCatalogCache.PageKey(0, 10, "", false,
+            ProductFilter.NONE);
+
+    private ProductCatalogCache productCatalogCache;
+
+    @BeforeEach
+    void setUp() {
+        productCatalogCache = new ProductCatalogCache(100, 100, Duration.ofMinutes(10));
+    }
+
+    @Test
+    void testConcurrentMissesLoadOnce() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<ProductEntity>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return productCatalogCache.getProduct(1, id -> {
+                        loads.incrementAndGet();
+                        sleep();
+                        return product(id);
+                    });
+                }));
+            }
+            start.countDown();
+            for (Future<ProductEntity> future : futures) {
+                assertEquals(1, future.get().getProductId());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testMissingProductIsNotCached() {
+        AtomicInteger loads = new AtomicInteger();
+
+        assertNull(productCatalogCache.getProduct(1, id -> {
+            loads.incrementAndGet();
+            return null;
+        }));
+        productCatalogCache.getProduct(1, id -> {
+            loads.incrementAndGet();
+            return null;
+        });
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testOnProductChangedInvalidatesOnlyThatProduct() {
+        AtomicInteger loads = new AtomicInteger();
+        productCatalogCache.getProduct(1, id -> product(id));
+        productCatalogCache.getProduct(2, id -> product(id));
+        productCatalogCache.getPage(PAGE, key -> page());
+
+        productCatalogCache.onProductChanged(new ProductChangedEvent(1));
+
+        productCatalogCache.getProduct(1, id -> {
+            loads.incrementAndGet();
+            return product(id);
+        });
+        productCatalogCache.getProduct(2, id -> {
+            loads.incrementAndGet();
+            return product(id);
+        });
+        productCatalogCache.getPage(PAGE, key -> {
+            loads.incrementAndGet();
+            return page();
+        });
+        // El producto 1 y la página se recargan; el producto 2 sigue en caché
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testOnProductsImportedInvalidatesAll() {
+        AtomicInteger loads = new AtomicInteger();
+        productCatalogCache.getProduct(1, id -> product(id));
+        productCatalogCache.getPage(PAGE, key -> page());
+
+        productCatalogCache.onProductsImported(new ProductsImportedEvent(10));
+
+        productCatalogCache.getProduct(1, id -> {
+            loads.incrementAndGet();
+            return product(id);
+        });
+        productCatalogCache.getPage(PAGE, key -> {
+            loads.incrementAndGet();
+            return page();
+        });
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testGetStats() {
+        productCatalogCache.getProduct(1, id -> product(id));
+        productCatalogCache.getProduct(1, id -> product(id));
+
+        CacheStatsDto stats = productCatalogCache.getStats().get(0);
+
+        assertEquals("productsById", stats.getName());
+        assertEquals(1, stats.getHitCount());
+        assertEquals(1, stats.getMissCount());
+        assertEquals(0.5, stats.getHitRate());
+    }
+
+    private static ProductEntity product(Integer id) {
+        ProductEntity product = new ProductEntity();
+        product.setProductId(id);
+        return product;
+    }
+
+    private static PageResponseDto<ProductListingDto> page() {
+        return new PageResponseDto<>(List.of(), 0, 0, 10, 0);
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(50);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package spring.ecommerce.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import jakarta.validation.Validation;
+import spring.ecommerce.dto.ProductImportSummaryDto;
+import spring.ecommerce.entity.ProductEntity;
+import spring.ecommerce.event.ProductsImportedEvent;
+import spring.ecommerce.files.ExcelService;
+import spring.ecommerce.files.ExcelService.ImportedRow;
+import spring.ecommerce.service.ProductBulkWriteService.Result;
+
+@ExtendWith(MockitoExtension.class)
+class ProductImportServiceTest {
+
+    @Mock
+    private ExcelService excelService;
+
+    @Mock
+    private ProductBulkWriteService productBulkWriteService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private InputStream inputStream;
+
+    @Captor
+    private ArgumentCaptor<List<ProductEntity>> written;
+
+    private ProductImportService productImportService;
+
+    @BeforeEach
+    void setUp() {
+        productImportService = new ProductImportService(excelService, productBulkWriteService,
+                Validation.buildDefaultValidatorFactory().getValidator(), eventPublisher, 3);
+    }
+
+    @Test
+    void testImportProductsFromExcel() throws IOException {
+        givenRows(
+                row(2, 1, "Laptop", 900, 1000),
+                row(3, null, "Mouse", 0, 10),
+                // Precio con descuento mayor que el original
+                row(4, null, "Keyboard", 50, 40),
+                row(5, 9, "Monitor", 0, 200),
+                // ID repetido en el fichero
+                row(6, 9, "Monitor 4K", 0, 300),
+                new ImportedRow(7, new ProductEntity(), "Invalid number: cheap"));
+        when(productBulkWriteService.upsert(anyList(), eq(true))).thenReturn(new Result(1, 1), new Result(1, 1));
+
+        ProductImportSummaryDto summary = productImportService.importProductsFromExcel(inputStream);
+
+        assertEquals(6, summary.getRows());
+        assertEquals(2, summary.getInserted());
+        assertEquals(2, summary.getUpdated());
+        assertEquals(2, summary.getRejected());
+        assertEquals(2, summary.getBatches());
+        assertEquals(4, summary.getRejections().get(0).getRowNumber());
+        assertEquals("Discounted price cannot be greater than the actual price", summary.getRejections().get(0).getReason());
+        assertEquals(7, summary.getRejections().get(1).getRowNumber());
+
+        ArgumentCaptor<ProductsImportedEvent> event = ArgumentCaptor.forClass(ProductsImportedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(4, event.getValue().getChangedProducts());
+        verify(productBulkWriteService, times(2)).upsert(written.capture(), eq(true));
+        assertEquals(List.of("Laptop", "Mouse"), written.getAllValues().get(0).stream().map(ProductEntity::getProductName).toList());
+        assertEquals(List.of("Monitor", "Monitor 4K"), written.getAllValues().get(1).stream().map(ProductEntity::getProductName).toList());
+    }
+
+    @Test
+    void testImportOnlyInvalidRows() throws IOException {
+        givenRows(row(2, null, "", 0, 10));
+
+        ProductImportSummaryDto summary = productImportService.importProductsFromExcel(inputStream);
+
+        assertEquals(1, summary.getRejected());
+        verify(productBulkWriteService, never()).upsert(anyList(), anyBoolean());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void testImportProducts() {
+        when(productBulkWriteService.upsert(anyList(), eq(false))).thenReturn(new Result(0, 1));
+
+        ProductImportSummaryDto summary = productImportService.importProducts(
+                List.of(row(0, 1, "Laptop", 900, 1000).product(), row(0, 2, "Laptop", 1100, 1000).product()));
+
+        assertEquals(2, summary.getRows());
+        assertEquals(1, summary.getUpdated());
+        assertEquals(1, summary.getRejected());
+        assertEquals(2, summary.getRejections().get(0).getRowNumber());
+        verify(eventPublisher).publishEvent(any(ProductsImportedEvent.class));
+    }
+
+    @Test
+    void testImportProductsRejectsUnknownIds() {
+        // El producto 7 no existe: una edición masiva no lo crea con ese ID
+        when(productBulkWriteService.upsert(anyList(), eq(false))).thenReturn(new Result(1, 1, List.of(1)));
+
+        ProductImportSummaryDto summary = productImportService.importProducts(List.of(
+                row(0, 1, "Laptop", 900, 1000).product(), row(0, 7, "Mouse", 0, 10).product(),
+                row(0, null, "Keyboard", 0, 40).product()));
+
+        assertEquals(3, summary.getRows());
+        assertEquals(1, summary.getInserted());
+        assertEquals(1, summary.getUpdated());
+        assertEquals(1, summary.getRejected());
+        assertEquals(2, summary.getRejections().get(0).getRowNumber());
+        assertEquals("Product 7 does not exist", summary.getRejections().get(0).getReason());
+    }
+
+    @Test
+    void testImportProductsFromUnreadableExcel() throws IOException {
+        doThrow(new IOException("Not an .xlsx file")).when(excelService).readProductsFromExcel(eq(inputStream), any());
+
+        assertThrows(IOException.class, () -> productImportService.importProductsFromExcel(inputStream));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    private void givenRows(ImportedRow... rows) throws IOException {
+        doAnswer(invocation -> {
+            Consumer<ImportedRow> consumer = invocation.getArgument(1);
+            for (ImportedRow row : rows) {
+                consumer.accept(row);
+            }
+            return null;
+        }).when(excelService).readProductsFromExcel(eq(inputStream), any());
+    }
+
+    private static ImportedRow row(int rowNumber, Integer id, String name, double discountedPrice, double actualPrice) {
+        ProductEntity product = new ProductEntity();
+        product.setProductId(id);
+        product.setProductName(name);
+        product.setProductDiscountedPrice(discountedPrice);
+        product.setProductActualPrice(actualPrice);
+        return new ImportedRow(rowNumber, product, null);
+    }
+}
@@ -0,0 +1,200 @@
+package spring.ecommerce.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import spring.ecommerce.dao.OrderDetailDao;
+import spring.ecommerce.dao.ProductDao;
+import spring.ecommerce.dto.PriceBucketDto;
+import spring.ecommerce.dto.ProductFacetsDto;
+import spring.ecommerce.dto.ProductSuggestionDto;
+import spring.ecommerce.event.ProductChangedEvent;
+import spring.ecommerce.event.ProductsImportedEvent;
+import spring.ecommerce.search.ProductFilter;
+
+@ExtendWith(MockitoExtension.class)
+class ProductSearchServiceTest {
+
+    @Mock
+    private ProductDao productDao;
+
+    @Mock
+    private OrderDetailDao orderDetailDao;
+
+    private ProductSearchService productSearchService;
+
+    @BeforeEach
+    void setUp() {
+        productSearchService = new ProductSearchService(productDao, orderDetailDao, 3, new double[] {0, 50, 100});
+    }
+
+    @Test
+    void testSearchPaginatesInMemory() {
+        when(productDao.findSearchFields()).thenReturn(List.of(
+                new Object[] {1, "Laptop A", null, 0.0, 10.0},
+                new Object[] {2, "Laptop B", null, 0.0, 10.0},
+                new Object[] {3, "Laptop C", null, 0.0, 10.0},
+                new Object[] {4, "Mouse", "Para laptop", 0.0, 10.0}));
+
+        Page<Integer> first = productSearchService.search("laptop", PageRequest.of(0, 2));
+        Page<Integer> last = productSearchService.search("laptop", PageRequest.of(1, 2));
+
+        assertEquals(List.of(1, 2), first.getContent());
+        assertEquals(4, first.getTotalElements());
+        assertEquals(List.of(3, 4), last.getContent());
+        // El índice se carga una sola vez
+        verify(productDao, times(1)).findSearchFields();
+    }
+
+    @Test
+    void testOnProductChangedUpdatesIndex() {
+        when(productDao.findSearchFields()).thenReturn(List.<Object[]>of(new Object[] {1, "Laptop", null, 0.0, 10.0}));
+        productSearchService.search("laptop", PageRequest.of(0, 10));
+
+        when(productDao.findSearchFieldsByProductIdIn(List.of(1))).thenReturn(List.<Object[]>of(new Object[] {1, "Tablet", null, 0.0, 10.0}));
+        productSearchService.onProductChanged(new ProductChangedEvent(1));
+        assertEquals(0, productSearchService.search("laptop", PageRequest.of(0, 10)).getTotalElements());
+        assertEquals(List.of(1), productSearchService.search("tablet", PageRequest.of(0, 10)).getContent());
+
+        when(productDao.findSearchFieldsByProductIdIn(List.of(1))).thenReturn(List.of());
+        productSearchService.onProductChanged(new ProductChangedEvent(1));
+        assertEquals(0, productSearchService.search("tablet", PageRequest.of(0, 10)).getTotalElements());
+    }
+
+    @Test
+    void testOnProductsImportedReloadsIndex() {
+        productSearchService.onProductsImported(new ProductsImportedEvent(1));
+        verify(productDao, never()).findSearchFields();
+
+        when(productDao.findSearchFields()).thenReturn(List.<Object[]>of(new Object[] {1, "Laptop", null, 0.0, 10.0}));
+        productSearchService.search("laptop", PageRequest.of(0, 10));
+
+        when(productDao.findSearchFields()).thenReturn(List.<Object[]>of(new Object[] {1, "Laptop", null, 0.0, 10.0},
+                new Object[] {2, "Laptop bag", null, 0.0, 20.0}));
+        productSearchService.onProductsImported(new ProductsImportedEvent(1));
+
+        assertEquals(2, productSearchService.search("laptop", PageRequest.of(0, 10)).getTotalElements());
+        verify(productDao, times(2)).findSearchFields();
+    }
+
+    @Test
+    void testOnProductChangedDuringReloadIsReplayed() {
+        when(productDao.findSearchFields()).thenReturn(List.<Object[]>of(new Object[] {1, "Laptop", null, 0.0, 10.0}));
+        productSearchService.search("laptop", PageRequest.of(0, 10));
+
+        // El producto 1 cambia mientras se leen los campos de la recarga, que ya están desfasados
+        when(productDao.findSearchFieldsByProductIdIn(List.of(1))).thenReturn(List.<Object[]>of(new Object[] {1, "Tablet", null, 0.0, 10.0}));
+        when(productDao.findSearchFields()).thenAnswer(invocation -> {
+            productSearchService.onProductChanged(new ProductChangedEvent(1));
+            return List.<Object[]>of(new Object[] {1, "Laptop", null, 0.0, 10.0});
+        });
+        productSearchService.onProductsImported(new ProductsImportedEvent(1));
+
+        assertEquals(0, productSearchService.search("laptop", PageRequest.of(0, 10)).getTotalElements());
+        assertEquals(List.of(1), productSearchService.search("tablet", PageRequest.of(0, 10)).getContent());
+        verify(productDao, times(2)).findSearchFieldsByProductIdIn(List.of(1));
+    }
+
+    @Test
+    void testOnProductChangedBeforeLoadOrWithoutProduct() {
+        productSearchService.onProductChanged(new ProductChangedEvent(1));
+        productSearchService.onProductChanged(new ProductChangedEvent(null));
+
+        verify(productDao, never()).findSearchFieldsByProductIdIn(any());
+    }
+
+    @Test
+    void testSuggestRanksByOrders() {
+        when(productDao.findSearchFields()).thenReturn(List.of(
+                new Object[] {1, "Laptop Pro", null, 0.0, 10.0},
+                new Object[] {2, "Laptop Air", null, 0.0, 10.0},
+                new Object[] {3, "Funda laptop", null, 0.0, 10.0}));
+        when(orderDetailDao.countOrdersByProduct()).thenReturn(List.<Object[]>of(new Object[] {3, 5L}));
+
+        List<ProductSuggestionDto> suggestions = productSearchService.suggest("LAP", 10);
+
+        // El límite se ajusta al top-k configurado
+        assertEquals(List.of(3, 2, 1), suggestions.stream().map(ProductSuggestionDto::getProductId).toList());
+        assertEquals("Funda laptop", suggestions.get(0).getProductName());
+    }
+
+    @Test
+    void testRefreshPopularity() {
+        when(productDao.findSearchFields()).thenReturn(List.of(
+                new Object[] {1, "Laptop Pro", null, 0.0, 10.0},
+                new Object[] {2, "Laptop Air", null, 0.0, 10.0}));
+        when(orderDetailDao.countOrdersByProduct()).thenReturn(List.of(), List.<Object[]>of(new Object[] {1, 2L}));
+        assertEquals(2, productSearchService.suggest("laptop", 1).get(0).getProductId());
+
+        // Solo se reconstruyen las sugerencias, a partir de los nombres
+        when(productDao.findNames()).thenReturn(List.of(new Object[] {1, "Laptop Pro"}, new Object[] {2, "Laptop Air"}));
+        productSearchService.refreshPopularity();
+
+        assertEquals(1, productSearchService.suggest("laptop", 1).get(0).getProductId());
+        verify(productDao, times(1)).findSearchFields();
+    }
+
+    @Test
+    void testSearchWithFilter() {
+        when(productDao.findSearchFields()).thenReturn(List.of(
+                new Object[] {1, "Laptop B", null, 0.0, 900.0},
+                new Object[] {2, "Laptop A", null, 40.0, 60.0},
+                new Object[] {3, "Mouse", null, 0.0, 20.0}));
+
+        Page<Integer> discounted = productSearchService.search("laptop", false, new ProductFilter(null, 100.0, true),
+                PageRequest.of(0, 10));
+        Page<Integer> byName = productSearchService.search("", false, new ProductFilter(10.0, null, null),
+                PageRequest.of(0, 10));
+
+        assertEquals(List.of(2), discounted.getContent());
+        assertEquals(List.of(2, 1, 3), byName.getContent());
+        assertEquals(3, byName.getTotalElements());
+    }
+
+    @Test
+    void testGetFacets() {
+        when(productDao.findSearchFields()).thenReturn(List.of(
+                new Object[] {1, "Laptop B", null, 0.0, 900.0},
+                new Object[] {2, "Laptop A", null, 40.0, 60.0},
+                new Object[] {3, "Mouse", null, 0.0, 20.0}));
+
+        ProductFacetsDto all = productSearchService.getFacets("", false, ProductFilter.NONE);
+        ProductFacetsDto laptops = productSearchService.getFacets("laptop", false, new ProductFilter(null, 100.0, null));
+
+        assertEquals(3, all.getTotalCount());
+        assertEquals(List.of(2L, 0L, 1L), all.getPriceBuckets().stream().map(PriceBucketDto::getCount).toList());
+        assertEquals(null, all.getPriceBuckets().get(2).getMaxPrice());
+        assertEquals(1, laptops.getTotalCount());
+        assertEquals(1, laptops.getOnDiscountCount());
+        // El histograma de precios ignora el propio filtro de precio
+        assertEquals(List.of(1L, 0L, 1L), laptops.getPriceBuckets().stream().map(PriceBucketDto::getCount).toList());
+    }
+
+    @Test
+    void testPriceChangesApplyOnFacetRefresh() {
+        when(productDao.findSearchFields()).thenReturn(List.<Object[]>of(new Object[] {1, "Laptop", null, 0.0, 10.0}));
+        ProductFilter expensive = new ProductFilter(100.0, null, null);
+        assertEquals(0, productSearchService.search("", false, expensive, PageRequest.of(0, 10)).getTotalElements());
+
+        when(productDao.findSearchFieldsByProductIdIn(List.of(1))).thenReturn(List.<Object[]>of(new Object[] {1, "Laptop", null, 0.0, 500.0}));
+        productSearchService.onProductChanged(new ProductChangedEvent(1));
+        assertEquals(0, productSearchService.search("", false, expensive, PageRequest.of(0, 10)).getTotalElements());
+
+        productSearchService.refreshFacets();
+        assertEquals(List.of(1), productSearchService.search("", false, expensive, PageRequest.of(0, 10)).getContent());
+    }
+}
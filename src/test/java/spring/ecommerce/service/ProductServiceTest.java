@@ -5,28 +5,41 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.Page;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 
 import spring.ecommerce.dao.ProductDao;
+import spring.ecommerce.dto.ProductListingDto;
 import spring.ecommerce.entity.ProductEntity;
+import spring.ecommerce.event.ProductChangedEvent;
+import spring.ecommerce.exception.InvalidCursorException;
 import spring.ecommerce.exception.ProductNotFoundException;
+import spring.ecommerce.search.ProductFilter;
+import spring.ecommerce.storage.ImageVariant;
 
 @ExtendWith(MockitoExtension.class)
 class ProductServiceTest {
@@ -34,26 +47,49 @@ class ProductServiceTest {
     @Mock
     private ProductDao productDao;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private ProductSearchService productSearchService;
+
+    @Spy
+    private ProductCatalogCache productCatalogCache = new ProductCatalogCache(100, 100, Duration.ofMinutes(10));
+
     @InjectMocks
     private ProductService productService;
 
     private ProductEntity product;
 
+    private ProductListingDto listing;
+
     @BeforeEach
     void setUp() {
         product = new ProductEntity();
         product.setProductId(1);
         product.setProductName("Test Product");
+        listing = new ProductListingDto(1, "Test Product", "Description", 8.0, 10.0);
     }
 
     @Test
     void testGetAllProducts() {
-        when(productDao.findAll()).thenReturn(Arrays.asList(product));
+        when(productDao.findAllListings(Sort.by(Sort.Order.asc("productId")))).thenReturn(Arrays.asList(listing));
+        when(productDao.findImageReferencesByProductIds(Set.of(1), ImageVariant.CARD)).thenReturn(List.<Object[]>of(
+                new Object[]{1, 5L, "9f64a747e1b97f131fabb6b447296c9b6f0201e79fb3c5356e6c77e89b6a806a", "image/png",
+                        "8f64a747e1b97f131fabb6b447296c9b6f0201e79fb3c5356e6c77e89b6a806a", "image/png",
+                        "LEHV6nWB2yk8pyo0adR*.7kCMdnj"},
+                new Object[]{1, 6L, null, "image/png", null, null, null}));
 
-        List<ProductEntity> products = productService.getAllProducts();
+        List<ProductListingDto> products = productService.getAllProducts();
         assertFalse(products.isEmpty());
         assertEquals(1, products.size());
         assertEquals("Test Product", products.get(0).getProductName());
+        assertEquals(List.of(5L, 6L), products.get(0).getImageIds());
+        assertEquals(List.of("/images/9f64a747e1b97f131fabb6b447296c9b6f0201e79fb3c5356e6c77e89b6a806a.png",
+                "/api/v1/images/image/6/content"), products.get(0).getImageUrls());
+        assertEquals(List.of("/images/8f64a747e1b97f131fabb6b447296c9b6f0201e79fb3c5356e6c77e89b6a806a.png",
+                "/api/v1/images/image/6/content"), products.get(0).getCardImageUrls());
+        assertEquals(Arrays.asList("LEHV6nWB2yk8pyo0adR*.7kCMdnj", null), products.get(0).getImagePlaceholders());
     }
 
     @Test
@@ -66,6 +102,17 @@ class ProductServiceTest {
         assertEquals("Test Product", foundProduct.getProductName());
     }
 
+    @Test
+    void testGetProductById_Cached() {
+        when(productDao.findById(1)).thenReturn(Optional.of(product));
+
+        productService.getProductById(1);
+        ProductEntity foundProduct = productService.getProductById(1);
+
+        assertEquals("Test Product", foundProduct.getProductName());
+        verify(productDao, times(1)).findById(1);
+    }
+
     @Test
     void testGetProductByIdNotFound() {
         when(productDao.findById(1)).thenReturn(Optional.empty());
@@ -78,6 +125,7 @@ class ProductServiceTest {
         doNothing().when(productDao).deleteById(1);
 
         assertDoesNotThrow(() -> productService.deleteById(1));
+        verify(eventPublisher).publishEvent(any(ProductChangedEvent.class));
     }
 
     @Test
@@ -87,27 +135,135 @@ class ProductServiceTest {
     }
 
     @Test
-    void testGetAllProductsOrderedByName() {
-        when(productDao.findAll(Sort.by(Sort.Order.asc("productName")))).thenReturn(Arrays.asList(product));
+    void testGetProductsBySearchKeyWithPagination() {
+        Pageable pageable = PageRequest.of(0, 2);
+        ProductListingDto other = new ProductListingDto(2, "Other Test", "Description", 8.0, 10.0);
 
-        List<ProductEntity> products = productService.getAllProductsOrderedByName();
+        when(productSearchService.search("test", false, ProductFilter.NONE, pageable)).thenReturn(new PageImpl<>(List.of(2, 1), pageable, 3));
+        when(productDao.findListingsByProductIdIn(List.of(2, 1))).thenReturn(Arrays.asList(listing, other));
+        when(productDao.findImageReferencesByProductIds(Set.of(1, 2), ImageVariant.CARD)).thenReturn(List.of());
 
-        assertFalse(products.isEmpty());
-        assertEquals(1, products.size());
-        assertEquals("Test Product", products.get(0).getProductName());
+        var response = productService.getProductsBySearchKeyWithPagination(0, 2, "Tést");
+
+        assertNotNull(response);
+        assertEquals(3, response.getTotalElements());
+        assertEquals(2, response.getTotalPages());
+        // Se conserva el orden de relevancia del índice
+        assertEquals(List.of(2, 1), response.getContent().stream().map(ProductListingDto::getProductId).toList());
     }
 
     @Test
-    void testGetProductsBySearchKeyWithPagination() {
-        Pageable pageable = PageRequest.of(0, 10, Sort.by(Sort.Order.asc("productName")));
-        Page<ProductEntity> page = new PageImpl<>(Arrays.asList(product), pageable, 1);
+    void testGetProductsBySearchKeyWithPagination_CachedUntilChanged() {
+        Pageable pageable = PageRequest.of(0, 10);
+        when(productSearchService.search("test", false, ProductFilter.NONE, pageable)).thenReturn(new PageImpl<>(List.of(1), pageable, 1));
+        when(productDao.findListingsByProductIdIn(List.of(1))).thenReturn(List.of(listing));
+        when(productDao.findImageReferencesByProductIds(Set.of(1), ImageVariant.CARD)).thenReturn(List.of());
 
-        when(productDao.findByProductNameContainingIgnoreCase("Test", pageable)).thenReturn(page);
+        productService.getProductsBySearchKeyWithPagination(0, 10, "Test");
+        productService.getProductsBySearchKeyWithPagination(0, 10, "test");
+        verify(productSearchService, times(1)).search("test", false, ProductFilter.NONE, pageable);
 
-        var response = productService.getProductsBySearchKeyWithPagination(0, 10, "Test");
+        // Cualquier cambio de producto invalida todas las páginas
+        productCatalogCache.onProductChanged(new ProductChangedEvent(2));
+        productService.getProductsBySearchKeyWithPagination(0, 10, "Test");
+        verify(productSearchService, times(2)).search("test", false, ProductFilter.NONE, pageable);
+    }
+
+    @Test
+    void testGetProductsBySearchKeyWithPagination_Fuzzy() {
+        Pageable pageable = PageRequest.of(0, 10);
+        when(productSearchService.search("labtop", true, ProductFilter.NONE, pageable)).thenReturn(new PageImpl<>(List.of(1), pageable, 1));
+        when(productDao.findListingsByProductIdIn(List.of(1))).thenReturn(List.of(listing));
+        when(productDao.findImageReferencesByProductIds(Set.of(1), ImageVariant.CARD)).thenReturn(List.of());
+
+        var response = productService.getProductsBySearchKeyWithPagination(0, 10, "Labtop", true, ProductFilter.NONE);
 
-        assertNotNull(response);
         assertEquals(1, response.getTotalElements());
-        assertEquals("Test Product", response.getContent().get(0).getProductName());
+        // Las búsquedas exactas y aproximadas no comparten entrada en la caché
+        verify(productSearchService, times(0)).search("labtop", false, ProductFilter.NONE, pageable);
+    }
+
+    @Test
+    void testGetProductsBySearchKeyWithPagination_FilterWithoutSearchKey() {
+        Pageable pageable = PageRequest.of(0, 10);
+        ProductFilter filter = new ProductFilter(5.0, 9.0, true);
+        when(productSearchService.search("", false, filter, pageable)).thenReturn(new PageImpl<>(List.of(1), pageable, 1));
+        when(productDao.findListingsByProductIdIn(List.of(1))).thenReturn(List.of(listing));
+        when(productDao.findImageReferencesByProductIds(Set.of(1), ImageVariant.CARD)).thenReturn(List.of());
+
+        var response = productService.getProductsBySearchKeyWithPagination(0, 10, "", false, filter);
+
+        assertEquals(1, response.getTotalElements());
+        verify(productDao, times(0)).findAllListings(any(Pageable.class));
+    }
+
+    @Test
+    void testGetProductsBySearchKeyWithCursor() {
+        ProductListingDto other = new ProductListingDto(2, "Test Product", "Description", 8.0, 10.0);
+        String cursor = new PageCursor("Some Product", 9).encode();
+        when(productDao.findListingsAfter("Some Product", 9, Limit.of(2))).thenReturn(Arrays.asList(listing, other));
+        when(productDao.findImageReferencesByProductIds(Set.of(1), ImageVariant.CARD)).thenReturn(List.of());
+
+        var response = productService.getProductsBySearchKeyWithCursor(cursor, 1, "", false, ProductFilter.NONE, false);
+
+        assertEquals(List.of(listing), response.getContent());
+        assertEquals(new PageCursor("Test Product", 1), PageCursor.decode(response.getNextCursor()));
+        assertEquals(-1, response.getTotalElements());
+        verify(productDao, times(0)).count();
+    }
+
+    @Test
+    void testGetProductsBySearchKeyWithCursor_Search() {
+        Pageable pageable = PageRequest.of(1, 1);
+        when(productSearchService.search("test", false, ProductFilter.NONE, pageable)).thenReturn(new PageImpl<>(List.of(1), pageable, 3));
+        when(productDao.findListingsByProductIdIn(List.of(1))).thenReturn(List.of(listing));
+        when(productDao.findImageReferencesByProductIds(Set.of(1), ImageVariant.CARD)).thenReturn(List.of());
+
+        var response = productService.getProductsBySearchKeyWithCursor(new PageCursor(null, 1).encode(), 1, "Test",
+                false, ProductFilter.NONE, false);
+
+        assertEquals(3, response.getTotalElements());
+        assertEquals(new PageCursor(null, 2), PageCursor.decode(response.getNextCursor()));
+    }
+
+    @Test
+    void testGetProductsBySearchKeyWithCursor_Invalid() {
+        assertThrows(InvalidCursorException.class,
+                () -> productService.getProductsBySearchKeyWithCursor("%%", 10, "", false, ProductFilter.NONE, false));
+    }
+
+    @Test
+    void testForEachProductListing() {
+        List<ProductListingDto> batch = new ArrayList<>();
+        for (int i = 1; i <= 500; i++) {
+            batch.add(new ProductListingDto(i, "Product " + i, null, 0, 0));
+        }
+        ProductListingDto last = new ProductListingDto(501, "Product 501", null, 0, 0);
+        when(productDao.findListingsAfterId(0, Limit.of(500))).thenReturn(batch);
+        when(productDao.findListingsAfterId(500, Limit.of(500))).thenReturn(List.of(last));
+        when(productDao.findImageReferencesByProductIds(any(), any())).thenReturn(List.of());
+
+        List<ProductListingDto> products = new ArrayList<>();
+        productService.forEachProductListing(products::add);
+
+        assertEquals(501, products.size());
+        assertEquals(last, products.get(500));
+        verify(productDao, times(2)).findListingsAfterId(any(), any());
+    }
+
+    @Test
+    void testForEachProductListingOrderedByName() {
+        List<ProductListingDto> batch = new ArrayList<>();
+        for (int i = 1; i <= 500; i++) {
+            batch.add(new ProductListingDto(i, "Product", null, 0, 0));
+        }
+        when(productDao.findFirstListings(Limit.of(500))).thenReturn(batch);
+        when(productDao.findListingsAfter("Product", 500, Limit.of(500))).thenReturn(List.of());
+
+        List<ProductListingDto> products = new ArrayList<>();
+        productService.forEachProductListingOrderedByName(products::add);
+
+        assertEquals(500, products.size());
+        verify(productDao, times(0)).findImageReferencesByProductIds(any(), any());
     }
 }
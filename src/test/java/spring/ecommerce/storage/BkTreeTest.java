@@ -0,0 +1,68 @@
+package spring.ecommerce.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+class BkTreeTest {
+
+    @Test
+    void testSearchNearestFirst() {
+        BkTree tree = new BkTree();
+        tree.add(0b0000L, 1);
+        tree.add(0b0111L, 2);
+        tree.add(0b0001L, 3);
+        tree.add(-1L, 4);
+
+        List<BkTree.Match> matches = tree.search(0b0000L, 3);
+
+        assertEquals(List.of(1L, 3L, 2L), matches.stream().map(BkTree.Match::id).toList());
+        assertEquals(List.of(0, 1, 3), matches.stream().map(BkTree.Match::distance).toList());
+    }
+
+    @Test
+    void testSearchMatchesBruteForce() {
+        Random random = new Random(7);
+        long[] hashes = new long[2000];
+        BkTree tree = new BkTree();
+        for (int i = 0; i < hashes.length; i++) {
+            // Hashes agrupados alrededor de unos pocos centros, como las fotos casi idénticas
+            hashes[i] = (i % 20 == 0 ? random.nextLong() : hashes[i - i % 20]) ^ (1L << random.nextInt(64));
+            tree.add(hashes[i], i);
+        }
+
+        long query = hashes[500];
+        Set<Long> expected = new TreeSet<>();
+        for (int i = 0; i < hashes.length; i++) {
+            if (PerceptualHash.distance(query, hashes[i]) <= 6) {
+                expected.add((long) i);
+            }
+        }
+
+        Set<Long> found = tree.search(query, 6).stream().map(BkTree.Match::id)
+                .collect(Collectors.toCollection(TreeSet::new));
+        assertEquals(expected, found);
+        assertEquals(2000, tree.size());
+    }
+
+    @Test
+    void testRemove() {
+        BkTree tree = new BkTree();
+        tree.add(0b0001L, 1);
+        tree.add(0b0001L, 2);
+
+        tree.remove(0b0001L, 1);
+
+        assertEquals(List.of(2L), tree.search(0b0001L, 0).stream().map(BkTree.Match::id).toList());
+        assertEquals(1, tree.size());
+        tree.remove(0b0001L, 2);
+        assertTrue(tree.search(0b0001L, 64).isEmpty());
+    }
+}
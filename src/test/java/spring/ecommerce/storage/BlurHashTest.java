@@ -0,0 +1,47 @@
+package spring.ecommerce.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+import org.junit.jupiter.api.Test;
+
+class BlurHashTest {
+
+    @Test
+    void testEncodeUniformImage() {
+        // Negro: componente DC 0 y todas las AC a cero
+        assertEquals("L00000" + "fQ".repeat(11), BlurHash.encode(filled(Color.BLACK, 1, 1)));
+        // Blanco: componente DC 0xFFFFFF
+        String hash = BlurHash.encode(filled(Color.WHITE, 640, 480));
+        assertEquals(28, hash.length());
+        assertEquals("TSUA", hash.substring(2, 6));
+    }
+
+    @Test
+    void testEncodeDetail() {
+        BufferedImage image = filled(Color.WHITE, 300, 200);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.RED);
+        graphics.fillRect(0, 0, 150, 200);
+        graphics.dispose();
+
+        String hash = BlurHash.encode(image);
+
+        assertEquals(28, hash.length());
+        assertEquals('L', hash.charAt(0));
+        assertNotEquals("fQ".repeat(11), hash.substring(6));
+    }
+
+    private static BufferedImage filled(Color color, int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(color);
+        graphics.fillRect(0, 0, width, height);
+        graphics.dispose();
+        return image;
+    }
+}
@@ -0,0 +1,129 @@
+package spring.ecommerce.storage;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.Resource;
+
+class FileSystemImageStoreTest {
+
+    private static final byte[] CONTENT = {1, 2, 3, 4};
+    private static final String HASH = "9f64a747e1b97f131fabb6b447296c9b6f0201e79fb3c5356e6c77e89b6a806a";
+
+    @TempDir
+    Path rootDirectory;
+
+    private FileSystemImageStore imageStore;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        imageStore = new FileSystemImageStore(rootDirectory.toString());
+    }
+
+    @Test
+    void testStore() throws IOException {
+        StoredImage storedImage = imageStore.store(new ByteArrayInputStream(CONTENT));
+
+        assertEquals(HASH, storedImage.getHash());
+        assertEquals(4, storedImage.getSize());
+        assertTrue(Files.exists(rootDirectory.resolve("9f").resolve("64").resolve(HASH)));
+    }
+
+    @Test
+    void testStoreSameContentKeepsOneCopy() throws IOException {
+        imageStore.store(new ByteArrayInputStream(CONTENT));
+        imageStore.store(new ByteArrayInputStream(CONTENT));
+
+        try (var files = Files.walk(rootDirectory)) {
+            assertEquals(1, files.filter(Files::isRegularFile).count());
+        }
+    }
+
+    @Test
+    void testStoreFile() throws IOException {
+        Path file = Files.write(rootDirectory.resolve("upload.part"), CONTENT);
+
+        StoredImage storedImage = imageStore.store(file, HASH);
+
+        assertEquals(HASH, storedImage.getHash());
+        assertEquals(4, storedImage.getSize());
+        assertTrue(Files.exists(imageStore.resolve(HASH)));
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    void testStoreFileHashMismatch() throws IOException {
+        Path file = Files.write(rootDirectory.resolve("upload.part"), CONTENT);
+
+        assertThrows(ContentHash.MismatchException.class, () -> imageStore.store(file, HASH.replace('9', '8')));
+
+        assertFalse(Files.exists(imageStore.resolve(HASH)));
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    void testLoad() throws IOException {
+        imageStore.store(new ByteArrayInputStream(CONTENT));
+
+        Optional<Resource> content = imageStore.load(HASH);
+
+        assertTrue(content.isPresent());
+        assertArrayEquals(CONTENT, content.get().getContentAsByteArray());
+    }
+
+    @Test
+    void testLoadInvalidHash() {
+        assertFalse(imageStore.load("../../etc/passwd").isPresent());
+    }
+
+    @Test
+    void testDelete() throws IOException {
+        imageStore.store(new ByteArrayInputStream(CONTENT));
+
+        imageStore.delete(HASH);
+
+        assertFalse(imageStore.load(HASH).isPresent());
+    }
+
+    @Test
+    void testList() throws IOException {
+        imageStore.store(new ByteArrayInputStream(CONTENT));
+        Files.setLastModifiedTime(imageStore.resolve(HASH), FileTime.from(Instant.now().minus(2, ChronoUnit.DAYS)));
+        Files.createFile(rootDirectory.resolve(".tmp").resolve("upload-1.tmp"));
+
+        try (Stream<StoredImage> contents = imageStore.list(Instant.now().minus(1, ChronoUnit.DAYS))) {
+            List<StoredImage> list = contents.toList();
+            assertEquals(1, list.size());
+            assertEquals(HASH, list.get(0).getHash());
+            assertEquals(4, list.get(0).getSize());
+        }
+    }
+
+    @Test
+    void testListSkipsRecentlyReusedContent() throws IOException {
+        imageStore.store(new ByteArrayInputStream(CONTENT));
+        Files.setLastModifiedTime(imageStore.resolve(HASH), FileTime.from(Instant.now().minus(2, ChronoUnit.DAYS)));
+        imageStore.store(new ByteArrayInputStream(CONTENT));
+
+        try (Stream<StoredImage> contents = imageStore.list(Instant.now().minus(1, ChronoUnit.DAYS))) {
+            assertEquals(0, contents.count());
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package spring.ecommerce.storage;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.util.unit.DataSize;
+
+import spring.ecommerce.dto.CacheStatsDto;
+import spring.ecommerce.entity.ImageEntity;
+import spring.ecommerce.event.ImageChangedEvent;
+
+class ImageCacheTest {
+
+	private static final String HASH = "9f64a747e1b97f131fabb6b447296c9b6f0201e79fb3c5356e6c77e89b6a806a";
+	private static final byte[] CONTENT = { 1, 2, 3, 4 };
+
+	private ImageCache imageCache;
+	private AtomicInteger loads;
+
+	@BeforeEach
+	void setUp() {
+		imageCache = new ImageCache(DataSize.ofKilobytes(1), 10);
+		loads = new AtomicInteger();
+	}
+
+	@Test
+	void testGetContent_CachesContent() throws IOException {
+		imageCache.getContent(HASH, this::load);
+		Optional<Resource> content = imageCache.getContent(HASH, this::load);
+
+		assertTrue(content.isPresent());
+		assertArrayEquals(CONTENT, content.get().getInputStream().readAllBytes());
+		assertEquals(CONTENT.length, content.get().contentLength());
+		assertEquals(1, loads.get());
+	}
+
+	@Test
+	void testGetContent_Missing() {
+		Optional<Resource> content = imageCache.getContent(HASH, hash -> Optional.empty());
+
+		assertFalse(content.isPresent());
+	}
+
+	@Test
+	void testGetContent_LargerThanBudget() throws IOException {
+		byte[] large = new byte[2048];
+		Optional<Resource> content = imageCache.getContent(HASH, hash -> Optional.of(new ByteArrayResource(large)));
+
+		assertTrue(content.isPresent());
+		assertEquals(2048, content.get().contentLength());
+		assertEquals(0, imageCache.getStats().get(2).getSize());
+	}
+
+	@Test
+	void testInvalidateContent() {
+		imageCache.getContent(HASH, this::load);
+		imageCache.invalidateContent(HASH);
+		imageCache.getContent(HASH, this::load);
+
+		assertEquals(2, loads.get());
+	}
+
+	@Test
+	void testGetImageById_InvalidateImage() {
+		ImageEntity image = new ImageEntity("name.png", "name.png", "image/png", HASH, 4L);
+		image.setId(1L);
+
+		imageCache.getImageById(1L, id -> Optional.of(image));
+		assertTrue(imageCache.getImageByName("name.png", name -> Optional.empty()).isPresent());
+
+		imageCache.invalidateImage(image);
+		assertFalse(imageCache.getImageById(1L, id -> Optional.empty()).isPresent());
+	}
+
+	@Test
+	void testOnImageChanged_InvalidatesImage() {
+		ImageEntity image = new ImageEntity("name.png", "name.png", "image/png", HASH, 4L);
+		image.setId(1L);
+		imageCache.getImageById(1L, id -> Optional.of(image));
+
+		imageCache.onImageChanged(new ImageChangedEvent(image));
+
+		assertFalse(imageCache.getImageById(1L, id -> Optional.empty()).isPresent());
+		assertFalse(imageCache.getImageByName("name.png", name -> Optional.empty()).isPresent());
+	}
+
+	@Test
+	void testGetStats() {
+		imageCache.getContent(HASH, this::load);
+		imageCache.getContent(HASH, this::load);
+
+		List<CacheStatsDto> stats = imageCache.getStats();
+		CacheStatsDto contents = stats.get(2);
+
+		assertEquals("imageContents", contents.getName());
+		assertEquals(1, contents.getHitCount());
+		assertEquals(1, contents.getMissCount());
+		assertEquals(CONTENT.length, contents.getWeight());
+		assertEquals(1024, contents.getMaximum());
+	}
+
+	private Optional<Resource> load(String hash) {
+		loads.incrementAndGet();
+		return Optional.of(new ByteArrayResource(CONTENT));
+	}
+}
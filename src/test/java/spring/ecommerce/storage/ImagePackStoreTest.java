@@ -0,0 +1,184 @@
+package spring.ecommerce.storage;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+class ImagePackStoreTest {
+
+    private static final byte[] CONTENT = {1, 2, 3, 4};
+    private static final String HASH = "9f64a747e1b97f131fabb6b447296c9b6f0201e79fb3c5356e6c77e89b6a806a";
+
+    @TempDir
+    Path directory;
+
+    private ImagePackStore imagePackStore;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        imagePackStore = open();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        imagePackStore.close();
+    }
+
+    @Test
+    void testStoreAndLoad() throws IOException {
+        StoredImage storedImage = imagePackStore.store(new ByteArrayInputStream(CONTENT));
+
+        assertEquals(HASH, storedImage.getHash());
+        assertEquals(4, storedImage.getSize());
+        assertArrayEquals(CONTENT, imagePackStore.load(HASH).get().getContentAsByteArray());
+        assertEquals(4, imagePackStore.locate(HASH).get().length());
+    }
+
+    @Test
+    void testStoreSameContentKeepsOneRecord() throws IOException {
+        imagePackStore.store(new ByteArrayInputStream(CONTENT));
+        long offset = imagePackStore.locate(HASH).get().offset();
+
+        imagePackStore.store(new ByteArrayInputStream(CONTENT));
+
+        assertEquals(offset, imagePackStore.locate(HASH).get().offset());
+    }
+
+    @Test
+    void testStoreTooLarge() {
+        assertThrows(LimitedInputStream.ContentTooLargeException.class,
+                () -> imagePackStore.store(new ByteArrayInputStream(new byte[1025])));
+        assertFalse(imagePackStore.accepts(1025));
+    }
+
+    @Test
+    void testReopenRebuildsIndex() throws IOException {
+        List<String> hashes = storeContents(40);
+        imagePackStore.delete(hashes.get(0));
+
+        imagePackStore.close();
+        imagePackStore = open();
+
+        // Los segmentos llenos se han sellado con un pie y el último se ha recorrido
+        assertTrue(countSegments() > 1);
+        assertFalse(imagePackStore.load(hashes.get(0)).isPresent());
+        for (int i = 1; i < hashes.size(); i++) {
+            assertArrayEquals(content(i), imagePackStore.load(hashes.get(i)).get().getContentAsByteArray());
+        }
+    }
+
+    @Test
+    void testReopenDiscardsTornRecord() throws IOException {
+        imagePackStore.store(new ByteArrayInputStream(CONTENT));
+        long end = imagePackStore.locate(HASH).get().offset() + CONTENT.length;
+        imagePackStore.close();
+        try (FileChannel channel = FileChannel.open(directory.resolve("segment-000001.pack"), StandardOpenOption.WRITE)) {
+            // Cabecera a medio escribir tras el último registro
+            channel.write(ByteBuffer.allocate(8).putInt(0x50494D47).putInt(0).flip(), end);
+        }
+
+        imagePackStore = open();
+        StoredImage storedImage = imagePackStore.store(new ByteArrayInputStream(new byte[] {9}));
+
+        assertArrayEquals(CONTENT, imagePackStore.load(HASH).get().getContentAsByteArray());
+        assertArrayEquals(new byte[] {9}, imagePackStore.load(storedImage.getHash()).get().getContentAsByteArray());
+    }
+
+    @Test
+    void testReopenDiscardsRecordWithoutContent() throws IOException {
+        imagePackStore.store(new ByteArrayInputStream(CONTENT));
+        long headerOffset = imagePackStore.locate(HASH).get().offset() - 49;
+        imagePackStore.close();
+        Path segment = directory.resolve("segment-000001.pack");
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            // Cabecera escrita, contenido aún a ceros
+            channel.write(ByteBuffer.allocate(CONTENT.length), headerOffset + 49);
+        }
+
+        imagePackStore = open();
+
+        assertFalse(imagePackStore.locate(HASH).isPresent());
+        StoredImage storedImage = imagePackStore.store(new ByteArrayInputStream(CONTENT));
+        assertEquals(headerOffset + 49, imagePackStore.locate(storedImage.getHash()).get().offset());
+    }
+
+    @Test
+    void testCompact() throws IOException {
+        List<String> hashes = storeContents(40);
+        for (int i = 0; i < 30; i++) {
+            imagePackStore.delete(hashes.get(i));
+        }
+        int segmentsBefore = countSegments();
+
+        long reclaimed = imagePackStore.compact();
+
+        assertTrue(reclaimed > 0);
+        assertTrue(countSegments() < segmentsBefore);
+        for (int i = 30; i < hashes.size(); i++) {
+            assertArrayEquals(content(i), imagePackStore.load(hashes.get(i)).get().getContentAsByteArray());
+        }
+
+        imagePackStore.close();
+        imagePackStore = open();
+        assertFalse(imagePackStore.load(hashes.get(0)).isPresent());
+        assertArrayEquals(content(39), imagePackStore.load(hashes.get(39)).get().getContentAsByteArray());
+    }
+
+    @Test
+    void testList() throws IOException {
+        imagePackStore.store(new ByteArrayInputStream(CONTENT));
+
+        try (Stream<StoredImage> contents = imagePackStore.list(Instant.now().plus(1, ChronoUnit.MINUTES))) {
+            assertEquals(List.of(HASH), contents.map(StoredImage::getHash).toList());
+        }
+        try (Stream<StoredImage> contents = imagePackStore.list(Instant.now().minus(1, ChronoUnit.DAYS))) {
+            assertEquals(0, contents.count());
+        }
+    }
+
+    private ImagePackStore open() throws IOException {
+        return new ImagePackStore(directory.toString(), true, DataSize.ofKilobytes(8), DataSize.ofKilobytes(1), 0.5);
+    }
+
+    private List<String> storeContents(int count) throws IOException {
+        List<String> hashes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            hashes.add(imagePackStore.store(new ByteArrayInputStream(content(i))).getHash());
+        }
+        return hashes;
+    }
+
+    private static byte[] content(int i) {
+        byte[] content = new byte[700];
+        content[0] = (byte) i;
+        content[1] = (byte) (i >> 8);
+        return content;
+    }
+
+    private int countSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return (int) files.count();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package spring.ecommerce.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.OptionalLong;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.Test;
+
+class PerceptualHashTest {
+
+    @Test
+    void testResizedJpegCopyIsNear() throws IOException {
+        BufferedImage original = picture(1, 800, 600);
+
+        long hash = PerceptualHash.compute(new ByteArrayInputStream(encode(original, "png"))).getAsLong();
+        long copyHash = PerceptualHash.compute(new ByteArrayInputStream(encode(resize(original, 320, 240), "jpg")))
+                .getAsLong();
+
+        assertTrue(PerceptualHash.distance(hash, copyHash) <= 4);
+    }
+
+    @Test
+    void testDifferentPictureIsFar() {
+        long hash = PerceptualHash.of(picture(1, 400, 300));
+        long otherHash = PerceptualHash.of(picture(2, 400, 300));
+
+        assertTrue(PerceptualHash.distance(hash, otherHash) > 10);
+    }
+
+    @Test
+    void testCompute_NotAnImage() throws IOException {
+        OptionalLong hash = PerceptualHash.compute(new ByteArrayInputStream("not an image".getBytes()));
+
+        assertFalse(hash.isPresent());
+    }
+
+    @Test
+    void testDistance() {
+        assertEquals(0, PerceptualHash.distance(0x0FL, 0x0FL));
+        assertEquals(2, PerceptualHash.distance(0x0FL, 0x1EL));
+        assertEquals(64, PerceptualHash.distance(0L, -1L));
+    }
+
+    private static BufferedImage picture(long seed, int width, int height) {
+        Random random = new Random(seed);
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        for (int i = 0; i < 30; i++) {
+            graphics.setColor(new Color(random.nextInt(0xFFFFFF)));
+            graphics.fillRect(random.nextInt(width), random.nextInt(height), width / 3, height / 3);
+        }
+        graphics.dispose();
+        return image;
+    }
+
+    private static BufferedImage resize(BufferedImage image, int width, int height) {
+        BufferedImage resized = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = resized.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        graphics.drawImage(image, 0, 0, width, height, null);
+        graphics.dispose();
+        return resized;
+    }
+
+    private static byte[] encode(BufferedImage image, String format) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ImageIO.write(image, format, outputStream);
+        return outputStream.toByteArray();
+    }
+}